@@ -0,0 +1,105 @@
+package com.taosdata.jdbc.benchmark;
+
+import com.taosdata.jdbc.BlockData;
+import com.taosdata.jdbc.enums.DataType;
+import com.taosdata.jdbc.rs.RestfulResultSet;
+import com.taosdata.jdbc.utils.DataTypeConverUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.taosdata.jdbc.TSDBConstants.TSDB_DATA_TYPE_BOOL;
+
+/**
+ * decoding of a websocket query block: locating the columns by BlockData.handleData, then reading every cell
+ * as the result set getters do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BlockDecodeBenchmark {
+
+    @Param({Blocks.NUMERIC, Blocks.MIXED, Blocks.VARCHAR})
+    public String columns;
+
+    @Param({"0", "0.1", "0.5"})
+    public double nullRatio;
+
+    @Param({"64", "4096"})
+    public int rows;
+
+    private ByteBuf block;
+    private List<RestfulResultSet.Field> fields;
+    private int[] types;
+
+    @Setup
+    public void setup() throws SQLException {
+        types = Blocks.types(columns);
+        String[] names = Blocks.names(types);
+        int[] lengths = Blocks.lengths(types);
+        fields = new ArrayList<>(types.length);
+        for (int i = 0; i < types.length; i++) {
+            fields.add(new RestfulResultSet.Field(names[i], DataType.convertTaosType2DataType(types[i]).getJdbcTypeValue(), lengths[i], "", types[i], 0, 0));
+        }
+        block = Unpooled.directBuffer().writeBytes(Blocks.block(types, rows, nullRatio, 42));
+    }
+
+    private BlockData handle() {
+        BlockData data = new BlockData(0, "", 0, block.duplicate(), fields, 0);
+        data.handleData();
+        return data;
+    }
+
+    @Benchmark
+    public BlockData handleData() {
+        return handle();
+    }
+
+    @Benchmark
+    public void getObject(Blackhole bh) {
+        BlockData data = handle();
+        for (int row = 0; row < data.getNumOfRows(); row++) {
+            for (int col = 0; col < types.length; col++) {
+                bh.consume(data.getObject(col, row));
+            }
+        }
+    }
+
+    // ResultSet.getString and getLong on the decoded values
+    @Benchmark
+    public void convert(Blackhole bh) throws SQLException {
+        BlockData data = handle();
+        for (int row = 0; row < data.getNumOfRows(); row++) {
+            for (int col = 0; col < types.length; col++) {
+                Object value = data.getObject(col, row);
+                if (value == null) {
+                    continue;
+                }
+                bh.consume(DataTypeConverUtil.getString(value));
+                // bool cells are bytes until the result set converts them
+                if (value instanceof Number && types[col] != TSDB_DATA_TYPE_BOOL) {
+                    bh.consume(DataTypeConverUtil.getLong(types[col], value, col + 1, 0));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.taosdata.jdbc.benchmark;
+
+import com.taosdata.jdbc.common.ColumnInfo;
+import com.taosdata.jdbc.common.TableInfo;
+import com.taosdata.jdbc.ws.FakeTaosAdapter;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+/**
+ * synthetic rows of a few column layouts, the same seed gives the same values.
+ */
+final class Blocks {
+    static final String NUMERIC = "numeric";
+    static final String MIXED = "mixed";
+    static final String VARCHAR = "varchar";
+
+    private Blocks() {
+    }
+
+    static int[] types(String columns) {
+        switch (columns) {
+            case NUMERIC:
+                return new int[]{TSDB_DATA_TYPE_TIMESTAMP, TSDB_DATA_TYPE_INT, TSDB_DATA_TYPE_BIGINT,
+                        TSDB_DATA_TYPE_FLOAT, TSDB_DATA_TYPE_DOUBLE, TSDB_DATA_TYPE_BOOL};
+            case MIXED:
+                return new int[]{TSDB_DATA_TYPE_TIMESTAMP, TSDB_DATA_TYPE_INT, TSDB_DATA_TYPE_DOUBLE,
+                        TSDB_DATA_TYPE_BOOL, TSDB_DATA_TYPE_BINARY, TSDB_DATA_TYPE_NCHAR};
+            case VARCHAR:
+                return new int[]{TSDB_DATA_TYPE_TIMESTAMP, TSDB_DATA_TYPE_BINARY, TSDB_DATA_TYPE_BINARY,
+                        TSDB_DATA_TYPE_NCHAR};
+            default:
+                throw new IllegalArgumentException("unknown columns: " + columns);
+        }
+    }
+
+    static String[] names(int[] types) {
+        String[] names = new String[types.length];
+        names[0] = "ts";
+        for (int i = 1; i < types.length; i++) {
+            names[i] = "c" + i;
+        }
+        return names;
+    }
+
+    static int[] lengths(int[] types) {
+        int[] lengths = new int[types.length];
+        for (int i = 0; i < types.length; i++) {
+            lengths[i] = types[i] == TSDB_DATA_TYPE_BINARY || types[i] == TSDB_DATA_TYPE_NCHAR ? 64 : 8;
+        }
+        return lengths;
+    }
+
+    /**
+     * @return the values of one row, null at random with the null ratio except the timestamp
+     */
+    static Object[] row(int[] types, int row, double nullRatio, Random random) {
+        Object[] values = new Object[types.length];
+        values[0] = 1700000000000L + row;
+        for (int i = 1; i < types.length; i++) {
+            if (random.nextDouble() < nullRatio) {
+                continue;
+            }
+            values[i] = value(types[i], random);
+        }
+        return values;
+    }
+
+    private static Object value(int type, Random random) {
+        switch (type) {
+            case TSDB_DATA_TYPE_INT:
+                return random.nextInt(10000);
+            case TSDB_DATA_TYPE_BIGINT:
+                return random.nextLong();
+            case TSDB_DATA_TYPE_FLOAT:
+                return random.nextFloat() * 100;
+            case TSDB_DATA_TYPE_DOUBLE:
+                return random.nextDouble() * 100;
+            case TSDB_DATA_TYPE_BOOL:
+                return random.nextBoolean();
+            case TSDB_DATA_TYPE_NCHAR:
+                return "设备_" + random.nextInt(1000);
+            default:
+                return "device_" + random.nextInt(1000) + "_" + Long.toHexString(random.nextLong());
+        }
+    }
+
+    /**
+     * @return a block as fetch_block_new returns it, with the length prefix
+     */
+    static byte[] block(int[] types, int rows, double nullRatio, long seed) {
+        Random random = new Random(seed);
+        FakeTaosAdapter.BlockBuilder builder = new FakeTaosAdapter.BlockBuilder(types);
+        for (int r = 0; r < rows; r++) {
+            builder.addRow(row(types, r, nullRatio, random));
+        }
+        return builder.build();
+    }
+
+    /**
+     * @return the bind data of a stmt2 insert into sub tables by name, the column order of the given types
+     */
+    static HashMap<ByteBuffer, TableInfo> tables(int[] types, int tables, int rowsPerTable, double nullRatio, long seed) {
+        Random random = new Random(seed);
+        HashMap<ByteBuffer, TableInfo> map = new HashMap<>();
+        for (int t = 0; t < tables; t++) {
+            List<ColumnInfo> columns = new ArrayList<>(types.length);
+            for (int i = 0; i < types.length; i++) {
+                columns.add(new ColumnInfo(i, new ArrayList<>(rowsPerTable), types[i]));
+            }
+            for (int r = 0; r < rowsPerTable; r++) {
+                Object[] values = row(types, r, nullRatio, random);
+                for (int i = 0; i < types.length; i++) {
+                    // binary values are bound as bytes, nchar values as strings
+                    Object value = values[i];
+                    if (value != null && types[i] == TSDB_DATA_TYPE_BINARY) {
+                        value = ((String) value).getBytes(StandardCharsets.UTF_8);
+                    }
+                    columns.get(i).add(value);
+                }
+            }
+            ByteBuffer name = ByteBuffer.wrap(("d" + t).getBytes(StandardCharsets.UTF_8));
+            map.put(name, new TableInfo(columns, name, new ArrayList<>()));
+        }
+        return map;
+    }
+}
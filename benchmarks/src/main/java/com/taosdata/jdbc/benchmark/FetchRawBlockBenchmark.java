@@ -0,0 +1,70 @@
+package com.taosdata.jdbc.benchmark;
+
+import com.taosdata.jdbc.ws.FakeTaosAdapter;
+import com.taosdata.jdbc.ws.tmq.entity.FetchRawBlockResp;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * decoding of a tmq fetch_raw message into rows by FetchRawBlockResp.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FetchRawBlockBenchmark {
+
+    @Param({Blocks.NUMERIC, Blocks.MIXED, Blocks.VARCHAR})
+    public String columns;
+
+    @Param({"0", "0.1", "0.5"})
+    public double nullRatio;
+
+    @Param({"64", "4096"})
+    public int rows;
+
+    @Param({"1", "8"})
+    public int blocks;
+
+    private byte[] frame;
+
+    @Setup
+    public void setup() {
+        int[] types = Blocks.types(columns);
+        List<byte[]> list = new ArrayList<>(blocks);
+        for (int i = 0; i < blocks; i++) {
+            list.add(Blocks.block(types, rows, nullRatio, i));
+        }
+        byte[] message = FakeTaosAdapter.rawMessage("d0", Blocks.names(types), types, Blocks.lengths(types), list);
+        frame = FakeTaosAdapter.fetchRawFrame(1, 1, message);
+    }
+
+    @Benchmark
+    public List<List<Object>> parseBlockInfos() throws SQLException {
+        // the response releases its buffer
+        ByteBuf buffer = Unpooled.wrappedBuffer(frame);
+        buffer.readerIndex(8);
+        FetchRawBlockResp resp = new FetchRawBlockResp(buffer);
+        resp.init();
+        resp.parseBlockInfos();
+        return resp.getResultData();
+    }
+}
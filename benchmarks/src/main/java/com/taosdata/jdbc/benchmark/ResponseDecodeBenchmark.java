@@ -0,0 +1,86 @@
+package com.taosdata.jdbc.benchmark;
+
+import com.taosdata.jdbc.ws.ResponseDecoder;
+import com.taosdata.jdbc.ws.entity.Response;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * decoding of websocket text responses into their response classes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseDecodeBenchmark {
+
+    @Param({"binary_query", "stmt2_exec", "stmt2_prepare", "poll"})
+    public String action;
+
+    private String text;
+    private ByteBuf content;
+
+    @Setup
+    public void setup() {
+        switch (action) {
+            case "binary_query":
+                text = "{\"code\":0,\"message\":\"\",\"action\":\"binary_query\",\"req_id\":3,\"timing\":96531,"
+                        + "\"id\":12,\"is_update\":false,\"affected_rows\":0,\"fields_count\":6,"
+                        + "\"fields_names\":[\"ts\",\"current\",\"voltage\",\"phase\",\"location\",\"group_id\"],"
+                        + "\"fields_types\":[9,6,4,6,8,4],\"fields_lengths\":[8,4,4,4,24,4],\"precision\":0}";
+                break;
+            case "stmt2_exec":
+                text = "{\"code\":0,\"message\":\"\",\"action\":\"stmt2_exec\",\"req_id\":3,\"timing\":1206391,"
+                        + "\"stmt_id\":1,\"affected\":1000}";
+                break;
+            case "stmt2_prepare":
+                text = "{\"code\":0,\"message\":\"\",\"action\":\"stmt2_prepare\",\"req_id\":3,\"timing\":1206391,"
+                        + "\"stmt_id\":1,\"is_insert\":true,\"fields_count\":4,\"fields\":["
+                        + "{\"name\":\"tbname\",\"field_type\":8,\"precision\":0,\"scale\":0,\"bytes\":271,\"bind_type\":4},"
+                        + "{\"name\":\"location\",\"field_type\":8,\"precision\":0,\"scale\":0,\"bytes\":26,\"bind_type\":2},"
+                        + "{\"name\":\"ts\",\"field_type\":9,\"precision\":0,\"scale\":0,\"bytes\":8,\"bind_type\":1},"
+                        + "{\"name\":\"current\",\"field_type\":6,\"precision\":0,\"scale\":0,\"bytes\":4,\"bind_type\":1}]}";
+                break;
+            case "poll":
+                text = "{\"code\":0,\"message\":\"\",\"action\":\"poll\",\"req_id\":3,\"timing\":1206391,"
+                        + "\"have_message\":true,\"topic\":\"topic_meters\",\"database\":\"power\",\"vgroup_id\":2,"
+                        + "\"message_type\":1,\"message_id\":7,\"offset\":1024}";
+                break;
+            default:
+                throw new IllegalArgumentException(action);
+        }
+        content = Unpooled.directBuffer().writeBytes(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ResponseDecoder decoder() {
+        return "poll".equals(action) ? ResponseDecoder.TMQ : ResponseDecoder.WS;
+    }
+
+    @Benchmark
+    public Response decodeString() throws IOException {
+        return decoder().decode(text);
+    }
+
+    // a text frame as it arrives, without building a string first
+    @Benchmark
+    public Response decodeByteBuf() throws IOException {
+        return decoder().decode(content);
+    }
+}
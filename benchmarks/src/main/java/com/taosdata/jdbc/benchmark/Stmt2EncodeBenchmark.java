@@ -0,0 +1,112 @@
+package com.taosdata.jdbc.benchmark;
+
+import com.taosdata.jdbc.common.AutoExpandingBuffer;
+import com.taosdata.jdbc.common.SerializeBlock;
+import com.taosdata.jdbc.common.TableInfo;
+import com.taosdata.jdbc.enums.TimestampPrecision;
+import io.netty.buffer.ByteBuf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+/**
+ * encoding of stmt2 bind requests by SerializeBlock, and of rows by AutoExpandingBuffer as the efficient writing
+ * statements do.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class Stmt2EncodeBenchmark {
+
+    @Param({Blocks.NUMERIC, Blocks.MIXED, Blocks.VARCHAR})
+    public String columns;
+
+    @Param({"0", "0.1"})
+    public double nullRatio;
+
+    @Param({"1", "100"})
+    public int tables;
+
+    @Param({"10", "1000"})
+    public int rowsPerTable;
+
+    private int[] types;
+    private HashMap<ByteBuffer, TableInfo> tableInfoMap;
+    private Object[][] rows;
+
+    @Setup
+    public void setup() {
+        types = Blocks.types(columns);
+        tableInfoMap = Blocks.tables(types, tables, rowsPerTable, nullRatio, 42);
+        Random random = new Random(42);
+        rows = new Object[tables * rowsPerTable][];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = Blocks.row(types, i, nullRatio, random);
+        }
+    }
+
+    @Benchmark
+    public int getStmt2BindBlock() throws SQLException {
+        ByteBuf block = SerializeBlock.getStmt2BindBlock(1, 1, tableInfoMap, 0, 0, types.length, TimestampPrecision.MS);
+        try {
+            return block.readableBytes();
+        } finally {
+            block.release();
+        }
+    }
+
+    @Benchmark
+    public int autoExpandingBuffer() throws SQLException {
+        AutoExpandingBuffer buffer = new AutoExpandingBuffer(64 * 1024, 1000);
+        try {
+            int bytes = 0;
+            for (Object[] row : rows) {
+                for (int i = 0; i < types.length; i++) {
+                    bytes += serialize(buffer, types[i], row[i]);
+                }
+            }
+            return bytes;
+        } finally {
+            buffer.release();
+        }
+    }
+
+    private static int serialize(AutoExpandingBuffer buffer, int type, Object value) throws SQLException {
+        boolean isNull = value == null;
+        switch (type) {
+            case TSDB_DATA_TYPE_TIMESTAMP:
+                return buffer.serializeTimeStamp(isNull ? 0 : (Long) value, isNull);
+            case TSDB_DATA_TYPE_INT:
+                return buffer.serializeInt(isNull ? 0 : (Integer) value, isNull, (byte) type);
+            case TSDB_DATA_TYPE_BIGINT:
+                return buffer.serializeLong(isNull ? 0 : (Long) value, isNull, (byte) type);
+            case TSDB_DATA_TYPE_FLOAT:
+                return buffer.serializeFloat(isNull ? 0 : (Float) value, isNull);
+            case TSDB_DATA_TYPE_DOUBLE:
+                return buffer.serializeDouble(isNull ? 0 : (Double) value, isNull);
+            case TSDB_DATA_TYPE_BOOL:
+                return buffer.serializeBool(!isNull && (Boolean) value, isNull);
+            default:
+                return buffer.serializeString((String) value, isNull, type);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.taosdata.jdbc.benchmark;
+
+import com.taosdata.jdbc.enums.FieldBindType;
+import com.taosdata.jdbc.ws.FakeTaosAdapter;
+import com.taosdata.jdbc.ws.TSWSPreparedStatement;
+import com.taosdata.jdbc.ws.stmt2.entity.Field;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+/**
+ * stmt2 inserts over loopback to the fake taosAdapter, one operation is one executeBatch.
+ * latencyMs delays the bind and exec responses, as a remote server would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WSInsertBenchmark {
+
+    @Param({Blocks.NUMERIC, Blocks.MIXED})
+    public String columns;
+
+    @Param({"1000"})
+    public int batchRows;
+
+    @Param({"1", "4"})
+    public int pipelineDepth;
+
+    @Param({"0", "1"})
+    public long latencyMs;
+
+    private FakeTaosAdapter adapter;
+    private Connection connection;
+    private PreparedStatement pstmt;
+    private int[] types;
+    private Object[][] rows;
+
+    @Setup
+    public void setup() throws Exception {
+        types = Blocks.types(columns);
+        String[] names = Blocks.names(types);
+        List<Field> fields = new ArrayList<>(types.length);
+        for (int i = 0; i < types.length; i++) {
+            fields.add(FakeTaosAdapter.field(names[i], types[i], FieldBindType.TAOS_FIELD_COL));
+        }
+        Random random = new Random(42);
+        rows = new Object[batchRows][];
+        for (int i = 0; i < batchRows; i++) {
+            rows[i] = Blocks.row(types, i, 0.1, random);
+        }
+
+        adapter = new FakeTaosAdapter().start();
+        adapter.setStmt2Fields(fields);
+        adapter.setStmt2LatencyMs(latencyMs);
+
+        Class.forName("com.taosdata.jdbc.ws.WebSocketDriver");
+        connection = DriverManager.getConnection("jdbc:TAOS-WS://127.0.0.1:" + adapter.getPort()
+                + "/?user=root&password=taosdata&stmt2PipelineDepth=" + pipelineDepth);
+        StringBuilder sql = new StringBuilder("insert into t values(?");
+        for (int i = 1; i < types.length; i++) {
+            sql.append(", ?");
+        }
+        pstmt = connection.prepareStatement(sql.append(')').toString());
+    }
+
+    @Benchmark
+    public int[] executeBatch() throws SQLException {
+        for (Object[] row : rows) {
+            for (int i = 0; i < types.length; i++) {
+                set(i + 1, types[i], row[i]);
+            }
+            pstmt.addBatch();
+        }
+        return pstmt.executeBatch();
+    }
+
+    private void set(int index, int type, Object value) throws SQLException {
+        if (value == null) {
+            pstmt.setNull(index, sqlType(type));
+            return;
+        }
+        switch (type) {
+            case TSDB_DATA_TYPE_TIMESTAMP:
+                pstmt.setTimestamp(index, new Timestamp((Long) value));
+                break;
+            case TSDB_DATA_TYPE_INT:
+                pstmt.setInt(index, (Integer) value);
+                break;
+            case TSDB_DATA_TYPE_BIGINT:
+                pstmt.setLong(index, (Long) value);
+                break;
+            case TSDB_DATA_TYPE_FLOAT:
+                pstmt.setFloat(index, (Float) value);
+                break;
+            case TSDB_DATA_TYPE_DOUBLE:
+                pstmt.setDouble(index, (Double) value);
+                break;
+            case TSDB_DATA_TYPE_BOOL:
+                pstmt.setBoolean(index, (Boolean) value);
+                break;
+            case TSDB_DATA_TYPE_NCHAR:
+                pstmt.setNString(index, (String) value);
+                break;
+            default:
+                pstmt.setString(index, (String) value);
+                break;
+        }
+    }
+
+    private static int sqlType(int type) {
+        switch (type) {
+            case TSDB_DATA_TYPE_TIMESTAMP:
+                return Types.TIMESTAMP;
+            case TSDB_DATA_TYPE_INT:
+                return Types.INTEGER;
+            case TSDB_DATA_TYPE_BIGINT:
+                return Types.BIGINT;
+            case TSDB_DATA_TYPE_FLOAT:
+                return Types.FLOAT;
+            case TSDB_DATA_TYPE_DOUBLE:
+                return Types.DOUBLE;
+            case TSDB_DATA_TYPE_BOOL:
+                return Types.BOOLEAN;
+            case TSDB_DATA_TYPE_NCHAR:
+                return Types.NCHAR;
+            default:
+                return Types.VARCHAR;
+        }
+    }
+
+    // the batches still in flight belong to the iteration
+    @TearDown(Level.Iteration)
+    public void flush() throws SQLException {
+        pstmt.unwrap(TSWSPreparedStatement.class).flushBatches();
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        pstmt.close();
+        connection.close();
+        adapter.close();
+    }
+}
@@ -0,0 +1,87 @@
+package com.taosdata.jdbc.benchmark;
+
+import com.taosdata.jdbc.ws.FakeTaosAdapter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * a websocket query read to the end over loopback from the fake taosAdapter, one operation is one query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class WSQueryBenchmark {
+
+    @Param({Blocks.NUMERIC, Blocks.MIXED})
+    public String columns;
+
+    @Param({"4096"})
+    public int rows;
+
+    @Param({"16"})
+    public int blocks;
+
+    @Param({"false", "true"})
+    public boolean blockCompression;
+
+    private FakeTaosAdapter adapter;
+    private Connection connection;
+    private int columnCount;
+
+    @Setup
+    public void setup() throws Exception {
+        int[] types = Blocks.types(columns);
+        columnCount = types.length;
+        List<byte[]> list = new ArrayList<>(blocks);
+        for (int i = 0; i < blocks; i++) {
+            list.add(Blocks.block(types, rows, 0.1, i));
+        }
+        adapter = new FakeTaosAdapter().start();
+        adapter.setResult(new FakeTaosAdapter.Result(Blocks.names(types), types, Blocks.lengths(types), list));
+
+        Class.forName("com.taosdata.jdbc.ws.WebSocketDriver");
+        connection = DriverManager.getConnection("jdbc:TAOS-WS://127.0.0.1:" + adapter.getPort()
+                + "/?user=root&password=taosdata&blockCompression=" + blockCompression);
+    }
+
+    @Benchmark
+    public void query(Blackhole bh) throws SQLException {
+        try (Statement stmt = connection.createStatement();
+             ResultSet rs = stmt.executeQuery("select * from t")) {
+            while (rs.next()) {
+                for (int i = 1; i <= columnCount; i++) {
+                    bh.consume(rs.getObject(i));
+                }
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        connection.close();
+        adapter.close();
+    }
+}
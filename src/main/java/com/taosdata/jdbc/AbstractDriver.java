@@ -1,19 +1,19 @@
 package com.taosdata.jdbc;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectReader;
 import com.taosdata.jdbc.enums.WSFunction;
 import com.taosdata.jdbc.rs.ConnectionParam;
 import com.taosdata.jdbc.utils.*;
 import com.taosdata.jdbc.ws.FutureResponse;
 import com.taosdata.jdbc.ws.InFlightRequest;
+import com.taosdata.jdbc.ws.ResponseDecoder;
 import com.taosdata.jdbc.ws.Transport;
 import com.taosdata.jdbc.ws.WSConnection;
 import com.taosdata.jdbc.ws.entity.*;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.Driver;
@@ -65,19 +65,22 @@ public abstract class AbstractDriver implements Driver {
                 log.error("Error serializing ConnectionParam", e);
             }
         }
-        InFlightRequest inFlightRequest = new InFlightRequest(param.getRequestTimeout(), param.getMaxRequest());
-        param.setTextMessageHandler(message -> {
+        InFlightRequest inFlightRequest = new InFlightRequest(param.getRequestTimeout(), param.getMaxRequest(),
+                param.getRequestWaitPolicy());
+        param.setTextFrameHandler(message -> {
             try {
-                log.trace("received message: {}", message);
-                JsonNode jsonObject = JsonUtil.getObjectReader().readTree(message);
-                Action action = Action.of(jsonObject.get("action").asText());
-                ObjectReader actionReader = JsonUtil.getObjectReader(action.getResponseClazz());
-                Response response = actionReader.treeToValue(jsonObject, action.getResponseClazz());
+                if (log.isTraceEnabled()) {
+                    log.trace("received message: {}", message.toString(StandardCharsets.UTF_8));
+                }
+                Response response = ResponseDecoder.WS.decode(message);
+                if (null == response) {
+                    return;
+                }
                 FutureResponse remove = inFlightRequest.remove(response.getAction(), response.getReqId());
                 if (null != remove) {
                     remove.getFuture().complete(response);
                 }
-            } catch (JsonProcessingException e) {
+            } catch (IOException e) {
                 log.error("Error processing message", e);
             }
         });
@@ -105,6 +108,7 @@ public abstract class AbstractDriver implements Driver {
             transport.close();
             throw new SQLException("(0x" + Integer.toHexString(auth.getCode()) + "):" + "auth failure:" + auth.getMessage());
         }
+        transport.setBlockCompression(auth.getBlockCompression());
 
         String version = auth.getVersion();
         if (version == null){
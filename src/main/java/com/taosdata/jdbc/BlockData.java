@@ -2,23 +2,25 @@ package com.taosdata.jdbc;
 
 import com.taosdata.jdbc.rs.RestfulResultSet;
 import com.taosdata.jdbc.utils.DateTimeUtils;
-import com.taosdata.jdbc.utils.DecimalUtil;
 import io.netty.buffer.ByteBuf;
 import io.netty.util.ReferenceCountUtil;
 
 import java.math.BigDecimal;
 import java.sql.SQLException;
-import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 
 import static com.taosdata.jdbc.TSDBConstants.*;
 
+/**
+ * Columnar view over one fetched raw block.
+ * <p>
+ * The fetched {@link ByteBuf} is retained and read in place through a {@link RawBlock},
+ * so reading a cell does not allocate. The buffer is released by {@link #release()}
+ * once the block has been consumed.
+ */
 public class BlockData {
-    private List<List<Object>> data;
-
     private int returnCode;
     private String errorMessage;
     private boolean isCompleted;
@@ -28,14 +30,15 @@ public class BlockData {
     private final Semaphore semaphore;
     private int precision;
 
-    public BlockData(List<List<Object>> data,
-                     int returnCode,
+    private int[] types;
+    private RawBlock block;
+
+    public BlockData(int returnCode,
                      String errorMessage,
                      int numOfRows,
                      ByteBuf buffer,
                      List<RestfulResultSet.Field> fields,
                      int precision) {
-        this.data = data;
         this.returnCode = returnCode;
         this.errorMessage = errorMessage;
         this.numOfRows = numOfRows;
@@ -47,235 +50,125 @@ public class BlockData {
     }
 
     public static BlockData getEmptyBlockData(List<RestfulResultSet.Field> fields, int precision) {
-        return new BlockData(null, 0, "",0, null, fields, precision);
+        return new BlockData(0, "", 0, null, fields, precision);
     }
 
+    /**
+     * parse the block header and locate every column, the cell values are decoded lazily by the getters.
+     */
     public void handleData() {
         try {
             int columns = fields.size();
-            List<List<Object>> list = new ArrayList<>();
+            types = new int[columns];
+            for (int i = 0; i < columns; i++) {
+                types[i] = fields.get(i).getTaosType();
+            }
             if (buffer != null) {
-                buffer.readIntLE(); // buffer length
-                int pHeader = buffer.readerIndex() + 28 + columns * 5;
-                buffer.skipBytes(8);
-                this.numOfRows = buffer.readIntLE();
-
-                buffer.readerIndex(pHeader);
-                int bitMapOffset = bitmapLen(numOfRows);
-
-                List<Integer> lengths = new ArrayList<>(columns);
-                for (int i = 0; i < columns; i++) {
-                    lengths.add(buffer.readIntLE());
-                }
-                pHeader = buffer.readerIndex();
-                int length = 0;
-                for (int i = 0; i < columns; i++) {
-                    List<Object> col = new ArrayList<>(numOfRows);
-                    int type = fields.get(i).getTaosType();
-                    int scale = fields.get(i).getScale();
-                    switch (type) {
-                        case TSDB_DATA_TYPE_BOOL:
-                        case TSDB_DATA_TYPE_TINYINT:
-                        case TSDB_DATA_TYPE_UTINYINT: {
-                            length = bitMapOffset;
-                            byte[] tmp = new byte[bitMapOffset];
-                            buffer.readBytes(tmp);
-                            for (int j = 0; j < numOfRows; j++) {
-                                byte b = buffer.readByte();
-                                if (isNull(tmp, j)) {
-                                    col.add(null);
-                                } else {
-                                    col.add(b);
-                                }
-                            }
-                            break;
-                        }
-                        case TSDB_DATA_TYPE_SMALLINT:
-                        case TSDB_DATA_TYPE_USMALLINT: {
-                            length = bitMapOffset;
-                            byte[] tmp = new byte[bitMapOffset];
-                            buffer.readBytes(tmp);
-                            for (int j = 0; j < numOfRows; j++) {
-                                short s = buffer.readShortLE();
-                                if (isNull(tmp, j)) {
-                                    col.add(null);
-                                } else {
-                                    col.add(s);
-                                }
-                            }
-                            break;
-                        }
-                        case TSDB_DATA_TYPE_INT:
-                        case TSDB_DATA_TYPE_UINT: {
-                            length = bitMapOffset;
-                            byte[] tmp = new byte[bitMapOffset];
-                            buffer.readBytes(tmp);
-                            for (int j = 0; j < numOfRows; j++) {
-                                int in = buffer.readIntLE();
-                                if (isNull(tmp, j)) {
-                                    col.add(null);
-                                } else {
-                                    col.add(in);
-                                }
-                            }
-                            break;
-                        }
-                        case TSDB_DATA_TYPE_BIGINT:
-                        case TSDB_DATA_TYPE_UBIGINT: {
-                            length = bitMapOffset;
-                            byte[] tmp = new byte[bitMapOffset];
-                            buffer.readBytes(tmp);
-                            for (int j = 0; j < numOfRows; j++) {
-                                long l = buffer.readLongLE();
-                                if (isNull(tmp, j)) {
-                                    col.add(null);
-                                } else {
-                                    col.add(l);
-                                }
-                            }
-                            break;
-                        }
-                        case TSDB_DATA_TYPE_TIMESTAMP: {
-                            length = bitMapOffset;
-                            byte[] tmp = new byte[bitMapOffset];
-                            buffer.readBytes(tmp);
-                            for (int j = 0; j < numOfRows; j++) {
-                                long l = buffer.readLongLE();
-                                if (isNull(tmp, j)) {
-                                    col.add(null);
-                                } else {
-                                    Instant instant = DateTimeUtils.parseTimestampColumnData(l, precision);
-                                    col.add(instant);
-                                }
-                            }
-                            break;
-                        }
-                        case TSDB_DATA_TYPE_FLOAT: {
-                            length = bitMapOffset;
-                            byte[] tmp = new byte[bitMapOffset];
-                            buffer.readBytes(tmp);
-                            for (int j = 0; j < numOfRows; j++) {
-                                float f = buffer.readFloatLE();
-                                if (isNull(tmp, j)) {
-                                    col.add(null);
-                                } else {
-                                    col.add(f);
-                                }
-                            }
-                            break;
-                        }
-                        case TSDB_DATA_TYPE_DOUBLE: {
-                            length = bitMapOffset;
-                            byte[] tmp = new byte[bitMapOffset];
-                            buffer.readBytes(tmp);
-                            for (int j = 0; j < numOfRows; j++) {
-                                double d = buffer.readDoubleLE();
-                                if (isNull(tmp, j)) {
-                                    col.add(null);
-                                } else {
-                                    col.add(d);
-                                }
-                            }
-                            break;
-                        }
-                        case TSDB_DATA_TYPE_BINARY:
-                        case TSDB_DATA_TYPE_JSON:
-                        case TSDB_DATA_TYPE_BLOB:
-                        case TSDB_DATA_TYPE_VARBINARY:
-                        case TSDB_DATA_TYPE_GEOMETRY: {
-                            length = numOfRows * 4;
-                            List<Integer> offset = new ArrayList<>(numOfRows);
-                            for (int m = 0; m < numOfRows; m++) {
-                                offset.add(buffer.readIntLE());
-                            }
-                            int start = buffer.readerIndex();
-                            for (int m = 0; m < numOfRows; m++) {
-                                if (-1 == offset.get(m)) {
-                                    col.add(null);
-                                    continue;
-                                }
-                                buffer.readerIndex(start + offset.get(m));
-                                int len;
-                                if (type != TSDB_DATA_TYPE_BLOB) {
-                                    len = buffer.readShortLE() & 0xFFFF;
-
-                                } else {
-                                    len = buffer.readIntLE();
-                                }
-
-                                byte[] tmp = new byte[len];
-                                buffer.readBytes(tmp);
-                                col.add(tmp);
-                            }
-                            break;
-                        }
-                        case TSDB_DATA_TYPE_NCHAR: {
-                            length = numOfRows * 4;
-                            List<Integer> offset = new ArrayList<>(numOfRows);
-                            for (int m = 0; m < numOfRows; m++) {
-                                offset.add(buffer.readIntLE());
-                            }
-                            int start = buffer.readerIndex();
-                            for (int m = 0; m < numOfRows; m++) {
-                                if (-1 == offset.get(m)) {
-                                    col.add(null);
-                                    continue;
-                                }
-                                buffer.readerIndex(start + offset.get(m));
-                                int len = (buffer.readShortLE() & 0xFFFF) / 4;
-                                int[] tmp = new int[len];
-                                for (int n = 0; n < len; n++) {
-                                    tmp[n] = buffer.readIntLE();
-                                }
-                                col.add(tmp);
-                            }
-                            break;
-                        }
-                        case TSDB_DATA_TYPE_DECIMAL128:
-                        case TSDB_DATA_TYPE_DECIMAL64:
-                            int dataLen = type == TSDB_DATA_TYPE_DECIMAL128 ? 16 : 8;
-                            length = bitMapOffset;
-                            byte[] tmp = new byte[bitMapOffset];
-                            buffer.readBytes(tmp);
-                            for (int j = 0; j < numOfRows; j++) {
-                                byte[] tb = new byte[dataLen];
-                                buffer.readBytes(tb);
-
-                                if (isNull(tmp, j)) {
-                                    col.add(null);
-                                } else {
-                                    BigDecimal t = DecimalUtil.getBigDecimal(tb, scale);
-                                    col.add(t);
-                                }
-                            }
-                            break;
-                        default:
-                            // unknown type, do nothing
-                            col.add(null);
-                            break;
-                    }
-                    pHeader += length + lengths.get(i);
-                    buffer.readerIndex(pHeader);
-                    list.add(col);
-                }
+                // the raw block follows its length
+                block = new RawBlock(buffer, buffer.readerIndex() + 4, types);
+                this.numOfRows = block.getRows();
             }
-            this.data = list;
-            semaphore.release();
-        } catch (Exception e){
-            e.printStackTrace();
+        } catch (Exception e) {
+            release();
+            returnCode = TSDBErrorNumbers.ERROR_UNKNOWN;
+            errorMessage = "failed to parse block data: " + e.getMessage();
         } finally {
-            ReferenceCountUtil.safeRelease(buffer);
+            semaphore.release();
         }
     }
 
-    private int bitmapLen(int n) {
-        return (n + 0x7) >> 3;
+    /**
+     * @return the columns of the block, null before {@link #handleData()} or for an empty block
+     */
+    public RawBlock getRawBlock() {
+        return block;
     }
 
-    private boolean isNull(byte[] c, int n) {
-        int position = n >>> 3;
-        int index = n & 0x7;
-        return (c[position] & (1 << (7 - index))) == (1 << (7 - index));
+    /**
+     * @param col column index, start from 0
+     * @param row row index, start from 0
+     */
+    public boolean isNull(int col, int row) {
+        return block.isNull(col, row);
+    }
+
+    public byte getByte(int col, int row) {
+        return block.getByte(col, row);
+    }
+
+    public short getShort(int col, int row) {
+        return block.getShort(col, row);
+    }
+
+    public int getInt(int col, int row) {
+        return block.getInt(col, row);
+    }
+
+    public long getLong(int col, int row) {
+        return block.getLong(col, row);
+    }
+
+    public float getFloat(int col, int row) {
+        return block.getFloat(col, row);
+    }
+
+    public double getDouble(int col, int row) {
+        return block.getDouble(col, row);
+    }
+
+    /**
+     * raw bytes of a var-width cell (binary, json, varbinary, geometry, blob)
+     */
+    public byte[] getVarBytes(int col, int row) {
+        return block.getVarBytes(col, row);
+    }
+
+    /**
+     * decode a binary cell as UTF-8 without an intermediate byte array
+     */
+    public String getVarString(int col, int row) {
+        return block.getVarString(col, row);
+    }
+
+    /**
+     * decode a nchar cell, nchar is stored as UCS-4 code points
+     */
+    public String getNString(int col, int row) {
+        return block.getNString(col, row);
+    }
+
+    public BigDecimal getDecimal(int col, int row) {
+        return block.getDecimal(col, row, fields.get(col).getScale());
+    }
+
+    /**
+     * boxed value of a cell, same representation as the former row-wise decoding.
+     */
+    public Object getObject(int col, int row) {
+        switch (types[col]) {
+            case TSDB_DATA_TYPE_TIMESTAMP:
+                return block.isNull(col, row) ? null : DateTimeUtils.parseTimestampColumnData(getLong(col, row), precision);
+            case TSDB_DATA_TYPE_DECIMAL128:
+            case TSDB_DATA_TYPE_DECIMAL64:
+                return block.isNull(col, row) ? null : getDecimal(col, row);
+            default:
+                return block.getObject(col, row);
+        }
+    }
+
+    public int getColumnType(int col) {
+        return types[col];
+    }
+
+    /**
+     * release the fetched buffer, the block must not be read afterwards.
+     */
+    public void release() {
+        if (buffer != null) {
+            ReferenceCountUtil.safeRelease(buffer);
+            buffer = null;
+            block = null;
+        }
     }
 
     public void doneWithNoData(){
@@ -294,14 +187,6 @@ public class BlockData {
         }
     }
 
-    public List<List<Object>> getData() {
-        return data;
-    }
-
-    public void setData(List<List<Object>> data) {
-        this.data = data;
-    }
-
     public int getReturnCode() {
         return returnCode;
     }
@@ -340,6 +225,10 @@ public class BlockData {
         this.fields = fields;
     }
 
+    public int getPrecision() {
+        return precision;
+    }
+
     public boolean isCompleted() {
         return isCompleted;
     }
@@ -0,0 +1,318 @@
+package com.taosdata.jdbc;
+
+import com.taosdata.jdbc.utils.DecimalUtil;
+import io.netty.buffer.ByteBuf;
+
+import java.math.BigDecimal;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+/**
+ * Decoder of the raw block format, shared by websocket queries, native fetches and tmq fetch_raw_data.
+ * <p>
+ * layout: version(4) | length(4) | rows(4) | cols(4) | flag(4) | group id(8) | cols * (type(1) | bytes(4)) |
+ * cols * column length(4) | columns. a fixed-width column is a null bitmap followed by the values, a var-width
+ * column is an offset array (-1 for null) followed by the values, each prefixed by its length.
+ * <p>
+ * the block is read in place, locating the columns is done once and reading a cell does not allocate.
+ */
+public final class RawBlock {
+    public static final int HEADER_LENGTH = 28;
+
+    private final ByteBuf buffer;
+    private final int start;
+    private final int rows;
+    private final int[] types;
+    // per column: start of the null bitmap (fixed-width) or offset array (var-width)
+    private final int[] headerOffsets;
+    // per column: start of the column values
+    private final int[] dataOffsets;
+    private final int end;
+
+    /**
+     * @param start index of the block in the buffer
+     * @param types column types, the block must have as many columns
+     */
+    public RawBlock(ByteBuf buffer, int start, int[] types) {
+        this.buffer = buffer;
+        this.start = start;
+        this.types = types;
+        this.rows = buffer.getIntLE(start + 8);
+
+        int columns = types.length;
+        headerOffsets = new int[columns];
+        dataOffsets = new int[columns];
+        int pLengths = start + HEADER_LENGTH + columns * 5;
+        int pHeader = pLengths + columns * 4;
+        int bitmapLen = bitmapLen(rows);
+        for (int i = 0; i < columns; i++) {
+            int length = isVarType(types[i]) ? rows * 4 : bitmapLen;
+            headerOffsets[i] = pHeader;
+            dataOffsets[i] = pHeader + length;
+            pHeader += length + buffer.getIntLE(pLengths + i * 4);
+        }
+        end = pHeader;
+    }
+
+    public static boolean isVarType(int type) {
+        switch (type) {
+            case TSDB_DATA_TYPE_BINARY:
+            case TSDB_DATA_TYPE_JSON:
+            case TSDB_DATA_TYPE_BLOB:
+            case TSDB_DATA_TYPE_VARBINARY:
+            case TSDB_DATA_TYPE_GEOMETRY:
+            case TSDB_DATA_TYPE_NCHAR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // ceil(numOfRows/8.0)
+    public static int bitmapLen(int n) {
+        return (n + 0x7) >> 3;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return types.length;
+    }
+
+    public int getColumnType(int col) {
+        return types[col];
+    }
+
+    /**
+     * @return bytes from the start of the block to the end of the last column
+     */
+    public int getLength() {
+        return end - start;
+    }
+
+    /**
+     * scale of a decimal column, from the bytes of the column schema: |___bytes___|__empty__|___prec___|__scale___|
+     */
+    public int getScale(int col) {
+        return buffer.getIntLE(start + HEADER_LENGTH + col * 5 + 1) & 0xFF;
+    }
+
+    /**
+     * @param col column index, start from 0
+     * @param row row index, start from 0
+     */
+    public boolean isNull(int col, int row) {
+        if (isVarType(types[col])) {
+            return buffer.getIntLE(headerOffsets[col] + row * 4) == -1;
+        }
+        int mask = 1 << (7 - (row & 0x7));
+        return (buffer.getByte(headerOffsets[col] + (row >>> 3)) & mask) == mask;
+    }
+
+    /**
+     * @return false if no cell of the column is null, so the cells can be read without checking each of them
+     */
+    public boolean hasNull(int col) {
+        if (isVarType(types[col])) {
+            for (int row = 0; row < rows; row++) {
+                if (buffer.getIntLE(headerOffsets[col] + row * 4) == -1) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        int index = headerOffsets[col];
+        int len = bitmapLen(rows);
+        for (; len >= 8; len -= 8, index += 8) {
+            if (buffer.getLong(index) != 0) {
+                return true;
+            }
+        }
+        for (; len > 0; len--, index++) {
+            if (buffer.getByte(index) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public byte getByte(int col, int row) {
+        return buffer.getByte(dataOffsets[col] + row);
+    }
+
+    public short getShort(int col, int row) {
+        return buffer.getShortLE(dataOffsets[col] + row * 2);
+    }
+
+    public int getInt(int col, int row) {
+        return buffer.getIntLE(dataOffsets[col] + row * 4);
+    }
+
+    public long getLong(int col, int row) {
+        return buffer.getLongLE(dataOffsets[col] + row * 8);
+    }
+
+    public float getFloat(int col, int row) {
+        return buffer.getFloatLE(dataOffsets[col] + row * 4);
+    }
+
+    public double getDouble(int col, int row) {
+        return buffer.getDoubleLE(dataOffsets[col] + row * 8);
+    }
+
+    public short getUnsignedByte(int col, int row) {
+        return buffer.getUnsignedByte(dataOffsets[col] + row);
+    }
+
+    public int getUnsignedShort(int col, int row) {
+        return buffer.getUnsignedShortLE(dataOffsets[col] + row * 2);
+    }
+
+    public long getUnsignedInt(int col, int row) {
+        return buffer.getUnsignedIntLE(dataOffsets[col] + row * 4);
+    }
+
+    /*******************************************************/
+    // bulk extraction of a fixed-width column, the values of null cells are undefined
+
+    public void getBytes(int col, byte[] dst) {
+        buffer.getBytes(dataOffsets[col], dst, 0, rows);
+    }
+
+    public void getShorts(int col, short[] dst) {
+        buffer.nioBuffer(dataOffsets[col], rows * 2).order(ByteOrder.LITTLE_ENDIAN).asShortBuffer().get(dst, 0, rows);
+    }
+
+    public void getInts(int col, int[] dst) {
+        buffer.nioBuffer(dataOffsets[col], rows * 4).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(dst, 0, rows);
+    }
+
+    public void getLongs(int col, long[] dst) {
+        buffer.nioBuffer(dataOffsets[col], rows * 8).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer().get(dst, 0, rows);
+    }
+
+    public void getFloats(int col, float[] dst) {
+        buffer.nioBuffer(dataOffsets[col], rows * 4).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(dst, 0, rows);
+    }
+
+    public void getDoubles(int col, double[] dst) {
+        buffer.nioBuffer(dataOffsets[col], rows * 8).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(dst, 0, rows);
+    }
+
+    /*******************************************************/
+
+    private int varDataIndex(int col, int row) {
+        return dataOffsets[col] + buffer.getIntLE(headerOffsets[col] + row * 4);
+    }
+
+    /**
+     * raw bytes of a var-width cell (binary, json, varbinary, geometry, blob)
+     */
+    public byte[] getVarBytes(int col, int row) {
+        int index = varDataIndex(col, row);
+        int len;
+        if (types[col] == TSDB_DATA_TYPE_BLOB) {
+            len = buffer.getIntLE(index);
+            index += 4;
+        } else {
+            len = buffer.getShortLE(index) & 0xFFFF;
+            index += 2;
+        }
+        byte[] tmp = new byte[len];
+        buffer.getBytes(index, tmp);
+        return tmp;
+    }
+
+    /**
+     * decode a binary cell as UTF-8 without an intermediate byte array
+     */
+    public String getVarString(int col, int row) {
+        int index = varDataIndex(col, row);
+        int len = buffer.getShortLE(index) & 0xFFFF;
+        return buffer.toString(index + 2, len, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * code points of a nchar cell, nchar is stored as UCS-4
+     */
+    public int[] getNCodePoints(int col, int row) {
+        int index = varDataIndex(col, row);
+        int len = (buffer.getShortLE(index) & 0xFFFF) / 4;
+        index += 2;
+        int[] tmp = new int[len];
+        for (int n = 0; n < len; n++) {
+            tmp[n] = buffer.getIntLE(index + n * 4);
+        }
+        return tmp;
+    }
+
+    public String getNString(int col, int row) {
+        int index = varDataIndex(col, row);
+        int len = (buffer.getShortLE(index) & 0xFFFF) / 4;
+        index += 2;
+        StringBuilder sb = new StringBuilder(len);
+        for (int n = 0; n < len; n++) {
+            sb.appendCodePoint(buffer.getIntLE(index + n * 4));
+        }
+        return sb.toString();
+    }
+
+    public BigDecimal getDecimal(int col, int row) {
+        return getDecimal(col, row, getScale(col));
+    }
+
+    public BigDecimal getDecimal(int col, int row, int scale) {
+        int dataLen = types[col] == TSDB_DATA_TYPE_DECIMAL128 ? 16 : 8;
+        byte[] tb = new byte[dataLen];
+        buffer.getBytes(dataOffsets[col] + row * dataLen, tb);
+        return DecimalUtil.getBigDecimal(tb, scale);
+    }
+
+    /**
+     * boxed value of a cell as stored: the signed value for unsigned types, epoch for timestamps, byte[] for
+     * var-width types, code points for nchar and BigDecimal for decimals. null for null cells and unknown types.
+     */
+    public Object getObject(int col, int row) {
+        if (isNull(col, row)) {
+            return null;
+        }
+        switch (types[col]) {
+            case TSDB_DATA_TYPE_BOOL:
+            case TSDB_DATA_TYPE_TINYINT:
+            case TSDB_DATA_TYPE_UTINYINT:
+                return getByte(col, row);
+            case TSDB_DATA_TYPE_SMALLINT:
+            case TSDB_DATA_TYPE_USMALLINT:
+                return getShort(col, row);
+            case TSDB_DATA_TYPE_INT:
+            case TSDB_DATA_TYPE_UINT:
+                return getInt(col, row);
+            case TSDB_DATA_TYPE_BIGINT:
+            case TSDB_DATA_TYPE_UBIGINT:
+            case TSDB_DATA_TYPE_TIMESTAMP:
+                return getLong(col, row);
+            case TSDB_DATA_TYPE_FLOAT:
+                return getFloat(col, row);
+            case TSDB_DATA_TYPE_DOUBLE:
+                return getDouble(col, row);
+            case TSDB_DATA_TYPE_BINARY:
+            case TSDB_DATA_TYPE_JSON:
+            case TSDB_DATA_TYPE_BLOB:
+            case TSDB_DATA_TYPE_VARBINARY:
+            case TSDB_DATA_TYPE_GEOMETRY:
+                return getVarBytes(col, row);
+            case TSDB_DATA_TYPE_NCHAR:
+                return getNCodePoints(col, row);
+            case TSDB_DATA_TYPE_DECIMAL128:
+            case TSDB_DATA_TYPE_DECIMAL64:
+                return getDecimal(col, row);
+            default:
+                // unknown type, do nothing
+                return null;
+        }
+    }
+}
@@ -1,8 +1,5 @@
 package com.taosdata.jdbc;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectReader;
 import com.taosdata.jdbc.enums.ConnectionType;
 import com.taosdata.jdbc.enums.SchemalessProtocolType;
 import com.taosdata.jdbc.enums.SchemalessTimestampType;
@@ -10,17 +7,20 @@ import com.taosdata.jdbc.enums.WSFunction;
 import com.taosdata.jdbc.rs.ConnectionParam;
 import com.taosdata.jdbc.rs.RestfulDriver;
 import com.taosdata.jdbc.utils.HttpClientPoolUtil;
-import com.taosdata.jdbc.utils.JsonUtil;
 import com.taosdata.jdbc.utils.StringUtils;
 import com.taosdata.jdbc.ws.FutureResponse;
 import com.taosdata.jdbc.ws.InFlightRequest;
+import com.taosdata.jdbc.ws.ResponseDecoder;
 import com.taosdata.jdbc.ws.Transport;
 import com.taosdata.jdbc.ws.entity.*;
 import com.taosdata.jdbc.ws.schemaless.ConnReq;
 import com.taosdata.jdbc.ws.schemaless.InsertReq;
+import com.taosdata.jdbc.ws.schemaless.SchemalessBatchResult;
+import com.taosdata.jdbc.ws.schemaless.SchemalessBatchWriter;
 import com.taosdata.jdbc.ws.schemaless.SchemalessAction;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
@@ -39,6 +39,7 @@ public class SchemalessWriter implements AutoCloseable {
     // websocket
     private Transport transport;
     private final AtomicLong insertId = new AtomicLong(0);
+    private SchemalessBatchWriter batchWriter;
 
     // meta
     private String dbName;
@@ -118,22 +119,27 @@ public class SchemalessWriter implements AutoCloseable {
             properties.setProperty(TSDBDriver.PROPERTY_KEY_USE_SSL, String.valueOf(useSSL));
         ConnectionParam param = ConnectionParam.getParam(properties);
 
-        this.init(param.getHost(), param.getPort(), param.getUser(), param.getPassword(), param.getDatabase(), param.getCloudToken(), t, param.isUseSsl());
+        this.init(param.getHost(), param.getPort(), param.getUser(), param.getPassword(), param.getDatabase(), param.getCloudToken(), t, param.isUseSsl(),
+                param.getSchemalessBatchBytes(), param.getSchemalessMaxInflight());
     }
 
     public SchemalessWriter(String host, String port, String cloudToken, String dbName, Boolean useSSL) throws SQLException {
-        init(host, port, null, null, dbName, cloudToken, "ws", useSSL);
+        init(host, port, null, null, dbName, cloudToken, "ws", useSSL,
+                ConnectionParam.DEFAULT_SCHEMALESS_BATCH_BYTES, ConnectionParam.DEFAULT_SCHEMALESS_MAX_INFLIGHT);
     }
 
     public SchemalessWriter(String host, String port, String user, String password, String dbName, String type) throws SQLException {
-        init(host, port, user, password, dbName, null, type, false);
+        init(host, port, user, password, dbName, null, type, false,
+                ConnectionParam.DEFAULT_SCHEMALESS_BATCH_BYTES, ConnectionParam.DEFAULT_SCHEMALESS_MAX_INFLIGHT);
     }
 
     public SchemalessWriter(String host, String port, String user, String password, String dbName, String type, Boolean useSSL) throws SQLException {
-        init(host, port, user, password, dbName, null, type, useSSL);
+        init(host, port, user, password, dbName, null, type, useSSL,
+                ConnectionParam.DEFAULT_SCHEMALESS_BATCH_BYTES, ConnectionParam.DEFAULT_SCHEMALESS_MAX_INFLIGHT);
     }
 
-    private void init(String host, String port, String user, String password, String dbName, String cloudToken, String type, boolean useSSL) throws SQLException {
+    private void init(String host, String port, String user, String password, String dbName, String cloudToken, String type, boolean useSSL,
+                      int batchBytes, int maxInflight) throws SQLException {
         this.dbName = dbName;
         if (null == type || ConnectionType.JNI.getType().equalsIgnoreCase(type)) {
             this.type = ConnectionType.JNI;
@@ -151,24 +157,28 @@ public class SchemalessWriter implements AutoCloseable {
                     .setConnectionTimeout(connectTime)
                     .setRequestTimeout(timeout)
                     .setUseSsl(useSSL)
+                    .setSchemalessBatchBytes(batchBytes)
+                    .setSchemalessMaxInflight(maxInflight)
                     .build();
             InFlightRequest inFlightRequest = new InFlightRequest(timeout, 20);
-            param.setTextMessageHandler(message -> {
+            param.setTextFrameHandler(message -> {
                 try {
-                    JsonNode jsonObject = JsonUtil.getObjectReader().readTree(message);
-                    ObjectReader actionReader = JsonUtil.getObjectReader(CommonResp.class);
-                    Response response = actionReader.treeToValue(jsonObject, CommonResp.class);
+                    Response response = ResponseDecoder.SCHEMALESS.decode(message);
+                    if (null == response) {
+                        return;
+                    }
                     FutureResponse remove = inFlightRequest.remove(response.getAction(), response.getReqId());
                     if (null != remove) {
                         remove.getFuture().complete(response);
                     }
-                } catch (JsonProcessingException e) {
+                } catch (IOException e) {
                     log.error("Error processing message", e);
                 }
             });
 
             this.transport = new Transport(WSFunction.SCHEMALESS, param, inFlightRequest);
-
+            this.batchWriter = new SchemalessBatchWriter(transport, param.getSchemalessBatchBytes(),
+                    param.getSchemalessMaxInflight(), insertId);
 
 
             transport.checkConnection(connectTime);
@@ -218,19 +228,9 @@ public class SchemalessWriter implements AutoCloseable {
                 break;
             }
             case WS: {
-                for (String line : lines) {
-                    InsertReq insertReq = new InsertReq();
-                    insertReq.setReqId(insertId.getAndIncrement());
-                    insertReq.setProtocol(protocolType.ordinal());
-                    insertReq.setPrecision(timestampType.getType());
-                    insertReq.setData(line);
-                    if (ttl != null)
-                        insertReq.setTtl(ttl);
-                    if (reqId != null)
-                        insertReq.setReqId(reqId);
-                    CommonResp response = (CommonResp) transport.send(new Request(SchemalessAction.INSERT.getAction(), insertReq));
-                    if (Code.SUCCESS.getCode() != response.getCode()) {
-                        throw new SQLException("(0x" + Integer.toHexString(response.getCode()) + "):" + response.getMessage());
+                for (SchemalessBatchResult result : batchWriter.write(lines, protocolType, timestampType, ttl, reqId)) {
+                    if (!result.isSuccess()) {
+                        throw new SQLException("(0x" + Integer.toHexString(result.getCode()) + "):" + result.getMessage());
                     }
                 }
                 break;
@@ -255,19 +255,9 @@ public class SchemalessWriter implements AutoCloseable {
                 break;
             }
             case WS: {
-                for (String line : lines) {
-                    InsertReq insertReq = new InsertReq();
-                    insertReq.setReqId(insertId.getAndIncrement());
-                    insertReq.setProtocol(protocolType.ordinal());
-                    insertReq.setPrecision(timestampType.getType());
-                    insertReq.setData(line);
-                    if (ttl != null)
-                        insertReq.setTtl(ttl);
-                    if (reqId != null)
-                        insertReq.setReqId(reqId);
-                    CommonResp response = (CommonResp) transport.send(new Request(SchemalessAction.INSERT.getAction(), insertReq));
-                    if (Code.SUCCESS.getCode() != response.getCode()) {
-                        throw new SQLException("0x" + Integer.toHexString(response.getCode()) + ":" + response.getMessage());
+                for (SchemalessBatchResult result : batchWriter.write(lines, protocolType, timestampType, ttl, reqId)) {
+                    if (!result.isSuccess()) {
+                        throw new SQLException("0x" + Integer.toHexString(result.getCode()) + ":" + result.getMessage());
                     }
                 }
                 break;
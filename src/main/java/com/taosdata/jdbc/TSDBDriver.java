@@ -137,14 +137,68 @@ public class TSDBDriver extends AbstractDriver {
     public static final String PROPERTY_KEY_STRICT_CHECK = "strictCheck";
     public static final String PROPERTY_KEY_RETRY_TIMES = "retryTimes";
     public static final String PROPERTY_KEY_ASYNC_WRITE = "asyncWrite";
+    /**
+     * efficient writing only, route each table to the writer thread that serves its vgroup,
+     * so one stmt2 exec writes to as few vgroups as possible. default false.
+     * a new table starts on the writer of its name hash and moves once all rows bound are written.
+     */
+    public static final String PROPERTY_KEY_VGROUP_ROUTING = "vgroupRouting";
 
     // for stmt bind mode
     public static final String PROPERTY_KEY_PBS_MODE = "pbsMode";
+    /**
+     * websocket stmt2 only, max bind and exec pairs of PreparedStatement.executeBatch in flight, default 1.
+     * with more than one, executeBatch returns once its batch is sent and the affected rows are read by
+     * TSWSPreparedStatement.flushBatches().
+     */
+    public static final String PROPERTY_KEY_STMT2_PIPELINE_DEPTH = "stmt2PipelineDepth";
+
+    /**
+     * max bytes of schemaless lines packed into one websocket insert request, default 0 means one request per line.
+     * a line rejected by the server fails all lines of its request.
+     */
+    public static final String PROPERTY_KEY_SCHEMALESS_BATCH_BYTES = "schemalessBatchBytes";
+    /**
+     * max schemaless insert requests in flight on one websocket connection, default 1.
+     * with more than one, the requests already sent after a failed one may still be written and lines of
+     * different requests are no longer written in order.
+     */
+    public static final String PROPERTY_KEY_SCHEMALESS_MAX_INFLIGHT = "schemalessMaxInflight";
 
     /**
      * max message number send to server concurrently
      */
     public static final String PROPERTY_KEY_MAX_CONCURRENT_REQUEST = "maxConcurrentRequest";
+    /**
+     * what a websocket request does when maxConcurrentRequest requests are in flight,
+     * wait(default): wait up to messageWaitTimeout for a free slot, fail: fail at once.
+     */
+    public static final String PROPERTY_KEY_REQUEST_WAIT_POLICY = "requestWaitPolicy";
+    /**
+     * websocket query only, max blocks one result set fetches ahead of ResultSet.next(), default 16.
+     * the read-ahead starts at one block and grows when the blocks are read faster than they are fetched.
+     */
+    public static final String PROPERTY_KEY_PREFETCH_MAX_BLOCKS = "prefetchMaxBlocks";
+    /**
+     * websocket query only, max bytes of fetched and not yet read blocks of all result sets on one connection,
+     * default 67108864, 0 means no limit.
+     */
+    public static final String PROPERTY_KEY_PREFETCH_MEMORY_BYTES = "prefetchMemoryBytes";
+    /**
+     * websocket query only, ask the server to send query blocks with column aware compression, default false.
+     * blocks are sent uncompressed by servers which do not support it.
+     */
+    public static final String PROPERTY_KEY_BLOCK_COMPRESSION = "blockCompression";
+    /**
+     * websocket only, where the metrics of a connection are published while it is open: jmx(default), none, or the
+     * class name of a com.taosdata.jdbc.metrics.MetricsRegistry with a public no-arg constructor.
+     */
+    public static final String PROPERTY_KEY_METRICS_REGISTRY = "metricsRegistry";
+    /**
+     * restful connection only, read query results while ResultSet.next() advances instead of buffering the whole
+     * response, the result set is forward only and holds an http connection until it is read or closed. default false.
+     */
+    public static final String PROPERTY_KEY_STREAMING_RESULT = "streamingResult";
     /**
      * max pool size
      */
@@ -152,6 +206,12 @@ public class TSDBDriver extends AbstractDriver {
 
     public static final String HTTP_KEEP_ALIVE = "httpKeepAlive";
 
+    /**
+     * max requests of RestfulStatement.executeAsync waiting for a connection to one host,
+     * the connections to one host are limited by httpPoolSize.
+     */
+    public static final String HTTP_MAX_PENDING_REQUESTS = "httpMaxPendingRequests";
+
     /**
      * the timeout in milliseconds until a connection is established.
      * zero is interpreted as an infinite timeout.
@@ -357,6 +357,11 @@ public class TSDBPreparedStatement extends TSDBStatement implements TaosPrepareS
     private static class ColumnInfo implements Comparable<ColumnInfo> {
         @SuppressWarnings("rawtypes")
         private List data;
+        // primitive array bound instead of data, rows are [offset, offset + rows)
+        private Object array;
+        private BitSet isNull;
+        private int offset;
+        private int rows;
         private int type;
         private int bytes;
         private boolean typeIsSet;
@@ -379,6 +384,14 @@ public class TSDBPreparedStatement extends TSDBStatement implements TaosPrepareS
             return this.typeIsSet;
         }
 
+        public int size() {
+            return this.array != null ? this.rows : this.data.size();
+        }
+
+        public boolean isNull(int row) {
+            return this.isNull != null && this.isNull.get(this.offset + row);
+        }
+
         @Override
         public int compareTo(ColumnInfo c) {
             return this.index > c.index ? 1 : -1;
@@ -620,6 +633,84 @@ public class TSDBPreparedStatement extends TSDBStatement implements TaosPrepareS
         setValueImpl(columnIndex, list, TSDBConstants.TSDB_DATA_TYPE_NCHAR, size * Integer.BYTES);
     }
 
+    private void setArrayImpl(int columnIndex, Object array, int arrayLength, int offset, int length, BitSet isNull, int type, int bytes) throws SQLException {
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE,
+                    "invalid array range, offset: " + offset + ", length: " + length + ", array length: " + arrayLength);
+        }
+        ColumnInfo p = new ColumnInfo();
+        p.setType(type);
+        p.bytes = bytes;
+        p.array = array;
+        p.isNull = isNull;
+        p.offset = offset;
+        p.rows = length;
+        p.index = columnIndex;
+        queue.add(p);
+    }
+
+    @Override
+    public void setInt(int columnIndex, int[] values, int offset, int length, BitSet isNull) throws SQLException {
+        setArrayImpl(columnIndex, values, values.length, offset, length, isNull, TSDBConstants.TSDB_DATA_TYPE_INT, Integer.BYTES);
+    }
+
+    @Override
+    public void setLong(int columnIndex, long[] values, int offset, int length, BitSet isNull) throws SQLException {
+        setArrayImpl(columnIndex, values, values.length, offset, length, isNull, TSDBConstants.TSDB_DATA_TYPE_BIGINT, Long.BYTES);
+    }
+
+    @Override
+    public void setTimestamp(int columnIndex, long[] values, int offset, int length, BitSet isNull) throws SQLException {
+        setArrayImpl(columnIndex, values, values.length, offset, length, isNull, TSDBConstants.TSDB_DATA_TYPE_TIMESTAMP, Long.BYTES);
+    }
+
+    @Override
+    public void setFloat(int columnIndex, float[] values, int offset, int length, BitSet isNull) throws SQLException {
+        setArrayImpl(columnIndex, values, values.length, offset, length, isNull, TSDBConstants.TSDB_DATA_TYPE_FLOAT, Float.BYTES);
+    }
+
+    @Override
+    public void setDouble(int columnIndex, double[] values, int offset, int length, BitSet isNull) throws SQLException {
+        setArrayImpl(columnIndex, values, values.length, offset, length, isNull, TSDBConstants.TSDB_DATA_TYPE_DOUBLE, Double.BYTES);
+    }
+
+    @Override
+    public void setBoolean(int columnIndex, boolean[] values, int offset, int length, BitSet isNull) throws SQLException {
+        setArrayImpl(columnIndex, values, values.length, offset, length, isNull, TSDBConstants.TSDB_DATA_TYPE_BOOL, Byte.BYTES);
+    }
+
+    // copies the bound range of a primitive array column in bulk
+    private static void putArrayColumn(ColumnInfo col, int rows, ByteBuffer colDataList, ByteBuffer isNullList) {
+        int offset = col.offset;
+        switch (col.type) {
+            case TSDBConstants.TSDB_DATA_TYPE_INT:
+                colDataList.asIntBuffer().put((int[]) col.array, offset, rows);
+                break;
+            case TSDBConstants.TSDB_DATA_TYPE_TIMESTAMP:
+            case TSDBConstants.TSDB_DATA_TYPE_BIGINT:
+                colDataList.asLongBuffer().put((long[]) col.array, offset, rows);
+                break;
+            case TSDBConstants.TSDB_DATA_TYPE_FLOAT:
+                colDataList.asFloatBuffer().put((float[]) col.array, offset, rows);
+                break;
+            case TSDBConstants.TSDB_DATA_TYPE_DOUBLE:
+                colDataList.asDoubleBuffer().put((double[]) col.array, offset, rows);
+                break;
+            case TSDBConstants.TSDB_DATA_TYPE_BOOL: {
+                boolean[] values = (boolean[]) col.array;
+                for (int j = 0; j < rows; ++j) {
+                    colDataList.put((byte) (values[offset + j] ? 1 : 0));
+                }
+                break;
+            }
+            default:
+                break;
+        }
+        for (int j = 0; j < rows; ++j) {
+            isNullList.put((byte) (col.isNull(j) ? 1 : 0));
+        }
+    }
+
     @Override
     public void columnDataAddBatch() throws SQLException {
         // pass the data block to native code
@@ -760,13 +851,13 @@ public class TSDBPreparedStatement extends TSDBStatement implements TaosPrepareS
             throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNKNOWN, "column data not bind");
         }
 
-        int rows = colInfo.data.size();
+        int rows = colInfo.size();
         for (int i = 0; i < numOfCols; ++i) {
             ColumnInfo col1 = colData.get(i);
             if (col1 == null || !col1.isTypeSet()) {
                 throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNKNOWN, "column data not bind");
             }
-            if (rows != col1.data.size()) {
+            if (rows != col1.size()) {
                 throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNKNOWN, "the rows in column data not identical");
             }
 
@@ -779,6 +870,12 @@ public class TSDBPreparedStatement extends TSDBStatement implements TaosPrepareS
             ByteBuffer isNullList = ByteBuffer.allocate(rows * Byte.BYTES);
             isNullList.order(ByteOrder.LITTLE_ENDIAN);
 
+            if (col1.array != null) {
+                putArrayColumn(col1, rows, colDataList, isNullList);
+                connector.bindColumnDataArray(this.nativeStmtHandle, colDataList, lengthList, isNullList, col1.type, col1.bytes, rows, i);
+                continue;
+            }
+
             switch (col1.type) {
                 case TSDBConstants.TSDB_DATA_TYPE_INT: {
                     for (int j = 0; j < rows; ++j) {
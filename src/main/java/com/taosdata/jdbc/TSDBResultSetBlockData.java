@@ -4,14 +4,13 @@ import com.taosdata.jdbc.common.TDBlob;
 import com.taosdata.jdbc.utils.DataTypeConverUtil;
 import com.taosdata.jdbc.utils.DateTimeUtils;
 import com.taosdata.jdbc.utils.Utils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 
 import java.io.UnsupportedEncodingException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
@@ -24,34 +23,32 @@ public class TSDBResultSetBlockData {
     private int rowIndex = 0;
 
     private List<ColumnMetaData> columnMetaDataList;
-    private ArrayList<List<Object>> colData;
+    private int numOfCols;
     public boolean wasNull;
 
     private int timestampPrecision;
-    private ByteBuffer buffer;
+    private ByteBuf buffer;
+    private RawBlock block;
     Semaphore semaphore = new Semaphore(0);
     public int returnCode = 0;
 
     public TSDBResultSetBlockData(List<ColumnMetaData> colMeta, int numOfCols, int timestampPrecision) {
         this.columnMetaDataList = colMeta;
-        this.colData = new ArrayList<>(numOfCols);
+        this.numOfCols = numOfCols;
         this.timestampPrecision = timestampPrecision;
     }
 
     public TSDBResultSetBlockData(List<ColumnMetaData> colMeta, int timestampPrecision) {
         this.columnMetaDataList = colMeta;
-        this.colData = new ArrayList<>();
         this.timestampPrecision = timestampPrecision;
     }
 
     public TSDBResultSetBlockData() {
-        this.colData = new ArrayList<>();
     }
 
     public void clear() {
-        int size = this.colData.size();
-        this.colData.clear();
-        setNumOfCols(size);
+        this.buffer = null;
+        this.block = null;
     }
 
     public int getNumOfRows() {
@@ -63,11 +60,11 @@ public class TSDBResultSetBlockData {
     }
 
     public int getNumOfCols() {
-        return this.colData.size();
+        return this.numOfCols;
     }
 
     public void setNumOfCols(int numOfCols) {
-        this.colData = new ArrayList<>(numOfCols);
+        this.numOfCols = numOfCols;
     }
 
     public boolean hasMore() {
@@ -85,190 +82,23 @@ public class TSDBResultSetBlockData {
     public void reset() {
         this.rowIndex = 0;
     }
+    /**
+     * called by the native fetch with a new array of the raw block, so it is wrapped without copying.
+     */
     public void setByteArray(byte[] value) {
-        byte[] copy = new byte[value.length];
-        System.arraycopy(value, 0, copy, 0, value.length);
-        buffer = ByteBuffer.wrap(copy);
+        buffer = Unpooled.wrappedBuffer(value);
     }
+
+    /**
+     * locate the columns of the block, the cells are decoded by the getters.
+     */
     public void doSetByteArray() {
-        buffer.order(ByteOrder.LITTLE_ENDIAN);
-        int bitMapOffset = BitmapLen(numOfRows);
-        int pHeader = 28 + columnMetaDataList.size() * 5;
-        buffer.position(pHeader);
-        List<Integer> lengths = new ArrayList<>(columnMetaDataList.size());
-        for (int i = 0; i < columnMetaDataList.size(); i++) {
-            lengths.add(buffer.getInt());
-        }
-        pHeader = buffer.position();
-        int length = 0;
-        for (int i = 0; i < columnMetaDataList.size(); i++) {
-            List<Object> col = new ArrayList<>(numOfRows);
-            int type = columnMetaDataList.get(i).getColType();
-            switch (type) {
-                case TSDB_DATA_TYPE_BOOL:
-                case TSDB_DATA_TYPE_TINYINT:
-                case TSDB_DATA_TYPE_UTINYINT: {
-                    length = bitMapOffset;
-                    byte[] tmp = new byte[bitMapOffset];
-                    buffer.get(tmp);
-                    for (int j = 0; j < numOfRows; j++) {
-                        byte b = buffer.get();
-                        if (isNull(tmp, j)) {
-                            col.add(null);
-                        } else {
-                            col.add(b);
-                        }
-                    }
-                    break;
-                }
-                case TSDB_DATA_TYPE_SMALLINT:
-                case TSDB_DATA_TYPE_USMALLINT: {
-                    length = bitMapOffset;
-                    byte[] tmp = new byte[bitMapOffset];
-                    buffer.get(tmp);
-                    for (int j = 0; j < numOfRows; j++) {
-                        short s = buffer.getShort();
-                        if (isNull(tmp, j)) {
-                            col.add(null);
-                        } else {
-                            col.add(s);
-                        }
-                    }
-                    break;
-                }
-                case TSDB_DATA_TYPE_INT:
-                case TSDB_DATA_TYPE_UINT: {
-                    length = bitMapOffset;
-                    byte[] tmp = new byte[bitMapOffset];
-                    buffer.get(tmp);
-                    for (int j = 0; j < numOfRows; j++) {
-                        int in = buffer.getInt();
-                        if (isNull(tmp, j)) {
-                            col.add(null);
-                        } else {
-                            col.add(in);
-                        }
-                    }
-                    break;
-                }
-                case TSDB_DATA_TYPE_BIGINT:
-                case TSDB_DATA_TYPE_UBIGINT:{
-                    length = bitMapOffset;
-                    byte[] tmp = new byte[bitMapOffset];
-                    buffer.get(tmp);
-                    for (int j = 0; j < numOfRows; j++) {
-                        long l = buffer.getLong();
-                        if (isNull(tmp, j)) {
-                            col.add(null);
-                        } else {
-                            col.add(l);
-                        }
-                    }
-                    break;
-                }
-                case TSDB_DATA_TYPE_TIMESTAMP: {
-                    length = bitMapOffset;
-                    byte[] tmp = new byte[bitMapOffset];
-                    buffer.get(tmp);
-                    for (int j = 0; j < numOfRows; j++) {
-                        long l = buffer.getLong();
-                        if (isNull(tmp, j)) {
-                            col.add(null);
-                        } else {
-                            col.add(DateTimeUtils.parseTimestampColumnData(l, this.timestampPrecision));
-                        }
-                    }
-                    break;
-                }
-                case TSDB_DATA_TYPE_FLOAT: {
-                    length = bitMapOffset;
-                    byte[] tmp = new byte[bitMapOffset];
-                    buffer.get(tmp);
-                    for (int j = 0; j < numOfRows; j++) {
-                        float f = buffer.getFloat();
-                        if (isNull(tmp, j)) {
-                            col.add(null);
-                        } else {
-                            col.add(f);
-                        }
-                    }
-                    break;
-                }
-                case TSDB_DATA_TYPE_DOUBLE: {
-                    length = bitMapOffset;
-                    byte[] tmp = new byte[bitMapOffset];
-                    buffer.get(tmp);
-                    for (int j = 0; j < numOfRows; j++) {
-                        double d = buffer.getDouble();
-                        if (isNull(tmp, j)) {
-                            col.add(null);
-                        } else {
-                            col.add(d);
-                        }
-                    }
-                    break;
-                }
-                case TSDB_DATA_TYPE_BINARY:
-                case TSDB_DATA_TYPE_JSON:
-                case TSDB_DATA_TYPE_BLOB:
-                case TSDB_DATA_TYPE_VARBINARY:
-                case TSDB_DATA_TYPE_GEOMETRY:{
-                    length = numOfRows * 4;
-                    List<Integer> offset = new ArrayList<>(numOfRows);
-                    for (int m = 0; m < numOfRows; m++) {
-                        offset.add(buffer.getInt());
-                    }
-                    int start = buffer.position();
-                    for (int m = 0; m < numOfRows; m++) {
-                        if (-1 == offset.get(m)) {
-                            col.add(null);
-                            continue;
-                        }
-                        buffer.position(start + offset.get(m));
-                        int len;
-                        if (type != TSDB_DATA_TYPE_BLOB) {
-                            len = buffer.getShort() & 0xFFFF;
-
-                        } else {
-                            len = buffer.getInt();
-                        }
-                        byte[] tmp = new byte[len];
-                        buffer.get(tmp);
-                        col.add(tmp);
-                    }
-                    break;
-                }
-                case TSDB_DATA_TYPE_NCHAR: {
-                    length = numOfRows * 4;
-                    List<Integer> offset = new ArrayList<>(numOfRows);
-                    for (int m = 0; m < numOfRows; m++) {
-                        offset.add(buffer.getInt());
-                    }
-                    int start = buffer.position();
-                    for (int m = 0; m < numOfRows; m++) {
-                        if (-1 == offset.get(m)) {
-                            col.add(null);
-                            continue;
-                        }
-                        buffer.position(start + offset.get(m));
-                        int len = (buffer.getShort() & 0xFFFF) / 4;
-                        int[] tmp = new int[len];
-                        for (int n = 0; n < len; n++) {
-                            tmp[n] = buffer.getInt();
-                        }
-                        col.add(new String(tmp, 0, tmp.length));
-                    }
-                    break;
-                }
-                default:
-                    // unknown type, do nothing
-                    col.add(null);
-                    break;
-            }
-            pHeader += length + lengths.get(i);
-            buffer.position(pHeader);
-            colData.add(col);
+        int[] types = new int[columnMetaDataList.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = columnMetaDataList.get(i).getColType();
         }
+        block = new RawBlock(buffer, 0, types);
+        numOfCols = types.length;
         semaphore.release();
     }
 
@@ -398,68 +228,53 @@ public class TSDBResultSetBlockData {
     }
 
     public Object get(int col) {
-        List<Object> bb = this.colData.get(col);
-
-        Object source = bb.get(this.rowIndex);
-        if (null == source) {
+        int row = this.rowIndex;
+        if (block.isNull(col, row)) {
             wasNull = true;
             return null;
         }
         wasNull = false;
-        switch (this.columnMetaDataList.get(col).getColType()) {
-            case TSDB_DATA_TYPE_BOOL: {
-                byte val = (byte) source;
-                return (val == 0x0) ? Boolean.FALSE : Boolean.TRUE;
-            }
-
+        switch (block.getColumnType(col)) {
+            case TSDB_DATA_TYPE_BOOL:
+                return (block.getByte(col, row) == 0x0) ? Boolean.FALSE : Boolean.TRUE;
             case TSDB_DATA_TYPE_TINYINT:
+                return block.getByte(col, row);
             case TSDB_DATA_TYPE_SMALLINT:
+                return block.getShort(col, row);
             case TSDB_DATA_TYPE_INT:
+                return block.getInt(col, row);
             case TSDB_DATA_TYPE_BIGINT:
+                return block.getLong(col, row);
             case TSDB_DATA_TYPE_FLOAT:
+                return block.getFloat(col, row);
             case TSDB_DATA_TYPE_DOUBLE:
+                return block.getDouble(col, row);
+            case TSDB_DATA_TYPE_TIMESTAMP:
+                return DateTimeUtils.parseTimestampColumnData(block.getLong(col, row), this.timestampPrecision);
             case TSDB_DATA_TYPE_NCHAR:
+                return block.getNString(col, row);
             case TSDB_DATA_TYPE_BINARY:
-            case TSDB_DATA_TYPE_TIMESTAMP:
             case TSDB_DATA_TYPE_JSON:
             case TSDB_DATA_TYPE_VARBINARY:
-            case TSDB_DATA_TYPE_GEOMETRY:{
-                return source;
-            }
-            case TSDB_DATA_TYPE_BLOB:{
-                return new TDBlob((byte[]) source, true);
-            }
-            case TSDB_DATA_TYPE_UTINYINT: {
-                byte val = (byte) source;
-                return parseUTinyInt(val);
-            }
-            case TSDB_DATA_TYPE_USMALLINT: {
-                short val = (short) source;
-                return parseUSmallInt(val);
-            }
-            case TSDB_DATA_TYPE_UINT: {
-                int val = (int) source;
-                return parseUInteger(val);
-            }
-            case TSDB_DATA_TYPE_UBIGINT: {
-                long val = (long) source;
-                return parseUBigInt(val);
-            }
+            case TSDB_DATA_TYPE_GEOMETRY:
+                return block.getVarBytes(col, row);
+            case TSDB_DATA_TYPE_BLOB:
+                return new TDBlob(block.getVarBytes(col, row), true);
+            case TSDB_DATA_TYPE_UTINYINT:
+                return parseUTinyInt(block.getByte(col, row));
+            case TSDB_DATA_TYPE_USMALLINT:
+                return parseUSmallInt(block.getShort(col, row));
+            case TSDB_DATA_TYPE_UINT:
+                return parseUInteger(block.getInt(col, row));
+            case TSDB_DATA_TYPE_UBIGINT:
+                return parseUBigInt(block.getLong(col, row));
+            case TSDB_DATA_TYPE_DECIMAL128:
+            case TSDB_DATA_TYPE_DECIMAL64:
+                return block.getDecimal(col, row);
             default:
                 // unknown type, do nothing
                 return null;
         }
     }
 
-    // ceil(numOfRows/8.0)
-    private int BitmapLen(int n) {
-        return (n + 0x7) >> 3;
-    }
-
-    private boolean isNull(byte[] c, int n) {
-        int position = n >>> 3;
-        int index = n & 0x7;
-        return (c[position] & (1 << (7 - index))) == (1 << (7 - index));
-    }
-
 }
@@ -1,15 +1,19 @@
 package com.taosdata.jdbc;
 
+import com.taosdata.jdbc.ws.WSConnection;
+
 import java.sql.Connection;
 import java.sql.SQLException;
 
 public class TableVGroupID {
     public TableVGroupID(Connection connection) throws SQLException {
-        if (!(connection instanceof TSDBConnection)) {
-            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNSUPPORTED_METHOD, "only supported by TSDBConnection");
+        if (connection instanceof TSDBConnection) {
+            this.connection = (TSDBConnection) connection;
+        } else if (connection instanceof WSConnection) {
+            this.wsConnection = (WSConnection) connection;
+        } else {
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNSUPPORTED_METHOD, "only supported by TSDBConnection and WSConnection");
         }
-
-        this.connection = (TSDBConnection) connection;
     }
 
     private TableVGroupID() {
@@ -25,9 +29,13 @@ public class TableVGroupID {
      * @throws SQLException throws exception if fail.
      */
     public int getTableVgID(String db, String table) throws SQLException {
+        if (wsConnection != null) {
+            return wsConnection.getTableVgIds(db, table)[0];
+        }
         return this.connection.getConnector().getTableVGroupID(db, table);
     }
 
     private TSDBConnection connection;
+    private WSConnection wsConnection;
 
 }
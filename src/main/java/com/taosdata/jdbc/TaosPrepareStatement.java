@@ -5,6 +5,7 @@ import java.sql.Blob;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.BitSet;
 import java.util.List;
 
 public interface TaosPrepareStatement extends PreparedStatement {
@@ -65,6 +66,33 @@ public interface TaosPrepareStatement extends PreparedStatement {
     // note: expand the required space for each NChar character
     void setNString(int columnIndex, List<String> list, int size) throws SQLException;
 
+    // primitive array binding, values[offset, offset + length) are bound without boxing. a set bit of isNull,
+    // indexed like values, marks a null row, isNull may be null. the array may be reused once
+    // columnDataAddBatch returns. a statement without it throws ERROR_UNSUPPORTED_METHOD.
+    default void setInt(int columnIndex, int[] values, int offset, int length, BitSet isNull) throws SQLException {
+        throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNSUPPORTED_METHOD);
+    }
+
+    default void setLong(int columnIndex, long[] values, int offset, int length, BitSet isNull) throws SQLException {
+        throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNSUPPORTED_METHOD);
+    }
+
+    default void setTimestamp(int columnIndex, long[] values, int offset, int length, BitSet isNull) throws SQLException {
+        throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNSUPPORTED_METHOD);
+    }
+
+    default void setFloat(int columnIndex, float[] values, int offset, int length, BitSet isNull) throws SQLException {
+        throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNSUPPORTED_METHOD);
+    }
+
+    default void setDouble(int columnIndex, double[] values, int offset, int length, BitSet isNull) throws SQLException {
+        throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNSUPPORTED_METHOD);
+    }
+
+    default void setBoolean(int columnIndex, boolean[] values, int offset, int length, BitSet isNull) throws SQLException {
+        throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNSUPPORTED_METHOD);
+    }
+
     void columnDataAddBatch() throws SQLException;
 
     void columnDataExecuteBatch() throws SQLException;
@@ -0,0 +1,114 @@
+package com.taosdata.jdbc.common;
+
+import com.taosdata.jdbc.TSDBError;
+import com.taosdata.jdbc.TSDBErrorNumbers;
+import io.netty.buffer.ByteBuf;
+
+import java.sql.SQLException;
+import java.util.BitSet;
+import java.util.Collections;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+/**
+ * a column bound from a primitive array, the values are written to the bind block without boxing.
+ */
+public class ArrayColumnInfo extends ColumnInfo {
+    private final Object values;
+    private final BitSet isNull;
+    private final int rows;
+
+    /**
+     * @param values boolean[], int[], long[], float[] or double[] holding exactly rows values
+     * @param isNull null rows, may be null if there is none
+     */
+    public ArrayColumnInfo(int columnIndex, Object values, BitSet isNull, int rows, int type) {
+        super(columnIndex, Collections.emptyList(), type);
+        this.values = values;
+        this.isNull = isNull;
+        this.rows = rows;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * @param arrayType the type the array is bound as
+     * @param columnType the type of the column
+     * @return true if an array bound as arrayType can be written to a column of columnType
+     */
+    public static boolean accepts(int arrayType, int columnType) {
+        if (arrayType == columnType) {
+            return true;
+        }
+        // epoch values in the column precision
+        return (arrayType == TSDB_DATA_TYPE_BIGINT && columnType == TSDB_DATA_TYPE_TIMESTAMP)
+                || (arrayType == TSDB_DATA_TYPE_TIMESTAMP && columnType == TSDB_DATA_TYPE_BIGINT);
+    }
+
+    private boolean isNull(int row) {
+        return isNull != null && isNull.get(row);
+    }
+
+    void serialize(ByteBuf buf) throws SQLException {
+        int start = buf.writerIndex();
+        // TotalLength, patched when the column is written
+        buf.writeIntLE(0);
+        buf.writeIntLE(getType());
+        buf.writeIntLE(rows);
+        // IsNull
+        for (int i = 0; i < rows; i++) {
+            buf.writeByte(isNull(i) ? 1 : 0);
+        }
+        // haveLength
+        buf.writeByte(0);
+
+        switch (getType()) {
+            case TSDB_DATA_TYPE_BOOL: {
+                boolean[] v = (boolean[]) values;
+                buf.writeIntLE(rows);
+                for (int i = 0; i < rows; i++) {
+                    buf.writeByte(v[i] && !isNull(i) ? 1 : 0);
+                }
+                break;
+            }
+            case TSDB_DATA_TYPE_INT: {
+                int[] v = (int[]) values;
+                buf.writeIntLE(rows * Integer.BYTES);
+                for (int i = 0; i < rows; i++) {
+                    buf.writeIntLE(v[i]);
+                }
+                break;
+            }
+            case TSDB_DATA_TYPE_BIGINT:
+            case TSDB_DATA_TYPE_TIMESTAMP: {
+                long[] v = (long[]) values;
+                buf.writeIntLE(rows * Long.BYTES);
+                for (int i = 0; i < rows; i++) {
+                    buf.writeLongLE(v[i]);
+                }
+                break;
+            }
+            case TSDB_DATA_TYPE_FLOAT: {
+                float[] v = (float[]) values;
+                buf.writeIntLE(rows * Float.BYTES);
+                for (int i = 0; i < rows; i++) {
+                    buf.writeFloatLE(v[i]);
+                }
+                break;
+            }
+            case TSDB_DATA_TYPE_DOUBLE: {
+                double[] v = (double[]) values;
+                buf.writeIntLE(rows * Double.BYTES);
+                for (int i = 0; i < rows; i++) {
+                    buf.writeDoubleLE(v[i]);
+                }
+                break;
+            }
+            default:
+                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "unsupported data type : " + getType());
+        }
+        buf.setIntLE(start, buf.writerIndex() - start);
+    }
+}
@@ -3,18 +3,16 @@ package com.taosdata.jdbc.common;
 import com.taosdata.jdbc.TSDBError;
 import com.taosdata.jdbc.TSDBErrorNumbers;
 import com.taosdata.jdbc.utils.DateTimeUtils;
-import com.taosdata.jdbc.utils.Utils;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.PooledByteBufAllocator;
 
 import java.io.ByteArrayOutputStream;
 import java.math.BigInteger;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZonedDateTime;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 
@@ -74,17 +72,22 @@ public class SerializeBlock {
     }
 
     private static void serializeColumn(ColumnInfo columnInfo, ByteBuf buf, int precision) throws SQLException {
+        if (columnInfo instanceof ArrayColumnInfo) {
+            ((ArrayColumnInfo) columnInfo).serialize(buf);
+            return;
+        }
         Integer dataLen = DataLengthCfg.getDataLength(columnInfo.getType());
+        List<Object> dataList = columnInfo.getDataList();
+        int start = buf.writerIndex();
 
-        // TotalLength
-        buf.writeIntLE(columnInfo.getSerializeSize());
-
+        // TotalLength, patched when the column is written
+        buf.writeIntLE(0);
         // Type
         buf.writeIntLE(columnInfo.getType());
         // Num
-        buf.writeIntLE(columnInfo.getDataList().size());
+        buf.writeIntLE(dataList.size());
         // IsNull
-        for (Object o: columnInfo.getDataList()) {
+        for (Object o: dataList) {
             if (o == null) {
                 buf.writeByte(1);
             } else {
@@ -96,48 +99,13 @@ public class SerializeBlock {
         if (dataLen != null){
             buf.writeByte(0);
             // buffer
-            SerializeNormalDataType(columnInfo.getType(), buf, columnInfo.getDataList(), precision);
-            return;
+            SerializeNormalDataType(columnInfo.getType(), buf, dataList, precision);
+        } else {
+            // data is array type
+            buf.writeByte(1);
+            SerializeArrayDataType(columnInfo.getType(), buf, dataList);
         }
-
-        // data is array type
-        buf.writeByte(1);
-        // length
-        int bufferLength = 0;
-        for (Object o: columnInfo.getDataList()){
-            if (o == null){
-                buf.writeIntLE(0);
-            } else {
-                switch (columnInfo.getType()) {
-                    case TSDB_DATA_TYPE_BINARY:
-                    case TSDB_DATA_TYPE_JSON:
-                    case TSDB_DATA_TYPE_BLOB:
-                    case TSDB_DATA_TYPE_VARBINARY:
-                    case TSDB_DATA_TYPE_GEOMETRY:{
-                        byte[] v = (byte[]) o;
-                        buf.writeIntLE(v.length);
-                        bufferLength += v.length;
-                        break;
-                    }
-                    case TSDB_DATA_TYPE_NCHAR: {
-                        String v = (String) o;
-                        int len = v.getBytes().length;
-                        buf.writeIntLE(len);
-                        bufferLength += len;
-                        break;
-                    }
-                    default:
-                        throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "unsupported data type : " + columnInfo.getType());
-                }
-            }
-        }
-
-        // buffer length
-        buf.writeIntLE(bufferLength);
-
-        // buffer
-        SerializeArrayDataType(columnInfo.getType(), buf, columnInfo.getDataList());
-        return;
+        buf.setIntLE(start, buf.writerIndex() - start);
     }
 
     private static void SerializeNormalDataType(int dataType , ByteBuf buf, List<Object> objectList, int precision) throws SQLException {
@@ -330,108 +298,45 @@ public class SerializeBlock {
         }
     }
 
+    /**
+     * writes Length(4) * num + BufferLength(4) + buffer, the length slots are reserved first and patched
+     * as each value is written, so every value is visited and encoded once.
+     */
     private static void SerializeArrayDataType(int dataType, ByteBuf buf, List<Object> objectList) throws SQLException {
         switch (dataType) {
             case TSDB_DATA_TYPE_JSON:
             case TSDB_DATA_TYPE_BINARY:
             case TSDB_DATA_TYPE_BLOB:
             case TSDB_DATA_TYPE_VARBINARY:
-            case TSDB_DATA_TYPE_GEOMETRY:{
-                for (Object o: objectList){
-                    if (o != null) {
-                        byte[] v = (byte[]) o;
-                        serializeByteArray(buf, v);
-                    }
-                }
-                break;
-            }
-            case TSDB_DATA_TYPE_NCHAR: {
-                for (Object o: objectList){
-                    if (o != null) {
-                        String v = (String) o;
-                        byte[] bytes = v.getBytes();
-                        serializeByteArray(buf, bytes);
-                    }
-                }
+            case TSDB_DATA_TYPE_GEOMETRY:
+            case TSDB_DATA_TYPE_NCHAR:
                 break;
-            }
             default:
                 throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "unsupported data type : " + dataType);
         }
-    }
-    public static int getTagTotalLength(TableInfo tableInfo, int toBebindTagCount) throws SQLException{
-        int totalLength = 0;
-        if (toBebindTagCount > 0){
-            if (tableInfo.getTagInfo().size() != toBebindTagCount){
-                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "table tag size is not match");
-            }
-
-            for (ColumnInfo tag : tableInfo.getTagInfo()){
-                if (tag.getDataList().isEmpty()){
-                    throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "tag value is null, tbname: " + tableInfo.getTableName().toString());
-                }
-                int columnSize = getColumnSize(tag);
-                tag.setSerializeSize(columnSize);
-                totalLength += columnSize;
-            }
-        }
-        return totalLength;
-    }
-
-    public static int getColTotalLength(TableInfo tableInfo, int toBebindColCount) throws SQLException{
-        int totalLength = 0;
-        if (toBebindColCount > 0){
-            if (tableInfo.getDataList().size() != toBebindColCount){
-                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "table column size is not match");
-            }
-
-            for (ColumnInfo columnInfo : tableInfo.getDataList()){
-                int columnSize = getColumnSize(columnInfo);
-                columnInfo.setSerializeSize(columnSize);
-                totalLength += columnSize;
-            }
-        }
-        return totalLength;
-    }
 
-    public static int getColumnSize(ColumnInfo column) throws SQLException {
-        Integer dataLen = DataLengthCfg.getDataLength(column.getType());
-
-        if (dataLen != null) {
-            // TotalLength(4) + Type (4) + Num(4) + IsNull(1) * size + haveLength(1) + BufferLength(4) + size * dataLen
-            return 17 + (dataLen + 1) * column.getDataList().size();
-        }
-
-        switch (column.getType()) {
-            case TSDB_DATA_TYPE_JSON:
-            case TSDB_DATA_TYPE_BINARY:
-            case TSDB_DATA_TYPE_BLOB:
-            case TSDB_DATA_TYPE_VARBINARY:
-            case TSDB_DATA_TYPE_GEOMETRY:{
-                int totalLength = 0;
-                for (Object o : column.getDataList()) {
-                    if (o != null) {
-                        byte[] v = (byte[]) o;
-                        totalLength += v.length;
-                    }
-                }
-                // TotalLength(4) + Type (4) + Num(4) + IsNull(1) * size + haveLength(1) + BufferLength(4) + 4 * v.length + totalLength
-                return 17 + (5 * column.getDataList().size()) + totalLength;
+        int lengthIndex = buf.writerIndex();
+        buf.writeZero((objectList.size() + 1) * Integer.BYTES);
+        int bufferStart = buf.writerIndex();
+        // the list may be linked, walk it instead of indexing
+        int i = -1;
+        for (Object o : objectList) {
+            i++;
+            if (o == null) {
+                continue;
             }
-            case TSDB_DATA_TYPE_NCHAR: {
-                int totalLength = 0;
-                for (Object o : column.getDataList()) {
-                    if (o != null) {
-                        String v = (String) o;
-                        totalLength += v.getBytes().length;
-                    }
-                }
-                // TotalLength(4) + Type (4) + Num(4) + IsNull(1) * size + haveLength(1) + BufferLength(4) + 4 * v.length + totalLength
-                return 17 + (5 * column.getDataList().size()) + totalLength;
+            int len;
+            if (dataType == TSDB_DATA_TYPE_NCHAR) {
+                len = buf.writeCharSequence((String) o, StandardCharsets.UTF_8);
+            } else {
+                byte[] v = (byte[]) o;
+                serializeByteArray(buf, v);
+                len = v.length;
             }
-            default:
-                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "unsupported data type : " + column.getType());
+            buf.setIntLE(lengthIndex + i * Integer.BYTES, len);
         }
+        // buffer length
+        buf.setIntLE(lengthIndex + objectList.size() * Integer.BYTES, buf.writerIndex() - bufferStart);
     }
 
     public static ByteBuf getStmt2BindBlock(long reqId,
@@ -441,166 +346,38 @@ public class SerializeBlock {
                                            int toBebindTagCount,
                                            int toBebindColCount,
                                            int precision) throws SQLException {
-
-        // cloc totol size
-        int totalTableNameSize  = 0;
-        List<Short> tableNameSizeList = new ArrayList<>();
-        if (toBeBindTableNameIndex >= 0) {
-            for (TableInfo tableInfo: tableInfoMap.values()) {
-                if (tableInfo.getTableName().capacity() == 0){
-                    throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "table name is empty");
-                }
-                int tableNameSize = tableInfo.getTableName().capacity() + 1;
-                totalTableNameSize += tableNameSize;
-                tableNameSizeList.add((short) tableNameSize);
-            }
-        }
-
-        int totalTagSize = 0;
-        List<Integer> tagSizeList = new ArrayList<>();
-        if (toBebindTagCount > 0){
-            for (TableInfo tableInfo : tableInfoMap.values()) {
-                int tagSize = getTagTotalLength(tableInfo, toBebindTagCount);
-                totalTagSize += tagSize;
-                tagSizeList.add(tagSize);
-            }
-        }
-
-
-        int totalColSize = 0;
-        List<Integer> colSizeList = new ArrayList<>();
-        if (toBebindColCount > 0) {
-            for (TableInfo tableInfo : tableInfoMap.values()) {
-                int colSize = getColTotalLength(tableInfo, toBebindColCount);
-                totalColSize += colSize;
-                colSizeList.add(colSize);
-            }
-        }
-
-        int totalSize = totalTableNameSize + totalTagSize + totalColSize;
-        int toBebindTableNameCount = toBeBindTableNameIndex >= 0 ? 1 : 0;
-
-        totalSize += tableInfoMap.size() * (
-                toBebindTableNameCount * Short.BYTES
-                + (toBebindTagCount > 0 ? 1 : 0) * Integer.BYTES
-                + (toBebindColCount > 0 ? 1 : 0) * Integer.BYTES);
-
-        ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer(58 + totalSize);
-
+        Stmt2BindEncoder encoder = new Stmt2BindEncoder(toBeBindTableNameIndex >= 0, toBebindTagCount, toBebindColCount);
         try {
-            //************ header *****************
-            // ReqId
-            buf.writeLongLE(reqId);
-            // stmtId
-            buf.writeLongLE(stmtId);
-            // actionId
-            buf.writeLongLE(9L);
-            // version
-            buf.writeShortLE(1);
-            // col_idx
-            buf.writeIntLE(-1);
-
-            //************ data *****************
-            // TotalLength
-            buf.writeIntLE(totalSize + 28);
-            // tableCount
-            buf.writeIntLE(tableInfoMap.size());
-            // TagCount
-            buf.writeIntLE(toBebindTagCount);
-            // ColCount
-            buf.writeIntLE(toBebindColCount);
-            // tableNameOffset
-            if (toBebindTableNameCount > 0) {
-                buf.writeIntLE(0x1C);
-            } else {
-                buf.writeIntLE(0);
-            }
-
-            // tagOffset
-            if (toBebindTagCount > 0) {
-                if (toBebindTableNameCount > 0) {
-                    buf.writeIntLE(28 + totalTableNameSize + Short.BYTES * tableInfoMap.size());
-                } else {
-                    buf.writeIntLE(28);
-                }
-            } else {
-                buf.writeIntLE(0);
-            }
-
-            // colOffset
-            if (toBebindColCount > 0) {
-                int skipSize = 0;
-                if (toBebindTableNameCount > 0) {
-                    skipSize += totalTableNameSize + Short.BYTES * tableInfoMap.size();
+            for (TableInfo tableInfo : tableInfoMap.values()) {
+                if (toBeBindTableNameIndex >= 0) {
+                    encoder.addTableName(tableInfo.getTableName().array());
                 }
 
                 if (toBebindTagCount > 0) {
-                    skipSize += totalTagSize + Integer.BYTES * tableInfoMap.size();
-                }
-                buf.writeIntLE(28 + skipSize);
-            } else {
-                buf.writeIntLE(0);
-            }
-
-            // TableNameLength
-            if (toBebindTableNameCount > 0) {
-                for (Short tableNameLen : tableNameSizeList) {
-                    if (tableNameLen == 0) {
-                        throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "table name is empty");
-                    }
-
-                    buf.writeShortLE(tableNameLen);
-                }
-
-                for (TableInfo tableInfo : tableInfoMap.values()) {
-                    if (tableInfo.getTableName().capacity() == 0) {
-                        throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "table name is empty");
+                    if (tableInfo.getTagInfo().size() != toBebindTagCount) {
+                        throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "table tag size is not match");
                     }
-
-                    buf.writeBytes(tableInfo.getTableName().array());
-                    buf.writeByte(0);
-                }
-            }
-
-            // TagsDataLength
-            if (toBebindTagCount > 0) {
-                for (Integer tagsize : tagSizeList) {
-                    buf.writeIntLE(tagsize);
-                }
-
-                for (TableInfo tableInfo : tableInfoMap.values()) {
                     for (ColumnInfo tag : tableInfo.getTagInfo()) {
                         if (tag.getDataList().isEmpty()) {
                             throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "tag value is null, tbname: " + tableInfo.getTableName().toString());
                         }
-                        serializeColumn(tag, buf, precision);
+                        serializeColumn(tag, encoder.tags(), precision);
                     }
                 }
-            }
-
-            // ColsDataLength
-            if (toBebindColCount > 0) {
-                for (Integer colSize : colSizeList) {
-                    buf.writeIntLE(colSize);
-                }
 
-                for (TableInfo tableInfo : tableInfoMap.values()) {
+                if (toBebindColCount > 0) {
+                    if (tableInfo.getDataList().size() != toBebindColCount) {
+                        throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "table column size is not match");
+                    }
                     for (ColumnInfo col : tableInfo.getDataList()) {
-                        serializeColumn(col, buf, precision);
+                        serializeColumn(col, encoder.cols(), precision);
                     }
                 }
+                encoder.endTable();
             }
-
-
-//        for (int i = 30; i < buf.capacity(); i++) {
-//            int bb = buf.getByte(i) & 0xff;
-//            System.out.print(bb);
-//            System.out.print(",");
-//        }
-//        System.out.println();
-            return buf;
-        } catch (Exception e){
-            Utils.releaseByteBuf(buf);
+            return encoder.finish(reqId, stmtId);
+        } catch (Exception e) {
+            encoder.release();
             throw e;
         }
     }
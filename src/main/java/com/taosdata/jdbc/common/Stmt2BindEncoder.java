@@ -0,0 +1,305 @@
+package com.taosdata.jdbc.common;
+
+import com.taosdata.jdbc.TSDBError;
+import com.taosdata.jdbc.TSDBErrorNumbers;
+import com.taosdata.jdbc.utils.Utils;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+import static com.taosdata.jdbc.TSDBConstants.TSDB_DATA_TYPE_BOOL;
+import static com.taosdata.jdbc.TSDBConstants.TSDB_DATA_TYPE_DOUBLE;
+import static com.taosdata.jdbc.TSDBConstants.TSDB_DATA_TYPE_FLOAT;
+import static com.taosdata.jdbc.TSDBConstants.TSDB_DATA_TYPE_TIMESTAMP;
+
+/**
+ * encodes a stmt2 bind request in one pass.
+ * <p>
+ * table names, tags and columns are written straight into their own section as they are bound. a section is a
+ * composite of pooled direct chunks, growing never copies the bytes already written. lengths which are only known
+ * after the data are reserved as slots and patched in place, {@link #finish(long, long)} writes the header and
+ * joins the sections without copying.
+ */
+public class Stmt2BindEncoder {
+    private static final long STMT2_BIND_ACTION = 9L;
+    private static final int HEADER_SIZE = 30;
+    // TotalLength, TableCount, TagCount, ColCount, TableNamesOffset, TagsOffset, ColsOffset
+    private static final int DATA_HEADER_SIZE = 28;
+
+    private static final int LENS_INIT_SIZE = 256;
+    private static final int TABLE_NAMES_INIT_SIZE = 1024;
+    private static final int TAGS_INIT_SIZE = 4 * 1024;
+    private static final int COLS_INIT_SIZE = 64 * 1024;
+
+    private final boolean bindTableName;
+    private final int tagCount;
+    private final int colCount;
+
+    private CompositeByteBuf tableNameLens;
+    private CompositeByteBuf tableNames;
+    private CompositeByteBuf tagLens;
+    private CompositeByteBuf tags;
+    private CompositeByteBuf colLens;
+    private CompositeByteBuf cols;
+
+    private int tableCount;
+    private int tableTagsStart;
+    private int tableColsStart;
+
+    public Stmt2BindEncoder(boolean bindTableName, int tagCount, int colCount) {
+        this.bindTableName = bindTableName;
+        this.tagCount = tagCount;
+        this.colCount = colCount;
+        reset();
+    }
+
+    private static CompositeByteBuf section(int initialCapacity) {
+        CompositeByteBuf buf = PooledByteBufAllocator.DEFAULT.compositeDirectBuffer(Integer.MAX_VALUE);
+        // adds one pooled chunk, the next chunks are added by ensureWritable
+        buf.capacity(initialCapacity);
+        return buf;
+    }
+
+    /**
+     * drop what is written and start a new request.
+     */
+    public void reset() {
+        release();
+        if (bindTableName) {
+            tableNameLens = section(LENS_INIT_SIZE);
+            tableNames = section(TABLE_NAMES_INIT_SIZE);
+        }
+        if (tagCount > 0) {
+            tagLens = section(LENS_INIT_SIZE);
+            tags = section(TAGS_INIT_SIZE);
+        }
+        if (colCount > 0) {
+            colLens = section(LENS_INIT_SIZE);
+            cols = section(COLS_INIT_SIZE);
+        }
+        tableCount = 0;
+        tableTagsStart = 0;
+        tableColsStart = 0;
+    }
+
+    public int getTableCount() {
+        return tableCount;
+    }
+
+    public void addTableName(byte[] name) throws SQLException {
+        addTableName(name, 0, name.length);
+    }
+
+    public void addTableName(byte[] name, int offset, int length) throws SQLException {
+        if (length == 0) {
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "table name is empty");
+        }
+        tableNames.writeBytes(name, offset, length);
+        tableNames.writeByte(0);
+        tableNameLens.writeShortLE(length + 1);
+    }
+
+    public void addTableName(String name) throws SQLException {
+        if (name.isEmpty()) {
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "table name is empty");
+        }
+        int length = tableNames.writeCharSequence(name, StandardCharsets.UTF_8);
+        tableNames.writeByte(0);
+        tableNameLens.writeShortLE(length + 1);
+    }
+
+    /**
+     * @return the section the tags of the current table are written to
+     */
+    public ByteBuf tags() {
+        return tags;
+    }
+
+    /**
+     * @return the section the columns of the current table are written to
+     */
+    public ByteBuf cols() {
+        return cols;
+    }
+
+    /**
+     * close the current table, its tags and columns length are taken from what was written since the last call.
+     */
+    public void endTable() {
+        if (tagCount > 0) {
+            tagLens.writeIntLE(tags.writerIndex() - tableTagsStart);
+            tableTagsStart = tags.writerIndex();
+        }
+        if (colCount > 0) {
+            colLens.writeIntLE(cols.writerIndex() - tableColsStart);
+            tableColsStart = cols.writerIndex();
+        }
+        tableCount++;
+    }
+
+    /**
+     * build the request, the sections are handed over to the returned buffer and the encoder is left empty.
+     * call {@link #reset()} before writing the next request.
+     */
+    public ByteBuf finish(long reqId, long stmtId) {
+        int tableNamesSize = bindTableName ? tableNameLens.writerIndex() + tableNames.writerIndex() : 0;
+        int tagsSize = tagCount > 0 ? tagLens.writerIndex() + tags.writerIndex() : 0;
+        int colsSize = colCount > 0 ? colLens.writerIndex() + cols.writerIndex() : 0;
+
+        ByteBuf header = PooledByteBufAllocator.DEFAULT.directBuffer(HEADER_SIZE + DATA_HEADER_SIZE);
+        //************ header *****************
+        // ReqId
+        header.writeLongLE(reqId);
+        // stmtId
+        header.writeLongLE(stmtId);
+        // actionId
+        header.writeLongLE(STMT2_BIND_ACTION);
+        // version
+        header.writeShortLE(1);
+        // col_idx
+        header.writeIntLE(-1);
+
+        //************ data *****************
+        // TotalLength
+        header.writeIntLE(DATA_HEADER_SIZE + tableNamesSize + tagsSize + colsSize);
+        // tableCount
+        header.writeIntLE(tableCount);
+        // TagCount
+        header.writeIntLE(tagCount);
+        // ColCount
+        header.writeIntLE(colCount);
+        // tableNameOffset
+        header.writeIntLE(bindTableName ? DATA_HEADER_SIZE : 0);
+        // tagOffset
+        header.writeIntLE(tagCount > 0 ? DATA_HEADER_SIZE + tableNamesSize : 0);
+        // colOffset
+        header.writeIntLE(colCount > 0 ? DATA_HEADER_SIZE + tableNamesSize + tagsSize : 0);
+
+        CompositeByteBuf block = PooledByteBufAllocator.DEFAULT.compositeDirectBuffer(Integer.MAX_VALUE);
+        block.addComponent(true, header);
+        if (bindTableName) {
+            block.addFlattenedComponents(true, tableNameLens);
+            block.addFlattenedComponents(true, tableNames);
+        }
+        if (tagCount > 0) {
+            block.addFlattenedComponents(true, tagLens);
+            block.addFlattenedComponents(true, tags);
+        }
+        if (colCount > 0) {
+            block.addFlattenedComponents(true, colLens);
+            block.addFlattenedComponents(true, cols);
+        }
+        tableNameLens = null;
+        tableNames = null;
+        tagLens = null;
+        tags = null;
+        colLens = null;
+        cols = null;
+        return block;
+    }
+
+    public void release() {
+        tableNameLens = releaseSection(tableNameLens);
+        tableNames = releaseSection(tableNames);
+        tagLens = releaseSection(tagLens);
+        tags = releaseSection(tags);
+        colLens = releaseSection(colLens);
+        cols = releaseSection(cols);
+    }
+
+    private static CompositeByteBuf releaseSection(CompositeByteBuf buf) {
+        if (buf != null && buf.refCnt() > 0) {
+            Utils.releaseByteBuf(buf);
+        }
+        return null;
+    }
+
+    //************ single value columns *****************
+
+    // TotalLength(4) + Type(4) + Num(4) + IsNull(1) + haveLength(1) + BufferLength(4)
+    private static final int FIXED_COLUMN_HEADER_SIZE = 18;
+
+    private static void writeFixedHeader(ByteBuf buf, int type, boolean isNull, int dataLen) {
+        buf.writeIntLE(FIXED_COLUMN_HEADER_SIZE + dataLen);
+        buf.writeIntLE(type);
+        buf.writeIntLE(1);
+        buf.writeByte(isNull ? 1 : 0);
+        buf.writeByte(0);
+        buf.writeIntLE(dataLen);
+    }
+
+    public static void serializeBool(ByteBuf buf, boolean v, boolean isNull) {
+        writeFixedHeader(buf, TSDB_DATA_TYPE_BOOL, isNull, Byte.BYTES);
+        buf.writeByte((!isNull && v) ? 1 : 0);
+    }
+
+    public static void serializeByte(ByteBuf buf, byte v, boolean isNull, int type) {
+        writeFixedHeader(buf, type, isNull, Byte.BYTES);
+        buf.writeByte(isNull ? 0 : v);
+    }
+
+    public static void serializeShort(ByteBuf buf, short v, boolean isNull, int type) {
+        writeFixedHeader(buf, type, isNull, Short.BYTES);
+        buf.writeShortLE(isNull ? 0 : v);
+    }
+
+    public static void serializeInt(ByteBuf buf, int v, boolean isNull, int type) {
+        writeFixedHeader(buf, type, isNull, Integer.BYTES);
+        buf.writeIntLE(isNull ? 0 : v);
+    }
+
+    public static void serializeLong(ByteBuf buf, long v, boolean isNull, int type) {
+        writeFixedHeader(buf, type, isNull, Long.BYTES);
+        buf.writeLongLE(isNull ? 0 : v);
+    }
+
+    public static void serializeTimestamp(ByteBuf buf, long v, boolean isNull) {
+        serializeLong(buf, v, isNull, TSDB_DATA_TYPE_TIMESTAMP);
+    }
+
+    public static void serializeFloat(ByteBuf buf, float v, boolean isNull) {
+        writeFixedHeader(buf, TSDB_DATA_TYPE_FLOAT, isNull, Float.BYTES);
+        buf.writeFloatLE(isNull ? 0 : v);
+    }
+
+    public static void serializeDouble(ByteBuf buf, double v, boolean isNull) {
+        writeFixedHeader(buf, TSDB_DATA_TYPE_DOUBLE, isNull, Double.BYTES);
+        buf.writeDoubleLE(isNull ? 0 : v);
+    }
+
+    // TotalLength(4) + Type(4) + Num(4) + IsNull(1) + haveLength(1) + Length(4) + BufferLength(4)
+    private static final int VAR_COLUMN_HEADER_SIZE = 22;
+
+    private static void writeVarHeader(ByteBuf buf, int type, boolean isNull, int dataLen) {
+        buf.writeIntLE(VAR_COLUMN_HEADER_SIZE + dataLen);
+        buf.writeIntLE(type);
+        buf.writeIntLE(1);
+        buf.writeByte(isNull ? 1 : 0);
+        buf.writeByte(1);
+        buf.writeIntLE(dataLen);
+        buf.writeIntLE(dataLen);
+    }
+
+    public static void serializeBytes(ByteBuf buf, byte[] v, boolean isNull, int type) {
+        if (isNull || v == null) {
+            writeVarHeader(buf, type, true, 0);
+            return;
+        }
+        writeVarHeader(buf, type, false, v.length);
+        buf.writeBytes(v);
+    }
+
+    public static void serializeString(ByteBuf buf, String v, boolean isNull, int type) {
+        if (isNull || v == null) {
+            writeVarHeader(buf, type, true, 0);
+            return;
+        }
+        int len = ByteBufUtil.utf8Bytes(v);
+        writeVarHeader(buf, type, false, len);
+        ByteBufUtil.reserveAndWriteUtf8(buf, v, len);
+    }
+}
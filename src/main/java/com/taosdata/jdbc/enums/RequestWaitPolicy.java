@@ -0,0 +1,21 @@
+package com.taosdata.jdbc.enums;
+
+/**
+ * what a websocket request does when the connection reached the max number of concurrent requests
+ */
+public enum RequestWaitPolicy {
+    // wait up to the message wait timeout for a free slot
+    WAIT,
+    // fail at once
+    FAIL,
+    ;
+
+    public static RequestWaitPolicy of(String policy) {
+        for (RequestWaitPolicy value : values()) {
+            if (value.name().equalsIgnoreCase(policy)) {
+                return value;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,37 @@
+package com.taosdata.jdbc.metrics;
+
+import com.taosdata.jdbc.utils.TimeoutMetrics;
+import com.taosdata.jdbc.ws.FetchScheduler;
+
+import java.util.Map;
+
+/**
+ * the driver wide metrics, with the request timeouts and the shared fetch scheduler
+ */
+public class DriverMetrics extends Metrics implements DriverMetricsMXBean {
+    static final DriverMetrics INSTANCE = new DriverMetrics();
+
+    private DriverMetrics() {
+        super(null);
+    }
+
+    @Override
+    public Map<String, Long> getTimeoutCount() {
+        return TimeoutMetrics.snapshot();
+    }
+
+    @Override
+    public int getFetchSchedulerQueueDepth() {
+        return FetchScheduler.getQueueDepth();
+    }
+
+    @Override
+    public int getFetchSchedulerActiveFetches() {
+        return FetchScheduler.getActiveFetchCount();
+    }
+
+    @Override
+    public long getFetchSchedulerCompletedFetches() {
+        return FetchScheduler.getCompletedFetchCount();
+    }
+}
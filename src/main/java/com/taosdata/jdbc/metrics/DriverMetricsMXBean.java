@@ -0,0 +1,17 @@
+package com.taosdata.jdbc.metrics;
+
+import java.util.Map;
+
+/**
+ * metrics of all websocket connections of the driver, including the ones closed
+ */
+public interface DriverMetricsMXBean extends MetricsMXBean {
+
+    Map<String, Long> getTimeoutCount();
+
+    int getFetchSchedulerQueueDepth();
+
+    int getFetchSchedulerActiveFetches();
+
+    long getFetchSchedulerCompletedFetches();
+}
@@ -0,0 +1,47 @@
+package com.taosdata.jdbc.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * publishes metrics to the platform mbean server as com.taosdata.jdbc:type=Metrics,name=&lt;name&gt;
+ */
+public class JmxMetricsRegistry implements MetricsRegistry {
+    private static final Logger log = LoggerFactory.getLogger(JmxMetricsRegistry.class);
+
+    private final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+    @Override
+    public void register(String name, Metrics metrics) {
+        try {
+            StandardMBean mbean = metrics instanceof DriverMetrics
+                    ? new StandardMBean((DriverMetrics) metrics, DriverMetricsMXBean.class, true)
+                    : new StandardMBean(metrics, MetricsMXBean.class, true);
+            server.registerMBean(mbean, objectName(name));
+        } catch (JMException e) {
+            log.warn("register metrics {} failed", name, e);
+        }
+    }
+
+    @Override
+    public void unregister(String name) {
+        try {
+            server.unregisterMBean(objectName(name));
+        } catch (InstanceNotFoundException ignored) {
+            // closed twice
+        } catch (JMException e) {
+            log.warn("unregister metrics {} failed", name, e);
+        }
+    }
+
+    static ObjectName objectName(String name) throws JMException {
+        return new ObjectName("com.taosdata.jdbc:type=Metrics,name=" + name);
+    }
+}
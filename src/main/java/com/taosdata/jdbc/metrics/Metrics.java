@@ -0,0 +1,265 @@
+package com.taosdata.jdbc.metrics;
+
+import com.taosdata.jdbc.TSDBError;
+import com.taosdata.jdbc.TSDBErrorNumbers;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * metrics of one websocket connection, everything recorded is added to the driver wide {@link #global()} metrics too.
+ * <p>
+ * a connection publishes its metrics to the {@link MetricsRegistry} named by the metricsRegistry property while it
+ * is open, the global metrics are published to every registry in use under the name "global".
+ */
+public class Metrics implements MetricsMXBean {
+    public static final String JMX = "jmx";
+    public static final String NONE = "none";
+    public static final String GLOBAL = "global";
+
+    private static final ConcurrentHashMap<String, MetricsRegistry> REGISTRIES = new ConcurrentHashMap<>();
+    private static final AtomicLong ids = new AtomicLong();
+
+    private final Metrics parent;
+    private final ConcurrentHashMap<String, LatencyHistogram> requestLatency = new ConcurrentHashMap<>();
+    private final LongAdder inFlight = new LongAdder();
+    private final LongAdder textBytesSent = new LongAdder();
+    private final LongAdder binaryBytesSent = new LongAdder();
+    private final LongAdder textBytesReceived = new LongAdder();
+    private final LongAdder binaryBytesReceived = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+    private final LongAdder blocksDecoded = new LongAdder();
+    private final LongAdder rowsDecoded = new LongAdder();
+    private final LongAdder efficientWriteQueue = new LongAdder();
+    private final LatencyHistogram efficientWriteLatency = new LatencyHistogram();
+
+    Metrics(Metrics parent) {
+        this.parent = parent;
+    }
+
+    public static DriverMetrics global() {
+        return DriverMetrics.INSTANCE;
+    }
+
+    /**
+     * @return new metrics of a connection
+     */
+    public static Metrics newConnectionMetrics() {
+        return new Metrics(global());
+    }
+
+    /**
+     * @return a name for the metrics of a connection, unique in the driver
+     */
+    public static String newConnectionName(String function) {
+        return function + "-" + ids.incrementAndGet();
+    }
+
+    /**
+     * @param name jmx, none, or the class name of a {@link MetricsRegistry} with a public no-arg constructor,
+     *             null for jmx
+     * @return the registry shared by all connections with the name
+     */
+    public static MetricsRegistry registry(String name) throws SQLException {
+        if (name == null) {
+            name = JMX;
+        }
+        MetricsRegistry registry = REGISTRIES.get(name);
+        if (registry != null) {
+            return registry;
+        }
+        synchronized (REGISTRIES) {
+            registry = REGISTRIES.get(name);
+            if (registry == null) {
+                registry = newRegistry(name);
+                registry.register(GLOBAL, global());
+                REGISTRIES.put(name, registry);
+            }
+        }
+        return registry;
+    }
+
+    private static MetricsRegistry newRegistry(String name) throws SQLException {
+        if (JMX.equalsIgnoreCase(name)) {
+            return new JmxMetricsRegistry();
+        }
+        if (NONE.equalsIgnoreCase(name)) {
+            return MetricsRegistry.NOOP;
+        }
+        try {
+            Object registry = Class.forName(name).getDeclaredConstructor().newInstance();
+            if (registry instanceof MetricsRegistry) {
+                return (MetricsRegistry) registry;
+            }
+        } catch (ReflectiveOperationException | LinkageError ignored) {
+            // reported below
+        }
+        throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "invalid para PROPERTY_KEY_METRICS_REGISTRY");
+    }
+
+    /*******************************************************/
+
+    public void requestStarted() {
+        for (Metrics m = this; m != null; m = m.parent) {
+            m.inFlight.increment();
+        }
+    }
+
+    public void requestCompleted(String action, long nanos) {
+        for (Metrics m = this; m != null; m = m.parent) {
+            m.inFlight.decrement();
+            LatencyHistogram histogram = m.requestLatency.get(action);
+            if (histogram == null) {
+                histogram = m.requestLatency.computeIfAbsent(action, k -> new LatencyHistogram());
+            }
+            histogram.record(nanos);
+        }
+    }
+
+    public void bytesSent(boolean binary, int bytes) {
+        for (Metrics m = this; m != null; m = m.parent) {
+            (binary ? m.binaryBytesSent : m.textBytesSent).add(bytes);
+        }
+    }
+
+    public void bytesReceived(boolean binary, int bytes) {
+        for (Metrics m = this; m != null; m = m.parent) {
+            (binary ? m.binaryBytesReceived : m.textBytesReceived).add(bytes);
+        }
+    }
+
+    public void reconnected() {
+        for (Metrics m = this; m != null; m = m.parent) {
+            m.reconnects.increment();
+        }
+    }
+
+    public void blocksDecoded(int blocks, int rows) {
+        for (Metrics m = this; m != null; m = m.parent) {
+            m.blocksDecoded.add(blocks);
+            m.rowsDecoded.add(rows);
+        }
+    }
+
+    /**
+     * @param delta chunks handed to an efficient writing worker, negative for the ones it takes
+     */
+    public void efficientWriteQueued(int delta) {
+        for (Metrics m = this; m != null; m = m.parent) {
+            m.efficientWriteQueue.add(delta);
+        }
+    }
+
+    public void efficientWriteCompleted(long nanos) {
+        for (Metrics m = this; m != null; m = m.parent) {
+            m.efficientWriteLatency.record(nanos);
+        }
+    }
+
+    /*******************************************************/
+
+    /**
+     * @return latency of the action, null if it was never sent
+     */
+    public LatencyHistogram getRequestLatency(String action) {
+        return requestLatency.get(action);
+    }
+
+    public LatencyHistogram getEfficientWriteLatency() {
+        return efficientWriteLatency;
+    }
+
+    @Override
+    public Map<String, Long> getRequestCount() {
+        Map<String, Long> map = new TreeMap<>();
+        requestLatency.forEach((action, histogram) -> map.put(action, histogram.getCount()));
+        return Collections.unmodifiableMap(map);
+    }
+
+    @Override
+    public Map<String, Double> getRequestLatencyMeanMillis() {
+        return latency(LatencyHistogram::getMeanMillis);
+    }
+
+    @Override
+    public Map<String, Double> getRequestLatencyP99Millis() {
+        return latency(h -> h.getPercentileMillis(0.99));
+    }
+
+    @Override
+    public Map<String, Double> getRequestLatencyMaxMillis() {
+        return latency(h -> h.getMaxNanos() / 1_000_000.0);
+    }
+
+    private Map<String, Double> latency(ToDoubleFunction<LatencyHistogram> f) {
+        Map<String, Double> map = new TreeMap<>();
+        requestLatency.forEach((action, histogram) -> map.put(action, f.applyAsDouble(histogram)));
+        return Collections.unmodifiableMap(map);
+    }
+
+    @Override
+    public long getInFlightRequests() {
+        return inFlight.sum();
+    }
+
+    @Override
+    public long getTextBytesSent() {
+        return textBytesSent.sum();
+    }
+
+    @Override
+    public long getBinaryBytesSent() {
+        return binaryBytesSent.sum();
+    }
+
+    @Override
+    public long getTextBytesReceived() {
+        return textBytesReceived.sum();
+    }
+
+    @Override
+    public long getBinaryBytesReceived() {
+        return binaryBytesReceived.sum();
+    }
+
+    @Override
+    public long getReconnectCount() {
+        return reconnects.sum();
+    }
+
+    @Override
+    public long getBlocksDecoded() {
+        return blocksDecoded.sum();
+    }
+
+    @Override
+    public long getRowsDecoded() {
+        return rowsDecoded.sum();
+    }
+
+    @Override
+    public long getEfficientWriteQueueDepth() {
+        return efficientWriteQueue.sum();
+    }
+
+    @Override
+    public long getEfficientWriteCount() {
+        return efficientWriteLatency.getCount();
+    }
+
+    @Override
+    public double getEfficientWriteLatencyMeanMillis() {
+        return efficientWriteLatency.getMeanMillis();
+    }
+
+    @Override
+    public double getEfficientWriteLatencyP99Millis() {
+        return efficientWriteLatency.getPercentileMillis(0.99);
+    }
+}
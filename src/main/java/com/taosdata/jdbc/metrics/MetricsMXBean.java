@@ -0,0 +1,41 @@
+package com.taosdata.jdbc.metrics;
+
+import java.util.Map;
+
+/**
+ * metrics of websocket connections, maps are keyed by action name
+ */
+public interface MetricsMXBean {
+
+    Map<String, Long> getRequestCount();
+
+    Map<String, Double> getRequestLatencyMeanMillis();
+
+    Map<String, Double> getRequestLatencyP99Millis();
+
+    Map<String, Double> getRequestLatencyMaxMillis();
+
+    long getInFlightRequests();
+
+    long getTextBytesSent();
+
+    long getBinaryBytesSent();
+
+    long getTextBytesReceived();
+
+    long getBinaryBytesReceived();
+
+    long getReconnectCount();
+
+    long getBlocksDecoded();
+
+    long getRowsDecoded();
+
+    long getEfficientWriteQueueDepth();
+
+    long getEfficientWriteCount();
+
+    double getEfficientWriteLatencyMeanMillis();
+
+    double getEfficientWriteLatencyP99Millis();
+}
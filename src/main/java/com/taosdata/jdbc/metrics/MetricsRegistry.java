@@ -0,0 +1,31 @@
+package com.taosdata.jdbc.metrics;
+
+/**
+ * where metrics are published, chosen by the metricsRegistry connection property.
+ * <p>
+ * a registry only gets the metrics objects, it reads them through the getters of {@link MetricsMXBean} and
+ * {@link DriverMetricsMXBean} when it is scraped, so recording never calls it. e.g. a micrometer bridge registers
+ * a FunctionCounter or Gauge per getter, tagged with the name, and removes them on unregister.
+ * one instance of an implementation is shared by all connections using it, so it must be thread safe.
+ */
+public interface MetricsRegistry {
+
+    MetricsRegistry NOOP = new MetricsRegistry() {
+        @Override
+        public void register(String name, Metrics metrics) {
+            // nothing to do
+        }
+
+        @Override
+        public void unregister(String name) {
+            // nothing to do
+        }
+    };
+
+    /**
+     * @param name "global" for the {@link DriverMetrics}, otherwise a connection name such as ws-12
+     */
+    void register(String name, Metrics metrics);
+
+    void unregister(String name);
+}
@@ -3,11 +3,14 @@ package com.taosdata.jdbc.rs;
 import com.taosdata.jdbc.TSDBDriver;
 import com.taosdata.jdbc.TSDBError;
 import com.taosdata.jdbc.TSDBErrorNumbers;
+import com.taosdata.jdbc.enums.RequestWaitPolicy;
+import com.taosdata.jdbc.metrics.Metrics;
 import com.taosdata.jdbc.utils.HttpClientPoolUtil;
 import com.taosdata.jdbc.utils.StringUtils;
 import com.taosdata.jdbc.utils.Utils;
 import com.taosdata.jdbc.ws.Transport;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 
 import java.io.UnsupportedEncodingException;
 import java.net.URLDecoder;
@@ -19,6 +22,12 @@ import java.util.Properties;
 import java.util.function.Consumer;
 
 public class ConnectionParam {
+    public static final int DEFAULT_SCHEMALESS_BATCH_BYTES = 0;
+    public static final int DEFAULT_SCHEMALESS_MAX_INFLIGHT = 1;
+    public static final int DEFAULT_PREFETCH_MAX_BLOCKS = 16;
+    public static final long DEFAULT_PREFETCH_MEMORY_BYTES = 64L * 1024 * 1024;
+    public static final int DEFAULT_STMT2_PIPELINE_DEPTH = 1;
+
     private String host;
     private String port;
     private String database;
@@ -51,8 +60,17 @@ public class ConnectionParam {
     private int retryTimes;
     private String asyncWrite;
     private String pbsMode;
-
-    private Consumer<String> textMessageHandler;
+    private int schemalessBatchBytes;
+    private int schemalessMaxInflight;
+    private RequestWaitPolicy requestWaitPolicy;
+    private boolean vgroupRouting;
+    private int prefetchMaxBlocks;
+    private long prefetchMemoryBytes;
+    private boolean blockCompression;
+    private int stmt2PipelineDepth;
+    private String metricsRegistry;
+
+    private Consumer<ByteBuf> textFrameHandler;
     private Consumer<ByteBuf> binaryMessageHandler;
     static public final int CONNECT_MODE_BI = 1;
 
@@ -86,9 +104,18 @@ public class ConnectionParam {
         this.strictCheck = builder.strictCheck;
         this.retryTimes = builder.retryTimes;
         this.asyncWrite = builder.asyncWrite;
-        this.textMessageHandler = builder.textMessageHandler;
+        this.textFrameHandler = builder.textFrameHandler;
         this.binaryMessageHandler = builder.binaryMessageHandler;
         this.pbsMode = builder.pbsMode;
+        this.schemalessBatchBytes = builder.schemalessBatchBytes;
+        this.schemalessMaxInflight = builder.schemalessMaxInflight;
+        this.requestWaitPolicy = builder.requestWaitPolicy;
+        this.vgroupRouting = builder.vgroupRouting;
+        this.prefetchMaxBlocks = builder.prefetchMaxBlocks;
+        this.prefetchMemoryBytes = builder.prefetchMemoryBytes;
+        this.blockCompression = builder.blockCompression;
+        this.stmt2PipelineDepth = builder.stmt2PipelineDepth;
+        this.metricsRegistry = builder.metricsRegistry;
     }
 
     public void setHost(String host) {
@@ -314,12 +341,107 @@ public class ConnectionParam {
         return pbsMode;
     }
 
+    public int getSchemalessBatchBytes() {
+        return schemalessBatchBytes;
+    }
+
+    public void setSchemalessBatchBytes(int schemalessBatchBytes) {
+        this.schemalessBatchBytes = schemalessBatchBytes;
+    }
+
+    public int getSchemalessMaxInflight() {
+        return schemalessMaxInflight;
+    }
+
+    public void setSchemalessMaxInflight(int schemalessMaxInflight) {
+        this.schemalessMaxInflight = schemalessMaxInflight;
+    }
+
+    public RequestWaitPolicy getRequestWaitPolicy() {
+        return requestWaitPolicy;
+    }
+
+    public void setRequestWaitPolicy(RequestWaitPolicy requestWaitPolicy) {
+        this.requestWaitPolicy = requestWaitPolicy;
+    }
+
+    public boolean isVgroupRouting() {
+        return vgroupRouting;
+    }
+
+    public void setVgroupRouting(boolean vgroupRouting) {
+        this.vgroupRouting = vgroupRouting;
+    }
+
+    public int getPrefetchMaxBlocks() {
+        return prefetchMaxBlocks;
+    }
+
+    public void setPrefetchMaxBlocks(int prefetchMaxBlocks) {
+        this.prefetchMaxBlocks = prefetchMaxBlocks;
+    }
+
+    public long getPrefetchMemoryBytes() {
+        return prefetchMemoryBytes;
+    }
+
+    public void setPrefetchMemoryBytes(long prefetchMemoryBytes) {
+        this.prefetchMemoryBytes = prefetchMemoryBytes;
+    }
+
+    public boolean isBlockCompression() {
+        return blockCompression;
+    }
+
+    public void setBlockCompression(boolean blockCompression) {
+        this.blockCompression = blockCompression;
+    }
+
+    public int getStmt2PipelineDepth() {
+        return stmt2PipelineDepth;
+    }
+
+    public void setStmt2PipelineDepth(int stmt2PipelineDepth) {
+        this.stmt2PipelineDepth = stmt2PipelineDepth;
+    }
+
+    public String getMetricsRegistry() {
+        return metricsRegistry;
+    }
+
+    public void setMetricsRegistry(String metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+    }
+
+    /**
+     * the text frame handler, called with the decoded text of each frame
+     */
     public Consumer<String> getTextMessageHandler() {
-        return textMessageHandler;
+        Consumer<ByteBuf> handler = textFrameHandler;
+        return handler == null ? null : text -> handler.accept(Unpooled.wrappedBuffer(text.getBytes(StandardCharsets.UTF_8)));
     }
 
+    /**
+     * handle text frames as strings, each frame is decoded before the handler is called.
+     * see {@link #setTextFrameHandler(Consumer)} to read the frame buffer in place.
+     */
     public void setTextMessageHandler(Consumer<String> textMessageHandler) {
-        this.textMessageHandler = textMessageHandler;
+        this.textFrameHandler = textMessageHandler == null ? null : decoding(textMessageHandler);
+    }
+
+    public Consumer<ByteBuf> getTextFrameHandler() {
+        return textFrameHandler;
+    }
+
+    /**
+     * handle the content of text frames, the buffer is released after the handler returns
+     */
+    public void setTextFrameHandler(Consumer<ByteBuf> textFrameHandler) {
+        this.textFrameHandler = textFrameHandler;
+    }
+
+    private static Consumer<ByteBuf> decoding(Consumer<String> textMessageHandler) {
+        return frame -> textMessageHandler.accept(frame.toString(StandardCharsets.UTF_8));
     }
 
     public Consumer<ByteBuf> getBinaryMessageHandler() {
@@ -474,6 +596,46 @@ public class ConnectionParam {
             throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "PROPERTY_KEY_PBS_MODE only support line");
         }
 
+        int schemalessBatchBytes = Integer.parseInt(properties.getProperty(TSDBDriver.PROPERTY_KEY_SCHEMALESS_BATCH_BYTES,
+                String.valueOf(DEFAULT_SCHEMALESS_BATCH_BYTES)));
+        int schemalessMaxInflight = Integer.parseInt(properties.getProperty(TSDBDriver.PROPERTY_KEY_SCHEMALESS_MAX_INFLIGHT,
+                String.valueOf(DEFAULT_SCHEMALESS_MAX_INFLIGHT)));
+        if (schemalessMaxInflight < 1){
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "invalid para PROPERTY_KEY_SCHEMALESS_MAX_INFLIGHT");
+        }
+
+        RequestWaitPolicy requestWaitPolicy = RequestWaitPolicy.of(properties.getProperty(TSDBDriver.PROPERTY_KEY_REQUEST_WAIT_POLICY,
+                RequestWaitPolicy.WAIT.name()));
+        if (requestWaitPolicy == null){
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "invalid para PROPERTY_KEY_REQUEST_WAIT_POLICY");
+        }
+
+        boolean vgroupRouting = Boolean.parseBoolean(properties.getProperty(TSDBDriver.PROPERTY_KEY_VGROUP_ROUTING, "false"));
+
+        int prefetchMaxBlocks = Integer.parseInt(properties.getProperty(TSDBDriver.PROPERTY_KEY_PREFETCH_MAX_BLOCKS,
+                String.valueOf(DEFAULT_PREFETCH_MAX_BLOCKS)));
+        if (prefetchMaxBlocks < 1){
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "invalid para PROPERTY_KEY_PREFETCH_MAX_BLOCKS");
+        }
+
+        long prefetchMemoryBytes = Long.parseLong(properties.getProperty(TSDBDriver.PROPERTY_KEY_PREFETCH_MEMORY_BYTES,
+                String.valueOf(DEFAULT_PREFETCH_MEMORY_BYTES)));
+        if (prefetchMemoryBytes < 0){
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "invalid para PROPERTY_KEY_PREFETCH_MEMORY_BYTES");
+        }
+
+        boolean blockCompression = Boolean.parseBoolean(properties.getProperty(TSDBDriver.PROPERTY_KEY_BLOCK_COMPRESSION, "false"));
+
+        int stmt2PipelineDepth = Integer.parseInt(properties.getProperty(TSDBDriver.PROPERTY_KEY_STMT2_PIPELINE_DEPTH,
+                String.valueOf(DEFAULT_STMT2_PIPELINE_DEPTH)));
+        if (stmt2PipelineDepth < 1){
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "invalid para PROPERTY_KEY_STMT2_PIPELINE_DEPTH");
+        }
+
+        String metricsRegistry = properties.getProperty(TSDBDriver.PROPERTY_KEY_METRICS_REGISTRY, Metrics.JMX);
+        // fails on an unknown registry class
+        Metrics.registry(metricsRegistry);
+
         return new Builder(host, port)
                 .setDatabase(database)
                 .setCloudToken(cloudToken)
@@ -502,6 +664,15 @@ public class ConnectionParam {
                 .setRetryTimes(retryTimes)
                 .setAsyncWrite(asyncWrite)
                 .setPbsMode(pbsMode)
+                .setSchemalessBatchBytes(schemalessBatchBytes)
+                .setSchemalessMaxInflight(schemalessMaxInflight)
+                .setRequestWaitPolicy(requestWaitPolicy)
+                .setVgroupRouting(vgroupRouting)
+                .setPrefetchMaxBlocks(prefetchMaxBlocks)
+                .setPrefetchMemoryBytes(prefetchMemoryBytes)
+                .setBlockCompression(blockCompression)
+                .setStmt2PipelineDepth(stmt2PipelineDepth)
+                .setMetricsRegistry(metricsRegistry)
                 .build();
     }
 
@@ -538,8 +709,17 @@ public class ConnectionParam {
         private int retryTimes;
         private String asyncWrite;
         private String pbsMode;
-
-        private Consumer<String> textMessageHandler;
+        private int schemalessBatchBytes;
+        private int schemalessMaxInflight;
+        private RequestWaitPolicy requestWaitPolicy;
+        private boolean vgroupRouting;
+        private int prefetchMaxBlocks;
+        private long prefetchMemoryBytes;
+        private boolean blockCompression;
+        private int stmt2PipelineDepth;
+        private String metricsRegistry;
+
+        private Consumer<ByteBuf> textFrameHandler;
         private Consumer<ByteBuf> binaryMessageHandler;
 
         public Builder(String host, String port) {
@@ -678,8 +858,58 @@ public class ConnectionParam {
             this.pbsMode = pbsMode;
             return this;
         }
+        public Builder setSchemalessBatchBytes(int schemalessBatchBytes) {
+            this.schemalessBatchBytes = schemalessBatchBytes;
+            return this;
+        }
+
+        public Builder setSchemalessMaxInflight(int schemalessMaxInflight) {
+            this.schemalessMaxInflight = schemalessMaxInflight;
+            return this;
+        }
+
+        public Builder setRequestWaitPolicy(RequestWaitPolicy requestWaitPolicy) {
+            this.requestWaitPolicy = requestWaitPolicy;
+            return this;
+        }
+
+        public Builder setVgroupRouting(boolean vgroupRouting) {
+            this.vgroupRouting = vgroupRouting;
+            return this;
+        }
+
+        public Builder setPrefetchMaxBlocks(int prefetchMaxBlocks) {
+            this.prefetchMaxBlocks = prefetchMaxBlocks;
+            return this;
+        }
+
+        public Builder setPrefetchMemoryBytes(long prefetchMemoryBytes) {
+            this.prefetchMemoryBytes = prefetchMemoryBytes;
+            return this;
+        }
+
+        public Builder setBlockCompression(boolean blockCompression) {
+            this.blockCompression = blockCompression;
+            return this;
+        }
+
+        public Builder setStmt2PipelineDepth(int stmt2PipelineDepth) {
+            this.stmt2PipelineDepth = stmt2PipelineDepth;
+            return this;
+        }
+
+        public Builder setMetricsRegistry(String metricsRegistry) {
+            this.metricsRegistry = metricsRegistry;
+            return this;
+        }
+
         public Builder setTextMessageHandler(Consumer<String> textMessageHandler) {
-            this.textMessageHandler = textMessageHandler;
+            this.textFrameHandler = textMessageHandler == null ? null : decoding(textMessageHandler);
+            return this;
+        }
+
+        public Builder setTextFrameHandler(Consumer<ByteBuf> textFrameHandler) {
+            this.textFrameHandler = textFrameHandler;
             return this;
         }
 
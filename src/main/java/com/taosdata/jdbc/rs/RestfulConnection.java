@@ -21,6 +21,7 @@ public class RestfulConnection extends AbstractConnection {
     private final boolean useSsl;
     private final String token;
     private final String tz;
+    private final boolean streamingResult;
 
     private boolean isClosed;
     private final DatabaseMetaData metadata;
@@ -35,6 +36,7 @@ public class RestfulConnection extends AbstractConnection {
         this.useSsl = useSsl;
         this.token = token;
         this.tz = tz;
+        this.streamingResult = Boolean.parseBoolean(props.getProperty(TSDBDriver.PROPERTY_KEY_STREAMING_RESULT, "false"));
         this.metadata = new RestfulDatabaseMetaData(url, props.getProperty(TSDBDriver.PROPERTY_KEY_USER), this);
     }
 
@@ -115,4 +117,8 @@ public class RestfulConnection extends AbstractConnection {
     public String getTz() {
         return tz;
     }
+
+    public boolean isStreamingResult() {
+        return streamingResult;
+    }
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import com.taosdata.jdbc.AbstractDriver;
 import com.taosdata.jdbc.TSDBDriver;
 import com.taosdata.jdbc.TSDBError;
 import com.taosdata.jdbc.TSDBErrorNumbers;
+import com.taosdata.jdbc.utils.AsyncHttpClient;
 import com.taosdata.jdbc.utils.HttpClientPoolUtil;
 import com.taosdata.jdbc.utils.StringUtils;
 import org.slf4j.LoggerFactory;
@@ -45,6 +46,7 @@ public class RestfulDriver extends AbstractDriver {
             return getWSConnection(url, param, props);
         }
         HttpClientPoolUtil.init(props);
+        AsyncHttpClient.init(props);
         ConnectionParam param = ConnectionParam.getParam(props);
 
         String auth = null;
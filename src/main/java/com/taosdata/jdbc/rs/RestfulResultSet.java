@@ -29,8 +29,6 @@ import java.time.temporal.ChronoField;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 @Deprecated
 public class RestfulResultSet extends AbstractResultSet {
 
@@ -54,14 +52,12 @@ public class RestfulResultSet extends AbstractResultSet {
             .withResolverStyle(ResolverStyle.STRICT)
             .withChronology(IsoChronology.INSTANCE);
 
-    Pattern pattern = Pattern.compile("^[0-9a-zT\\-:]+\\.([0-9]+).*$");
-
     private final Statement statement;
     // data
     private final List<List<Object>> resultSet = new ArrayList<>();
     // meta
     private final List<String> columnNames = new ArrayList<>();
-    private final List<Field> columns = new ArrayList<>();
+    protected final List<Field> columns = new ArrayList<>();
     private final RestfulResultSetMetaData metaData;
 
     private volatile boolean isClosed;
@@ -73,12 +69,12 @@ public class RestfulResultSet extends AbstractResultSet {
      * @param resultJson: 包含data信息的结果集，有sql返回的结果集
      ***/
     public RestfulResultSet(String database, Statement statement, JsonNode resultJson) throws SQLException {
-        this.statement = statement;
+        // column metadata and row data
+        this(database, statement, resultJson.get("column_meta"), resultJson.get("data"));
+    }
 
-        // get column metadata
-        JsonNode columnMeta = resultJson.get("column_meta");
-        // get row data
-        JsonNode data = resultJson.get("data");
+    protected RestfulResultSet(String database, Statement statement, JsonNode columnMeta, JsonNode data) throws SQLException {
+        this.statement = statement;
 
         // parse column_meta
         parseColumnMeta_new(columnMeta);
@@ -151,40 +147,35 @@ public class RestfulResultSet extends AbstractResultSet {
             case TSDBConstants.TSDB_DATA_TYPE_NCHAR:
                 return row.get(colIndex).isNull() ? null : row.get(colIndex).asText();
             case TSDBConstants.TSDB_DATA_TYPE_JSON:
-                // all json tag or just a json tag value
-                ObjectWriter objectWriter = JsonUtil.getObjectWriter(JsonNode.class);
-                JsonNode jsonNode = row.get(colIndex);
-                if (jsonNode != null && !jsonNode.isNull() && (jsonNode.isTextual() || jsonNode.isObject())) {
-                    try {
-                        return objectWriter.writeValueAsString(jsonNode);
-                    } catch (JsonProcessingException e) {
-                        throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNKNOWN, e.getMessage());
-                    }
-                } else {
-                    return jsonNode;
-                }
+                return jsonColumnData(row.get(colIndex));
             default:
                 return row.get(colIndex);
         }
     }
 
+    static Object jsonColumnData(JsonNode jsonNode) throws SQLException {
+        // all json tag or just a json tag value
+        ObjectWriter objectWriter = JsonUtil.getObjectWriter(JsonNode.class);
+        if (jsonNode != null && !jsonNode.isNull() && (jsonNode.isTextual() || jsonNode.isObject())) {
+            try {
+                return objectWriter.writeValueAsString(jsonNode);
+            } catch (JsonProcessingException e) {
+                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNKNOWN, e.getMessage());
+            }
+        } else {
+            return jsonNode;
+        }
+    }
+
     public Timestamp parseTimestampColumnData(JsonNode row, int colIndex) throws SQLException {
         if (row.get(colIndex).isNull())
             return null;
 
-        String value = row.get(colIndex).asText();
-        int index = value.lastIndexOf(":");
-        // ns timestamp: yyyy-MM-ddTHH:mm:ss.SSSSSSSSS+0x:00
-        if (index > 19) {
-            // ns timestamp: yyyy-MM-ddTHH:mm:ss.SSSSSSSSS+0x00
-            value = value.substring(0, index) + value.substring(index + 1);
-        }
-        ZonedDateTime parse = ZonedDateTime.parse(value, rfc3339Parser);
-        Matcher matcher = pattern.matcher(value);
-        int len = 0;
-        if (matcher.find()) {
-            len = matcher.group(1).length();
-        }
+        return parseTimestampColumnData(row.get(colIndex).asText());
+    }
+
+    Timestamp parseTimestampColumnData(String value) {
+        int len = DateTimeUtils.rfc3339FractionDigits(value);
         if (len > 6) {
             this.timestampPrecision = TimestampPrecision.NS;
         } else if (len > 3) {
@@ -192,8 +183,18 @@ public class RestfulResultSet extends AbstractResultSet {
         } else {
             this.timestampPrecision = TimestampPrecision.MS;
         }
-        return Timestamp.from(parse.toInstant());
+        Timestamp timestamp = DateTimeUtils.parseRfc3339(value);
+        if (timestamp != null)
+            return timestamp;
 
+        int index = value.lastIndexOf(":");
+        // ns timestamp: yyyy-MM-ddTHH:mm:ss.SSSSSSSSS+0x:00
+        if (index > 19) {
+            // ns timestamp: yyyy-MM-ddTHH:mm:ss.SSSSSSSSS+0x00
+            value = value.substring(0, index) + value.substring(index + 1);
+        }
+        ZonedDateTime parse = ZonedDateTime.parse(value, rfc3339Parser);
+        return Timestamp.from(parse.toInstant());
     }
 
     public static class Field {
@@ -228,6 +229,10 @@ public class RestfulResultSet extends AbstractResultSet {
         }
     }
 
+    protected List<Object> currentRow() {
+        return resultSet.get(pos);
+    }
+
     @Override
     public boolean next() throws SQLException {
         if (isClosed())
@@ -245,9 +250,9 @@ public class RestfulResultSet extends AbstractResultSet {
 
     @Override
     public String getString(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, resultSet.get(pos).size());
+        checkAvailability(columnIndex, currentRow().size());
 
-        Object value = resultSet.get(pos).get(columnIndex - 1);
+        Object value = currentRow().get(columnIndex - 1);
         wasNull = value == null;
         if (value == null)
             return null;
@@ -258,9 +263,9 @@ public class RestfulResultSet extends AbstractResultSet {
 
     @Override
     public boolean getBoolean(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, resultSet.get(pos).size());
+        checkAvailability(columnIndex, currentRow().size());
 
-        Object value = resultSet.get(pos).get(columnIndex - 1);
+        Object value = currentRow().get(columnIndex - 1);
         wasNull = value == null;
         if (value == null)
             return false;
@@ -271,9 +276,9 @@ public class RestfulResultSet extends AbstractResultSet {
 
     @Override
     public byte getByte(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, resultSet.get(pos).size());
+        checkAvailability(columnIndex, currentRow().size());
 
-        Object value = resultSet.get(pos).get(columnIndex - 1);
+        Object value = currentRow().get(columnIndex - 1);
         wasNull = value == null;
         if (value == null)
             return 0;
@@ -294,9 +299,9 @@ public class RestfulResultSet extends AbstractResultSet {
 
     @Override
     public short getShort(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, resultSet.get(pos).size());
+        checkAvailability(columnIndex, currentRow().size());
 
-        Object value = resultSet.get(pos).get(columnIndex - 1);
+        Object value = currentRow().get(columnIndex - 1);
         wasNull = value == null;
         if (value == null)
             return 0;
@@ -310,9 +315,9 @@ public class RestfulResultSet extends AbstractResultSet {
 
     @Override
     public int getInt(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, resultSet.get(pos).size());
+        checkAvailability(columnIndex, currentRow().size());
 
-        Object value = resultSet.get(pos).get(columnIndex - 1);
+        Object value = currentRow().get(columnIndex - 1);
         wasNull = value == null;
         if (value == null)
             return 0;
@@ -326,9 +331,9 @@ public class RestfulResultSet extends AbstractResultSet {
 
     @Override
     public long getLong(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, resultSet.get(pos).size());
+        checkAvailability(columnIndex, currentRow().size());
 
-        Object value = resultSet.get(pos).get(columnIndex - 1);
+        Object value = currentRow().get(columnIndex - 1);
         wasNull = value == null;
         if (value == null)
             return 0;
@@ -358,9 +363,9 @@ public class RestfulResultSet extends AbstractResultSet {
 
     @Override
     public float getFloat(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, resultSet.get(pos).size());
+        checkAvailability(columnIndex, currentRow().size());
 
-        Object value = resultSet.get(pos).get(columnIndex - 1);
+        Object value = currentRow().get(columnIndex - 1);
         wasNull = value == null;
         if (value == null)
             return 0;
@@ -375,9 +380,9 @@ public class RestfulResultSet extends AbstractResultSet {
 
     @Override
     public double getDouble(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, resultSet.get(pos).size());
+        checkAvailability(columnIndex, currentRow().size());
 
-        Object value = resultSet.get(pos).get(columnIndex - 1);
+        Object value = currentRow().get(columnIndex - 1);
         wasNull = value == null;
         if (value == null) {
             return 0;
@@ -393,9 +398,9 @@ public class RestfulResultSet extends AbstractResultSet {
 
     @Override
     public byte[] getBytes(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, resultSet.get(pos).size());
+        checkAvailability(columnIndex, currentRow().size());
 
-        Object value = resultSet.get(pos).get(columnIndex - 1);
+        Object value = currentRow().get(columnIndex - 1);
         wasNull = value == null;
         if (value == null)
             return null;
@@ -417,9 +422,9 @@ public class RestfulResultSet extends AbstractResultSet {
 
     @Override
     public Date getDate(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, resultSet.get(pos).size());
+        checkAvailability(columnIndex, currentRow().size());
 
-        Object value = resultSet.get(pos).get(columnIndex - 1);
+        Object value = currentRow().get(columnIndex - 1);
         wasNull = value == null;
         if (value == null)
             return null;
@@ -430,9 +435,9 @@ public class RestfulResultSet extends AbstractResultSet {
 
     @Override
     public Time getTime(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, resultSet.get(pos).size());
+        checkAvailability(columnIndex, currentRow().size());
 
-        Object value = resultSet.get(pos).get(columnIndex - 1);
+        Object value = currentRow().get(columnIndex - 1);
         wasNull = value == null;
         if (value == null)
             return null;
@@ -448,9 +453,9 @@ public class RestfulResultSet extends AbstractResultSet {
 
     @Override
     public Timestamp getTimestamp(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, resultSet.get(pos).size());
+        checkAvailability(columnIndex, currentRow().size());
 
-        Object value = resultSet.get(pos).get(columnIndex - 1);
+        Object value = currentRow().get(columnIndex - 1);
         wasNull = value == null;
         if (value == null)
             return null;
@@ -482,9 +487,9 @@ public class RestfulResultSet extends AbstractResultSet {
 
     @Override
     public Object getObject(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, resultSet.get(pos).size());
+        checkAvailability(columnIndex, currentRow().size());
 
-        Object value = resultSet.get(pos).get(columnIndex - 1);
+        Object value = currentRow().get(columnIndex - 1);
         wasNull = value == null;
         return value;
     }
@@ -502,9 +507,9 @@ public class RestfulResultSet extends AbstractResultSet {
 
     @Override
     public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, resultSet.get(pos).size());
+        checkAvailability(columnIndex, currentRow().size());
 
-        Object value = resultSet.get(pos).get(columnIndex - 1);
+        Object value = currentRow().get(columnIndex - 1);
         wasNull = value == null;
         if (value == null)
             return null;
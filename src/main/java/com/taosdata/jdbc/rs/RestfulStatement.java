@@ -1,19 +1,27 @@
 package com.taosdata.jdbc.rs;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.taosdata.jdbc.AbstractStatement;
 import com.taosdata.jdbc.TSDBDriver;
 import com.taosdata.jdbc.TSDBError;
 import com.taosdata.jdbc.TSDBErrorNumbers;
+import com.taosdata.jdbc.utils.AsyncHttpClient;
 import com.taosdata.jdbc.utils.HttpClientPoolUtil;
 import com.taosdata.jdbc.utils.JsonUtil;
 import com.taosdata.jdbc.utils.SqlSyntaxValidator;
+import com.taosdata.jdbc.utils.Utils;
 
+import java.io.IOException;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static com.taosdata.jdbc.utils.SqlSyntaxValidator.getDatabaseName;
 @Deprecated
@@ -67,9 +75,11 @@ public class RestfulStatement extends AbstractStatement {
 
     @Override
     public void close() throws SQLException {
-        synchronized (RestfulStatement.class) {
-            if (!isClosed())
+        synchronized (this) {
+            if (!isClosed()) {
+                closeResultSet();
                 this.closed = true;
+            }
         }
     }
 
@@ -83,8 +93,8 @@ public class RestfulStatement extends AbstractStatement {
         if (isClosed())
             throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_STATEMENT_CLOSED);
 
-        // 如果执行了use操作应该将当前Statement的catalog设置为新的database
-        boolean result = true;
+        if (conn.isStreamingResult())
+            return executeStreaming(sql, reqId);
 
         String response = HttpClientPoolUtil.execute(getUrl(), sql, this.conn.getAuth(), reqId);
         ObjectMapper objectMapper = JsonUtil.getObjectMapper();
@@ -94,31 +104,166 @@ public class RestfulStatement extends AbstractStatement {
         } catch (JsonProcessingException e) {
             throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNKNOWN, String.format("execute sql: %s, response: %s, can not cast to JsonNode.", sql, response));
         }
+        return handleResponse(sql, jsonObject) != null;
+    }
+
+    public CompletableFuture<ResultSet> executeAsync(String sql) {
+        return executeAsync(sql, null);
+    }
+
+    /**
+     * execute a sql over the non-blocking http client without holding a thread for the round trip. the future is
+     * completed on the driver async executor, not the event loop, with the result set of a query, or null for other
+     * statements, whose affected rows are in {@link #getUpdateCount()}. the result set is always buffered.
+     */
+    public CompletableFuture<ResultSet> executeAsync(String sql, Long reqId) {
+        return sendAsync(sql, reqId).thenApplyAsync(body -> {
+            try {
+                return handleResponse(sql, parse(sql, body));
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, Utils.getAsyncExecutor());
+    }
+
+    public CompletableFuture<Integer> executeUpdateAsync(String sql) {
+        return executeUpdateAsync(sql, null);
+    }
+
+    /**
+     * execute a sql without waiting for the response, see {@link #executeAsync(String, Long)}.
+     * the future is completed with the affected rows, or -1 for a query.
+     */
+    public CompletableFuture<Integer> executeUpdateAsync(String sql, Long reqId) {
+        return sendAsync(sql, reqId).thenApplyAsync(body -> {
+            try {
+                JsonNode jsonObject = parse(sql, body);
+                handleResponse(sql, jsonObject);
+                return isAffectedRows(jsonObject) ? getAffectedRows(jsonObject) : -1;
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, Utils.getAsyncExecutor());
+    }
+
+    private CompletableFuture<String> sendAsync(String sql, Long reqId) {
+        try {
+            if (isClosed())
+                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_STATEMENT_CLOSED);
+            return AsyncHttpClient.execute(getUrl(), sql, this.conn.getAuth(), reqId);
+        } catch (SQLException e) {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            future.completeExceptionally(e);
+            return future;
+        }
+    }
+
+    private static JsonNode parse(String sql, String body) throws SQLException {
+        try {
+            return JsonUtil.getObjectMapper().readTree(body);
+        } catch (JsonProcessingException e) {
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNKNOWN,
+                    String.format("execute sql: %s, response: %s, can not cast to JsonNode.", sql, body));
+        }
+    }
+
+    private boolean executeStreaming(String sql, Long reqId) throws SQLException {
+        // the previous result set holds an http connection
+        closeResultSet();
+
+        HttpClientPoolUtil.ResponseStream response = HttpClientPoolUtil.executeStream(getUrl(), sql, this.conn.getAuth(), reqId);
+        ObjectMapper objectMapper = JsonUtil.getObjectMapper();
+        JsonParser parser = null;
+        boolean streaming = false;
+        try {
+            parser = objectMapper.getFactory().createParser(response.getContent());
+            // closing the content would drain the rest of the body
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            if (parser.nextToken() != JsonToken.START_OBJECT)
+                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNKNOWN, String.format("execute sql: %s, response is not a json object.", sql));
+
+            // everything but data is small, keep it as a tree
+            ObjectNode jsonObject = objectMapper.createObjectNode();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken token = parser.nextToken();
+                if ("data".equals(name) && token == JsonToken.START_ARRAY && isQueryResult(sql, jsonObject)) {
+                    this.resultSet = new RestfulStreamingResultSet(database, this, jsonObject.get("column_meta"), parser, response);
+                    this.affectedRows = -1;
+                    streaming = true;
+                    return true;
+                }
+                jsonObject.set(name, parser.readValueAsTree());
+            }
+            return handleResponse(sql, jsonObject) != null;
+        } catch (IOException e) {
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFul_Client_IOException, e.getMessage());
+        } finally {
+            if (!streaming) {
+                response.finish();
+                if (parser != null) {
+                    try {
+                        parser.close();
+                    } catch (IOException ignored) {
+                    }
+                }
+            }
+        }
+    }
+
+    // true if the fields read before data show a query result, which is streamed
+    private boolean isQueryResult(String sql, JsonNode jsonObject) {
+        JsonNode code = jsonObject.get("code");
+        JsonNode head = jsonObject.get("column_meta");
+        if (code == null || code.asInt() != 0 || head == null || SqlSyntaxValidator.isUseSql(sql))
+            return false;
+        return !(head.size() == 1 && ROW_NAME.equals(head.get(0).get(0).asText()));
+    }
+
+    private static boolean isAffectedRows(JsonNode jsonObject) {
+        JsonNode head = jsonObject.get("column_meta");
+        return head != null && head.size() == 1 && ROW_NAME.equals(head.get(0).get(0).asText())
+                && jsonObject.path("rows").asInt() == 1;
+    }
+
+    private void closeResultSet() throws SQLException {
+        RestfulResultSet rs = this.resultSet;
+        if (rs instanceof RestfulStreamingResultSet && !rs.isClosed())
+            rs.close();
+    }
+
+    // the result set of a query, or null
+    private synchronized RestfulResultSet handleResponse(String sql, JsonNode jsonObject) throws SQLException {
         if (jsonObject.get("code").asInt() != 0) {
             throw TSDBError.createSQLException(jsonObject.get("code").asInt(), "sql: " + sql + ", desc: " + jsonObject.get("desc").asText());
         }
+        if (isClosed())
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_STATEMENT_CLOSED);
+        // a streaming result set left open holds a pooled http connection
+        closeResultSet();
 
+        // 如果执行了use操作应该将当前Statement的catalog设置为新的database
         if (SqlSyntaxValidator.isUseSql(sql)) {
             this.database = getDatabaseName(sql);
             this.conn.setCatalog(this.database);
             this.conn.setClientInfo(TSDBDriver.PROPERTY_KEY_DBNAME, this.database);
-            result = false;
+            return null;
         } else {
             JsonNode head = jsonObject.get("column_meta");
             if (head == null) {
                 throw TSDBError.createSQLException(jsonObject.get("code").asInt(), "sql: " + sql + ", desc: " + jsonObject.get("desc").asText() + ", head meta is null.");
             }
-            int rows = jsonObject.get("rows").asInt();
-            if (head.size() == 1 && ROW_NAME.equals(head.get(0).get(0).asText()) && rows == 1) {
+            if (isAffectedRows(jsonObject)) {
                 this.resultSet = null;
                 this.affectedRows = getAffectedRows(jsonObject);
-                return false;
+                return null;
             } else {
-                this.resultSet = new RestfulResultSet(database, this, jsonObject);
+                RestfulResultSet rs = new RestfulResultSet(database, this, jsonObject);
+                this.resultSet = rs;
                 this.affectedRows = -1;
+                return rs;
             }
         }
-        return result;
     }
 
 
@@ -0,0 +1,237 @@
+package com.taosdata.jdbc.rs;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.taosdata.jdbc.TSDBConstants;
+import com.taosdata.jdbc.TSDBError;
+import com.taosdata.jdbc.TSDBErrorNumbers;
+import com.taosdata.jdbc.utils.HttpClientPoolUtil;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * a forward only result set which reads the rows of a restful response while next() advances,
+ * so only the current row is held in memory. the http connection is kept until the last row is read
+ * or the result set is closed.
+ */
+public class RestfulStreamingResultSet extends RestfulResultSet {
+
+    private final JsonParser parser;
+    private final HttpClientPoolUtil.ResponseStream response;
+    private final Object[] values;
+    private final List<Object> row;
+
+    // rows returned by next(), the current row number while onRow
+    private int rowCount;
+    private boolean onRow;
+    private boolean exhausted;
+    // START_ARRAY of the next row has been read by isLast()
+    private boolean peeked;
+
+    /**
+     * @param parser positioned at the start of the data array
+     */
+    RestfulStreamingResultSet(String database, Statement statement, JsonNode columnMeta,
+                              JsonParser parser, HttpClientPoolUtil.ResponseStream response) throws SQLException {
+        super(database, statement, columnMeta, null);
+        this.parser = parser;
+        this.response = response;
+        this.values = new Object[columns.size()];
+        this.row = Arrays.asList(values);
+    }
+
+    @Override
+    protected List<Object> currentRow() {
+        if (!onRow)
+            throw new IndexOutOfBoundsException("no current row");
+        return row;
+    }
+
+    @Override
+    public boolean next() throws SQLException {
+        if (isClosed())
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESULTSET_CLOSED);
+        if (!readRowStart()) {
+            onRow = false;
+            return false;
+        }
+        try {
+            for (int i = 0; i < values.length; i++) {
+                parser.nextToken();
+                values[i] = readColumnData(columns.get(i));
+            }
+            if (parser.nextToken() != JsonToken.END_ARRAY)
+                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNKNOWN, "row " + (rowCount + 1) + " has more than " + values.length + " columns");
+        } catch (IOException e) {
+            release();
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFul_Client_IOException, e.getMessage());
+        }
+        rowCount++;
+        onRow = true;
+        return true;
+    }
+
+    // true if positioned on the START_ARRAY of the next row
+    private boolean readRowStart() throws SQLException {
+        if (peeked) {
+            peeked = false;
+            return true;
+        }
+        if (exhausted)
+            return false;
+        JsonToken token;
+        try {
+            token = parser.nextToken();
+        } catch (IOException e) {
+            release();
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFul_Client_IOException, e.getMessage());
+        }
+        if (token == JsonToken.START_ARRAY)
+            return true;
+        if (token != JsonToken.END_ARRAY) {
+            release();
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNKNOWN, "unexpected token in data: " + token);
+        }
+        exhausted = true;
+        // only the fields after data are left, read them so the connection can be reused
+        response.finish();
+        closeParser();
+        return false;
+    }
+
+    private Object readColumnData(Field field) throws IOException, SQLException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL)
+            return null;
+
+        switch (field.taos_type) {
+            case TSDBConstants.TSDB_DATA_TYPE_NULL:
+                return null;
+            case TSDBConstants.TSDB_DATA_TYPE_BOOL:
+                return parser.getValueAsBoolean();
+            case TSDBConstants.TSDB_DATA_TYPE_TINYINT:
+                return (byte) parser.getValueAsInt();
+            case TSDBConstants.TSDB_DATA_TYPE_SMALLINT:
+                return (short) parser.getValueAsInt();
+            case TSDBConstants.TSDB_DATA_TYPE_INT:
+                return parser.getValueAsInt();
+            case TSDBConstants.TSDB_DATA_TYPE_BIGINT:
+                return parser.getValueAsLong();
+            case TSDBConstants.TSDB_DATA_TYPE_FLOAT:
+                return token.isNumeric() ? parser.getFloatValue() : 0.0f;
+            case TSDBConstants.TSDB_DATA_TYPE_DOUBLE:
+                return token.isNumeric() ? parser.getDoubleValue() : 0.0;
+            case TSDBConstants.TSDB_DATA_TYPE_TIMESTAMP:
+                return parseTimestampColumnData(parser.getText());
+            case TSDBConstants.TSDB_DATA_TYPE_BINARY:
+                if (Types.BINARY == field.type) {
+                    return parser.getText().getBytes();
+                } else {
+                    return parser.getText();
+                }
+            case TSDBConstants.TSDB_DATA_TYPE_NCHAR:
+                return parser.getText();
+            case TSDBConstants.TSDB_DATA_TYPE_JSON:
+                return jsonColumnData(parser.readValueAsTree());
+            default:
+                return parser.readValueAsTree();
+        }
+    }
+
+    private void release() {
+        exhausted = true;
+        response.close();
+        closeParser();
+    }
+
+    private void closeParser() {
+        try {
+            parser.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public void close() throws SQLException {
+        synchronized (this) {
+            if (!exhausted)
+                release();
+        }
+        super.close();
+    }
+
+    @Override
+    public boolean isBeforeFirst() throws SQLException {
+        if (isClosed())
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESULTSET_CLOSED);
+        return rowCount == 0 && !onRow && hasNextRow();
+    }
+
+    @Override
+    public boolean isAfterLast() throws SQLException {
+        if (isClosed())
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESULTSET_CLOSED);
+        return !onRow && rowCount > 0;
+    }
+
+    @Override
+    public boolean isFirst() throws SQLException {
+        if (isClosed())
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESULTSET_CLOSED);
+        return onRow && rowCount == 1;
+    }
+
+    @Override
+    public boolean isLast() throws SQLException {
+        if (isClosed())
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESULTSET_CLOSED);
+        return onRow && !hasNextRow();
+    }
+
+    // look at the next row without moving to it
+    private boolean hasNextRow() throws SQLException {
+        if (peeked)
+            return true;
+        peeked = readRowStart();
+        return peeked;
+    }
+
+    @Override
+    public int getRow() throws SQLException {
+        if (isClosed())
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESULTSET_CLOSED);
+        return onRow ? rowCount : 0;
+    }
+
+    @Override
+    public void beforeFirst() throws SQLException {
+        throw forwardOnly();
+    }
+
+    @Override
+    public void afterLast() throws SQLException {
+        throw forwardOnly();
+    }
+
+    @Override
+    public boolean first() throws SQLException {
+        throw forwardOnly();
+    }
+
+    @Override
+    public boolean last() throws SQLException {
+        throw forwardOnly();
+    }
+
+    private SQLException forwardOnly() throws SQLException {
+        if (isClosed())
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESULTSET_CLOSED);
+        return TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNSUPPORTED_METHOD);
+    }
+}
@@ -0,0 +1,468 @@
+package com.taosdata.jdbc.tmq;
+
+import java.beans.BeanInfo;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Member;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Blob;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * accessors of a bean for {@link ReferenceDeserializer}, resolved once per class.
+ * <p>
+ * the constructor and the setters are bound to functional interfaces with {@link LambdaMetafactory}, a setter of a
+ * primitive takes the primitive, so a row is copied into a bean by direct calls without boxing. a class or setter
+ * the driver can not link to, e.g. not public or from another class loader, falls back to calling a
+ * method handle.
+ */
+final class BeanMapping {
+
+    interface ObjectSetter {
+        void set(Object bean, Object value);
+    }
+
+    interface IntSetter {
+        void set(Object bean, int value);
+    }
+
+    interface LongSetter {
+        void set(Object bean, long value);
+    }
+
+    interface ShortSetter {
+        void set(Object bean, short value);
+    }
+
+    interface ByteSetter {
+        void set(Object bean, byte value);
+    }
+
+    interface CharSetter {
+        void set(Object bean, char value);
+    }
+
+    interface FloatSetter {
+        void set(Object bean, float value);
+    }
+
+    interface DoubleSetter {
+        void set(Object bean, double value);
+    }
+
+    interface BooleanSetter {
+        void set(Object bean, boolean value);
+    }
+
+    interface Reader {
+        Object read(ResultSet data, int column) throws SQLException;
+    }
+
+    /**
+     * copies one column of the current row into a bean
+     */
+    interface Binding {
+        void set(Object bean, ResultSet data) throws SQLException;
+    }
+
+    /**
+     * the way a property is read, the first kind whose type the setter accepts wins
+     */
+    private enum Kind {
+        STRING(String.class, (data, column) -> {
+            String string = data.getString(column);
+            return data.wasNull() ? null : string;
+        }),
+        BOXED_INT(Integer.class, (data, column) -> {
+            int i = data.getInt(column);
+            return data.wasNull() ? null : i;
+        }),
+        INT(int.class, IntSetter.class),
+        BOXED_SHORT(Short.class, (data, column) -> {
+            short s = data.getShort(column);
+            return data.wasNull() ? null : s;
+        }),
+        SHORT(short.class, ShortSetter.class),
+        BOXED_BYTE(Byte.class, (data, column) -> {
+            byte b = data.getByte(column);
+            return data.wasNull() ? null : b;
+        }),
+        BYTE(byte.class, ByteSetter.class),
+        BOXED_CHAR(Character.class, (data, column) -> {
+            char c = (char) data.getByte(column);
+            return data.wasNull() ? null : c;
+        }),
+        CHAR(char.class, CharSetter.class),
+        BOXED_FLOAT(Float.class, (data, column) -> {
+            float f = data.getFloat(column);
+            return data.wasNull() ? null : f;
+        }),
+        FLOAT(float.class, FloatSetter.class),
+        BOXED_DOUBLE(Double.class, (data, column) -> {
+            double d = data.getDouble(column);
+            return data.wasNull() ? null : d;
+        }),
+        DOUBLE(double.class, DoubleSetter.class),
+        BOXED_LONG(Long.class, (data, column) -> {
+            long l = data.getLong(column);
+            return data.wasNull() ? null : l;
+        }),
+        LONG(long.class, LongSetter.class),
+        BOXED_BOOLEAN(Boolean.class, (data, column) -> {
+            boolean b = data.getBoolean(column);
+            return data.wasNull() ? null : b;
+        }),
+        BOOLEAN(boolean.class, BooleanSetter.class),
+        TIMESTAMP(Timestamp.class, (data, column) -> {
+            Timestamp ts = data.getTimestamp(column);
+            return data.wasNull() ? null : ts;
+        }),
+        BOXED_BYTES(Byte[].class, (data, column) -> {
+            byte[] bytes = data.getBytes(column);
+            if (data.wasNull() || bytes == null) {
+                return null;
+            }
+            Byte[] boxed = new Byte[bytes.length];
+            for (int i = 0; i < bytes.length; i++) {
+                boxed[i] = bytes[i];
+            }
+            return boxed;
+        }),
+        BYTES(byte[].class, (data, column) -> {
+            byte[] bytes = data.getBytes(column);
+            return data.wasNull() ? null : bytes;
+        }),
+        BIG_DECIMAL(BigDecimal.class, (data, column) -> {
+            BigDecimal bigDecimal = data.getBigDecimal(column);
+            return data.wasNull() ? null : bigDecimal;
+        }),
+        BIG_INTEGER(BigInteger.class, (data, column) -> {
+            BigInteger bigInteger = (BigInteger) data.getObject(column);
+            return data.wasNull() ? null : bigInteger;
+        }),
+        BLOB(Blob.class, (data, column) -> {
+            Blob blob = (Blob) data.getObject(column);
+            return data.wasNull() ? null : blob;
+        });
+
+        final Class<?> type;
+        // the setter interface, the value is passed as this type
+        final Class<?> setter;
+        final Class<?> valueType;
+        // null for primitives
+        final Reader reader;
+
+        Kind(Class<?> type, Class<?> setter) {
+            this.type = type;
+            this.setter = setter;
+            this.valueType = type;
+            this.reader = null;
+        }
+
+        Kind(Class<?> type, Reader reader) {
+            this.type = type;
+            this.setter = ObjectSetter.class;
+            this.valueType = Object.class;
+            this.reader = reader;
+        }
+
+        static Kind of(Class<?> parameterType) {
+            for (Kind kind : values()) {
+                if (parameterType.isAssignableFrom(kind.type)) {
+                    return kind;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class Property {
+        final String name;
+        final Kind kind;
+        final Object setter;
+
+        Property(String name, Kind kind, Object setter) {
+            this.name = name;
+            this.kind = kind;
+            this.setter = setter;
+        }
+
+        Binding bind(int column) {
+            switch (kind) {
+                case INT: {
+                    IntSetter s = (IntSetter) setter;
+                    return (bean, data) -> s.set(bean, data.getInt(column));
+                }
+                case SHORT: {
+                    ShortSetter s = (ShortSetter) setter;
+                    return (bean, data) -> s.set(bean, data.getShort(column));
+                }
+                case BYTE: {
+                    ByteSetter s = (ByteSetter) setter;
+                    return (bean, data) -> s.set(bean, data.getByte(column));
+                }
+                case CHAR: {
+                    CharSetter s = (CharSetter) setter;
+                    return (bean, data) -> s.set(bean, (char) data.getByte(column));
+                }
+                case FLOAT: {
+                    FloatSetter s = (FloatSetter) setter;
+                    return (bean, data) -> s.set(bean, data.getFloat(column));
+                }
+                case DOUBLE: {
+                    DoubleSetter s = (DoubleSetter) setter;
+                    return (bean, data) -> s.set(bean, data.getDouble(column));
+                }
+                case LONG: {
+                    LongSetter s = (LongSetter) setter;
+                    return (bean, data) -> s.set(bean, data.getLong(column));
+                }
+                case BOOLEAN: {
+                    BooleanSetter s = (BooleanSetter) setter;
+                    return (bean, data) -> s.set(bean, data.getBoolean(column));
+                }
+                default: {
+                    ObjectSetter s = (ObjectSetter) setter;
+                    Reader reader = kind.reader;
+                    return (bean, data) -> s.set(bean, reader.read(data, column));
+                }
+            }
+        }
+    }
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final ClassValue<BeanMapping> MAPPINGS = new ClassValue<BeanMapping>() {
+        @Override
+        protected BeanMapping computeValue(Class<?> type) {
+            return new BeanMapping(type);
+        }
+    };
+
+    private final Supplier<Object> constructor;
+    private final Property[] properties;
+    // thrown by the first use when the class can not be mapped
+    private final RuntimeException instantiationError;
+    private final SQLException introspectionError;
+
+    static BeanMapping of(Class<?> type) {
+        return MAPPINGS.get(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private BeanMapping(Class<?> type) {
+        Supplier<Object> supplier = null;
+        List<Property> list = new ArrayList<>();
+        RuntimeException instantiationFailure = null;
+        SQLException introspectionFailure = null;
+        try {
+            Constructor<?> declaredConstructor = type.getDeclaredConstructor();
+            declaredConstructor.setAccessible(true);
+            MethodHandle handle = LOOKUP.unreflectConstructor(declaredConstructor);
+            supplier = (Supplier<Object>) link(Supplier.class, "get", MethodType.methodType(Object.class),
+                    handle, MethodType.methodType(type), declaredConstructor);
+
+            BeanInfo beanInfo = Introspector.getBeanInfo(type);
+            for (PropertyDescriptor property : beanInfo.getPropertyDescriptors()) {
+                String name = property.getName();
+                if ("class".equals(name))
+                    continue;
+                Method method = property.getWriteMethod();
+                if (null == method)
+                    continue;
+                Kind kind = Kind.of(method.getParameterTypes()[0]);
+                if (kind == null)
+                    continue;
+                method.setAccessible(true);
+                Object setter = link(kind.setter, "set",
+                        MethodType.methodType(void.class, Object.class, kind.valueType),
+                        LOOKUP.unreflect(method),
+                        MethodType.methodType(void.class, method.getDeclaringClass(), method.getParameterTypes()[0]),
+                        method);
+                list.add(new Property(name, kind, setter));
+            }
+        } catch (NoSuchMethodException e) {
+            instantiationFailure = new RuntimeException("Could not find a public no-argument constructor for " + type.getName(), e);
+        } catch (IntrospectionException e) {
+            introspectionFailure = new SQLException(ReferenceDeserializer.class.getSimpleName() + " get BeanInfo error!", e);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            instantiationFailure = new RuntimeException("Could not instantiate class " + type.getName(), e);
+        }
+        this.constructor = supplier;
+        this.properties = list.toArray(new Property[0]);
+        this.instantiationError = instantiationFailure;
+        this.introspectionError = introspectionFailure;
+    }
+
+    /**
+     * an instance of the functional interface calling the handle
+     */
+    private static Object link(Class<?> functionalInterface, String name, MethodType samType, MethodHandle handle,
+                               MethodType instantiatedType, Member member) throws ReflectiveOperationException {
+        if (isLinkable(member)) {
+            try {
+                return LambdaMetafactory.metafactory(LOOKUP, name, MethodType.methodType(functionalInterface),
+                        samType, handle, instantiatedType).getTarget().invoke();
+            } catch (Throwable e) {
+                // call the handle
+            }
+        }
+        return adapt(functionalInterface, handle.asType(samType));
+    }
+
+    private static Object adapt(Class<?> functionalInterface, MethodHandle handle) {
+        if (functionalInterface == Supplier.class) {
+            return (Supplier<Object>) () -> {
+                try {
+                    return (Object) handle.invokeExact();
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+        }
+        if (functionalInterface == IntSetter.class) {
+            return (IntSetter) (bean, value) -> {
+                try {
+                    handle.invokeExact(bean, value);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+        }
+        if (functionalInterface == LongSetter.class) {
+            return (LongSetter) (bean, value) -> {
+                try {
+                    handle.invokeExact(bean, value);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+        }
+        if (functionalInterface == ShortSetter.class) {
+            return (ShortSetter) (bean, value) -> {
+                try {
+                    handle.invokeExact(bean, value);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+        }
+        if (functionalInterface == ByteSetter.class) {
+            return (ByteSetter) (bean, value) -> {
+                try {
+                    handle.invokeExact(bean, value);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+        }
+        if (functionalInterface == CharSetter.class) {
+            return (CharSetter) (bean, value) -> {
+                try {
+                    handle.invokeExact(bean, value);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+        }
+        if (functionalInterface == FloatSetter.class) {
+            return (FloatSetter) (bean, value) -> {
+                try {
+                    handle.invokeExact(bean, value);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+        }
+        if (functionalInterface == DoubleSetter.class) {
+            return (DoubleSetter) (bean, value) -> {
+                try {
+                    handle.invokeExact(bean, value);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+        }
+        if (functionalInterface == BooleanSetter.class) {
+            return (BooleanSetter) (bean, value) -> {
+                try {
+                    handle.invokeExact(bean, value);
+                } catch (Throwable e) {
+                    throw rethrow(e);
+                }
+            };
+        }
+        return (ObjectSetter) (bean, value) -> {
+            try {
+                handle.invokeExact(bean, value);
+            } catch (Throwable e) {
+                throw rethrow(e);
+            }
+        };
+    }
+
+    private static RuntimeException rethrow(Throwable e) {
+        if (e instanceof RuntimeException) {
+            return (RuntimeException) e;
+        }
+        if (e instanceof Error) {
+            throw (Error) e;
+        }
+        return new RuntimeException(e);
+    }
+
+    /**
+     * the lambda class is defined next to this class, so it can only call public members of public classes
+     * the driver class loader sees
+     */
+    private static boolean isLinkable(Member member) {
+        if (!Modifier.isPublic(member.getModifiers())) {
+            return false;
+        }
+        Class<?> declaringClass = member.getDeclaringClass();
+        for (Class<?> c = declaringClass; c != null; c = c.getEnclosingClass()) {
+            if (!Modifier.isPublic(c.getModifiers())) {
+                return false;
+            }
+        }
+        try {
+            return Class.forName(declaringClass.getName(), false, BeanMapping.class.getClassLoader()) == declaringClass;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    Object newInstance() {
+        if (instantiationError != null) {
+            throw instantiationError;
+        }
+        return constructor.get();
+    }
+
+    /**
+     * resolve the column of each property in the current schema of the result set
+     */
+    Binding[] bind(ResultSet data) throws SQLException {
+        if (introspectionError != null) {
+            throw introspectionError;
+        }
+        Binding[] bindings = new Binding[properties.length];
+        for (int i = 0; i < properties.length; i++) {
+            bindings[i] = properties[i].bind(data.findColumn(properties[i].name));
+        }
+        return bindings;
+    }
+}
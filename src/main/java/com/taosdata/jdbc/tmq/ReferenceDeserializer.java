@@ -1,28 +1,32 @@
 package com.taosdata.jdbc.tmq;
 
-import com.google.common.collect.Lists;
 import com.taosdata.jdbc.TaosGlobalConfig;
-import com.taosdata.jdbc.utils.Utils;
 
-import java.beans.BeanInfo;
-import java.beans.IntrospectionException;
-import java.beans.Introspector;
-import java.beans.PropertyDescriptor;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.math.BigDecimal;
-import java.math.BigInteger;
-import java.sql.Blob;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
-import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * deserialize a row into a bean of the type argument, a property is set from the column of the same name.
+ * <p>
+ * the columns of the properties are resolved once per schema and the setters are called without reflection,
+ * see {@link BeanMapping}.
+ */
 public class ReferenceDeserializer<V> implements Deserializer<V> {
-    private Param[] params;
+    private BeanMapping mapping;
+    // bindings per column labels
+    private final Map<List<String>, BeanMapping.Binding[]> plans = new HashMap<>();
+    // the result set and block the bindings were resolved for
+    private WeakReference<ResultSet> lastData = new WeakReference<>(null);
+    private int lastBlocks;
+    private BeanMapping.Binding[] bindings;
 
     @Override
     public void configure(Map<?, ?> configs) {
@@ -32,125 +36,39 @@ public class ReferenceDeserializer<V> implements Deserializer<V> {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public V deserialize(ResultSet data, String topic, String dbName) throws DeserializerException, SQLException {
-
-        Class<V> clazz = getGenericType();
-        V t = null;
-        try {
-            t = Utils.newInstance(clazz);
-            if (params == null) {
-                BeanInfo beanInfo = Introspector.getBeanInfo(clazz);
-                List<Param> lists = Lists.newArrayListWithExpectedSize(beanInfo.getPropertyDescriptors().length);
-                for (PropertyDescriptor property : beanInfo.getPropertyDescriptors()) {
-                    String name = property.getName();
-                    if ("class".equals(name))
-                        continue;
-                    Method method = property.getWriteMethod();
-                    if (null != method) {
-                        method.setAccessible(true);
-                        Param param = new Param();
-                        param.name = name;
-                        param.method = method;
-                        param.clazz = method.getParameterTypes()[0];
-                        lists.add(param);
-                    }
-                }
-                params = lists.toArray(new Param[0]);
-            }
-        } catch (IntrospectionException e) {
-            throw new SQLException(this.getClass().getSimpleName() + " get BeanInfo error!", e);
+        if (mapping == null) {
+            mapping = BeanMapping.of(getGenericType());
         }
+        V t = (V) mapping.newInstance();
+        for (BeanMapping.Binding binding : bindings(data)) {
+            binding.set(t, data);
+        }
+        return t;
+    }
 
+    private BeanMapping.Binding[] bindings(ResultSet data) throws SQLException {
+        // the columns of a native result set may change with each block
+        int blocks = data instanceof TMQResultSet ? ((TMQResultSet) data).getBlocks() : 0;
+        if (lastData.get() == data && lastBlocks == blocks) {
+            return bindings;
+        }
 
-        for (Param param : params) {
-            try {
-                // string
-                if (param.clazz.isAssignableFrom(String.class)) {
-                    String string = data.getString(param.name);
-                    param.method.invoke(t, data.wasNull() ? null : string);
-
-                    // int
-                } else if (param.clazz.isAssignableFrom(Integer.class)) {
-                    int i = data.getInt(param.name);
-                    param.method.invoke(t, data.wasNull() ? null : i);
-                } else if (param.clazz.isAssignableFrom(int.class)) {
-                    param.method.invoke(t, data.getInt(param.name));
-
-                    // short
-                } else if (param.clazz.isAssignableFrom(Short.class)) {
-                    short s = data.getShort(param.name);
-                    param.method.invoke(t, data.wasNull() ? null : s);
-                } else if (param.clazz.isAssignableFrom(short.class)) {
-                    param.method.invoke(t, data.getShort(param.name));
-
-                    // byte
-                } else if (param.clazz.isAssignableFrom(Byte.class)) {
-                    byte b = data.getByte(param.name);
-                    param.method.invoke(t, data.wasNull() ? null : b);
-                } else if (param.clazz.isAssignableFrom(byte.class)) {
-                    param.method.invoke(t, data.getByte(param.name));
-
-                    // char
-                } else if (param.clazz.isAssignableFrom(Character.class)) {
-                    char c = (char) data.getByte(param.name);
-                    param.method.invoke(t, data.wasNull() ? null : c);
-                } else if (param.clazz.isAssignableFrom(char.class)) {
-                    param.method.invoke(t, (char) data.getByte(param.name));
-
-                    // float
-                } else if (param.clazz.isAssignableFrom(Float.class)) {
-                    float f = data.getFloat(param.name);
-                    param.method.invoke(t, data.wasNull() ? null : f);
-                } else if (param.clazz.isAssignableFrom(float.class)) {
-                    param.method.invoke(t, data.getFloat(param.name));
-
-                    // double
-                } else if (param.clazz.isAssignableFrom(Double.class)) {
-                    double d = data.getDouble(param.name);
-                    param.method.invoke(t, data.wasNull() ? null : d);
-                } else if (param.clazz.isAssignableFrom(double.class)) {
-                    param.method.invoke(t, data.getDouble(param.name));
-
-                    // long
-                } else if (param.clazz.isAssignableFrom(Long.class)) {
-                    long l = data.getLong(param.name);
-                    param.method.invoke(t, data.wasNull() ? null : l);
-                } else if (param.clazz.isAssignableFrom(long.class)) {
-                    param.method.invoke(t, data.getLong(param.name));
-
-                    // boolean
-                } else if (param.clazz.isAssignableFrom(Boolean.class)) {
-                    boolean b = data.getBoolean(param.name);
-                    param.method.invoke(t, data.wasNull() ? null : b);
-                } else if (param.clazz.isAssignableFrom(boolean.class)) {
-                    param.method.invoke(t, data.getBoolean(param.name));
-
-                    // timestamp
-                } else if (param.clazz.isAssignableFrom(Timestamp.class)) {
-                    Timestamp ts = data.getTimestamp(param.name);
-                    param.method.invoke(t, data.wasNull() ? null : ts);
-
-                    // bytes
-                } else if (param.clazz.isAssignableFrom(Byte[].class)
-                        || param.clazz.isAssignableFrom(byte[].class)) {
-                    byte[] bytes = data.getBytes(param.name);
-                    param.method.invoke(t, data.wasNull() ? null : bytes);
-                } else if (param.clazz.isAssignableFrom(BigDecimal.class)) {
-                    BigDecimal bigDecimal = data.getBigDecimal(param.name);
-                    param.method.invoke(t, data.wasNull() ? null : bigDecimal);
-                } else if (param.clazz.isAssignableFrom(BigInteger.class)) {
-                    BigInteger bigInteger = (BigInteger) data.getObject(param.name);
-                    param.method.invoke(t, data.wasNull() ? null : bigInteger);
-                } else if (param.clazz.isAssignableFrom(Blob.class)) {
-                    Blob blob = (Blob) data.getObject(param.name);
-                    param.method.invoke(t, data.wasNull() ? null : blob);
-                }
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                throw new SQLException(this.getClass().getSimpleName() + ": " + param.name
-                        + " through method:" + param.method.getName() + " get Data error: ", e);
-            }
+        ResultSetMetaData metaData = data.getMetaData();
+        List<String> labels = new ArrayList<>(metaData.getColumnCount());
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            labels.add(metaData.getColumnLabel(i));
         }
-        return t;
+        BeanMapping.Binding[] plan = plans.get(labels);
+        if (plan == null) {
+            plan = mapping.bind(data);
+            plans.put(labels, plan);
+        }
+        bindings = plan;
+        lastData = new WeakReference<>(data);
+        lastBlocks = blocks;
+        return plan;
     }
 
     private Class<V> getGenericType() {
@@ -161,10 +79,4 @@ public class ReferenceDeserializer<V> implements Deserializer<V> {
         }
         throw new RuntimeException("ReferenceDeserializer getGenericType error!, maybe not extends ReferenceDeserializer");
     }
-
-    private static class Param {
-        String name;
-        Method method;
-        Class<?> clazz;
-    }
 }
@@ -118,6 +118,28 @@ public class TMQConstants {
      */
     public static final String CONNECT_MAX_REQUEST = HTTP_POOL_SIZE;
 
+    /**
+     * number of messages polled and fetched in the background ahead of poll, so the next message is on the way
+     * while the current one is deserialized. 0 (default) polls on demand.
+     * only valid in websocket
+     */
+    public static final String READ_AHEAD_MESSAGES = "read.ahead.messages";
+
+    /**
+     * a poll goes on taking the messages already available until it has this many records. a message is not split,
+     * so the last one may take it over the limit. 0 (default) for no limit.
+     * only valid in websocket
+     */
+    public static final String MAX_POLL_RECORDS = "max.poll.records";
+
+    /**
+     * a poll goes on taking the messages already available until it has fetched this many bytes of data. a message
+     * is not split, so the last one may take it over the limit. 0 (default) for no limit.
+     * with neither limit set a poll returns one message.
+     * only valid in websocket
+     */
+    public static final String FETCH_MAX_BYTES = "fetch.max.bytes";
+
     public static final int INVALID_OFFSET = -2147467247;
 
 
@@ -127,5 +149,8 @@ public class TMQConstants {
         knownKeys.add(BOOTSTRAP_SERVERS);
         knownKeys.add(VALUE_DESERIALIZER);
         knownKeys.add(VALUE_DESERIALIZER_ENCODING);
+        knownKeys.add(READ_AHEAD_MESSAGES);
+        knownKeys.add(MAX_POLL_RECORDS);
+        knownKeys.add(FETCH_MAX_BYTES);
     }
 }
@@ -22,6 +22,8 @@ public class TMQResultSet extends AbstractResultSet {
     private String tableName;
 
     private boolean isClosed;
+    // blocks fetched, the columns may change with each
+    private int blocks;
 
     public TMQResultSet(TMQConnector connector, long resultSetPointer, int timestampPrecision) {
         this.jniConnector = connector;
@@ -57,10 +59,15 @@ public class TMQResultSet extends AbstractResultSet {
         } else {
             this.blockData.doSetByteArray();
             this.blockData.reset();
+            blocks++;
             return true;
         }
     }
 
+    int getBlocks() {
+        return blocks;
+    }
+
     public void close() throws SQLException {
         if (isClosed)
             return;
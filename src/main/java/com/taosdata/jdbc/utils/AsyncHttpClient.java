@@ -0,0 +1,303 @@
+package com.taosdata.jdbc.utils;
+
+import com.taosdata.jdbc.TSDBDriver;
+import com.taosdata.jdbc.TSDBError;
+import com.taosdata.jdbc.TSDBErrorNumbers;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.AbstractChannelPoolMap;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.ChannelPoolMap;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.DefaultFullHttpRequest;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpContentDecompressor;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ScheduledFuture;
+
+import javax.net.ssl.SSLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Objects;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * non-blocking http client of the restful driver. requests to one host share at most httpPoolSize keep-alive
+ * connections on the netty event loop, requests beyond that wait in a queue of at most httpMaxPendingRequests
+ * without holding a thread.
+ */
+public class AsyncHttpClient {
+
+    public static final String DEFAULT_MAX_PENDING_REQUESTS = "10000";
+
+    private static final AttributeKey<PendingRequest> PENDING = AttributeKey.valueOf("taos.http.pending");
+
+    private static volatile ChannelPoolMap<Route, FixedChannelPool> pools;
+    private static int maxConnectionsPerHost = Integer.parseInt(HttpClientPoolUtil.DEFAULT_MAX_PER_ROUTE);
+    private static int maxPendingRequests = Integer.parseInt(DEFAULT_MAX_PENDING_REQUESTS);
+    private static int connectTimeout = Integer.parseInt(HttpClientPoolUtil.DEFAULT_CONNECT_TIMEOUT);
+    private static int socketTimeout = Integer.parseInt(HttpClientPoolUtil.DEFAULT_SOCKET_TIMEOUT);
+    private static boolean keepAlive = true;
+    private static boolean enableCompress = false;
+
+    private AsyncHttpClient() {
+    }
+
+    /**
+     * the connection limits take effect for hosts which have not been connected yet.
+     */
+    public static void init(Properties props) {
+        maxConnectionsPerHost = Integer.parseInt(props.getProperty(TSDBDriver.HTTP_POOL_SIZE, HttpClientPoolUtil.DEFAULT_MAX_PER_ROUTE));
+        maxPendingRequests = Integer.parseInt(props.getProperty(TSDBDriver.HTTP_MAX_PENDING_REQUESTS, DEFAULT_MAX_PENDING_REQUESTS));
+        keepAlive = Boolean.parseBoolean(props.getProperty(TSDBDriver.HTTP_KEEP_ALIVE, HttpClientPoolUtil.DEFAULT_HTTP_KEEP_ALIVE));
+        connectTimeout = Integer.parseInt(props.getProperty(TSDBDriver.HTTP_CONNECT_TIMEOUT, HttpClientPoolUtil.DEFAULT_CONNECT_TIMEOUT));
+        socketTimeout = Integer.parseInt(props.getProperty(TSDBDriver.HTTP_SOCKET_TIMEOUT, HttpClientPoolUtil.DEFAULT_SOCKET_TIMEOUT));
+        enableCompress = Boolean.parseBoolean(props.getProperty(TSDBDriver.PROPERTY_KEY_ENABLE_COMPRESSION, "false"));
+    }
+
+    private static ChannelPoolMap<Route, FixedChannelPool> getPools() {
+        if (pools == null) {
+            synchronized (AsyncHttpClient.class) {
+                if (pools == null) {
+                    Utils.initEventLoopGroup();
+                    pools = new AbstractChannelPoolMap<Route, FixedChannelPool>() {
+                        @Override
+                        protected FixedChannelPool newPool(Route route) {
+                            Bootstrap b = new Bootstrap()
+                                    .group(Utils.getEventLoopGroup())
+                                    .channel(NioSocketChannel.class)
+                                    .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)
+                                    .option(ChannelOption.ALLOCATOR, PooledByteBufAllocator.DEFAULT)
+                                    .remoteAddress(route.host, route.port);
+                            return new FixedChannelPool(b, new PoolHandler(route), ChannelHealthChecker.ACTIVE,
+                                    null, -1, maxConnectionsPerHost, maxPendingRequests);
+                        }
+                    };
+                }
+            }
+        }
+        return pools;
+    }
+
+    /**
+     * execute POST request, the future is completed on the event loop with the response body,
+     * or exceptionally with a SQLException.
+     */
+    public static CompletableFuture<String> execute(String uri, String data, String auth, Long reqId) {
+        CompletableFuture<String> future = new CompletableFuture<>();
+        URI target;
+        FullHttpRequest request;
+        try {
+            target = new URI(HttpClientPoolUtil.withReqId(uri, reqId));
+            request = newRequest(target, data, auth);
+        } catch (URISyntaxException e) {
+            future.completeExceptionally(TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "invalid url: " + uri));
+            return future;
+        } catch (SQLException e) {
+            future.completeExceptionally(e);
+            return future;
+        }
+
+        FixedChannelPool pool = getPools().get(new Route(target));
+        pool.acquire().addListener((Future<Channel> f) -> {
+            if (!f.isSuccess()) {
+                request.release();
+                future.completeExceptionally(toSQLException(f.cause()));
+                return;
+            }
+            Channel channel = f.getNow();
+            PendingRequest pending = new PendingRequest(pool, channel, future, data);
+            channel.attr(PENDING).set(pending);
+            if (socketTimeout > 0) {
+                pending.timeout = channel.eventLoop().schedule(
+                        () -> pending.fail(TSDBError.createSQLException(TSDBErrorNumbers.ERROR_QUERY_TIMEOUT,
+                                "http response timeout after " + socketTimeout + " ms, sql: " + data)),
+                        socketTimeout, TimeUnit.MILLISECONDS);
+            }
+            channel.writeAndFlush(request).addListener(w -> {
+                if (!w.isSuccess())
+                    pending.fail(toSQLException(w.cause()));
+            });
+        });
+        return future;
+    }
+
+    private static FullHttpRequest newRequest(URI target, String data, String auth) throws SQLException {
+        String path = target.getRawPath();
+        if (target.getRawQuery() != null)
+            path = path + "?" + target.getRawQuery();
+        ByteBuf content = Unpooled.wrappedBuffer(enableCompress ? HttpClientPoolUtil.gzip(data) : data.getBytes(StandardCharsets.UTF_8));
+        FullHttpRequest request = new DefaultFullHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.POST, path, content);
+        request.headers()
+                .set(HttpHeaderNames.HOST, target.getPort() == -1 ? target.getHost() : target.getHost() + ":" + target.getPort())
+                .set(HttpHeaderNames.CONTENT_TYPE, "text/plain")
+                .set(HttpHeaderNames.ACCEPT, "application/json")
+                .set(HttpHeaderNames.ACCEPT_ENCODING, "gzip, deflate")
+                .set(HttpHeaderNames.CONNECTION, keepAlive ? HttpHeaderValues.KEEP_ALIVE : HttpHeaderValues.CLOSE)
+                .set(HttpHeaderNames.CONTENT_LENGTH, content.readableBytes());
+        if (enableCompress)
+            request.headers().set(HttpHeaderNames.CONTENT_ENCODING, HttpHeaderValues.GZIP);
+        if (auth != null)
+            request.headers().set(HttpHeaderNames.AUTHORIZATION, auth);
+        return request;
+    }
+
+    private static SQLException toSQLException(Throwable cause) {
+        if (cause instanceof SQLException)
+            return (SQLException) cause;
+        return TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFul_Client_IOException, String.valueOf(cause.getMessage()));
+    }
+
+    private static final class Route {
+        private final boolean ssl;
+        private final String host;
+        private final int port;
+
+        Route(URI uri) {
+            this.ssl = "https".equalsIgnoreCase(uri.getScheme());
+            this.host = uri.getHost();
+            this.port = uri.getPort() != -1 ? uri.getPort() : (ssl ? 443 : 80);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Route)) return false;
+            Route route = (Route) o;
+            return ssl == route.ssl && port == route.port && Objects.equals(host, route.host);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(ssl, host, port);
+        }
+    }
+
+    private static final class PoolHandler extends AbstractChannelPoolHandler {
+        private final Route route;
+        private SslContext sslCtx;
+
+        PoolHandler(Route route) {
+            this.route = route;
+        }
+
+        @Override
+        public void channelCreated(Channel ch) throws SSLException {
+            ChannelPipeline p = ch.pipeline();
+            if (route.ssl) {
+                if (sslCtx == null)
+                    sslCtx = SslContextBuilder.forClient().build();
+                p.addLast(sslCtx.newHandler(ch.alloc(), route.host, route.port));
+            }
+            p.addLast(new HttpClientCodec());
+            p.addLast(new HttpContentDecompressor());
+            p.addLast(new HttpObjectAggregator(Integer.MAX_VALUE));
+            p.addLast(ResponseHandler.INSTANCE);
+        }
+    }
+
+    @ChannelHandler.Sharable
+    private static final class ResponseHandler extends SimpleChannelInboundHandler<FullHttpResponse> {
+        static final ResponseHandler INSTANCE = new ResponseHandler();
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, FullHttpResponse response) {
+            PendingRequest pending = ctx.channel().attr(PENDING).get();
+            if (pending != null)
+                pending.complete(response);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            PendingRequest pending = ctx.channel().attr(PENDING).get();
+            if (pending != null)
+                pending.fail(TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFul_Client_IOException, "connection closed by server"));
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            PendingRequest pending = ctx.channel().attr(PENDING).get();
+            if (pending != null) {
+                pending.fail(toSQLException(cause));
+            } else {
+                ctx.close();
+            }
+        }
+    }
+
+    private static final class PendingRequest {
+        private final FixedChannelPool pool;
+        private final Channel channel;
+        private final CompletableFuture<String> future;
+        private final String data;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile ScheduledFuture<?> timeout;
+
+        PendingRequest(FixedChannelPool pool, Channel channel, CompletableFuture<String> future, String data) {
+            this.pool = pool;
+            this.channel = channel;
+            this.future = future;
+            this.data = data;
+        }
+
+        void complete(FullHttpResponse response) {
+            if (!done.compareAndSet(false, true))
+                return;
+            String body = response.content().toString(StandardCharsets.UTF_8);
+            int status = response.status().code();
+            release(keepAlive && HttpUtil.isKeepAlive(response));
+            try {
+                HttpClientPoolUtil.checkStatus(status, body);
+                if (body.isEmpty())
+                    throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNKNOWN, String.format("sql: %s, http status code: %d", data, status));
+            } catch (SQLException e) {
+                future.completeExceptionally(e);
+                return;
+            }
+            future.complete(body);
+        }
+
+        void fail(SQLException e) {
+            if (!done.compareAndSet(false, true))
+                return;
+            release(false);
+            future.completeExceptionally(e);
+        }
+
+        private void release(boolean reuse) {
+            if (timeout != null)
+                timeout.cancel(false);
+            channel.attr(PENDING).set(null);
+            if (!reuse)
+                channel.close();
+            pool.release(channel);
+        }
+    }
+}
@@ -1,71 +1,45 @@
 package com.taosdata.jdbc.utils;
 
 import com.taosdata.jdbc.TSDBError;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.DefaultThreadFactory;
 
 import java.util.concurrent.*;
-import java.util.function.Function;
 
 import static com.taosdata.jdbc.TSDBErrorNumbers.ERROR_QUERY_TIMEOUT;
 
+/**
+ * request timeouts on one shared hashed wheel timer, scheduling and cancelling are O(1) and a timeout costs
+ * no more than one wheel entry.
+ */
 public class CompletableFutureTimeout {
-    private CompletableFutureTimeout() {
-    }
-
-    public static <T> CompletableFuture<T> orTimeout(CompletableFuture<T> future, long timeout, TimeUnit unit, String msg) {
-        final CompletableFuture<T> timeoutFuture = timeoutAfter(timeout, unit, msg);
-        future.whenCompleteAsync((result, throwable) -> {
-            if (future.isDone() && !timeoutFuture.isDone()) {
-                timeoutFuture.cancel(false);
-            }
-        });
-        return future.applyToEither(timeoutFuture, Function.identity());
-    }
-
-    private static <T> CompletableFuture<T> timeoutAfter(long timeout, TimeUnit unit, String msg) {
-        CompletableFuture<T> result = new CompletableFuture<>();
-        ScheduledFuture<?> scheduledFuture = Delayer.delayer.schedule(
-                () -> result.completeExceptionally(TSDBError.createTimeoutException(ERROR_QUERY_TIMEOUT,
-                        String.format("failed to complete the task:%s within the specified time : %d,%s", msg, timeout, unit)))
-                , timeout, unit);
+    private static final long TICK_MS = 10;
+    private static final int TICKS_PER_WHEEL = 512;
 
-        // Use handle to ensure the scheduled task is cancelled when the CompletableFuture completes normally or exceptionally
-        result.handle((res, ex) -> {
-            scheduledFuture.cancel(false);
-            return null;
-        });
+    private static final HashedWheelTimer TIMER = new HashedWheelTimer(
+            new DefaultThreadFactory("taos-request-timeout", true), TICK_MS, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL);
 
-        return result;
+    private CompletableFutureTimeout() {
     }
 
     /**
-     * Singleton delay scheduler, used only for starting and * cancelling tasks.
+     * fail the future with a TimeoutException if it is not completed in time. the timeout is cancelled on the
+     * completing thread, the same future is returned.
      */
-    static final class Delayer {
-        private Delayer() {
-        }
-
-        @SuppressWarnings("all")
-        static ScheduledFuture<?> delay(Runnable command, long delay,
-                                        TimeUnit unit) {
-            return delayer.schedule(command, delay, unit);
-        }
-
-        static final class DaemonThreadFactory implements ThreadFactory {
-            @Override
-            public Thread newThread(Runnable r) {
-                Thread t = new Thread(r);
-                t.setDaemon(true);
-                t.setName("DelayScheduler-");
-                return t;
-            }
-        }
+    public static <T> CompletableFuture<T> orTimeout(CompletableFuture<T> future, long timeout, TimeUnit unit, String msg) {
+        Timeout t = newTimeout(task -> future.completeExceptionally(timeoutException(msg, timeout, unit)), timeout, unit);
+        future.whenComplete((result, throwable) -> t.cancel());
+        return future;
+    }
 
-        static final ScheduledThreadPoolExecutor delayer;
+    public static Timeout newTimeout(TimerTask task, long timeout, TimeUnit unit) {
+        return TIMER.newTimeout(task, timeout, unit);
+    }
 
-        static {
-            delayer = new ScheduledThreadPoolExecutor(
-                    1, new DaemonThreadFactory());
-            delayer.setRemoveOnCancelPolicy(true);
-        }
+    public static TimeoutException timeoutException(String msg, long timeout, TimeUnit unit) {
+        return TSDBError.createTimeoutException(ERROR_QUERY_TIMEOUT,
+                String.format("failed to complete the task:%s within the specified time : %d,%s", msg, timeout, unit));
     }
-}
\ No newline at end of file
+}
@@ -164,6 +164,125 @@ public class DateTimeUtils {
         return null;
     }
 
+    private static final int[] POW10 = {1, 10, 100, 1000, 10000, 100000, 1000000, 10000000, 100000000, 1000000000};
+
+    /**
+     * parse an rfc3339 timestamp as returned by taosAdapter, e.g. 2022-08-09T02:36:44.5+08:00,
+     * the offset may also be written as +0800 or Z.
+     *
+     * @return the timestamp, or null if value is not in this form
+     */
+    public static Timestamp parseRfc3339(String value) {
+        int len = value.length();
+        if (len < 20 || value.charAt(4) != '-' || value.charAt(7) != '-'
+                || (value.charAt(10) != 'T' && value.charAt(10) != 't')
+                || value.charAt(13) != ':' || value.charAt(16) != ':')
+            return null;
+        int year = digits(value, 0, 4);
+        int month = digits(value, 5, 2);
+        int day = digits(value, 8, 2);
+        int hour = digits(value, 11, 2);
+        int minute = digits(value, 14, 2);
+        int second = digits(value, 17, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)
+                || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59)
+            return null;
+
+        int i = 19;
+        int nanos = 0;
+        if (value.charAt(i) == '.') {
+            int start = ++i;
+            while (i < len && value.charAt(i) >= '0' && value.charAt(i) <= '9') {
+                nanos = nanos * 10 + (value.charAt(i) - '0');
+                i++;
+            }
+            int n = i - start;
+            if (n == 0 || n > 9)
+                return null;
+            nanos *= POW10[9 - n];
+        }
+
+        if (i >= len)
+            return null;
+        int offset;
+        char c = value.charAt(i);
+        if (c == 'Z' || c == 'z') {
+            if (i + 1 != len)
+                return null;
+            offset = 0;
+        } else if (c == '+' || c == '-') {
+            // the length is checked first, a truncated offset must not read past the end
+            int offsetMinute;
+            if (len - i == 6 && value.charAt(i + 3) == ':') {
+                offsetMinute = digits(value, i + 4, 2);
+            } else if (len - i == 5) {
+                offsetMinute = digits(value, i + 3, 2);
+            } else {
+                return null;
+            }
+            int offsetHour = digits(value, i + 1, 2);
+            if (offsetHour < 0 || offsetHour > 18 || offsetMinute < 0 || offsetMinute > 59)
+                return null;
+            offset = offsetHour * 3600 + offsetMinute * 60;
+            if (c == '-')
+                offset = -offset;
+        } else {
+            return null;
+        }
+
+        long epochSecond = epochDay(year, month, day) * 86400L + hour * 3600 + minute * 60 + second - offset;
+        Timestamp timestamp = new Timestamp(epochSecond * 1000);
+        timestamp.setNanos(nanos);
+        return timestamp;
+    }
+
+    /**
+     * @return the number of fraction digits of an rfc3339 timestamp, 0 if it has none
+     */
+    public static int rfc3339FractionDigits(String value) {
+        if (value.length() <= 19 || value.charAt(19) != '.')
+            return 0;
+        int i = 20;
+        while (i < value.length() && value.charAt(i) >= '0' && value.charAt(i) <= '9')
+            i++;
+        return i - 20;
+    }
+
+    private static int digits(String value, int start, int n) {
+        int v = 0;
+        for (int i = start; i < start + n; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            v = v * 10 + (c - '0');
+        }
+        return v;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                return Year.isLeap(year) ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    // days since 1970-01-01 of a proleptic gregorian date
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yoe = y - era * 400;
+        long doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146097 + doe - 719468;
+    }
+
     public static Timestamp getTimestamp(Instant instant, ZoneId zoneId) {
         if (zoneId == null){
             return Timestamp.from(instant);
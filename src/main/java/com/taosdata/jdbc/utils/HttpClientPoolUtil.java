@@ -23,7 +23,9 @@ import org.apache.http.protocol.HttpContext;
 import org.apache.http.util.EntityUtils;
 
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.util.Properties;
@@ -92,41 +94,7 @@ public class HttpClientPoolUtil {
 
     /*** execute POST request ***/
     public static String execute(String uri, String data, String auth, Long reqId) throws SQLException {
-
-        if (reqId != null) {
-            if (uri.contains("?"))
-                uri = uri + "&reqId=" + reqId;
-            else
-                uri = uri + "?reqId=" + reqId;
-        }
-
-        HttpEntityEnclosingRequestBase method = (HttpEntityEnclosingRequestBase) getRequest(uri, HttpPost.METHOD_NAME);
-        method.setHeader(HTTP.CONTENT_TYPE, "text/plain");
-        method.setHeader(HTTP.CONN_DIRECTIVE, isKeepAlive);
-        if (auth != null) {
-            method.setHeader("Authorization", auth);
-        }
-
-        if (enableCompress){
-            method.addHeader("Content-Encoding", "gzip");
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            GZIPOutputStream gos;
-            try {
-                gos = new GZIPOutputStream(baos);
-                gos.write(data.getBytes(StandardCharsets.UTF_8));
-                gos.close();
-            } catch (IOException e) {
-                throw new SQLException("gzip io error");
-            }
-
-            byte[] compressedData = baos.toByteArray();
-            // 创建带有压缩数据的 HttpEntity
-            HttpEntity entity = new ByteArrayEntity(compressedData);
-            method.setEntity(entity);
-        } else {
-            method.setEntity(new StringEntity(data, StandardCharsets.UTF_8));
-        }
-
+        HttpEntityEnclosingRequestBase method = getPostRequest(uri, data, auth, reqId);
         HttpContext context = HttpClientContext.create();
 
         HttpEntity httpEntity = null;
@@ -139,36 +107,12 @@ public class HttpClientPoolUtil {
             }
 
             int status = httpResponse.getStatusLine().getStatusCode();
-            switch (status) {
-                case HttpStatus.SC_BAD_REQUEST:
-                    throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFUL_CLIENT_QUERY_EXCEPTION,
-                            responseBody != null && !responseBody.isEmpty() ? responseBody : String.format("http status code: %d, parameter error!", status));
-                case HttpStatus.SC_UNAUTHORIZED:
-                    throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFUL_CLIENT_QUERY_EXCEPTION,
-                            responseBody != null && !responseBody.isEmpty() ? responseBody : String.format("http status code: %d, authorization error!", status));
-                case HttpStatus.SC_FORBIDDEN:
-                    throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFUL_CLIENT_QUERY_EXCEPTION,
-                            responseBody != null && !responseBody.isEmpty() ? responseBody : String.format("http status code: %d, access forbidden!", status));
-                case HttpStatus.SC_NOT_FOUND:
-                    throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFUL_CLIENT_QUERY_EXCEPTION,
-                            responseBody != null && !responseBody.isEmpty() ? responseBody : String.format("http status code: %d, url does not found!", status));
-                case HttpStatus.SC_NOT_ACCEPTABLE:
-                    throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFUL_CLIENT_QUERY_EXCEPTION,
-                            responseBody != null && !responseBody.isEmpty() ? responseBody : String.format("http status code: %d, not acceptable!", status));
-                case HttpStatus.SC_INTERNAL_SERVER_ERROR:
-                case HttpStatus.SC_BAD_GATEWAY:
-                    throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFUL_CLIENT_QUERY_EXCEPTION,
-                            responseBody != null && !responseBody.isEmpty() ? responseBody : String.format("http status code: %d, server error!", status));
-                case HttpStatus.SC_SERVICE_UNAVAILABLE:
-                    throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFUL_CLIENT_QUERY_EXCEPTION,
-                            responseBody != null && !responseBody.isEmpty() ? responseBody : String.format("http status code: %d, service unavailable!", status));
-                default: // 2**
-                    if (httpEntity == null) {
-                        throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_HTTP_ENTITY_IS_NULL, String.format("httpEntity is null, sql: %s, http status code: %d", data, status));
-                    }
-                    if (responseBody == null || responseBody.isEmpty()) {
-                        throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNKNOWN, String.format("sql: %s, http status code: %d", data, status));
-                    }
+            checkStatus(status, responseBody);
+            if (httpEntity == null) {
+                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_HTTP_ENTITY_IS_NULL, String.format("httpEntity is null, sql: %s, http status code: %d", data, status));
+            }
+            if (responseBody == null || responseBody.isEmpty()) {
+                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNKNOWN, String.format("sql: %s, http status code: %d", data, status));
             }
         } catch (ClientProtocolException e) {
             throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFul_Client_Protocol_Exception, e.getMessage());
@@ -182,6 +126,157 @@ public class HttpClientPoolUtil {
         return responseBody;
     }
 
+    /**
+     * execute POST request and hand the response body over to the caller without buffering it,
+     * the returned stream must be closed.
+     */
+    public static ResponseStream executeStream(String uri, String data, String auth, Long reqId) throws SQLException {
+        HttpEntityEnclosingRequestBase method = getPostRequest(uri, data, auth, reqId);
+        HttpContext context = HttpClientContext.create();
+
+        CloseableHttpResponse httpResponse = null;
+        try {
+            httpResponse = httpClient.execute(method, context);
+            HttpEntity httpEntity = httpResponse.getEntity();
+            int status = httpResponse.getStatusLine().getStatusCode();
+            if (status < HttpStatus.SC_OK || status >= HttpStatus.SC_MULTIPLE_CHOICES) {
+                // error responses are small
+                String responseBody = httpEntity == null ? null : EntityUtils.toString(httpEntity, StandardCharsets.UTF_8);
+                checkStatus(status, responseBody);
+                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFUL_CLIENT_QUERY_EXCEPTION,
+                        responseBody != null && !responseBody.isEmpty() ? responseBody : String.format("http status code: %d", status));
+            }
+            if (httpEntity == null) {
+                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_HTTP_ENTITY_IS_NULL, String.format("httpEntity is null, sql: %s, http status code: %d", data, status));
+            }
+            ResponseStream stream = new ResponseStream(httpResponse, httpEntity);
+            httpResponse = null;
+            return stream;
+        } catch (ClientProtocolException e) {
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFul_Client_Protocol_Exception, e.getMessage());
+        } catch (IOException exception) {
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFul_Client_IOException, exception.getMessage());
+        } finally {
+            if (httpResponse != null) {
+                EntityUtils.consumeQuietly(httpResponse.getEntity());
+                try {
+                    httpResponse.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    /**
+     * a response body which is read as it arrives.
+     */
+    public static class ResponseStream implements Closeable {
+        private final CloseableHttpResponse response;
+        private final HttpEntity entity;
+        private boolean closed;
+
+        private ResponseStream(CloseableHttpResponse response, HttpEntity entity) {
+            this.response = response;
+            this.entity = entity;
+        }
+
+        public InputStream getContent() throws IOException {
+            return entity.getContent();
+        }
+
+        /**
+         * read what is left of the body so the connection goes back to the pool, use it when the body has been read
+         * to its end or only a few bytes are left.
+         */
+        public void finish() {
+            if (closed)
+                return;
+            EntityUtils.consumeQuietly(entity);
+            close();
+        }
+
+        /**
+         * close the response, a connection whose body has not been read to the end is dropped instead of draining it.
+         */
+        @Override
+        public void close() {
+            if (closed)
+                return;
+            closed = true;
+            try {
+                response.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static HttpEntityEnclosingRequestBase getPostRequest(String uri, String data, String auth, Long reqId) throws SQLException {
+        HttpEntityEnclosingRequestBase method = (HttpEntityEnclosingRequestBase) getRequest(withReqId(uri, reqId), HttpPost.METHOD_NAME);
+        method.setHeader(HTTP.CONTENT_TYPE, "text/plain");
+        method.setHeader(HTTP.CONN_DIRECTIVE, isKeepAlive);
+        if (auth != null) {
+            method.setHeader("Authorization", auth);
+        }
+
+        if (enableCompress){
+            method.addHeader("Content-Encoding", "gzip");
+            // 创建带有压缩数据的 HttpEntity
+            HttpEntity entity = new ByteArrayEntity(gzip(data));
+            method.setEntity(entity);
+        } else {
+            method.setEntity(new StringEntity(data, StandardCharsets.UTF_8));
+        }
+        return method;
+    }
+
+    static String withReqId(String uri, Long reqId) {
+        if (reqId == null)
+            return uri;
+        if (uri.contains("?"))
+            return uri + "&reqId=" + reqId;
+        return uri + "?reqId=" + reqId;
+    }
+
+    static byte[] gzip(String data) throws SQLException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        GZIPOutputStream gos;
+        try {
+            gos = new GZIPOutputStream(baos);
+            gos.write(data.getBytes(StandardCharsets.UTF_8));
+            gos.close();
+        } catch (IOException e) {
+            throw new SQLException("gzip io error");
+        }
+        return baos.toByteArray();
+    }
+
+    static void checkStatus(int status, String responseBody) throws SQLException {
+        switch (status) {
+            case HttpStatus.SC_BAD_REQUEST:
+                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFUL_CLIENT_QUERY_EXCEPTION,
+                        responseBody != null && !responseBody.isEmpty() ? responseBody : String.format("http status code: %d, parameter error!", status));
+            case HttpStatus.SC_UNAUTHORIZED:
+                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFUL_CLIENT_QUERY_EXCEPTION,
+                        responseBody != null && !responseBody.isEmpty() ? responseBody : String.format("http status code: %d, authorization error!", status));
+            case HttpStatus.SC_FORBIDDEN:
+                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFUL_CLIENT_QUERY_EXCEPTION,
+                        responseBody != null && !responseBody.isEmpty() ? responseBody : String.format("http status code: %d, access forbidden!", status));
+            case HttpStatus.SC_NOT_FOUND:
+                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFUL_CLIENT_QUERY_EXCEPTION,
+                        responseBody != null && !responseBody.isEmpty() ? responseBody : String.format("http status code: %d, url does not found!", status));
+            case HttpStatus.SC_NOT_ACCEPTABLE:
+                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFUL_CLIENT_QUERY_EXCEPTION,
+                        responseBody != null && !responseBody.isEmpty() ? responseBody : String.format("http status code: %d, not acceptable!", status));
+            case HttpStatus.SC_INTERNAL_SERVER_ERROR:
+            case HttpStatus.SC_BAD_GATEWAY:
+                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFUL_CLIENT_QUERY_EXCEPTION,
+                        responseBody != null && !responseBody.isEmpty() ? responseBody : String.format("http status code: %d, server error!", status));
+            case HttpStatus.SC_SERVICE_UNAVAILABLE:
+                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFUL_CLIENT_QUERY_EXCEPTION,
+                        responseBody != null && !responseBody.isEmpty() ? responseBody : String.format("http status code: %d, service unavailable!", status));
+        }
+    }
+
     /*** create http request ***/
     private static HttpRequestBase getRequest(String uri, String methodName) {
         HttpRequestBase method;
@@ -0,0 +1,81 @@
+package com.taosdata.jdbc.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * bounded lock-free queue for exactly one producer thread and one consumer thread.
+ * <p>
+ * the producer only moves the tail and the consumer only moves the head, each side keeps a cached copy of the
+ * other one so the shared counters are read only when the ring looks full or empty.
+ */
+public class SpscRing<E> {
+    private final AtomicReferenceArray<E> buffer;
+    private final int capacity;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    // only touched by the producer
+    private long headCache;
+    // only touched by the consumer
+    private long tailCache;
+
+    public SpscRing(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.buffer = new AtomicReferenceArray<>(capacity);
+    }
+
+    /**
+     * producer side.
+     *
+     * @return false if the ring is full
+     */
+    public boolean offer(E e) {
+        long t = tail.get();
+        if (t - headCache >= capacity) {
+            headCache = head.get();
+            if (t - headCache >= capacity) {
+                return false;
+            }
+        }
+        buffer.lazySet((int) (t % capacity), e);
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * consumer side.
+     *
+     * @return the oldest element, or null if the ring is empty
+     */
+    public E poll() {
+        long h = head.get();
+        if (h >= tailCache) {
+            tailCache = tail.get();
+            if (h >= tailCache) {
+                return null;
+            }
+        }
+        int index = (int) (h % capacity);
+        E e = buffer.get(index);
+        buffer.lazySet(index, null);
+        head.lazySet(h + 1);
+        return e;
+    }
+
+    public boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+
+    public int size() {
+        // read head first, the tail read after it can only be larger
+        long h = head.get();
+        return (int) (tail.get() - h);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,47 @@
+package com.taosdata.jdbc.utils;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * number of websocket requests timed out, per action
+ */
+public class TimeoutMetrics {
+    private static final ConcurrentHashMap<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+
+    private TimeoutMetrics() {
+    }
+
+    public static void record(String action) {
+        LongAdder counter = COUNTERS.get(action);
+        if (counter == null) {
+            counter = COUNTERS.computeIfAbsent(action, k -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    public static long getTimeoutCount(String action) {
+        LongAdder counter = COUNTERS.get(action);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    public static long getTotalTimeoutCount() {
+        long total = 0;
+        for (LongAdder counter : COUNTERS.values()) {
+            total += counter.sum();
+        }
+        return total;
+    }
+
+    /**
+     * @return timeout count of each action that has timed out at least once
+     */
+    public static Map<String, Long> snapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        COUNTERS.forEach((action, counter) -> snapshot.put(action, counter.sum()));
+        return Collections.unmodifiableMap(snapshot);
+    }
+}
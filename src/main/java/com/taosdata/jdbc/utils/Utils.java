@@ -32,7 +32,10 @@ import java.time.format.DateTimeParseException;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -42,9 +45,10 @@ import java.util.stream.IntStream;
 public class Utils {
     private static final Logger log = LoggerFactory.getLogger(Utils.class);
     private static final ForkJoinPool forkJoinPool = new ForkJoinPool();
+    private static final ThreadPoolExecutor asyncExecutor = newAsyncExecutor();
     private static final Pattern ptn = Pattern.compile(".*?'");
 
-    private static EventLoopGroup eventLoopGroup = null;
+    private static volatile EventLoopGroup eventLoopGroup = null;
 
     private Utils() {}
 
@@ -215,6 +219,22 @@ public class Utils {
     public static ForkJoinPool getForkJoinPool() {
         return forkJoinPool;
     }
+
+    private static ThreadPoolExecutor newAsyncExecutor() {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new DefaultThreadFactory("taos-async-statement", true));
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * runs the blocking work of async statements, polls and reconnects, off the netty event loop and the http client threads
+     */
+    public static Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
     public static int getSqlRows(Connection connection, String sql) throws SQLException {
         sql = "select count(*) from " + sql;
         try(Statement statement = connection.createStatement()){
@@ -226,7 +246,10 @@ public class Utils {
         }
     }
 
-    public static void initEventLoopGroup() {
+    public static synchronized void initEventLoopGroup() {
+        if (eventLoopGroup != null) {
+            return;
+        }
         // Initialize the EventLoopGroup
         // This is just a placeholder, you need to implement the actual initialization logic
         // For example, you might want to use NioEventLoopGroup or another implementation
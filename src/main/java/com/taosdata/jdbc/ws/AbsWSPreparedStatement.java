@@ -1,6 +1,7 @@
 package com.taosdata.jdbc.ws;
 
 import com.taosdata.jdbc.*;
+import com.taosdata.jdbc.common.ArrayColumnInfo;
 import com.taosdata.jdbc.common.Column;
 import com.taosdata.jdbc.common.ColumnInfo;
 import com.taosdata.jdbc.common.SerializeBlock;
@@ -10,9 +11,11 @@ import com.taosdata.jdbc.enums.TimestampPrecision;
 import com.taosdata.jdbc.rs.ConnectionParam;
 import com.taosdata.jdbc.utils.BlobUtil;
 import com.taosdata.jdbc.utils.DateTimeUtils;
+import com.taosdata.jdbc.utils.ReqId;
 import com.taosdata.jdbc.ws.entity.Action;
 import com.taosdata.jdbc.ws.entity.Code;
 import com.taosdata.jdbc.ws.entity.Request;
+import com.taosdata.jdbc.ws.entity.Response;
 import com.taosdata.jdbc.ws.stmt2.entity.*;
 import io.netty.buffer.ByteBuf;
 
@@ -27,6 +30,8 @@ import java.sql.Date;
 import java.sql.*;
 import java.time.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 import static com.taosdata.jdbc.TSDBConstants.*;
@@ -53,6 +58,13 @@ public class AbsWSPreparedStatement extends WSStatement implements TaosPrepareSt
     private final HashMap<ByteBuffer, TableInfo> tableInfoMap = new HashMap<>();
     private TableInfo tableInfo;
 
+    // bind and exec pairs sent by executeBatch and not yet completed, oldest first
+    private final ArrayDeque<PendingBatch> pipeline = new ArrayDeque<>();
+    // affected rows of the completed batches since the last flush, EXECUTE_FAILED for a failed batch
+    private final List<Integer> pipelineCounts = new ArrayList<>();
+    private SQLException pipelineError;
+    private int pipelineErrorIndex;
+
     public AbsWSPreparedStatement(Transport transport,
                                   ConnectionParam param,
                                   String database,
@@ -788,6 +800,10 @@ public class AbsWSPreparedStatement extends WSStatement implements TaosPrepareSt
             tableInfoMap.put(tableInfo.getTableName(), tableInfo);
         }
 
+        if (param.getStmt2PipelineDepth() > 1) {
+            return executeBatchPipelined();
+        }
+
         int affected = executeBatchImpl();
         int[] ints = new int[affected];
         for (int i = 0, len = ints.length; i < len; i++)
@@ -795,14 +811,39 @@ public class AbsWSPreparedStatement extends WSStatement implements TaosPrepareSt
         return ints;
     }
 
+    /**
+     * wait for the batches sent by a pipelined executeBatch, see {@link TSDBDriver#PROPERTY_KEY_STMT2_PIPELINE_DEPTH}.
+     *
+     * @return the affected rows of each batch since the last flush, in the order executeBatch was called
+     * @throws BatchUpdateException if a batch failed, the update counts are EXECUTE_FAILED at the failed batches
+     */
+    public int[] flushBatches() throws SQLException {
+        while (!pipeline.isEmpty()) {
+            completeOldestBatch();
+        }
+        throwIfBatchFailed();
+        int[] counts = pipelineCounts.stream().mapToInt(Integer::intValue).toArray();
+        pipelineCounts.clear();
+        return counts;
+    }
+
     @Override
     public void close() throws SQLException {
         if (!isClosed()) {
+            SQLException batchError = null;
+            try {
+                flushBatches();
+            } catch (SQLException e) {
+                batchError = e;
+            }
             if (transport.isConnected() && stmtId != 0) {
                 Request close = RequestFactory.generateClose(stmtId, reqId);
                 transport.send(close);
             }
             super.close();
+            if (batchError != null) {
+                throw batchError;
+            }
         }
     }
 
@@ -1064,6 +1105,63 @@ public class AbsWSPreparedStatement extends WSStatement implements TaosPrepareSt
         setValueImpl(columnIndex, list, TSDBConstants.TSDB_DATA_TYPE_NCHAR, size * Integer.BYTES);
     }
 
+    @Override
+    public void setInt(int columnIndex, int[] values, int offset, int length, BitSet isNull) throws SQLException {
+        checkArrayRange(values.length, offset, length);
+        setArrayImpl(columnIndex, Arrays.copyOfRange(values, offset, offset + length), isNull, offset, length, TSDB_DATA_TYPE_INT);
+    }
+
+    @Override
+    public void setLong(int columnIndex, long[] values, int offset, int length, BitSet isNull) throws SQLException {
+        checkArrayRange(values.length, offset, length);
+        setArrayImpl(columnIndex, Arrays.copyOfRange(values, offset, offset + length), isNull, offset, length, TSDB_DATA_TYPE_BIGINT);
+    }
+
+    @Override
+    public void setTimestamp(int columnIndex, long[] values, int offset, int length, BitSet isNull) throws SQLException {
+        checkArrayRange(values.length, offset, length);
+        setArrayImpl(columnIndex, Arrays.copyOfRange(values, offset, offset + length), isNull, offset, length, TSDB_DATA_TYPE_TIMESTAMP);
+    }
+
+    @Override
+    public void setFloat(int columnIndex, float[] values, int offset, int length, BitSet isNull) throws SQLException {
+        checkArrayRange(values.length, offset, length);
+        setArrayImpl(columnIndex, Arrays.copyOfRange(values, offset, offset + length), isNull, offset, length, TSDB_DATA_TYPE_FLOAT);
+    }
+
+    @Override
+    public void setDouble(int columnIndex, double[] values, int offset, int length, BitSet isNull) throws SQLException {
+        checkArrayRange(values.length, offset, length);
+        setArrayImpl(columnIndex, Arrays.copyOfRange(values, offset, offset + length), isNull, offset, length, TSDB_DATA_TYPE_DOUBLE);
+    }
+
+    @Override
+    public void setBoolean(int columnIndex, boolean[] values, int offset, int length, BitSet isNull) throws SQLException {
+        checkArrayRange(values.length, offset, length);
+        setArrayImpl(columnIndex, Arrays.copyOfRange(values, offset, offset + length), isNull, offset, length, TSDB_DATA_TYPE_BOOL);
+    }
+
+    private static void checkArrayRange(int arrayLength, int offset, int length) throws SQLException {
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE,
+                    "invalid array range, offset: " + offset + ", length: " + length + ", array length: " + arrayLength);
+        }
+    }
+
+    // the values are copied, the batch is only serialized when it is executed
+    private void setArrayImpl(int columnIndex, Object values, BitSet isNull, int offset, int length, int type) throws SQLException {
+        if (isInsert) {
+            int colType = colTypeList.get(columnIndex);
+            if (!ArrayColumnInfo.accepts(type, colType)) {
+                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE,
+                        "column " + columnIndex + " data type is " + colType + ", can not bind array of type " + type);
+            }
+            type = colType;
+        }
+        BitSet nulls = isNull == null || isNull.isEmpty() ? null : isNull.get(offset, offset + length);
+        colListQueue.add(new ArrayColumnInfo(columnIndex, values, nulls, length, type));
+    }
+
     public <T> void setValueImpl(int columnIndex, List<T> list, int type, int bytes) throws SQLException {
         List<Object> listObject = new ArrayList<>(list);
         if (isInsert){
@@ -1114,6 +1212,10 @@ public class AbsWSPreparedStatement extends WSStatement implements TaosPrepareSt
         if (tableInfoMap.isEmpty()) {
             throw new SQLException("batch data is empty");
         }
+        // the statement runs one bind at a time, pipelined batches go first
+        if (!pipeline.isEmpty() || pipelineError != null) {
+            flushBatches();
+        }
 
         ByteBuf rawBlock;
         try {
@@ -1139,6 +1241,116 @@ public class AbsWSPreparedStatement extends WSStatement implements TaosPrepareSt
         this.affectedRows = resp.getAffected();
         return this.affectedRows;
     }
+    // the next batch is encoded while the earlier ones are in flight, then sent once fewer than the pipeline depth are
+    private int[] executeBatchPipelined() throws SQLException {
+        if (tableInfoMap.isEmpty()) {
+            throw new SQLException("batch data is empty");
+        }
+
+        int rows = 0;
+        for (TableInfo info : tableInfoMap.values()) {
+            if (!info.getDataList().isEmpty()) {
+                rows += info.getDataList().get(0).getDataList().size();
+            }
+        }
+
+        // each pair has its own request id, so the responses of the batches in flight do not collide
+        long batchReqId = ReqId.getReqID();
+        ByteBuf rawBlock;
+        try {
+            rawBlock = SerializeBlock.getStmt2BindBlock(batchReqId, stmtId, tableInfoMap, toBeBindTableNameIndex, toBeBindTagCount, toBeBindColCount, precision);
+        } finally {
+            this.clearParameters();
+        }
+
+        while (pipeline.size() >= param.getStmt2PipelineDepth()) {
+            completeOldestBatch();
+        }
+
+        // messages of one connection are handled in order, so the exec follows its bind without waiting
+        CompletableFuture<Response> bind = transport.sendAsync(Action.STMT2_BIND.getAction(), batchReqId, rawBlock);
+        CompletableFuture<Response> exec = transport.sendAsync(RequestFactory.generateExec(stmtId, batchReqId));
+        pipeline.addLast(new PendingBatch(bind, exec));
+
+        throwIfBatchFailed();
+        int[] ints = new int[rows];
+        Arrays.fill(ints, SUCCESS_NO_INFO);
+        return ints;
+    }
+
+    private void completeOldestBatch() {
+        PendingBatch batch = pipeline.pollFirst();
+        SQLException error = null;
+        int affected = 0;
+        try {
+            Stmt2Resp bindResp = (Stmt2Resp) awaitBatchResponse(batch.bind);
+            if (Code.SUCCESS.getCode() != bindResp.getCode()) {
+                error = TSDBError.createSQLException(bindResp.getCode(), "(0x" + Integer.toHexString(bindResp.getCode()) + "):" + bindResp.getMessage());
+            }
+        } catch (SQLException e) {
+            error = e;
+        }
+        try {
+            Stmt2ExecResp resp = (Stmt2ExecResp) awaitBatchResponse(batch.exec);
+            if (error == null && Code.SUCCESS.getCode() != resp.getCode()) {
+                error = TSDBError.createSQLException(resp.getCode(), "(0x" + Integer.toHexString(resp.getCode()) + "):" + resp.getMessage());
+            }
+            affected = resp.getAffected();
+        } catch (SQLException e) {
+            if (error == null) {
+                error = e;
+            }
+        }
+
+        if (error == null) {
+            pipelineCounts.add(affected);
+            this.affectedRows = affected;
+            return;
+        }
+        if (pipelineError == null) {
+            pipelineError = error;
+            pipelineErrorIndex = pipelineCounts.size();
+        }
+        pipelineCounts.add(EXECUTE_FAILED);
+    }
+
+    private void throwIfBatchFailed() throws BatchUpdateException {
+        if (pipelineError == null) {
+            return;
+        }
+        int[] counts = pipelineCounts.stream().mapToInt(Integer::intValue).toArray();
+        SQLException error = pipelineError;
+        int index = pipelineErrorIndex;
+        pipelineCounts.clear();
+        pipelineError = null;
+        throw new BatchUpdateException("batch " + index + " failed: " + error.getMessage(),
+                error.getSQLState(), error.getErrorCode(), counts, error);
+    }
+
+    private static Response awaitBatchResponse(CompletableFuture<Response> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_QUERY_TIMEOUT, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_QUERY_TIMEOUT, e.getMessage());
+        }
+    }
+
+    private static class PendingBatch {
+        final CompletableFuture<Response> bind;
+        final CompletableFuture<Response> exec;
+
+        PendingBatch(CompletableFuture<Response> bind, CompletableFuture<Response> exec) {
+            this.bind = bind;
+            this.exec = exec;
+        }
+    }
+
     @Override
     public void columnDataExecuteBatch() throws SQLException {
         executeBatchImpl();
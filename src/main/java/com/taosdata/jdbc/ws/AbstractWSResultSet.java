@@ -5,9 +5,12 @@ import com.taosdata.jdbc.BlockData;
 import com.taosdata.jdbc.TSDBError;
 import com.taosdata.jdbc.TSDBErrorNumbers;
 import com.taosdata.jdbc.enums.DataType;
+import com.taosdata.jdbc.metrics.Metrics;
 import com.taosdata.jdbc.rs.RestfulResultSet;
 import com.taosdata.jdbc.rs.RestfulResultSetMetaData;
+import com.taosdata.jdbc.utils.Utils;
 import com.taosdata.jdbc.ws.entity.*;
+import io.netty.buffer.ByteBuf;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -17,7 +20,11 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
 
 public abstract class AbstractWSResultSet extends AbstractResultSet {
     private static final Logger log = LoggerFactory.getLogger(AbstractWSResultSet.class);
@@ -33,15 +40,19 @@ public abstract class AbstractWSResultSet extends AbstractResultSet {
     protected final ResultSetMetaData metaData;
     protected final List<RestfulResultSet.Field> fields = new ArrayList<>();
     protected final List<String> columnNames;
-    // data
-    protected List<List<Object>> result = new ArrayList<>();
+    // data, the block currently read by the getters
+    protected BlockData blockData;
 
     protected int numOfRows = 0;
     protected int rowIndex = 0;
-    private static final int CACHE_SIZE = 5;
-    BlockingQueue<BlockData> blockingQueueOut = new LinkedBlockingQueue<>(CACHE_SIZE);
-    ThreadPoolExecutor backFetchExecutor;
-    ForkJoinPool dataHandleExecutor = getForkJoinPool();
+    // bounded by prefetchWindow
+    BlockingQueue<BlockData> blockingQueueOut = new LinkedBlockingQueue<>();
+    private final PrefetchWindow prefetchWindow;
+    private boolean backendFetchStarted;
+    // completed when the read-ahead fetch scheduled or in flight is done, null if there is none
+    private final AtomicReference<CompletableFuture<Void>> fetching = new AtomicReference<>();
+    // the completed or failed block is queued, written only while fetching
+    private volatile boolean fetchDone;
 
     private int fetchBlockNum = 0;
     private final int START_BACKEND_FETCH_BLOCK_NUM = 3;
@@ -70,54 +81,117 @@ public abstract class AbstractWSResultSet extends AbstractResultSet {
         }
         this.metaData = new RestfulResultSetMetaData(database, fields, transport.getConnectionParam().isVarcharAsString());
         this.timestampPrecision = response.getPrecision();
+        this.prefetchWindow = new PrefetchWindow(transport.getConnectionParam().getPrefetchMaxBlocks(),
+                transport.getPrefetchBudget());
     }
 
-    private void startBackendFetch(){
-        backFetchExecutor = (ThreadPoolExecutor) Executors.newFixedThreadPool(1);
-        backFetchExecutor.submit(() -> {
-            try {
-                while (!isClosed){
-                    BlockData blockData = BlockData.getEmptyBlockData(fields, timestampPrecision);
-
-                    byte[] version = {1, 0};
-                    FetchBlockNewResp resp = (FetchBlockNewResp) transport.send(Action.FETCH_BLOCK_NEW.getAction(),
-                            reqId, queryId, 7, version);
-                    resp.init();
-
-                    if (Code.SUCCESS.getCode() != resp.getCode()) {
-                        blockData.setReturnCode(resp.getCode());
-                        blockData.setErrorMessage(resp.getMessage());
-                        blockingQueueOut.put(blockData);
-                        break;
-                    }
-                    if (resp.isCompleted() || isClosed) {
-                        blockData.setCompleted(true);
-                        blockingQueueOut.put(blockData);
-                        break;
-                    }
-
-                    blockData.setBuffer(resp.getBuffer());
-                    blockingQueueOut.put(blockData);
+    // schedule the next read-ahead fetch if the window has room and no fetch is running
+    private void scheduleFetch() {
+        if (isClosed || fetchDone || !prefetchWindow.canFetch()) {
+            return;
+        }
+        CompletableFuture<Void> task = new CompletableFuture<>();
+        if (!fetching.compareAndSet(null, task)) {
+            return;
+        }
+        long start = System.nanoTime();
+        byte compression = transport.getBlockCompression();
+        FetchScheduler.submit(() -> {
+            if (isClosed) {
+                return CompletableFuture.completedFuture(null);
+            }
+            return transport.sendAsync(Action.FETCH_BLOCK_NEW.getAction(), reqId, queryId, 7,
+                    FetchReq.fetchBlockNewPayload(compression));
+        }, (response, e) -> onFetched((FetchBlockNewResp) response, e, compression, start, task));
+    }
 
-                    dataHandleExecutor.submit(blockData::handleData);
-                }
-            } catch (InterruptedException ignored) {
-                Thread.currentThread().interrupt();
-            } catch (Exception e) {
+    private void onFetched(FetchBlockNewResp resp, Throwable e, byte compression, long start, CompletableFuture<Void> task) {
+        BlockData blockData = BlockData.getEmptyBlockData(fields, timestampPrecision);
+        try {
+            if (e != null) {
                 log.error("fetch block error", e);
-                BlockData blockData = BlockData.getEmptyBlockData(fields, timestampPrecision);
-                while (!isClosed) {
-                    try {
-                        if (blockingQueueOut.offer(blockData, 10, TimeUnit.MILLISECONDS)){
-                            break;
-                        }
-                    } catch (InterruptedException ignored) {
-                        Thread.currentThread().interrupt();
-                        return;
-                    }
+                if (e instanceof SQLException) {
+                    blockData.setReturnCode(((SQLException) e).getErrorCode());
+                } else {
+                    blockData.setReturnCode(TSDBErrorNumbers.ERROR_QUERY_TIMEOUT);
                 }
+                blockData.setErrorMessage(e.getMessage());
+                fetchDone = true;
+                blockingQueueOut.add(blockData);
+                return;
             }
-        });
+            if (resp == null) {
+                // closed before sent
+                fetchDone = true;
+                return;
+            }
+
+            resp.init(compression);
+            if (Code.SUCCESS.getCode() != resp.getCode()) {
+                Utils.releaseByteBuf(resp.getBuffer());
+                blockData.setReturnCode(resp.getCode());
+                blockData.setErrorMessage(resp.getMessage());
+                fetchDone = true;
+                blockingQueueOut.add(blockData);
+                return;
+            }
+            if (resp.isCompleted() || isClosed) {
+                if (!resp.isCompleted()) {
+                    Utils.releaseByteBuf(resp.getBuffer());
+                }
+                blockData.setCompleted(true);
+                fetchDone = true;
+                blockingQueueOut.add(blockData);
+                return;
+            }
+
+            ByteBuf buffer = resp.getBuffer();
+            if (resp.getCompression() == BlockCompression.NONE) {
+                prefetchWindow.onFetched(System.nanoTime() - start, buffer.readableBytes());
+                blockData.setBuffer(buffer);
+                blockData.handleData();
+                transport.getMetrics().blocksDecoded(1, blockData.getNumOfRows());
+                blockingQueueOut.add(blockData);
+            } else {
+                // queued in fetch order, the consumer waits for the decompression in waitTillOK
+                prefetchWindow.onFetched(System.nanoTime() - start, BlockCompression.uncompressedSize(buffer));
+                blockingQueueOut.add(blockData);
+                Utils.getForkJoinPool().execute(() -> decompress(blockData, buffer, transport.getMetrics()));
+            }
+        } catch (Exception ex) {
+            log.error("fetch block error", ex);
+            blockData.setReturnCode(TSDBErrorNumbers.ERROR_UNKNOWN);
+            blockData.setErrorMessage(ex.getMessage());
+            fetchDone = true;
+            blockingQueueOut.add(blockData);
+        } finally {
+            fetching.set(null);
+            task.complete(null);
+        }
+        if (isClosed) {
+            // close stopped waiting for this fetch, or ran while the block was queued
+            Utils.getAsyncExecutor().execute(this::releaseAfterClose);
+            return;
+        }
+        scheduleFetch();
+    }
+
+    // off the io thread
+    private static void decompress(BlockData blockData, ByteBuf compressed, Metrics metrics) {
+        ByteBuf buffer;
+        try {
+            buffer = BlockCompression.decompress(compressed);
+        } catch (RuntimeException e) {
+            blockData.setReturnCode(TSDBErrorNumbers.ERROR_UNKNOWN);
+            blockData.setErrorMessage("failed to decompress block: " + e.getMessage());
+            blockData.doneWithNoData();
+            return;
+        } finally {
+            Utils.releaseByteBuf(compressed);
+        }
+        blockData.setBuffer(buffer);
+        blockData.handleData();
+        metrics.blocksDecoded(1, blockData.getNumOfRows());
     }
 
     private boolean forward() {
@@ -142,10 +216,12 @@ public abstract class AbstractWSResultSet extends AbstractResultSet {
             return true;
         }
 
+        prefetchWindow.onBlockDone(System.nanoTime());
         fetchBlockNum++;
         if (fetchBlockNum > START_BACKEND_FETCH_BLOCK_NUM) {
-            if (backFetchExecutor == null) {
-                startBackendFetch();
+            if (!backendFetchStarted) {
+                backendFetchStarted = true;
+                scheduleFetch();
             }
             BlockData blockData;
             try {
@@ -163,57 +239,113 @@ public abstract class AbstractWSResultSet extends AbstractResultSet {
                 this.isCompleted = true;
                 return false;
             }
+            prefetchWindow.onTaken(System.nanoTime());
+            scheduleFetch();
             blockData.waitTillOK();
-            this.result = blockData.getData();
+            if (blockData.getReturnCode() != Code.SUCCESS.getCode()) {
+                blockData.release();
+                throw TSDBError.createSQLException(blockData.getReturnCode(), blockData.getErrorMessage());
+            }
+            releaseCurrentBlock();
+            this.blockData = blockData;
             this.numOfRows = blockData.getNumOfRows();
         } else {
-            byte[] version = {1, 0};
+            long start = System.nanoTime();
+            byte compression = transport.getBlockCompression();
             FetchBlockNewResp resp = (FetchBlockNewResp) transport.send(Action.FETCH_BLOCK_NEW.getAction(),
-                    reqId, queryId, 7, version);
-            resp.init();
+                    reqId, queryId, 7, FetchReq.fetchBlockNewPayload(compression));
+            resp.init(compression);
 
             if (Code.SUCCESS.getCode() != resp.getCode()) {
+                Utils.releaseByteBuf(resp.getBuffer());
                 throw TSDBError.createSQLException(resp.getCode(), "FETCH DATA ERROR:" + resp.getMessage());
             }
             this.reset();
             BlockData blockData = BlockData.getEmptyBlockData(fields, timestampPrecision);
 
             if (resp.isCompleted() || isClosed) {
+                if (!resp.isCompleted()) {
+                    // closed by another thread while the block was on its way
+                    Utils.releaseByteBuf(resp.getBuffer());
+                }
                 blockData.setCompleted(true);
                 isCompleted = true;
                 return false;
             }
 
-            blockData.setBuffer(resp.getBuffer());
+            ByteBuf buffer = resp.getBuffer();
+            if (resp.getCompression() != BlockCompression.NONE) {
+                try {
+                    buffer = BlockCompression.decompress(resp.getBuffer());
+                } catch (RuntimeException e) {
+                    throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNKNOWN, "failed to decompress block: " + e.getMessage());
+                } finally {
+                    Utils.releaseByteBuf(resp.getBuffer());
+                }
+            }
+            prefetchWindow.onDirectFetch(System.nanoTime() - start, buffer.readableBytes(), System.nanoTime());
+            blockData.setBuffer(buffer);
             blockData.handleData();
+            transport.getMetrics().blocksDecoded(1, blockData.getNumOfRows());
+            if (blockData.getReturnCode() != Code.SUCCESS.getCode()) {
+                throw TSDBError.createSQLException(blockData.getReturnCode(), blockData.getErrorMessage());
+            }
 
-            this.result = blockData.getData();
+            releaseCurrentBlock();
+            this.blockData = blockData;
             this.numOfRows = blockData.getNumOfRows();
         }
 
         return true;
     }
 
+    private void releasePendingBlocks() {
+        BlockData pending;
+        while ((pending = blockingQueueOut.poll()) != null) {
+            if (!pending.isCompleted() && pending.getReturnCode() == Code.SUCCESS.getCode()) {
+                // a compressed block may still be decompressing
+                try {
+                    pending.waitTillOK();
+                } catch (SQLException ignored) {
+                }
+            }
+            pending.release();
+        }
+    }
+
+    private void releaseAfterClose() {
+        releasePendingBlocks();
+        prefetchWindow.release();
+    }
+
+    private void releaseCurrentBlock() {
+        if (this.blockData != null) {
+            this.blockData.release();
+            this.blockData = null;
+        }
+    }
+
     @Override
     public void close() throws SQLException {
         synchronized (this) {
             if (!this.isClosed) {
                 this.isClosed = true;
 
-                // wait backFetchExecutor to finish
-                if (backFetchExecutor != null) {
-                    while (backFetchExecutor.getActiveCount() != 0) {
-                        try {
-                            Thread.sleep(1);
-                        } catch (InterruptedException ignored) {
-                            Thread.currentThread().interrupt();
-                        }
-                    }
-                    if (!backFetchExecutor.isShutdown()) {
-                        backFetchExecutor.shutdown();
+                // wait for the read-ahead fetch in flight, if interrupted the fetch releases its block itself
+                CompletableFuture<Void> task = fetching.get();
+                if (task != null) {
+                    try {
+                        task.get();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } catch (ExecutionException ignored) {
+                        // never completed exceptionally
                     }
                 }
 
+                releaseCurrentBlock();
+                releaseAfterClose();
+
                 if (!isCompleted) {
                     FetchReq closeReq = new FetchReq();
                     closeReq.setReqId(queryId);
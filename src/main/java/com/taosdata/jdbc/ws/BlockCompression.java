@@ -0,0 +1,345 @@
+package com.taosdata.jdbc.ws;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.handler.codec.compression.DecompressionException;
+import io.netty.handler.codec.compression.Snappy;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+/**
+ * column aware compression of the blocks returned by fetch_block_new, used when the server accepts the
+ * blockCompression connection property.
+ * <p>
+ * a compressed block is the uncompressed size, then the block prefix, header, column schema and column lengths as is.
+ * each column follows as its null bitmap as is, an encoding byte, the encoded length and the encoded data:
+ * timestamp and bigint columns as delta of delta varints, float and double columns as the xor with the previous value,
+ * the offsets and data of var-length columns and all other columns by snappy. a column is left plain when encoding
+ * does not make it smaller, bytes after the last column are kept as is.
+ * decompressing restores the exact uncompressed block.
+ */
+public final class BlockCompression {
+    public static final byte NONE = 0;
+    public static final byte COLUMN = 1;
+
+    static final byte PLAIN = 0;
+    static final byte DELTA_OF_DELTA = 1;
+    static final byte XOR = 2;
+    static final byte SNAPPY = 3;
+
+    // block length prefix, then version, length, rows, cols, flag segment and group id
+    private static final int HEADER_LENGTH = 32;
+    // netty snappy keeps input positions in a short hash table
+    private static final int SNAPPY_CHUNK = 32 * 1024;
+
+    private BlockCompression() {
+    }
+
+    /**
+     * @param block the readable bytes of an uncompressed block, the reader index is not moved
+     * @return a new buffer, the caller releases it
+     */
+    public static ByteBuf compress(ByteBuf block) {
+        int start = block.readerIndex();
+        int rows = block.getIntLE(start + 12);
+        int cols = block.getIntLE(start + 16);
+        int pLengths = start + HEADER_LENGTH + cols * 5;
+        int pColumn = pLengths + cols * 4;
+
+        ByteBuf out = PooledByteBufAllocator.DEFAULT.directBuffer(block.readableBytes() / 2 + 64);
+        try {
+            out.writeIntLE(block.readableBytes());
+            out.writeBytes(block, start, pColumn - start);
+            for (int i = 0; i < cols; i++) {
+                int type = block.getByte(start + HEADER_LENGTH + i * 5);
+                int length = block.getIntLE(pLengths + i * 4);
+                if (isVarType(type)) {
+                    writeColumn(out, SNAPPY, 0, block, pColumn, rows * 4 + length);
+                    pColumn += rows * 4 + length;
+                } else {
+                    int bitmap = (rows + 7) >> 3;
+                    out.writeBytes(block, pColumn, bitmap);
+                    pColumn += bitmap;
+                    writeColumn(out, fixedEncoding(type, rows, length), typeWidth(type), block, pColumn, length);
+                    pColumn += length;
+                }
+            }
+            out.writeBytes(block, pColumn, block.writerIndex() - pColumn);
+            return out;
+        } catch (RuntimeException e) {
+            out.release();
+            throw e;
+        }
+    }
+
+    public static int uncompressedSize(ByteBuf compressed) {
+        return compressed.getIntLE(compressed.readerIndex());
+    }
+
+    /**
+     * @param compressed the readable bytes of a compressed block, the reader index is not moved
+     * @return a new buffer holding the uncompressed block, the caller releases it
+     * @throws DecompressionException if the block is malformed
+     */
+    public static ByteBuf decompress(ByteBuf compressed) {
+        int start = compressed.readerIndex();
+        int size = compressed.getIntLE(start);
+        if (size < HEADER_LENGTH) {
+            throw new DecompressionException("invalid uncompressed block size: " + size);
+        }
+        ByteBuf in = compressed.duplicate();
+        in.readerIndex(start + 4);
+
+        ByteBuf out = PooledByteBufAllocator.DEFAULT.directBuffer(size, size);
+        try {
+            int rows = in.getIntLE(start + 4 + 12);
+            int cols = in.getIntLE(start + 4 + 16);
+            in.readBytes(out, HEADER_LENGTH + cols * 9);
+            for (int i = 0; i < cols; i++) {
+                int type = out.getByte(HEADER_LENGTH + i * 5);
+                int length = out.getIntLE(HEADER_LENGTH + cols * 5 + i * 4);
+                if (isVarType(type)) {
+                    readColumn(in, out, 0, rows * 4 + length);
+                } else {
+                    in.readBytes(out, (rows + 7) >> 3);
+                    readColumn(in, out, typeWidth(type), length);
+                }
+            }
+            out.writeBytes(in);
+            if (out.writerIndex() != size) {
+                throw new DecompressionException("block size mismatch, expected " + size + " got " + out.writerIndex());
+            }
+            return out;
+        } catch (IndexOutOfBoundsException e) {
+            out.release();
+            throw new DecompressionException("truncated compressed block", e);
+        } catch (RuntimeException e) {
+            out.release();
+            throw e;
+        }
+    }
+
+    private static byte fixedEncoding(int type, int rows, int length) {
+        switch (type) {
+            case TSDB_DATA_TYPE_TIMESTAMP:
+            case TSDB_DATA_TYPE_BIGINT:
+            case TSDB_DATA_TYPE_UBIGINT:
+                return length == rows * 8 ? DELTA_OF_DELTA : SNAPPY;
+            case TSDB_DATA_TYPE_DOUBLE:
+                return length == rows * 8 ? XOR : SNAPPY;
+            case TSDB_DATA_TYPE_FLOAT:
+                return length == rows * 4 ? XOR : SNAPPY;
+            default:
+                return SNAPPY;
+        }
+    }
+
+    private static int typeWidth(int type) {
+        switch (type) {
+            case TSDB_DATA_TYPE_FLOAT:
+                return 4;
+            case TSDB_DATA_TYPE_TIMESTAMP:
+            case TSDB_DATA_TYPE_BIGINT:
+            case TSDB_DATA_TYPE_UBIGINT:
+            case TSDB_DATA_TYPE_DOUBLE:
+                return 8;
+            default:
+                return 0;
+        }
+    }
+
+    private static boolean isVarType(int type) {
+        switch (type) {
+            case TSDB_DATA_TYPE_BINARY:
+            case TSDB_DATA_TYPE_JSON:
+            case TSDB_DATA_TYPE_BLOB:
+            case TSDB_DATA_TYPE_MEDIUMBLOB:
+            case TSDB_DATA_TYPE_VARBINARY:
+            case TSDB_DATA_TYPE_GEOMETRY:
+            case TSDB_DATA_TYPE_NCHAR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // encoding byte, encoded length, encoded data
+    private static void writeColumn(ByteBuf out, byte encoding, int width, ByteBuf src, int index, int length) {
+        int pEncoding = out.writerIndex();
+        out.writeByte(encoding);
+        out.writeIntLE(0);
+        int pData = out.writerIndex();
+        switch (encoding) {
+            case DELTA_OF_DELTA:
+                encodeDeltaOfDelta(src, index, length, out);
+                break;
+            case XOR:
+                encodeXor(src, index, length, width, out);
+                break;
+            default:
+                encodeSnappy(src, index, length, out);
+                break;
+        }
+        int encoded = out.writerIndex() - pData;
+        if (encoded >= length) {
+            out.writerIndex(pEncoding);
+            out.writeByte(PLAIN);
+            out.writeIntLE(length);
+            out.writeBytes(src, index, length);
+        } else {
+            out.setIntLE(pEncoding + 1, encoded);
+        }
+    }
+
+    private static void readColumn(ByteBuf in, ByteBuf out, int width, int length) {
+        byte encoding = in.readByte();
+        int encoded = in.readIntLE();
+        ByteBuf data = in.readSlice(encoded);
+        int end = out.writerIndex() + length;
+        switch (encoding) {
+            case PLAIN:
+                out.writeBytes(data);
+                break;
+            case DELTA_OF_DELTA:
+                decodeDeltaOfDelta(data, length / 8, out);
+                break;
+            case XOR:
+                decodeXor(data, length / width, width, out);
+                break;
+            case SNAPPY:
+                decodeSnappy(data, out);
+                break;
+            default:
+                throw new DecompressionException("unknown column encoding: " + encoding);
+        }
+        if (out.writerIndex() != end) {
+            throw new DecompressionException("column length mismatch, expected " + length);
+        }
+    }
+
+    private static void encodeDeltaOfDelta(ByteBuf src, int index, int length, ByteBuf out) {
+        if (length < 8) {
+            return;
+        }
+        long prev = src.getLongLE(index);
+        out.writeLongLE(prev);
+        long prevDelta = 0;
+        for (int p = index + 8; p < index + length; p += 8) {
+            long value = src.getLongLE(p);
+            long delta = value - prev;
+            writeVarLong(out, zigZag(delta - prevDelta));
+            prevDelta = delta;
+            prev = value;
+        }
+    }
+
+    private static void decodeDeltaOfDelta(ByteBuf in, int count, ByteBuf out) {
+        if (count == 0) {
+            return;
+        }
+        long prev = in.readLongLE();
+        out.writeLongLE(prev);
+        long prevDelta = 0;
+        for (int i = 1; i < count; i++) {
+            long delta = prevDelta + unZigZag(readVarLong(in));
+            prev += delta;
+            out.writeLongLE(prev);
+            prevDelta = delta;
+        }
+    }
+
+    // control byte of leading and trailing zero bytes, then the bytes in between
+    private static void encodeXor(ByteBuf src, int index, int length, int width, ByteBuf out) {
+        long prev = 0;
+        for (int p = index; p < index + length; p += width) {
+            long bits = width == 8 ? src.getLongLE(p) : src.getIntLE(p) & 0xFFFFFFFFL;
+            long x = bits ^ prev;
+            prev = bits;
+            if (x == 0) {
+                out.writeByte(width << 4);
+                continue;
+            }
+            int leading = (Long.numberOfLeadingZeros(x) >> 3) - (8 - width);
+            int trailing = Long.numberOfTrailingZeros(x) >> 3;
+            out.writeByte(leading << 4 | trailing);
+            x >>>= trailing * 8;
+            for (int i = width - leading - trailing; i > 0; i--) {
+                out.writeByte((int) x);
+                x >>>= 8;
+            }
+        }
+    }
+
+    private static void decodeXor(ByteBuf in, int count, int width, ByteBuf out) {
+        long prev = 0;
+        for (int i = 0; i < count; i++) {
+            int control = in.readUnsignedByte();
+            int leading = control >> 4;
+            int trailing = control & 0xF;
+            int n = width - leading - trailing;
+            if (n < 0) {
+                throw new DecompressionException("invalid xor control byte: " + control);
+            }
+            long x = 0;
+            for (int b = 0; b < n; b++) {
+                x |= (long) in.readUnsignedByte() << (b * 8);
+            }
+            prev ^= x << (trailing * 8);
+            if (width == 8) {
+                out.writeLongLE(prev);
+            } else {
+                out.writeIntLE((int) prev);
+            }
+        }
+    }
+
+    // chunks of encoded length and snappy data
+    private static void encodeSnappy(ByteBuf src, int index, int length, ByteBuf out) {
+        Snappy snappy = new Snappy();
+        for (int p = index; p < index + length; p += SNAPPY_CHUNK) {
+            int chunk = Math.min(SNAPPY_CHUNK, index + length - p);
+            int pLength = out.writerIndex();
+            out.writeIntLE(0);
+            snappy.encode(src.slice(p, chunk), out, chunk);
+            out.setIntLE(pLength, out.writerIndex() - pLength - 4);
+            snappy.reset();
+        }
+    }
+
+    private static void decodeSnappy(ByteBuf in, ByteBuf out) {
+        Snappy snappy = new Snappy();
+        while (in.isReadable()) {
+            int chunk = in.readIntLE();
+            snappy.decode(in.readSlice(chunk), out);
+            snappy.reset();
+        }
+    }
+
+    private static long zigZag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unZigZag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static void writeVarLong(ByteBuf out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+
+    private static long readVarLong(ByteBuf in) {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.readByte();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return v;
+            }
+        }
+        throw new DecompressionException("malformed varint");
+    }
+}
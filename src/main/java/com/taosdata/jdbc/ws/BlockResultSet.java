@@ -40,17 +40,45 @@ public class BlockResultSet extends AbstractWSResultSet {
 
 
     public Object parseValue(int columnIndex) throws SQLException {
-        Object source = result.get(columnIndex - 1).get(rowIndex);
-        if (null == source)
+        int col = columnIndex - 1;
+        if (blockData.isNull(col, rowIndex))
             return null;
 
-        int type = fields.get(columnIndex - 1).getTaosType();
-        return DataTypeConverUtil.parseValue(type, source, this.varcharAsString);
+        int type = fields.get(col).getTaosType();
+        if (type == TSDB_DATA_TYPE_NCHAR)
+            return blockData.getNString(col, rowIndex);
+        if (type == TSDB_DATA_TYPE_BINARY && this.varcharAsString)
+            return blockData.getVarString(col, rowIndex);
+        return DataTypeConverUtil.parseValue(type, blockData.getObject(col, rowIndex), this.varcharAsString);
+    }
+
+    /**
+     * check the null bitmap of the current cell and update wasNull
+     */
+    private boolean isNullCell(int columnIndex) throws SQLException {
+        checkAvailability(columnIndex, fields.size());
+        wasNull = blockData.isNull(columnIndex - 1, rowIndex);
+        return wasNull;
     }
 
     @Override
     public String getString(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, fields.size());
+        if (isNullCell(columnIndex)) {
+            return null;
+        }
+        int col = columnIndex - 1;
+        switch (fields.get(col).getTaosType()) {
+            case TSDB_DATA_TYPE_NCHAR:
+                return blockData.getNString(col, rowIndex);
+            case TSDB_DATA_TYPE_BINARY:
+            case TSDB_DATA_TYPE_JSON:
+            case TSDB_DATA_TYPE_VARBINARY:
+            case TSDB_DATA_TYPE_GEOMETRY:
+                // for websocket, only support utf8
+                return blockData.getVarString(col, rowIndex);
+            default:
+                break;
+        }
 
         Object value = parseValue(columnIndex);
         if (value == null) {
@@ -77,7 +105,12 @@ public class BlockResultSet extends AbstractWSResultSet {
 
     @Override
     public boolean getBoolean(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, fields.size());
+        if (isNullCell(columnIndex)) {
+            return false;
+        }
+        if (fields.get(columnIndex - 1).getTaosType() == TSDB_DATA_TYPE_BOOL) {
+            return blockData.getByte(columnIndex - 1, rowIndex) != 0;
+        }
 
         Object value = parseValue(columnIndex);
         if (value == null) {
@@ -94,7 +127,18 @@ public class BlockResultSet extends AbstractWSResultSet {
 
     @Override
     public byte getByte(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, fields.size());
+        if (isNullCell(columnIndex)) {
+            return 0;
+        }
+        int col = columnIndex - 1;
+        switch (fields.get(col).getTaosType()) {
+            case TSDB_DATA_TYPE_BOOL:
+                return blockData.getByte(col, rowIndex) == 0 ? (byte) 0 : (byte) 1;
+            case TSDB_DATA_TYPE_TINYINT:
+                return blockData.getByte(col, rowIndex);
+            default:
+                break;
+        }
 
         Object value = parseValue(columnIndex);
         if (value == null) {
@@ -113,7 +157,22 @@ public class BlockResultSet extends AbstractWSResultSet {
 
     @Override
     public short getShort(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, fields.size());
+        if (isNullCell(columnIndex)) {
+            return 0;
+        }
+        int col = columnIndex - 1;
+        switch (fields.get(col).getTaosType()) {
+            case TSDB_DATA_TYPE_BOOL:
+                return blockData.getByte(col, rowIndex) == 0 ? (short) 0 : (short) 1;
+            case TSDB_DATA_TYPE_TINYINT:
+                return blockData.getByte(col, rowIndex);
+            case TSDB_DATA_TYPE_UTINYINT:
+                return parseUTinyInt(blockData.getByte(col, rowIndex));
+            case TSDB_DATA_TYPE_SMALLINT:
+                return blockData.getShort(col, rowIndex);
+            default:
+                break;
+        }
 
         Object value = parseValue(columnIndex);
         if (value == null) {
@@ -131,7 +190,26 @@ public class BlockResultSet extends AbstractWSResultSet {
 
     @Override
     public int getInt(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, fields.size());
+        if (isNullCell(columnIndex)) {
+            return 0;
+        }
+        int col = columnIndex - 1;
+        switch (fields.get(col).getTaosType()) {
+            case TSDB_DATA_TYPE_BOOL:
+                return blockData.getByte(col, rowIndex) == 0 ? 0 : 1;
+            case TSDB_DATA_TYPE_TINYINT:
+                return blockData.getByte(col, rowIndex);
+            case TSDB_DATA_TYPE_UTINYINT:
+                return parseUTinyInt(blockData.getByte(col, rowIndex));
+            case TSDB_DATA_TYPE_SMALLINT:
+                return blockData.getShort(col, rowIndex);
+            case TSDB_DATA_TYPE_USMALLINT:
+                return parseUSmallInt(blockData.getShort(col, rowIndex));
+            case TSDB_DATA_TYPE_INT:
+                return blockData.getInt(col, rowIndex);
+            default:
+                break;
+        }
 
         Object value = parseValue(columnIndex);
         if (value == null) {
@@ -148,7 +226,31 @@ public class BlockResultSet extends AbstractWSResultSet {
 
     @Override
     public long getLong(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, fields.size());
+        if (isNullCell(columnIndex)) {
+            return 0;
+        }
+        int col = columnIndex - 1;
+        switch (fields.get(col).getTaosType()) {
+            case TSDB_DATA_TYPE_BOOL:
+                return blockData.getByte(col, rowIndex) == 0 ? 0 : 1;
+            case TSDB_DATA_TYPE_TINYINT:
+                return blockData.getByte(col, rowIndex);
+            case TSDB_DATA_TYPE_UTINYINT:
+                return parseUTinyInt(blockData.getByte(col, rowIndex));
+            case TSDB_DATA_TYPE_SMALLINT:
+                return blockData.getShort(col, rowIndex);
+            case TSDB_DATA_TYPE_USMALLINT:
+                return parseUSmallInt(blockData.getShort(col, rowIndex));
+            case TSDB_DATA_TYPE_INT:
+                return blockData.getInt(col, rowIndex);
+            case TSDB_DATA_TYPE_UINT:
+                return parseUInteger(blockData.getInt(col, rowIndex));
+            case TSDB_DATA_TYPE_BIGINT:
+            case TSDB_DATA_TYPE_TIMESTAMP:
+                return blockData.getLong(col, rowIndex);
+            default:
+                break;
+        }
 
         Object value = parseValue(columnIndex);
         if (value == null) {
@@ -164,7 +266,26 @@ public class BlockResultSet extends AbstractWSResultSet {
 
     @Override
     public float getFloat(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, fields.size());
+        if (isNullCell(columnIndex)) {
+            return 0;
+        }
+        int col = columnIndex - 1;
+        switch (fields.get(col).getTaosType()) {
+            case TSDB_DATA_TYPE_FLOAT:
+                return blockData.getFloat(col, rowIndex);
+            case TSDB_DATA_TYPE_DOUBLE:
+                return (float) blockData.getDouble(col, rowIndex);
+            case TSDB_DATA_TYPE_TINYINT:
+                return blockData.getByte(col, rowIndex);
+            case TSDB_DATA_TYPE_SMALLINT:
+                return blockData.getShort(col, rowIndex);
+            case TSDB_DATA_TYPE_INT:
+                return blockData.getInt(col, rowIndex);
+            case TSDB_DATA_TYPE_BIGINT:
+                return blockData.getLong(col, rowIndex);
+            default:
+                break;
+        }
 
         Object value = parseValue(columnIndex);
         if (value == null) {
@@ -181,7 +302,33 @@ public class BlockResultSet extends AbstractWSResultSet {
 
     @Override
     public double getDouble(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, fields.size());
+        if (isNullCell(columnIndex)) {
+            return 0;
+        }
+        int col = columnIndex - 1;
+        switch (fields.get(col).getTaosType()) {
+            case TSDB_DATA_TYPE_DOUBLE:
+                return blockData.getDouble(col, rowIndex);
+            case TSDB_DATA_TYPE_FLOAT:
+                return blockData.getFloat(col, rowIndex);
+            case TSDB_DATA_TYPE_TINYINT:
+                return blockData.getByte(col, rowIndex);
+            case TSDB_DATA_TYPE_UTINYINT:
+                return parseUTinyInt(blockData.getByte(col, rowIndex));
+            case TSDB_DATA_TYPE_SMALLINT:
+                return blockData.getShort(col, rowIndex);
+            case TSDB_DATA_TYPE_USMALLINT:
+                return parseUSmallInt(blockData.getShort(col, rowIndex));
+            case TSDB_DATA_TYPE_INT:
+                return blockData.getInt(col, rowIndex);
+            case TSDB_DATA_TYPE_UINT:
+                return parseUInteger(blockData.getInt(col, rowIndex));
+            case TSDB_DATA_TYPE_BIGINT:
+            case TSDB_DATA_TYPE_TIMESTAMP:
+                return blockData.getLong(col, rowIndex);
+            default:
+                break;
+        }
 
         Object value = parseValue(columnIndex);
         if (value == null) {
@@ -234,7 +381,13 @@ public class BlockResultSet extends AbstractWSResultSet {
 
     @Override
     public Timestamp getTimestamp(int columnIndex) throws SQLException {
-        checkAvailability(columnIndex, fields.size());
+        if (isNullCell(columnIndex)) {
+            return null;
+        }
+        if (fields.get(columnIndex - 1).getTaosType() == TSDB_DATA_TYPE_TIMESTAMP) {
+            long raw = blockData.getLong(columnIndex - 1, rowIndex);
+            return DateTimeUtils.getTimestamp(DateTimeUtils.parseTimestampColumnData(raw, this.timestampPrecision), zoneId);
+        }
 
         Object value = parseValue(columnIndex);
         if (value == null) {
@@ -0,0 +1,424 @@
+package com.taosdata.jdbc.ws;
+
+import com.taosdata.jdbc.TSDBError;
+import com.taosdata.jdbc.TSDBErrorNumbers;
+import com.taosdata.jdbc.common.DataLengthCfg;
+import com.taosdata.jdbc.common.Stmt2BindEncoder;
+import com.taosdata.jdbc.enums.FieldBindType;
+import com.taosdata.jdbc.ws.stmt2.entity.Field;
+import io.netty.buffer.ByteBuf;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+/**
+ * rows of an efficient writing statement, kept column by column in primitive arrays.
+ * <p>
+ * bool, integer and timestamp values are kept as long, float and double values as double, and the bytes of
+ * var-length values, table name included, are appended to one arena. a chunk is filled by the statement thread,
+ * handed over to a writer thread, and cleared for reuse once it is written, so adding a row allocates nothing
+ * unless the arena has to grow.
+ */
+final class EWRowChunk {
+    static final int KIND_UNSUPPORTED = -1;
+    static final int KIND_LONG = 0;
+    static final int KIND_DOUBLE = 1;
+    static final int KIND_VAR = 2;
+
+    private static final int ARENA_INIT_BYTES_PER_ROW = 32;
+
+    private final int capacity;
+    private final int fieldCount;
+    private final int tableNameIndex;
+    private final int[] kinds;
+    private final int[] types;
+    private final byte[] bindTypes;
+    // max bytes of each var-length column, null if not checked
+    private final int[] maxLengths;
+
+    private final long[][] longs;
+    private final double[][] doubles;
+    private final int[][] offsets;
+    private final int[][] lengths;
+    private final long[][] nulls;
+    private byte[] arena;
+    private int arenaSize;
+    private int rows;
+
+    // rows of one table are linked in bind order, rebuilt by encode
+    private final int[] nextRow;
+    private final int[] tableFirstRow;
+    private final int[] tableLastRow;
+    private final int[] tableRowCount;
+    private final int[] tableSlots;
+
+    EWRowChunk(List<Field> fields, int capacity, boolean strictCheck) {
+        this.capacity = capacity;
+        this.fieldCount = fields.size();
+        this.kinds = new int[fieldCount];
+        this.types = new int[fieldCount];
+        this.bindTypes = new byte[fieldCount];
+        this.maxLengths = strictCheck ? new int[fieldCount] : null;
+        this.longs = new long[fieldCount][];
+        this.doubles = new double[fieldCount][];
+        this.offsets = new int[fieldCount][];
+        this.lengths = new int[fieldCount][];
+        this.nulls = new long[fieldCount][];
+
+        int tbname = -1;
+        for (int i = 0; i < fieldCount; i++) {
+            Field field = fields.get(i);
+            bindTypes[i] = field.getBindType();
+            types[i] = field.getFieldType();
+            kinds[i] = kindOf(field);
+            if (field.getBindType() == FieldBindType.TAOS_FIELD_TBNAME.getValue()) {
+                tbname = i;
+            }
+            if (maxLengths != null) {
+                maxLengths[i] = kinds[i] == KIND_VAR && i != tbname ? field.getBytes() : Integer.MAX_VALUE;
+            }
+
+            switch (kinds[i]) {
+                case KIND_LONG:
+                    longs[i] = new long[capacity];
+                    break;
+                case KIND_DOUBLE:
+                    doubles[i] = new double[capacity];
+                    break;
+                case KIND_VAR:
+                    offsets[i] = new int[capacity];
+                    lengths[i] = new int[capacity];
+                    break;
+                default:
+                    break;
+            }
+            nulls[i] = new long[(capacity + 63) >>> 6];
+        }
+        this.tableNameIndex = tbname;
+        this.arena = new byte[capacity * ARENA_INIT_BYTES_PER_ROW];
+
+        this.nextRow = new int[capacity];
+        this.tableFirstRow = new int[capacity];
+        this.tableLastRow = new int[capacity];
+        this.tableRowCount = new int[capacity];
+        this.tableSlots = new int[Integer.highestOneBit(Math.max(capacity, 1)) << 2];
+    }
+
+    /**
+     * how a value bound to the field is kept.
+     */
+    static int kindOf(Field field) {
+        if (field.getBindType() == FieldBindType.TAOS_FIELD_TBNAME.getValue()) {
+            return KIND_VAR;
+        }
+        switch (field.getFieldType()) {
+            case TSDB_DATA_TYPE_BOOL:
+            case TSDB_DATA_TYPE_TINYINT:
+            case TSDB_DATA_TYPE_SMALLINT:
+            case TSDB_DATA_TYPE_INT:
+            case TSDB_DATA_TYPE_BIGINT:
+            case TSDB_DATA_TYPE_UTINYINT:
+            case TSDB_DATA_TYPE_USMALLINT:
+            case TSDB_DATA_TYPE_UINT:
+            case TSDB_DATA_TYPE_UBIGINT:
+            case TSDB_DATA_TYPE_TIMESTAMP:
+                return KIND_LONG;
+            case TSDB_DATA_TYPE_FLOAT:
+            case TSDB_DATA_TYPE_DOUBLE:
+                return KIND_DOUBLE;
+            case TSDB_DATA_TYPE_BINARY:
+            case TSDB_DATA_TYPE_NCHAR:
+            case TSDB_DATA_TYPE_JSON:
+            case TSDB_DATA_TYPE_VARBINARY:
+            case TSDB_DATA_TYPE_BLOB:
+            case TSDB_DATA_TYPE_GEOMETRY:
+                return KIND_VAR;
+            default:
+                return KIND_UNSUPPORTED;
+        }
+    }
+
+    int size() {
+        return rows;
+    }
+
+    boolean isEmpty() {
+        return rows == 0;
+    }
+
+    boolean isFull() {
+        return rows == capacity;
+    }
+
+    void clear() {
+        rows = 0;
+        arenaSize = 0;
+    }
+
+    /**
+     * copy one bound row into the chunk. a var-length value is a byte[] or a String, strings are written as utf-8.
+     */
+    void append(long[] rowLongs, double[] rowDoubles, Object[] rowVars, boolean[] rowNulls) throws SQLException {
+        int row = rows;
+        int arenaStart = arenaSize;
+        int word = row >>> 6;
+        long bit = 1L << (row & 63);
+        for (int i = 0; i < fieldCount; i++) {
+            if (rowNulls[i]) {
+                nulls[i][word] |= bit;
+                switch (kinds[i]) {
+                    case KIND_LONG:
+                        longs[i][row] = 0;
+                        break;
+                    case KIND_DOUBLE:
+                        doubles[i][row] = 0;
+                        break;
+                    case KIND_VAR:
+                        offsets[i][row] = arenaSize;
+                        lengths[i][row] = 0;
+                        break;
+                    default:
+                        break;
+                }
+                continue;
+            }
+
+            nulls[i][word] &= ~bit;
+            switch (kinds[i]) {
+                case KIND_LONG:
+                    longs[i][row] = rowLongs[i];
+                    break;
+                case KIND_DOUBLE:
+                    doubles[i][row] = rowDoubles[i];
+                    break;
+                case KIND_VAR: {
+                    int start = arenaSize;
+                    Object v = rowVars[i];
+                    if (v instanceof byte[]) {
+                        byte[] bytes = (byte[]) v;
+                        ensureArena(bytes.length);
+                        System.arraycopy(bytes, 0, arena, start, bytes.length);
+                        arenaSize += bytes.length;
+                    } else {
+                        String s = (String) v;
+                        // a char takes at most 3 bytes, a surrogate pair 4 bytes for 2 chars
+                        ensureArena(s.length() * 3);
+                        arenaSize = writeUtf8(s, arena, start);
+                    }
+                    int len = arenaSize - start;
+                    if (maxLengths != null && len > maxLengths[i]) {
+                        arenaSize = arenaStart;
+                        throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "data length is too long, column index " + i);
+                    }
+                    offsets[i][row] = start;
+                    lengths[i][row] = len;
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+        rows++;
+    }
+
+    private void ensureArena(int extra) {
+        int required = arenaSize + extra;
+        if (required > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(required, arena.length << 1));
+        }
+    }
+
+    private static int writeUtf8(String s, byte[] dst, int pos) {
+        for (int i = 0, n = s.length(); i < n; i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                dst[pos++] = (byte) c;
+            } else if (c < 0x800) {
+                dst[pos++] = (byte) (0xc0 | (c >> 6));
+                dst[pos++] = (byte) (0x80 | (c & 0x3f));
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < n && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    int cp = Character.toCodePoint(c, s.charAt(++i));
+                    dst[pos++] = (byte) (0xf0 | (cp >> 18));
+                    dst[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+                    dst[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+                    dst[pos++] = (byte) (0x80 | (cp & 0x3f));
+                } else {
+                    // same as String.getBytes, an unpaired surrogate is replaced
+                    dst[pos++] = '?';
+                }
+            } else {
+                dst[pos++] = (byte) (0xe0 | (c >> 12));
+                dst[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+                dst[pos++] = (byte) (0x80 | (c & 0x3f));
+            }
+        }
+        return pos;
+    }
+
+    private boolean isNull(int field, int row) {
+        return (nulls[field][row >>> 6] & (1L << (row & 63))) != 0;
+    }
+
+    private int tableNameHash(int row) {
+        int off = offsets[tableNameIndex][row];
+        int end = off + lengths[tableNameIndex][row];
+        int h = 0;
+        for (int i = off; i < end; i++) {
+            h = 31 * h + arena[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private boolean sameTableName(int row1, int row2) {
+        int len = lengths[tableNameIndex][row1];
+        if (len != lengths[tableNameIndex][row2]) {
+            return false;
+        }
+        int off1 = offsets[tableNameIndex][row1];
+        int off2 = offsets[tableNameIndex][row2];
+        for (int i = 0; i < len; i++) {
+            if (arena[off1 + i] != arena[off2 + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * link the rows of each table, tables keep the order they are first seen in.
+     *
+     * @return table count
+     */
+    private int groupByTable() {
+        if (tableNameIndex < 0) {
+            for (int r = 0; r < rows; r++) {
+                nextRow[r] = r + 1 < rows ? r + 1 : -1;
+            }
+            tableFirstRow[0] = 0;
+            tableRowCount[0] = rows;
+            return rows > 0 ? 1 : 0;
+        }
+
+        Arrays.fill(tableSlots, 0);
+        int mask = tableSlots.length - 1;
+        int tableCount = 0;
+        for (int r = 0; r < rows; r++) {
+            nextRow[r] = -1;
+            int slot = tableNameHash(r) & mask;
+            int table = -1;
+            while (tableSlots[slot] != 0) {
+                int t = tableSlots[slot] - 1;
+                if (sameTableName(tableFirstRow[t], r)) {
+                    table = t;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (table < 0) {
+                table = tableCount++;
+                tableSlots[slot] = table + 1;
+                tableFirstRow[table] = r;
+                tableRowCount[table] = 1;
+            } else {
+                nextRow[tableLastRow[table]] = r;
+                tableRowCount[table]++;
+            }
+            tableLastRow[table] = r;
+        }
+        return tableCount;
+    }
+
+    /**
+     * write the rows to the encoder table by table, the tags of a table are taken from its first row.
+     */
+    void encode(Stmt2BindEncoder encoder) throws SQLException {
+        int tableCount = groupByTable();
+        for (int t = 0; t < tableCount; t++) {
+            int first = tableFirstRow[t];
+            if (tableNameIndex >= 0) {
+                if (isNull(tableNameIndex, first)) {
+                    throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "table name is null");
+                }
+                encoder.addTableName(arena, offsets[tableNameIndex][first], lengths[tableNameIndex][first]);
+            }
+            for (int i = 0; i < fieldCount; i++) {
+                if (bindTypes[i] == FieldBindType.TAOS_FIELD_TAG.getValue()) {
+                    writeColumn(encoder.tags(), i, first, 1);
+                } else if (bindTypes[i] == FieldBindType.TAOS_FIELD_COL.getValue()) {
+                    writeColumn(encoder.cols(), i, first, tableRowCount[t]);
+                }
+            }
+            encoder.endTable();
+        }
+    }
+
+    private void writeColumn(ByteBuf buf, int field, int first, int num) throws SQLException {
+        int type = types[field];
+        int start = buf.writerIndex();
+        // TotalLength, patched when the column is written
+        buf.writeIntLE(0);
+        buf.writeIntLE(type);
+        buf.writeIntLE(num);
+        // IsNull
+        for (int r = first, n = 0; n < num; r = nextRow[r], n++) {
+            buf.writeByte(isNull(field, r) ? 1 : 0);
+        }
+
+        if (kinds[field] == KIND_VAR) {
+            // haveLength
+            buf.writeByte(1);
+            int[] len = lengths[field];
+            int[] off = offsets[field];
+            int total = 0;
+            for (int r = first, n = 0; n < num; r = nextRow[r], n++) {
+                buf.writeIntLE(len[r]);
+                total += len[r];
+            }
+            // BufferLength
+            buf.writeIntLE(total);
+            for (int r = first, n = 0; n < num; r = nextRow[r], n++) {
+                buf.writeBytes(arena, off[r], len[r]);
+            }
+        } else {
+            buf.writeByte(0);
+            Integer size = DataLengthCfg.getDataLength(type);
+            if (size == null) {
+                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "unsupported data type : " + type);
+            }
+            buf.writeIntLE(num * size);
+            if (kinds[field] == KIND_DOUBLE) {
+                double[] values = doubles[field];
+                for (int r = first, n = 0; n < num; r = nextRow[r], n++) {
+                    if (type == TSDB_DATA_TYPE_FLOAT) {
+                        buf.writeFloatLE((float) values[r]);
+                    } else {
+                        buf.writeDoubleLE(values[r]);
+                    }
+                }
+            } else {
+                long[] values = longs[field];
+                for (int r = first, n = 0; n < num; r = nextRow[r], n++) {
+                    switch (size) {
+                        case Byte.BYTES:
+                            buf.writeByte((int) values[r]);
+                            break;
+                        case Short.BYTES:
+                            buf.writeShortLE((int) values[r]);
+                            break;
+                        case Integer.BYTES:
+                            buf.writeIntLE((int) values[r]);
+                            break;
+                        default:
+                            buf.writeLongLE(values[r]);
+                            break;
+                    }
+                }
+            }
+        }
+        buf.setIntLE(start, buf.writerIndex() - start);
+    }
+}
@@ -0,0 +1,74 @@
+package com.taosdata.jdbc.ws;
+
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * driver wide scheduler of websocket result set read-ahead.
+ * a fetch is sent from a small shared pool and completed by the response dispatch, so an open result set costs no thread.
+ * fetches are sent in submit order and a result set submits its next fetch only after the previous one completes,
+ * so all result sets reading ahead take turns.
+ */
+public class FetchScheduler {
+    private static final int THREADS = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    private static final ThreadPoolExecutor executor;
+    private static final AtomicInteger activeFetches = new AtomicInteger();
+    private static final LongAdder completedFetches = new LongAdder();
+
+    static {
+        executor = new ThreadPoolExecutor(THREADS, THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new DefaultThreadFactory("taos-fetch-scheduler", true));
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    private FetchScheduler() {
+    }
+
+    /**
+     * send a fetch from the shared pool, onDone is called with the response when it arrives.
+     */
+    static <T> void submit(Supplier<CompletableFuture<T>> fetch, BiConsumer<? super T, ? super Throwable> onDone) {
+        executor.execute(() -> {
+            activeFetches.incrementAndGet();
+            CompletableFuture<T> future;
+            try {
+                future = fetch.get();
+            } catch (RuntimeException e) {
+                future = new CompletableFuture<>();
+                future.completeExceptionally(e);
+            }
+            future.whenComplete((response, e) -> {
+                activeFetches.decrementAndGet();
+                completedFetches.increment();
+                onDone.accept(response, e);
+            });
+        });
+    }
+
+    /**
+     * @return fetches waiting for a scheduler thread
+     */
+    public static int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return fetches sent and not yet answered
+     */
+    public static int getActiveFetchCount() {
+        return activeFetches.get();
+    }
+
+    public static long getCompletedFetchCount() {
+        return completedFetches.sum();
+    }
+}
@@ -1,6 +1,7 @@
 package com.taosdata.jdbc.ws;
 
 import com.taosdata.jdbc.ws.entity.Response;
+import io.netty.util.Timeout;
 
 import java.util.concurrent.CompletableFuture;
 
@@ -9,6 +10,8 @@ public class FutureResponse implements Comparable<FutureResponse> {
     private final Long id;
     private final CompletableFuture<Response> future;
     private final long timestamp;
+    private volatile Timeout timeout;
+    private volatile boolean removed;
 
     public FutureResponse(String action, Long id, CompletableFuture<Response> future) {
         this.action = action;
@@ -33,6 +36,24 @@ public class FutureResponse implements Comparable<FutureResponse> {
         return timestamp;
     }
 
+    void setTimeout(Timeout timeout) {
+        this.timeout = timeout;
+        if (removed) {
+            timeout.cancel();
+        }
+    }
+
+    /**
+     * called once the request is removed from the in flight requests
+     */
+    void onRemoved() {
+        removed = true;
+        Timeout t = timeout;
+        if (t != null) {
+            t.cancel();
+        }
+    }
+
     @Override
     public int compareTo(FutureResponse fr) {
         long r = this.timestamp - fr.timestamp;
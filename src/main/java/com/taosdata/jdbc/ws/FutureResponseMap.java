@@ -0,0 +1,222 @@
+package com.taosdata.jdbc.ws;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * in flight requests of one action keyed by request id.
+ * <p>
+ * the map is split into stripes with their own lock, each stripe is an open addressed table with linear probing,
+ * so neither lookups box the id nor puts allocate entries.
+ */
+final class FutureResponseMap {
+    private static final int STRIPES = 16;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final AtomicInteger size = new AtomicInteger();
+
+    FutureResponseMap() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    static long mix(long id) {
+        // murmur3 finalizer, request ids are often sequential
+        id ^= id >>> 33;
+        id *= 0xff51afd7ed558ccdL;
+        id ^= id >>> 33;
+        id *= 0xc4ceb9fe1a85ec53L;
+        id ^= id >>> 33;
+        return id;
+    }
+
+    private Stripe stripe(long hash) {
+        return stripes[(int) hash & (STRIPES - 1)];
+    }
+
+    /**
+     * @return the previous request with the same id
+     */
+    FutureResponse put(long id, FutureResponse value) {
+        long hash = mix(id);
+        FutureResponse previous = stripe(hash).put(id, (int) (hash >>> 32), value);
+        if (previous == null) {
+            size.incrementAndGet();
+        }
+        return previous;
+    }
+
+    FutureResponse remove(long id) {
+        long hash = mix(id);
+        FutureResponse removed = stripe(hash).remove(id, (int) (hash >>> 32));
+        if (removed != null) {
+            size.decrementAndGet();
+        }
+        return removed;
+    }
+
+    /**
+     * remove the request only if it is still the given one, a request id may be reused once its request is done
+     */
+    boolean remove(long id, FutureResponse expected) {
+        long hash = mix(id);
+        boolean removed = stripe(hash).remove(id, (int) (hash >>> 32), expected);
+        if (removed) {
+            size.decrementAndGet();
+        }
+        return removed;
+    }
+
+    /**
+     * remove an arbitrary request, for responses that do not carry the request id
+     */
+    FutureResponse removeAny() {
+        for (Stripe stripe : stripes) {
+            FutureResponse removed = stripe.removeAny();
+            if (removed != null) {
+                size.decrementAndGet();
+                return removed;
+            }
+        }
+        return null;
+    }
+
+    int size() {
+        return size.get();
+    }
+
+    List<FutureResponse> drain() {
+        List<FutureResponse> all = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            int n = stripe.drainTo(all);
+            size.addAndGet(-n);
+        }
+        return all;
+    }
+
+    private static final class Stripe {
+        private long[] keys = new long[INITIAL_CAPACITY];
+        private FutureResponse[] values = new FutureResponse[INITIAL_CAPACITY];
+        private int count;
+
+        synchronized FutureResponse put(long id, int hash, FutureResponse value) {
+            if ((count + 1) * 2 > values.length) {
+                resize();
+            }
+            int mask = values.length - 1;
+            int i = hash & mask;
+            while (values[i] != null) {
+                if (keys[i] == id) {
+                    FutureResponse previous = values[i];
+                    values[i] = value;
+                    return previous;
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = id;
+            values[i] = value;
+            count++;
+            return null;
+        }
+
+        synchronized FutureResponse remove(long id, int hash) {
+            int mask = values.length - 1;
+            int i = hash & mask;
+            while (values[i] != null) {
+                if (keys[i] == id) {
+                    FutureResponse removed = values[i];
+                    delete(i);
+                    return removed;
+                }
+                i = (i + 1) & mask;
+            }
+            return null;
+        }
+
+        synchronized boolean remove(long id, int hash, FutureResponse expected) {
+            int mask = values.length - 1;
+            int i = hash & mask;
+            while (values[i] != null) {
+                if (keys[i] == id) {
+                    if (values[i] != expected) {
+                        return false;
+                    }
+                    delete(i);
+                    return true;
+                }
+                i = (i + 1) & mask;
+            }
+            return false;
+        }
+
+        synchronized FutureResponse removeAny() {
+            if (count == 0) {
+                return null;
+            }
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null) {
+                    FutureResponse removed = values[i];
+                    delete(i);
+                    return removed;
+                }
+            }
+            return null;
+        }
+
+        synchronized int drainTo(List<FutureResponse> list) {
+            int n = count;
+            for (int i = 0; i < values.length; i++) {
+                if (values[i] != null) {
+                    list.add(values[i]);
+                    values[i] = null;
+                }
+            }
+            count = 0;
+            return n;
+        }
+
+        /**
+         * backward shift deletion, keeps the probe sequences of the following entries intact without tombstones
+         */
+        private void delete(int i) {
+            int mask = values.length - 1;
+            int j = i;
+            while (true) {
+                j = (j + 1) & mask;
+                if (values[j] == null) {
+                    break;
+                }
+                int k = (int) (mix(keys[j]) >>> 32) & mask;
+                // move the entry at j to i if its ideal slot k is not in (i, j]
+                if ((j > i && (k <= i || k > j)) || (j < i && k <= i && k > j)) {
+                    keys[i] = keys[j];
+                    values[i] = values[j];
+                    i = j;
+                }
+            }
+            values[i] = null;
+            count--;
+        }
+
+        private void resize() {
+            long[] oldKeys = keys;
+            FutureResponse[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new FutureResponse[oldValues.length * 2];
+            int mask = values.length - 1;
+            for (int n = 0; n < oldValues.length; n++) {
+                if (oldValues[n] != null) {
+                    int i = (int) (mix(oldKeys[n]) >>> 32) & mask;
+                    while (values[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[n];
+                    values[i] = oldValues[n];
+                }
+            }
+        }
+    }
+}
@@ -1,84 +1,266 @@
 package com.taosdata.jdbc.ws;
 
+import com.taosdata.jdbc.TSDBError;
+import com.taosdata.jdbc.TSDBErrorNumbers;
+import com.taosdata.jdbc.enums.RequestWaitPolicy;
+import com.taosdata.jdbc.utils.CompletableFutureTimeout;
+import com.taosdata.jdbc.utils.TimeoutMetrics;
 import com.taosdata.jdbc.ws.entity.Action;
 import com.taosdata.jdbc.ws.schemaless.SchemalessAction;
 import com.taosdata.jdbc.ws.tmq.ConsumerAction;
+import io.netty.util.Timeout;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Unfinished execution
+ * <p>
+ * requests are kept in one slot per action, each slot is a striped map keyed by request id. request timeouts are
+ * driven by the shared timer wheel of {@link CompletableFutureTimeout} and counted in {@link TimeoutMetrics}.
+ * <p>
+ * {@link #putAsync} never blocks: a request finding no free slot waits in a queue and is admitted, in order, by the
+ * thread that frees a slot.
  */
 public class InFlightRequest {
+    private static final Map<String, Integer> SLOT_INDEX;
+
+    static {
+        Map<String, Integer> index = new HashMap<>();
+        for (Action value : Action.values()) {
+            index.putIfAbsent(value.getAction(), index.size());
+        }
+        for (ConsumerAction value : ConsumerAction.values()) {
+            index.putIfAbsent(value.getAction(), index.size());
+        }
+        for (SchemalessAction value : SchemalessAction.values()) {
+            index.putIfAbsent(value.getAction(), index.size());
+        }
+        SLOT_INDEX = Collections.unmodifiableMap(index);
+    }
+
     private final int timeout;
+    private final RequestWaitPolicy waitPolicy;
     private final Semaphore semaphore;
-    private final Map<String, ConcurrentHashMap<Long, FutureResponse>> futureMap = new HashMap<>();
+    private final FutureResponseMap[] slots = new FutureResponseMap[SLOT_INDEX.size()];
+    private final Queue<Waiter> waiting = new ConcurrentLinkedQueue<>();
+    // admissions asked for while one thread admits the waiting requests
+    private final AtomicInteger admitting = new AtomicInteger();
 
     public InFlightRequest(int timeout, int concurrentNum) {
+        this(timeout, concurrentNum, RequestWaitPolicy.WAIT);
+    }
+
+    public InFlightRequest(int timeout, int concurrentNum, RequestWaitPolicy waitPolicy) {
         this.timeout = timeout;
+        this.waitPolicy = waitPolicy == null ? RequestWaitPolicy.WAIT : waitPolicy;
         this.semaphore = new Semaphore(concurrentNum);
-        for (Action value : Action.values()) {
-            String action = value.getAction();
-            futureMap.put(action, new ConcurrentHashMap<>());
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new FutureResponseMap();
         }
-        for (ConsumerAction value : ConsumerAction.values()) {
-            String action = value.getAction();
-            futureMap.put(action, new ConcurrentHashMap<>());
+    }
+
+    private FutureResponseMap slot(String action) {
+        Integer index = SLOT_INDEX.get(action);
+        return index == null ? null : slots[index];
+    }
+
+    private void acquire() throws InterruptedException, TimeoutException {
+        if (semaphore.tryAcquire()) {
+            return;
         }
-        for (SchemalessAction value : SchemalessAction.values()) {
-            String action = value.getAction();
-            futureMap.put(action, new ConcurrentHashMap<>());
+        if (waitPolicy == RequestWaitPolicy.WAIT && semaphore.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+            return;
         }
+        throw new TimeoutException("websocket connection reached the max number of concurrent requests");
+    }
+
+    private void release() {
+        semaphore.release();
+        admitWaiting();
     }
 
     public void put(FutureResponse rf) throws InterruptedException, TimeoutException {
-        if (semaphore.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
-            futureMap.get(rf.getAction()).put(rf.getId(), rf);
-        } else {
+        FutureResponseMap slot = checkedSlot(rf);
+        acquire();
+        add(slot, rf);
+    }
+
+    private FutureResponseMap checkedSlot(FutureResponse rf) {
+        FutureResponseMap slot = slot(rf.getAction());
+        if (slot == null) {
+            throw new IllegalArgumentException("unknown websocket action: " + rf.getAction());
+        }
+        return slot;
+    }
+
+    private void add(FutureResponseMap slot, FutureResponse rf) {
+        FutureResponse previous = slot.put(rf.getId(), rf);
+        if (previous != null) {
+            // a request id reused before its response arrived, the old request can not be answered anymore
+            release();
+            previous.onRemoved();
+            previous.getFuture().completeExceptionally(TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNKNOWN,
+                    "duplicate websocket request, action: " + rf.getAction() + ", reqId: " + rf.getId()));
+        }
+    }
+
+    /**
+     * put a request which is failed with a TimeoutException if no response arrives within timeoutMs
+     */
+    public void put(FutureResponse rf, long timeoutMs, String msg) throws InterruptedException, TimeoutException {
+        put(rf);
+        startTimeout(rf, timeoutMs, msg);
+    }
+
+    /**
+     * put a request without blocking the caller. admitted runs once the request holds a slot, at once or on the
+     * thread freeing a slot later, and must not block. under the WAIT policy a request finding no free slot waits up
+     * to the message wait timeout and is then failed with a TimeoutException, under FAIL the exception is thrown.
+     */
+    public void putAsync(FutureResponse rf, long timeoutMs, String msg, Runnable admitted) throws TimeoutException {
+        FutureResponseMap slot = checkedSlot(rf);
+        if (semaphore.tryAcquire()) {
+            add(slot, rf);
+            startTimeout(rf, timeoutMs, msg);
+            admitted.run();
+            return;
+        }
+        if (waitPolicy != RequestWaitPolicy.WAIT) {
             throw new TimeoutException("websocket connection reached the max number of concurrent requests");
         }
+        Waiter waiter = new Waiter(rf, timeoutMs, msg, admitted);
+        waiter.timeout = CompletableFutureTimeout.newTimeout(t -> {
+            if (waiter.take()) {
+                waiting.remove(waiter);
+                rf.getFuture().completeExceptionally(
+                        new TimeoutException("websocket connection reached the max number of concurrent requests"));
+            }
+        }, timeout, TimeUnit.MILLISECONDS);
+        waiting.add(waiter);
+        // a slot may have been freed before the waiter was queued
+        admitWaiting();
     }
 
-    public FutureResponse remove(String action, Long id) {
-        if (action.equals("version") && (id == null || id == 0) && futureMap.get(action).size() == 1) {
-            Optional<Long> optionalLong = futureMap.get(action).keySet().stream().findFirst();
-            if (optionalLong.isPresent()) {
-                id = optionalLong.get();
-            } else {
-                return null;
+    /**
+     * hand the free slots to the waiting requests, one thread at a time so a failed send admitting the next one
+     * does not recurse
+     */
+    private void admitWaiting() {
+        if (waiting.isEmpty() || admitting.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            while (!waiting.isEmpty() && semaphore.tryAcquire()) {
+                Waiter waiter = waiting.poll();
+                // timed out, or given up by the caller while waiting
+                if (waiter == null || !waiter.take() || waiter.rf.getFuture().isDone()) {
+                    semaphore.release();
+                    continue;
+                }
+                waiter.timeout.cancel();
+                add(checkedSlot(waiter.rf), waiter.rf);
+                startTimeout(waiter.rf, waiter.timeoutMs, waiter.msg);
+                try {
+                    waiter.admitted.run();
+                } catch (RuntimeException e) {
+                    if (remove(waiter.rf.getAction(), waiter.rf.getId()) != null) {
+                        waiter.rf.getFuture().completeExceptionally(e);
+                    }
+                }
             }
-            FutureResponse future = futureMap.get(action).remove(id);
-            if (null != future) {
-                semaphore.release();
+            missed = admitting.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void startTimeout(FutureResponse rf, long timeoutMs, String msg) {
+        if (timeoutMs >= Integer.MAX_VALUE) {
+            return;
+        }
+        rf.setTimeout(CompletableFutureTimeout.newTimeout(t -> {
+            FutureResponseMap slot = slot(rf.getAction());
+            if (slot.remove(rf.getId(), rf)) {
+                release();
+                rf.onRemoved();
+                TimeoutMetrics.record(rf.getAction());
+                rf.getFuture().completeExceptionally(CompletableFutureTimeout.timeoutException(msg, timeoutMs, TimeUnit.MILLISECONDS));
             }
-            return future;
+        }, timeoutMs, TimeUnit.MILLISECONDS));
+    }
+
+    public FutureResponse remove(String action, Long id) {
+        FutureResponseMap slot = slot(action);
+        if (slot == null) {
+            return null;
+        }
+        FutureResponse future;
+        if (action.equals("version") && (id == null || id == 0) && slot.size() == 1) {
+            future = slot.removeAny();
+        } else if (id == null) {
+            return null;
+        } else {
+            future = slot.remove(id);
         }
-        FutureResponse future = futureMap.get(action).remove(id);
         if (null != future) {
-            semaphore.release();
+            release();
+            future.onRemoved();
         }
         return future;
     }
 
     public void close() {
-        futureMap.keySet().stream()
-                .flatMap(k -> {
-                    ConcurrentHashMap<Long, FutureResponse> futures = futureMap.get(k);
-                    futureMap.put(k, new ConcurrentHashMap<>());
-                    return futures.values().stream();
-                })
-                .parallel().map(FutureResponse::getFuture)
-                .forEach(e -> e.completeExceptionally(new Exception("close all inFlightRequest")));
+        Waiter waiter;
+        while ((waiter = waiting.poll()) != null) {
+            if (waiter.take()) {
+                waiter.timeout.cancel();
+                waiter.rf.getFuture().completeExceptionally(new Exception("close all inFlightRequest"));
+            }
+        }
+        for (FutureResponseMap slot : slots) {
+            for (FutureResponse future : slot.drain()) {
+                semaphore.release();
+                future.onRemoved();
+                future.getFuture().completeExceptionally(new Exception("close all inFlightRequest"));
+            }
+        }
     }
 
     public boolean hasInFlightRequest() {
-        return futureMap.keySet().stream()
-                .filter(k -> !futureMap.get(k).isEmpty()).findAny().orElse(null) != null;
+        for (FutureResponseMap slot : slots) {
+            if (slot.size() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class Waiter {
+        private final FutureResponse rf;
+        private final long timeoutMs;
+        private final String msg;
+        private final Runnable admitted;
+        // admitted, timed out or closed, whichever comes first
+        private final AtomicBoolean taken = new AtomicBoolean();
+        private volatile Timeout timeout;
+
+        Waiter(FutureResponse rf, long timeoutMs, String msg, Runnable admitted) {
+            this.rf = rf;
+            this.timeoutMs = timeoutMs;
+            this.msg = msg;
+            this.admitted = admitted;
+        }
+
+        boolean take() {
+            return taken.compareAndSet(false, true);
+        }
     }
 }
@@ -0,0 +1,71 @@
+package com.taosdata.jdbc.ws;
+
+import com.taosdata.jdbc.TSDBDriver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Objects;
+import java.util.Properties;
+
+/**
+ * logical connection borrowed from {@link TaosWSDataSource}, close returns the transport to the pool
+ */
+class PooledWSConnection extends WSConnection {
+    private static final Logger log = LoggerFactory.getLogger(PooledWSConnection.class);
+
+    private final TaosWSDataSource dataSource;
+    private final TaosWSDataSource.PooledTransport pooled;
+    private final String initialDatabase;
+
+    PooledWSConnection(String url, Properties properties, WSConnection physical,
+                       TaosWSDataSource dataSource, TaosWSDataSource.PooledTransport pooled) {
+        super(url, properties, physical);
+        this.dataSource = dataSource;
+        this.pooled = pooled;
+        this.initialDatabase = physical.getParam().getDatabase();
+    }
+
+    @Override
+    public synchronized void close() throws SQLException {
+        if (isClosed) {
+            return;
+        }
+        boolean discard = false;
+        try {
+            closeStatements();
+            discard = !restoreDatabase();
+        } catch (SQLException e) {
+            log.debug("reset pooled websocket connection failed", e);
+            discard = true;
+        } finally {
+            isClosed = true;
+            dataSource.release(pooled, discard);
+        }
+    }
+
+    /**
+     * switch the session back to the database of the pool if "use db" was executed on this connection
+     *
+     * @return false if the session can not be restored and must not be reused
+     */
+    private boolean restoreDatabase() throws SQLException {
+        String current = clientInfoProps.getProperty(TSDBDriver.PROPERTY_KEY_DBNAME);
+        if (current == null || Objects.equals(current, initialDatabase)) {
+            return true;
+        }
+        if (initialDatabase == null || getTransport().isClosed()) {
+            return false;
+        }
+        try (Statement statement = new WSStatement(getTransport(), initialDatabase, this, idGenerator.getAndIncrement(), getParam().getZoneId())) {
+            statement.execute("use " + initialDatabase);
+        }
+        return true;
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return isClosed || super.isClosed();
+    }
+}
@@ -0,0 +1,133 @@
+package com.taosdata.jdbc.ws;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * read-ahead window of a websocket result set.
+ * the depth is the number of blocks needed to cover one block fetch at the rate the consumer reads blocks, plus one,
+ * bounded by maxDepth and by the memory budget shared by all result sets of a connection.
+ * a result set may always hold one block, so a busy connection slows a scan down but never stalls it.
+ */
+class PrefetchWindow {
+    // weight of a new sample in the moving averages
+    private static final double ALPHA = 0.25;
+
+    private final int maxDepth;
+    private final Budget budget;
+
+    // moving averages, 0 until the first sample
+    private double fetchNanos;
+    private double consumeNanos;
+    private double blockBytes;
+
+    // nanoTime the consumer started on its current block, 0 if not on a block
+    private long consumeStart;
+    // raw bytes of the blocks fetched and not taken yet, in fetch order
+    private final ArrayDeque<Integer> queued = new ArrayDeque<>();
+
+    PrefetchWindow(int maxDepth, Budget budget) {
+        this.maxDepth = Math.max(1, maxDepth);
+        this.budget = budget;
+    }
+
+    private static double average(double current, double sample) {
+        return current == 0 ? sample : current + ALPHA * (sample - current);
+    }
+
+    synchronized int depth() {
+        if (fetchNanos == 0 || consumeNanos == 0) {
+            return 1;
+        }
+        double depth = Math.ceil(fetchNanos / consumeNanos) + 1;
+        return depth >= maxDepth ? maxDepth : (int) depth;
+    }
+
+    synchronized boolean canFetch() {
+        if (queued.isEmpty()) {
+            return true;
+        }
+        return queued.size() < depth() && budget.available() >= blockBytes;
+    }
+
+    /**
+     * a block fetched by the read-ahead thread, it holds bytes of the budget until taken by the consumer.
+     */
+    synchronized void onFetched(long fetchNanos, int bytes) {
+        this.fetchNanos = average(this.fetchNanos, fetchNanos);
+        this.blockBytes = average(this.blockBytes, bytes);
+        queued.add(bytes);
+        budget.reserve(bytes);
+    }
+
+    /**
+     * a block fetched by the consumer itself, before read-ahead starts.
+     */
+    synchronized void onDirectFetch(long fetchNanos, int bytes, long now) {
+        this.fetchNanos = average(this.fetchNanos, fetchNanos);
+        this.blockBytes = average(this.blockBytes, bytes);
+        consumeStart = now;
+    }
+
+    /**
+     * the consumer has read all rows of its current block.
+     */
+    synchronized void onBlockDone(long now) {
+        if (consumeStart != 0) {
+            consumeNanos = average(consumeNanos, Math.max(1, now - consumeStart));
+            consumeStart = 0;
+        }
+    }
+
+    /**
+     * the consumer took a data block off the queue.
+     */
+    synchronized void onTaken(long now) {
+        consumeStart = now;
+        Integer bytes = queued.poll();
+        if (bytes != null) {
+            budget.release(bytes);
+        }
+    }
+
+    /**
+     * give back the budget of the blocks never taken, once the read-ahead thread has stopped.
+     */
+    synchronized void release() {
+        Integer bytes;
+        while ((bytes = queued.poll()) != null) {
+            budget.release(bytes);
+        }
+    }
+
+    /**
+     * bytes of fetched and not yet read blocks of all result sets on one connection.
+     */
+    static class Budget {
+        private final long limit;
+        private final AtomicLong used = new AtomicLong();
+
+        /**
+         * @param limit max bytes, 0 means no limit
+         */
+        Budget(long limit) {
+            this.limit = limit <= 0 ? Long.MAX_VALUE : limit;
+        }
+
+        long available() {
+            return limit - used.get();
+        }
+
+        long used() {
+            return used.get();
+        }
+
+        void reserve(long bytes) {
+            used.addAndGet(bytes);
+        }
+
+        void release(long bytes) {
+            used.addAndGet(-bytes);
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.taosdata.jdbc.ws;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.JsonParserSequence;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import com.taosdata.jdbc.utils.JsonUtil;
+import com.taosdata.jdbc.ws.entity.Action;
+import com.taosdata.jdbc.ws.entity.CommonResp;
+import com.taosdata.jdbc.ws.entity.Response;
+import com.taosdata.jdbc.ws.schemaless.SchemalessAction;
+import com.taosdata.jdbc.ws.tmq.ConsumerAction;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * decodes websocket text responses in a single pass over the frame bytes.
+ * <p>
+ * the fields in front of "action" are kept as tokens, then the whole object is bound by the reader resolved
+ * for the action in advance, continuing on the same parser. no String and no JsonNode tree is built.
+ */
+public class ResponseDecoder {
+    private static final String ACTION = "action";
+
+    public static final ResponseDecoder WS;
+    public static final ResponseDecoder TMQ;
+    public static final ResponseDecoder SCHEMALESS;
+
+    static {
+        Map<String, Class<? extends Response>> ws = new HashMap<>();
+        for (Action value : Action.values()) {
+            ws.put(value.getAction(), value.getResponseClazz());
+        }
+        WS = new ResponseDecoder(ws);
+
+        Map<String, Class<? extends Response>> tmq = new HashMap<>();
+        for (ConsumerAction value : ConsumerAction.values()) {
+            tmq.put(value.getAction(), value.getResponseClazz());
+        }
+        TMQ = new ResponseDecoder(tmq);
+
+        Map<String, Class<? extends Response>> schemaless = new HashMap<>();
+        for (SchemalessAction value : SchemalessAction.values()) {
+            schemaless.put(value.getAction(), CommonResp.class);
+        }
+        SCHEMALESS = new ResponseDecoder(schemaless);
+    }
+
+    private final JsonFactory factory = JsonUtil.getObjectMapper().getFactory();
+    private final Map<String, ObjectReader> readers;
+
+    public ResponseDecoder(Map<String, Class<? extends Response>> responseClasses) {
+        Map<String, ObjectReader> map = new HashMap<>();
+        responseClasses.forEach((action, clazz) -> map.put(action, JsonUtil.getObjectReader(clazz)));
+        this.readers = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * @param content text frame content, the reader index is not moved
+     * @return the response, or null if the message has no known action
+     */
+    public Response decode(ByteBuf content) throws IOException {
+        try (JsonParser parser = createParser(content)) {
+            return decode(parser);
+        }
+    }
+
+    public Response decode(String message) throws IOException {
+        try (JsonParser parser = factory.createParser(message)) {
+            return decode(parser);
+        }
+    }
+
+    private JsonParser createParser(ByteBuf content) throws IOException {
+        if (content.hasArray()) {
+            return factory.createParser(content.array(), content.arrayOffset() + content.readerIndex(), content.readableBytes());
+        }
+        return factory.createParser((InputStream) new ByteBufInputStream(content.duplicate()));
+    }
+
+    private Response decode(JsonParser parser) throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "websocket response is not a json object");
+        }
+
+        TokenBuffer head = new TokenBuffer(parser);
+        head.writeStartObject();
+        String action = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            parser.nextToken();
+            if (ACTION.equals(name)) {
+                action = parser.getValueAsString();
+                head.writeFieldName(ACTION);
+                head.writeString(action);
+                break;
+            }
+            head.writeFieldName(name);
+            head.copyCurrentStructure(parser);
+        }
+
+        ObjectReader reader = action == null ? null : readers.get(action);
+        if (reader == null) {
+            return null;
+        }
+        JsonParser sequence = JsonParserSequence.createFlattened(false, head.asParser(parser), parser);
+        return reader.readValue(sequence);
+    }
+}
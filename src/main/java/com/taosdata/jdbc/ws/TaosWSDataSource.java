@@ -0,0 +1,462 @@
+package com.taosdata.jdbc.ws;
+
+import com.taosdata.jdbc.TSDBDriver;
+import com.taosdata.jdbc.TSDBError;
+import com.taosdata.jdbc.TSDBErrorNumbers;
+import com.taosdata.jdbc.WrapperImpl;
+import com.taosdata.jdbc.utils.ReqId;
+import com.taosdata.jdbc.utils.StringUtils;
+import com.taosdata.jdbc.ws.entity.Action;
+import com.taosdata.jdbc.ws.entity.Request;
+import com.taosdata.jdbc.ws.entity.VersionReq;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * websocket data source, keeps a bounded pool of authenticated transports and hands out logical connections on them.
+ * <p>
+ * requests of the logical connections sharing one transport are told apart by reqId. up to
+ * {@link #setMaxConnectionsPerTransport(int)} logical connections share a transport, they also share the server side
+ * session, so a "use db" issued by one of them is seen by the others. keep the default of 1 or use full qualified
+ * table names when multiplexing.
+ * <p>
+ * idle transports are validated with a version request and closed when they fail, or have been idle longer than
+ * the idle timeout while more than minIdle transports are open. the pool settings must be set before the first
+ * connection is borrowed.
+ */
+public class TaosWSDataSource extends WrapperImpl implements DataSource, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(TaosWSDataSource.class);
+
+    public static final int DEFAULT_MAX_POOL_SIZE = 10;
+    public static final long DEFAULT_CONNECTION_TIMEOUT_MS = 30_000;
+    public static final long DEFAULT_IDLE_TIMEOUT_MS = 600_000;
+    public static final long DEFAULT_VALIDATION_INTERVAL_MS = 30_000;
+    public static final long DEFAULT_VALIDATION_TIMEOUT_MS = 5_000;
+
+    private final String url;
+    private final Properties properties;
+    private final WebSocketDriver driver = new WebSocketDriver();
+
+    private int maxPoolSize = DEFAULT_MAX_POOL_SIZE;
+    private int minIdle = 0;
+    private int maxConnectionsPerTransport = 1;
+    private long connectionTimeoutMs = DEFAULT_CONNECTION_TIMEOUT_MS;
+    private long idleTimeoutMs = DEFAULT_IDLE_TIMEOUT_MS;
+    private long validationIntervalMs = DEFAULT_VALIDATION_INTERVAL_MS;
+    private long validationTimeoutMs = DEFAULT_VALIDATION_TIMEOUT_MS;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final List<PooledTransport> transports = new ArrayList<>();
+    private int pendingCreates = 0;
+    private int waitingThreads = 0;
+    private boolean closed = false;
+    private ScheduledExecutorService housekeeper;
+
+    private final AtomicLong createdTransports = new AtomicLong();
+    private final AtomicLong closedTransports = new AtomicLong();
+    private final AtomicLong failedValidations = new AtomicLong();
+    private final AtomicLong borrowTimeouts = new AtomicLong();
+
+    private PrintWriter logWriter;
+    private int loginTimeout;
+
+    /**
+     * @param url        websocket url, jdbc:TAOS-WS://host:port/db
+     * @param properties connection properties, as passed to {@link WebSocketDriver#connect(String, Properties)}
+     */
+    public TaosWSDataSource(String url, Properties properties) throws SQLException {
+        if (url == null || !driver.acceptsURL(url))
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_URL_NOT_SET, "websocket url is required, got: " + url);
+        this.url = url;
+        Properties props = new Properties();
+        if (properties != null) {
+            props.putAll(properties);
+        }
+        this.properties = StringUtils.parseUrl(url, props, false);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        PooledTransport pooled = borrow();
+        try {
+            return new PooledWSConnection(url, properties, pooled.connection, this, pooled);
+        } catch (RuntimeException e) {
+            release(pooled, true);
+            throw e;
+        }
+    }
+
+    /**
+     * a connection with other credentials is not pooled
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        Properties props = new Properties();
+        props.putAll(properties);
+        props.setProperty(TSDBDriver.PROPERTY_KEY_USER, username);
+        props.setProperty(TSDBDriver.PROPERTY_KEY_PASSWORD, password);
+        return driver.connect(url, props);
+    }
+
+    private PooledTransport borrow() throws SQLException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(connectionTimeoutMs);
+        List<PooledTransport> broken = new ArrayList<>();
+        lock.lock();
+        try {
+            startHousekeeper();
+            while (true) {
+                if (closed)
+                    throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_CONNECTION_CLOSED, "data source is closed");
+
+                PooledTransport pooled = pick(broken);
+                if (pooled != null) {
+                    pooled.leases++;
+                    return pooled;
+                }
+
+                if (transports.size() + pendingCreates < maxPoolSize) {
+                    pendingCreates++;
+                    WSConnection connection = null;
+                    lock.unlock();
+                    try {
+                        connection = (WSConnection) driver.connect(url, properties);
+                        createdTransports.incrementAndGet();
+                    } finally {
+                        lock.lock();
+                        pendingCreates--;
+                        available.signalAll();
+                    }
+                    pooled = new PooledTransport(connection);
+                    if (closed) {
+                        broken.add(pooled);
+                        continue;
+                    }
+                    transports.add(pooled);
+                    pooled.leases++;
+                    return pooled;
+                }
+
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    borrowTimeouts.incrementAndGet();
+                    throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_CONNECTION_TIMEOUT,
+                            "no websocket connection available within " + connectionTimeoutMs + " milliseconds");
+                }
+                waitingThreads++;
+                try {
+                    available.awaitNanos(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_CONNECTION_TIMEOUT, "interrupted while waiting for a connection");
+                } finally {
+                    waitingThreads--;
+                }
+            }
+        } finally {
+            lock.unlock();
+            broken.forEach(this::closeTransport);
+        }
+    }
+
+    /**
+     * pick the least leased transport with a free slot, transports found closed are removed into broken.
+     * must be called with the lock held.
+     */
+    private PooledTransport pick(List<PooledTransport> broken) {
+        PooledTransport best = null;
+        for (int i = transports.size() - 1; i >= 0; i--) {
+            PooledTransport pooled = transports.get(i);
+            if (pooled.broken || pooled.connection.getTransport().isClosed()) {
+                pooled.broken = true;
+                if (pooled.leases == 0) {
+                    transports.remove(i);
+                    broken.add(pooled);
+                }
+                continue;
+            }
+            if (pooled.leases < maxConnectionsPerTransport && (best == null || pooled.leases < best.leases)) {
+                best = pooled;
+            }
+        }
+        return best;
+    }
+
+    void release(PooledTransport pooled, boolean discard) {
+        boolean close = false;
+        lock.lock();
+        try {
+            pooled.leases--;
+            pooled.lastUsed = System.currentTimeMillis();
+            if (discard || closed || pooled.connection.getTransport().isClosed()) {
+                pooled.broken = true;
+            }
+            if (pooled.broken && pooled.leases == 0 && transports.remove(pooled)) {
+                close = true;
+            }
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (close) {
+            closeTransport(pooled);
+        }
+    }
+
+    private void startHousekeeper() {
+        if (housekeeper != null || validationIntervalMs <= 0) {
+            return;
+        }
+        housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "taos-ws-pool-housekeeper");
+            t.setDaemon(true);
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::houseKeep, validationIntervalMs, validationIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void houseKeep() {
+        List<PooledTransport> toClose = new ArrayList<>();
+        List<PooledTransport> toValidate = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        lock.lock();
+        try {
+            int open = transports.size();
+            for (int i = transports.size() - 1; i >= 0; i--) {
+                PooledTransport pooled = transports.get(i);
+                if (pooled.leases > 0) {
+                    continue;
+                }
+                if (pooled.broken || (now - pooled.lastUsed > idleTimeoutMs && open > minIdle)) {
+                    transports.remove(i);
+                    toClose.add(pooled);
+                    open--;
+                } else if (now - pooled.lastUsed >= validationIntervalMs) {
+                    toValidate.add(pooled);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        toClose.forEach(this::closeTransport);
+
+        for (PooledTransport pooled : toValidate) {
+            if (ping(pooled)) {
+                pooled.lastUsed = System.currentTimeMillis();
+                continue;
+            }
+            failedValidations.incrementAndGet();
+            boolean close = false;
+            lock.lock();
+            try {
+                pooled.broken = true;
+                if (pooled.leases == 0 && transports.remove(pooled)) {
+                    close = true;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (close) {
+                closeTransport(pooled);
+            }
+        }
+    }
+
+    private boolean ping(PooledTransport pooled) {
+        Transport transport = pooled.connection.getTransport();
+        if (transport.isClosed()) {
+            return false;
+        }
+        VersionReq versionReq = new VersionReq();
+        versionReq.setReqId(ReqId.getReqID());
+        try {
+            transport.sendAsync(new Request(Action.VERSION.getAction(), versionReq))
+                    .get(validationTimeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            log.debug("websocket connection validation failed", e);
+            return false;
+        }
+    }
+
+    private void closeTransport(PooledTransport pooled) {
+        try {
+            pooled.connection.close();
+        } catch (SQLException e) {
+            log.debug("close pooled websocket connection failed", e);
+        }
+        closedTransports.incrementAndGet();
+    }
+
+    public WSPoolMetrics getPoolMetrics() {
+        lock.lock();
+        try {
+            int idle = 0;
+            int active = 0;
+            for (PooledTransport pooled : transports) {
+                if (pooled.leases == 0) {
+                    idle++;
+                }
+                active += pooled.leases;
+            }
+            return new WSPoolMetrics(transports.size(), idle, active, waitingThreads, createdTransports.get(),
+                    closedTransports.get(), failedValidations.get(), borrowTimeouts.get());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * close all transports, logical connections still borrowed are closed with them
+     */
+    @Override
+    public void close() {
+        List<PooledTransport> toClose;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            toClose = new ArrayList<>(transports);
+            transports.clear();
+            available.signalAll();
+            if (housekeeper != null) {
+                housekeeper.shutdownNow();
+            }
+        } finally {
+            lock.unlock();
+        }
+        toClose.forEach(this::closeTransport);
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getMaxPoolSize() {
+        return maxPoolSize;
+    }
+
+    /**
+     * max number of transports, i.e. websocket connections to the server
+     */
+    public void setMaxPoolSize(int maxPoolSize) {
+        this.maxPoolSize = Math.max(1, maxPoolSize);
+    }
+
+    public int getMinIdle() {
+        return minIdle;
+    }
+
+    /**
+     * number of idle transports kept open after the idle timeout
+     */
+    public void setMinIdle(int minIdle) {
+        this.minIdle = Math.max(0, minIdle);
+    }
+
+    public int getMaxConnectionsPerTransport() {
+        return maxConnectionsPerTransport;
+    }
+
+    public void setMaxConnectionsPerTransport(int maxConnectionsPerTransport) {
+        this.maxConnectionsPerTransport = Math.max(1, maxConnectionsPerTransport);
+    }
+
+    public long getConnectionTimeoutMs() {
+        return connectionTimeoutMs;
+    }
+
+    /**
+     * max time to wait for a free connection when the pool is exhausted
+     */
+    public void setConnectionTimeoutMs(long connectionTimeoutMs) {
+        this.connectionTimeoutMs = connectionTimeoutMs;
+    }
+
+    public long getIdleTimeoutMs() {
+        return idleTimeoutMs;
+    }
+
+    public void setIdleTimeoutMs(long idleTimeoutMs) {
+        this.idleTimeoutMs = idleTimeoutMs;
+    }
+
+    public long getValidationIntervalMs() {
+        return validationIntervalMs;
+    }
+
+    /**
+     * interval of the idle transport check, 0 disables validation and idle eviction
+     */
+    public void setValidationIntervalMs(long validationIntervalMs) {
+        this.validationIntervalMs = validationIntervalMs;
+    }
+
+    public long getValidationTimeoutMs() {
+        return validationTimeoutMs;
+    }
+
+    public void setValidationTimeoutMs(long validationTimeoutMs) {
+        this.validationTimeoutMs = validationTimeoutMs;
+    }
+
+    @Override
+    public PrintWriter getLogWriter() throws SQLException {
+        return logWriter;
+    }
+
+    @Override
+    public void setLogWriter(PrintWriter out) throws SQLException {
+        this.logWriter = out;
+    }
+
+    @Override
+    public void setLoginTimeout(int seconds) throws SQLException {
+        this.loginTimeout = seconds;
+    }
+
+    @Override
+    public int getLoginTimeout() throws SQLException {
+        return loginTimeout;
+    }
+
+    @Override
+    public java.util.logging.Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    static class PooledTransport {
+        private final WSConnection connection;
+        private int leases = 0;
+        private volatile long lastUsed = System.currentTimeMillis();
+        private boolean broken = false;
+
+        PooledTransport(WSConnection connection) {
+            this.connection = connection;
+        }
+    }
+}
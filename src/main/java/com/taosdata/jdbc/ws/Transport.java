@@ -3,8 +3,9 @@ package com.taosdata.jdbc.ws;
 import com.taosdata.jdbc.TSDBError;
 import com.taosdata.jdbc.TSDBErrorNumbers;
 import com.taosdata.jdbc.enums.WSFunction;
+import com.taosdata.jdbc.metrics.Metrics;
+import com.taosdata.jdbc.metrics.MetricsRegistry;
 import com.taosdata.jdbc.rs.ConnectionParam;
-import com.taosdata.jdbc.utils.CompletableFutureTimeout;
 import com.taosdata.jdbc.utils.StringUtils;
 import com.taosdata.jdbc.utils.Utils;
 import com.taosdata.jdbc.ws.entity.*;
@@ -24,7 +25,9 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static com.taosdata.jdbc.TSDBErrorNumbers.ERROR_CONNECTION_TIMEOUT;
 
@@ -48,12 +51,20 @@ public class Transport implements AutoCloseable {
 
     private final ConnectionParam connectionParam;
     private final WSFunction wsFunction;
+    private final PrefetchWindow.Budget prefetchBudget;
+    private final Metrics metrics = Metrics.newConnectionMetrics();
+    private final String metricsName;
+    private final MetricsRegistry metricsRegistry;
+    // accepted by the server on conn
+    private volatile byte blockCompression = BlockCompression.NONE;
     public static final byte[] EMPTY_BYTE_ARRAY = new byte[0];
 
     private int currentNodeIndex = 0;
     public Transport(WSFunction function,
                      ConnectionParam param,
                      InFlightRequest inFlightRequest) throws SQLException {
+        this.metricsName = Metrics.newConnectionName(function.getFunction());
+        this.metricsRegistry = Metrics.registry(param.getMetricsRegistry());
         WSClient master = WSClient.getInstance(param, function, this);
         WSClient slave = WSClient.getSlaveInstance(param, function, this);
 
@@ -65,8 +76,10 @@ public class Transport implements AutoCloseable {
         this.inFlightRequest = inFlightRequest;
         this.connectionParam = param;
         this.wsFunction = function;
+        this.prefetchBudget = new PrefetchWindow.Budget(param.getPrefetchMemoryBytes());
 
         setTimeout(param.getRequestTimeout());
+        metricsRegistry.register(metricsName, metrics);
     }
     public void setTimeout(long timeout) {
         if (timeout < 0){
@@ -82,11 +95,16 @@ public class Transport implements AutoCloseable {
             if (isConnected()){
                 return;
             }
+            // a reconnect run off the caller thread may start after close
+            if (isClosed()) {
+                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_CONNECTION_CLOSED, "Websocket Not Connected Exception");
+            }
 
             for (int i = 0; i < clientArr.size() && this.connectionParam.isEnableAutoConnect(); i++) {
                 boolean reconnected = reconnectCurNode();
                 if (reconnected) {
                     reconnectCount.incrementAndGet();
+                    metrics.reconnected();
                     log.debug("reconnect success to {}", StringUtils.getBasicUrl(clientArr.get(currentNodeIndex).serverUri.toString()));
                     return;
                 }
@@ -107,53 +125,38 @@ public class Transport implements AutoCloseable {
             throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_CONNECTION_CLOSED, "Websocket Not Connected Exception");
         }
     }
-    @SuppressWarnings("all")
     public Response send(Request request) throws SQLException {
-        if (isClosed()){
-            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_CONNECTION_CLOSED, "Websocket Not Connected Exception");
-        }
+        return awaitResponse(request.getAction(), request.id(), sendAsync(request));
+    }
 
-        Response response = null;
-        CompletableFuture<Response> completableFuture = new CompletableFuture<>();
+    /**
+     * send a text request without waiting for the response.
+     * the returned future is completed by the response dispatch, or exceptionally with a SQLException
+     * when the request can not be sent, or a TimeoutException when no response arrives in time.
+     */
+    public CompletableFuture<Response> sendAsync(Request request) {
         String reqString = request.toString();
-
-        try {
-            inFlightRequest.put(new FutureResponse(request.getAction(), request.id(), completableFuture));
-        } catch (InterruptedException | TimeoutException e) {
-            throw new SQLException(e);
-        }
-
-        try {
-            clientArr.get(currentNodeIndex).send(reqString);
-        } catch (WebsocketNotConnectedException e) {
-            tmqRethrowConnectionCloseException();
-            reconnect();
-            try {
-                clientArr.get(currentNodeIndex).send(reqString);
-            }catch (Exception ex){
-                inFlightRequest.remove(request.getAction(), request.id());
-                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFul_Client_IOException, e.getMessage());
-            }
-        }
-
-        CompletableFuture<Response> responseFuture = CompletableFutureTimeout.orTimeout(
-                completableFuture, timeout, TimeUnit.MILLISECONDS, reqString);
-        try {
-            response = responseFuture.get();
-            handleErrInMasterSlaveMode(response);
-        } catch (InterruptedException | ExecutionException e) {
-            inFlightRequest.remove(request.getAction(), request.id());
-            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_QUERY_TIMEOUT, e.getMessage());
-        }
-        return response;
+        return sendAsync(request.getAction(), request.id(), client -> client.send(reqString), null, reqString);
     }
+
     public Response send(String action, long reqId, long resultId, long type, byte[] rawData) throws SQLException {
         return send(action, reqId, resultId, type, rawData, EMPTY_BYTE_ARRAY);
     }
 
     public Response send(String action, long reqId, long resultId, long type, byte[] rawData, byte[] rawData2) throws SQLException {
+        return awaitResponse(action, reqId, sendAsync(action, reqId, resultId, type, rawData, rawData2));
+    }
+
+    public CompletableFuture<Response> sendAsync(String action, long reqId, long resultId, long type, byte[] rawData) {
+        return sendAsync(action, reqId, resultId, type, rawData, EMPTY_BYTE_ARRAY);
+    }
+
+    /**
+     * send a binary request without waiting for the response, see {@link #sendAsync(Request)}.
+     */
+    public CompletableFuture<Response> sendAsync(String action, long reqId, long resultId, long type, byte[] rawData, byte[] rawData2) {
         if (isClosed()){
-            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_CONNECTION_CLOSED, "Websocket Not Connected Exception");
+            return closedFuture();
         }
 
         int totalLength = 24 + rawData.length + rawData2.length;
@@ -165,82 +168,129 @@ public class Transport implements AutoCloseable {
         buffer.writeBytes(rawData);
         buffer.writeBytes(rawData2);
 
-        Response response;
-        CompletableFuture<Response> completableFuture = new CompletableFuture<>();
-        try {
-            inFlightRequest.put(new FutureResponse(action, reqId, completableFuture));
-        } catch (InterruptedException | TimeoutException e) {
-            throw new SQLException(e);
-        }
-
-        try {
-            Utils.retainByteBuf(buffer);
-            clientArr.get(currentNodeIndex).send(buffer);
-        } catch (WebsocketNotConnectedException e) {
-            tmqRethrowConnectionCloseException();
-            reconnect();
-            try {
-                Utils.retainByteBuf(buffer);
-                clientArr.get(currentNodeIndex).send(buffer);
-            }catch (Exception ex){
-                inFlightRequest.remove(action, reqId);
-                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFul_Client_IOException, e.getMessage());
-            }
-        } finally {
-            Utils.releaseByteBuf(buffer);
-        }
-
         String reqString = "action:" + action + ", reqId:" + reqId + ", resultId:" + resultId + ", actionType" + type;
-        CompletableFuture<Response> responseFuture = CompletableFutureTimeout.orTimeout(completableFuture, timeout, TimeUnit.MILLISECONDS, reqString);
-        try {
-            response = responseFuture.get();
-            handleErrInMasterSlaveMode(response);
-        } catch (InterruptedException | ExecutionException e) {
-            inFlightRequest.remove(action, reqId);
-            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_QUERY_TIMEOUT, e.getMessage());
-        }
-        return response;
+        return sendAsync(action, reqId, client -> {
+            Utils.retainByteBuf(buffer);
+            client.send(buffer);
+        }, buffer, reqString);
     }
 
     public Response send(String action, long reqId, ByteBuf buffer) throws SQLException {
+        return awaitResponse(action, reqId, sendAsync(action, reqId, buffer));
+    }
+
+    /**
+     * send a binary request without waiting for the response, the buffer is released by the transport.
+     */
+    public CompletableFuture<Response> sendAsync(String action, long reqId, ByteBuf buffer) {
+        String reqString = "action:" + action + ", reqId:" + reqId;
+        return sendAsync(action, reqId, client -> {
+            Utils.retainByteBuf(buffer);
+            client.send(buffer);
+        }, buffer, reqString);
+    }
+
+    /**
+     * never blocks the caller, which may be a netty event loop or a thread completing a response future: a request
+     * finding no free slot is queued by {@link InFlightRequest#putAsync} and a lost connection is reconnected on the
+     * async executor.
+     */
+    private CompletableFuture<Response> sendAsync(String action, long reqId, Consumer<WSClient> sender, ByteBuf buffer, String reqString) {
+        CompletableFuture<Response> completableFuture = new CompletableFuture<>();
         if (isClosed()){
-            Utils.releaseByteBuf(buffer);
-            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_CONNECTION_CLOSED, "Websocket Not Connected Exception");
+            releaseIfPresent(buffer);
+            return closedFuture();
         }
 
-        Response response;
-        CompletableFuture<Response> completableFuture = new CompletableFuture<>();
+        // the buffer is released once sent, or when the request fails before it is sent
+        AtomicBoolean released = new AtomicBoolean();
+        Runnable release = () -> {
+            if (released.compareAndSet(false, true)) {
+                releaseIfPresent(buffer);
+            }
+        };
+        long start = System.nanoTime();
+        metrics.requestStarted();
+        completableFuture.whenComplete((response, e) -> {
+            release.run();
+            metrics.requestCompleted(action, System.nanoTime() - start);
+        });
+
         try {
-            inFlightRequest.put(new FutureResponse(action, reqId, completableFuture));
-        } catch (InterruptedException | TimeoutException e) {
-            throw new SQLException(e);
+            inFlightRequest.putAsync(new FutureResponse(action, reqId, completableFuture), timeout, reqString,
+                    () -> sendAdmitted(action, reqId, sender, release, completableFuture));
+        } catch (TimeoutException e) {
+            completableFuture.completeExceptionally(new SQLException(e));
         }
+        return completableFuture;
+    }
 
+    private void sendAdmitted(String action, long reqId, Consumer<WSClient> sender, Runnable release, CompletableFuture<Response> future) {
         try {
-            Utils.retainByteBuf(buffer);
-            clientArr.get(currentNodeIndex).send(buffer);
+            sender.accept(clientArr.get(currentNodeIndex));
+            release.run();
+            return;
         } catch (WebsocketNotConnectedException e) {
-            tmqRethrowConnectionCloseException();
-            reconnect();
+            if (WSFunction.TMQ.equals(this.wsFunction)) {
+                failAdmitted(action, reqId, future, TSDBError.createSQLException(TSDBErrorNumbers.ERROR_CONNECTION_CLOSED, "Websocket Not Connected Exception"));
+                return;
+            }
+        } catch (RuntimeException e) {
+            failAdmitted(action, reqId, future, TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFul_Client_IOException, e.getMessage()));
+            return;
+        }
+
+        // reconnecting blocks, it never runs on the caller thread
+        Utils.getAsyncExecutor().execute(() -> {
             try {
-                Utils.retainByteBuf(buffer);
-                clientArr.get(currentNodeIndex).send(buffer);
-            }catch (Exception ex){
-                inFlightRequest.remove(action, reqId);
-                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFul_Client_IOException, e.getMessage());
+                reconnect();
+                if (!future.isDone()) {
+                    sender.accept(clientArr.get(currentNodeIndex));
+                }
+            } catch (SQLException ex) {
+                failAdmitted(action, reqId, future, ex);
+            } catch (Exception ex) {
+                failAdmitted(action, reqId, future, TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFul_Client_IOException, ex.getMessage()));
+            } finally {
+                release.run();
             }
-        } finally {
+        });
+    }
+
+    private void failAdmitted(String action, long reqId, CompletableFuture<Response> future, SQLException e) {
+        inFlightRequest.remove(action, reqId);
+        future.completeExceptionally(e);
+    }
+
+    private static void releaseIfPresent(ByteBuf buffer) {
+        if (buffer != null) {
             Utils.releaseByteBuf(buffer);
         }
+    }
 
-        String reqString = "action:" + action + ", reqId:" + reqId;
-        CompletableFuture<Response> responseFuture = CompletableFutureTimeout.orTimeout(completableFuture, timeout, TimeUnit.MILLISECONDS, reqString);
+    private static CompletableFuture<Response> closedFuture() {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        future.completeExceptionally(TSDBError.createSQLException(TSDBErrorNumbers.ERROR_CONNECTION_CLOSED, "Websocket Not Connected Exception"));
+        return future;
+    }
+
+    private Response awaitResponse(String action, long reqId, CompletableFuture<Response> responseFuture) throws SQLException {
+        Response response;
         try {
             response = responseFuture.get();
             handleErrInMasterSlaveMode(response);
-        } catch (InterruptedException | ExecutionException e) {
-            inFlightRequest.remove(action, reqId);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
             throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_QUERY_TIMEOUT, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // nobody waits for the response anymore, give the slot back
+            inFlightRequest.remove(action, reqId);
+            responseFuture.cancel(false);
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_QUERY_TIMEOUT,
+                    "interrupted while waiting for the response, action: " + action + ", reqId: " + reqId);
         }
         return response;
     }
@@ -264,7 +314,7 @@ public class Transport implements AutoCloseable {
         String reqString = request.toString();
 
         try {
-            inFlightRequest.put(new FutureResponse(request.getAction(), request.id(), completableFuture));
+            inFlightRequest.put(new FutureResponse(request.getAction(), request.id(), completableFuture), timeout, reqString);
         } catch (InterruptedException | TimeoutException e) {
             throw new SQLException(e);
         }
@@ -276,10 +326,8 @@ public class Transport implements AutoCloseable {
             throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFul_Client_IOException, e.getMessage() == null ? "" : e.getMessage());
         }
 
-        CompletableFuture<Response> responseFuture = CompletableFutureTimeout.orTimeout(
-                completableFuture, timeout, TimeUnit.MILLISECONDS, reqString);
         try {
-            response = responseFuture.get();
+            response = completableFuture.get();
         } catch (InterruptedException | ExecutionException e) {
             inFlightRequest.remove(request.getAction(), request.id());
             throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_QUERY_TIMEOUT, e.getMessage());
@@ -292,16 +340,20 @@ public class Transport implements AutoCloseable {
             throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_CONNECTION_CLOSED, "Websocket Not Connected Exception");
         }
 
+        String reqString = request.toString();
         try {
-            clientArr.get(currentNodeIndex).send(request.toString());
+            clientArr.get(currentNodeIndex).send(reqString);
         } catch (WebsocketNotConnectedException e) {
             tmqRethrowConnectionCloseException();
-            reconnect();
-            try {
-                clientArr.get(currentNodeIndex).send(request.toString());
-            }catch (Exception ex){
-                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_RESTFul_Client_IOException, e.getMessage());
-            }
+            // nobody waits for the response, so the caller does not wait for the reconnect either
+            Utils.getAsyncExecutor().execute(() -> {
+                try {
+                    reconnect();
+                    clientArr.get(currentNodeIndex).send(reqString);
+                } catch (Exception ex) {
+                    log.debug("send {} after reconnect failed", request.getAction(), ex);
+                }
+            });
         }
     }
 
@@ -329,6 +381,7 @@ public class Transport implements AutoCloseable {
             return;
         }
         closed = true;
+        metricsRegistry.unregister(metricsName);
         inFlightRequest.close();
         for (WSClient wsClient : clientArr){
             wsClient.close();
@@ -366,6 +419,7 @@ public class Transport implements AutoCloseable {
 
     public void shutdown() {
         closed = true;
+        metricsRegistry.unregister(metricsName);
         if (inFlightRequest.hasInFlightRequest()) {
             CompletableFuture<Void> future = CompletableFuture.runAsync(() -> {
                 try {
@@ -386,6 +440,7 @@ public class Transport implements AutoCloseable {
             try {
                 reconnected = clientArr.get(currentNodeIndex).reconnectBlocking();
                 if (reconnected) {
+                    metrics.reconnected();
                     break;
                 }
                 Thread.sleep(connectionParam.getReconnectIntervalMs());
@@ -408,6 +463,7 @@ public class Transport implements AutoCloseable {
                     auth = (ConnectResp) sendWithoutRetry(new Request(Action.CONN.getAction(), connectReq));
 
                     if (Code.SUCCESS.getCode() == auth.getCode()) {
+                        blockCompression = auth.getBlockCompression();
                         return true;
                     } else {
                         clientArr.get(currentNodeIndex).closeBlocking();
@@ -426,6 +482,13 @@ public class Transport implements AutoCloseable {
         return reconnectCount.get();
     }
 
+    /**
+     * @return metrics of this connection
+     */
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
     public boolean isConnected() {
         return clientArr.get(currentNodeIndex).isOpen();
     }
@@ -433,4 +496,16 @@ public class Transport implements AutoCloseable {
     public final ConnectionParam getConnectionParam() {
         return connectionParam;
     }
+
+    PrefetchWindow.Budget getPrefetchBudget() {
+        return prefetchBudget;
+    }
+
+    public byte getBlockCompression() {
+        return blockCompression;
+    }
+
+    public void setBlockCompression(byte blockCompression) {
+        this.blockCompression = blockCompression;
+    }
 }
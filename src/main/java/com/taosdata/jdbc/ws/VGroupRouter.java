@@ -0,0 +1,250 @@
+package com.taosdata.jdbc.ws;
+
+import com.taosdata.jdbc.TSDBError;
+import com.taosdata.jdbc.utils.ReqId;
+import com.taosdata.jdbc.ws.entity.Action;
+import com.taosdata.jdbc.ws.entity.Code;
+import com.taosdata.jdbc.ws.entity.Request;
+import com.taosdata.jdbc.ws.entity.TableVgIdReq;
+import com.taosdata.jdbc.ws.entity.TableVgIdResp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * routes the tables of an efficient writing statement to writer threads by vgroup.
+ * <p>
+ * the vgroup of a table is asked from taosAdapter once. all tables of a vgroup go to the same writer, so a stmt2 exec
+ * touches one vgroup as long as there are no more vgroups than writers.
+ * <p>
+ * a table is written by one writer at a time, the rows of a table are never written concurrently. a table seen for
+ * the first time goes to the writer chosen by its name hash and stays there. lookups never block the binding thread:
+ * new tables are collected and asked for in one request per database, with one round in flight. once its vgroup is
+ * known a table moves to the writer of the vgroup at the next {@link #onAllWritten}, when no row is left in any
+ * writer. the routes are kept in a lru cache which is trimmed there too. after the first failed lookup no more
+ * lookups are sent and tables stay where they are.
+ */
+class VGroupRouter {
+    private static final Logger log = LoggerFactory.getLogger(VGroupRouter.class);
+    // the database of "insert into db.? ...", "insert into db.stb(tbname, ...) ..." or "... using db.stb tags ..."
+    private static final Pattern INSERT_DB = Pattern.compile("\\b(?:into|using)\\s+`?([^\\s.`?(]+)`?\\s*\\.",
+            Pattern.CASE_INSENSITIVE);
+
+    static final int MAX_CACHED_TABLES = 100_000;
+    static final int MAX_LOOKUP_TABLES = 1_000;
+
+    private final Transport transport;
+    private final String defaultDb;
+    private final int writerNum;
+    private final int maxCachedTables;
+    // the writer each table is written by, in access order
+    private final LinkedHashMap<String, Integer> writerCache = new LinkedHashMap<>(1024, 0.75f, true);
+    // writers of the vgroups found since the last onAllWritten, applied there
+    private final Map<String, Integer> moves = new HashMap<>();
+    // tables waiting for a lookup, mapped to their database and name
+    private final Map<String, String[]> pending = new LinkedHashMap<>();
+    // tables of the lookup in flight
+    private final Map<String, String[]> lookingUp = new HashMap<>();
+    private CompletableFuture<Map<String, Integer>> lookup;
+    private boolean disabled;
+
+    VGroupRouter(Transport transport, String sql, String database, int writerNum) {
+        this(transport, sql, database, writerNum, MAX_CACHED_TABLES);
+    }
+
+    VGroupRouter(Transport transport, String sql, String database, int writerNum, int maxCachedTables) {
+        this.transport = transport;
+        this.writerNum = writerNum;
+        this.maxCachedTables = maxCachedTables;
+        Matcher matcher = INSERT_DB.matcher(sql);
+        this.defaultDb = matcher.find() ? matcher.group(1) : database;
+    }
+
+    /**
+     * @param table       table name, may be qualified by the database
+     * @param hashWriter  writer chosen by the table name hash, used for a table not routed yet
+     * @return index of the writer thread
+     */
+    int route(String table, int hashWriter) {
+        if (lookup != null && lookup.isDone()) {
+            collect();
+        }
+
+        Integer writer = writerCache.get(table);
+        if (writer != null) {
+            return writer;
+        }
+        writerCache.put(table, hashWriter);
+        if (disabled) {
+            return hashWriter;
+        }
+
+        String db = defaultDb;
+        String name = table;
+        int dot = qualifierDot(table);
+        if (dot > 0) {
+            db = table.substring(0, dot);
+            name = table.substring(dot + 1);
+        }
+        if (db != null) {
+            pending.put(table, new String[]{unquote(db), unquote(name)});
+            if (lookup == null) {
+                sendLookup();
+            }
+        }
+        return hashWriter;
+    }
+
+    /**
+     * all rows bound so far are written, move the tables whose vgroup is known and trim the cache
+     */
+    void onAllWritten() {
+        if (lookup != null && lookup.isDone()) {
+            collect();
+        }
+        if (moves.isEmpty() && writerCache.size() <= maxCachedTables) {
+            return;
+        }
+        for (Map.Entry<String, Integer> move : moves.entrySet()) {
+            // a table evicted meanwhile is routed again when it is bound again
+            writerCache.replace(move.getKey(), move.getValue());
+        }
+        moves.clear();
+        Iterator<String> it = writerCache.keySet().iterator();
+        while (writerCache.size() > maxCachedTables && it.hasNext()) {
+            String table = it.next();
+            // a table in a lookup is kept so its result still finds it
+            if (!pending.containsKey(table) && !lookingUp.containsKey(table)) {
+                it.remove();
+            }
+        }
+    }
+
+    int cachedTables() {
+        return writerCache.size();
+    }
+
+    /**
+     * @return tables whose vgroup is not known yet
+     */
+    int unresolvedTables() {
+        return pending.size() + lookingUp.size();
+    }
+
+    boolean isDisabled() {
+        return disabled;
+    }
+
+    private void sendLookup() {
+        Map<String, List<String>> keysByDb = new LinkedHashMap<>();
+        Map<String, List<String>> namesByDb = new LinkedHashMap<>();
+        Iterator<Map.Entry<String, String[]>> it = pending.entrySet().iterator();
+        for (int i = 0; i < MAX_LOOKUP_TABLES && it.hasNext(); i++) {
+            Map.Entry<String, String[]> entry = it.next();
+            it.remove();
+            lookingUp.put(entry.getKey(), entry.getValue());
+            String db = entry.getValue()[0];
+            keysByDb.computeIfAbsent(db, k -> new ArrayList<>()).add(entry.getKey());
+            namesByDb.computeIfAbsent(db, k -> new ArrayList<>()).add(entry.getValue()[1]);
+        }
+
+        CompletableFuture<Map<String, Integer>> round = CompletableFuture.completedFuture(new HashMap<>());
+        for (Map.Entry<String, List<String>> entry : namesByDb.entrySet()) {
+            List<String> keys = keysByDb.get(entry.getKey());
+            String[] names = entry.getValue().toArray(new String[0]);
+            round = round.thenCombine(getTableVgIdsAsync(transport, entry.getKey(), names), (vgIds, ids) -> {
+                for (int i = 0; i < ids.length; i++) {
+                    vgIds.put(keys.get(i), ids[i]);
+                }
+                return vgIds;
+            });
+        }
+        lookup = round;
+    }
+
+    /**
+     * take the result of the lookup done, then send the tables collected meanwhile
+     */
+    private void collect() {
+        CompletableFuture<Map<String, Integer>> done = lookup;
+        lookup = null;
+        try {
+            for (Map.Entry<String, Integer> entry : done.join().entrySet()) {
+                moves.put(entry.getKey(), Math.floorMod(entry.getValue(), writerNum));
+            }
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() == null ? e : e.getCause();
+            disabled = true;
+            pending.clear();
+            log.warn("get vgroup id of tables failed, route new tables by name hash, code: {}, msg: {}",
+                    cause instanceof SQLException ? ((SQLException) cause).getErrorCode() : 0, cause.getMessage());
+        }
+        lookingUp.clear();
+        if (!pending.isEmpty()) {
+            sendLookup();
+        }
+    }
+
+    private static int qualifierDot(String table) {
+        boolean quoted = false;
+        for (int i = 0; i < table.length(); i++) {
+            char c = table.charAt(i);
+            if (c == '`') {
+                quoted = !quoted;
+            } else if (c == '.' && !quoted) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String unquote(String name) {
+        if (name.length() >= 2 && name.charAt(0) == '`' && name.charAt(name.length() - 1) == '`') {
+            return name.substring(1, name.length() - 1);
+        }
+        return name;
+    }
+
+    static int[] getTableVgIds(Transport transport, String db, String[] tables) throws SQLException {
+        return checkTableVgIdResp((TableVgIdResp) transport.send(tableVgIdRequest(db, tables)), tables);
+    }
+
+    static CompletableFuture<int[]> getTableVgIdsAsync(Transport transport, String db, String[] tables) {
+        return transport.sendAsync(tableVgIdRequest(db, tables)).thenApply(response -> {
+            try {
+                return checkTableVgIdResp((TableVgIdResp) response, tables);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    private static Request tableVgIdRequest(String db, String[] tables) {
+        TableVgIdReq req = new TableVgIdReq();
+        req.setReqId(ReqId.getReqID());
+        req.setDb(db);
+        req.setTables(tables);
+        return new Request(Action.GET_TABLE_VGID.getAction(), req);
+    }
+
+    private static int[] checkTableVgIdResp(TableVgIdResp resp, String[] tables) throws SQLException {
+        if (Code.SUCCESS.getCode() != resp.getCode()) {
+            throw TSDBError.createSQLException(resp.getCode(), "(0x" + Integer.toHexString(resp.getCode()) + "):" + resp.getMessage());
+        }
+        if (resp.getVgIds() == null || resp.getVgIds().length != tables.length) {
+            throw new SQLException("get table vgroup id fail, unexpected response size");
+        }
+        return resp.getVgIds();
+    }
+}
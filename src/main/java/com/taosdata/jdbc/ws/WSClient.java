@@ -134,8 +134,8 @@ public class WSClient implements AutoCloseable {
                         // If you change it to V00, ping is not supported and remember to change
                         // HttpResponseDecoder to WebSocketHttpResponseDecoder in the pipeline.
                         final WebSocketClientHandler handler =
-                                new WebSocketClientHandler(connectionParam.getTextMessageHandler(),
-                                        connectionParam.getBinaryMessageHandler());
+                                new WebSocketClientHandler(connectionParam.getTextFrameHandler(),
+                                        connectionParam.getBinaryMessageHandler(), transport.getMetrics());
                         p.addLast(handler);
                     }
                 });
@@ -236,7 +236,9 @@ public class WSClient implements AutoCloseable {
             throw new WebsocketNotConnectedException();
         }
         channel.eventLoop().execute(() -> {
-            channel.writeAndFlush(new TextWebSocketFrame(strData));
+            TextWebSocketFrame frame = new TextWebSocketFrame(strData);
+            transport.getMetrics().bytesSent(false, frame.content().readableBytes());
+            channel.writeAndFlush(frame);
         });
     }
 
@@ -246,6 +248,7 @@ public class WSClient implements AutoCloseable {
             throw new WebsocketNotConnectedException();
         }
 
+        transport.getMetrics().bytesSent(true, binData.readableBytes());
         channel.writeAndFlush(new BinaryWebSocketFrame(binData));
     }
     public void closeBlocking() {
@@ -10,6 +10,8 @@ import com.taosdata.jdbc.utils.ReqId;
 import com.taosdata.jdbc.ws.entity.*;
 import com.taosdata.jdbc.ws.entity.CommonResp;
 import com.taosdata.jdbc.ws.schemaless.InsertReq;
+import com.taosdata.jdbc.ws.schemaless.SchemalessBatchResult;
+import com.taosdata.jdbc.ws.schemaless.SchemalessBatchWriter;
 import com.taosdata.jdbc.ws.schemaless.SchemalessAction;
 import com.taosdata.jdbc.ws.stmt2.entity.Field;
 import com.taosdata.jdbc.ws.stmt2.entity.RequestFactory;
@@ -20,6 +22,7 @@ import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.concurrent.atomic.AtomicLong;
@@ -31,7 +34,8 @@ public class WSConnection extends AbstractConnection {
     private final DatabaseMetaData metaData;
     private String database;
     private final ConnectionParam param;
-    private final AtomicLong insertId = new AtomicLong(0);
+    private final AtomicLong insertId;
+    private final SchemalessBatchWriter schemalessWriter;
 
     public WSConnection(String url, Properties properties, Transport transport, ConnectionParam param, String serverVersion) {
         super(properties, serverVersion);
@@ -39,6 +43,24 @@ public class WSConnection extends AbstractConnection {
         this.database = param.getDatabase();
         this.param = param;
         this.metaData = new RestfulDatabaseMetaData(url, properties.getProperty(TSDBDriver.PROPERTY_KEY_USER), this);
+        this.insertId = new AtomicLong(0);
+        this.schemalessWriter = new SchemalessBatchWriter(transport, param.getSchemalessBatchBytes(),
+                param.getSchemalessMaxInflight(), insertId);
+    }
+
+    /**
+     * logical connection on the transport of a physical one. the request id generators and the schemaless writer
+     * belong to the transport, so connections borrowed one after another never reuse the ids of each other.
+     */
+    WSConnection(String url, Properties properties, WSConnection physical) {
+        super(properties, physical.serverVersion);
+        this.transport = physical.transport;
+        this.database = physical.param.getDatabase();
+        this.param = physical.param;
+        this.metaData = new RestfulDatabaseMetaData(url, properties.getProperty(TSDBDriver.PROPERTY_KEY_USER), this);
+        this.idGenerator = physical.idGenerator;
+        this.insertId = physical.insertId;
+        this.schemalessWriter = physical.schemalessWriter;
     }
 
     @Override
@@ -142,12 +164,16 @@ public class WSConnection extends AbstractConnection {
 
     @Override
     public void close() throws SQLException {
+        closeStatements();
+        transport.close();
+    }
+
+    protected void closeStatements() throws SQLException {
         for (Map.Entry<Long, Statement> entry : statementsMap.entrySet()) {
             Statement value = entry.getValue();
             value.close();
         }
         statementsMap.clear();
-        transport.close();
     }
 
     @Override
@@ -173,31 +199,53 @@ public class WSConnection extends AbstractConnection {
             transport.close();
             throw new SQLException("(0x" + Integer.toHexString(auth.getCode()) + "):" + "auth failure:" + auth.getMessage());
         }
+        transport.setBlockCompression(auth.getBlockCompression());
     }
 
     public ConnectionParam getParam() {
         return param;
     }
 
+    /**
+     * get the vgroup ids of tables in one request.
+     *
+     * @param db     db name
+     * @param tables table names
+     * @return vgroup ids in the order of tables
+     * @throws SQLException throws exception if fail.
+     */
+    public int[] getTableVgIds(String db, String... tables) throws SQLException {
+        if (isClosed())
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_CONNECTION_CLOSED);
+        return VGroupRouter.getTableVgIds(transport, db, tables);
+    }
+
+    Transport getTransport() {
+        return transport;
+    }
+
     @Override
     public void write(String[] lines, SchemalessProtocolType protocolType, SchemalessTimestampType timestampType, Integer ttl, Long reqId) throws SQLException {
-        for (String line : lines) {
-            InsertReq insertReq = new InsertReq();
-            insertReq.setReqId(insertId.getAndIncrement());
-            insertReq.setProtocol(protocolType.ordinal());
-            insertReq.setPrecision(timestampType.getType());
-            insertReq.setData(line);
-            if (ttl != null)
-                insertReq.setTtl(ttl);
-            if (reqId != null)
-                insertReq.setReqId(reqId);
-            CommonResp response = (CommonResp) transport.send(new Request(SchemalessAction.INSERT.getAction(), insertReq));
-            if (Code.SUCCESS.getCode() != response.getCode()) {
-                throw new SQLException("0x" + Integer.toHexString(response.getCode()) + ":" + response.getMessage());
+        for (SchemalessBatchResult result : writeBatch(lines, protocolType, timestampType, ttl, reqId)) {
+            if (!result.isSuccess()) {
+                throw new SQLException("0x" + Integer.toHexString(result.getCode()) + ":" + result.getMessage());
             }
         }
     }
 
+    /**
+     * write schemaless lines packed into as few insert requests as allowed by
+     * {@link TSDBDriver#PROPERTY_KEY_SCHEMALESS_BATCH_BYTES}, keeping up to
+     * {@link TSDBDriver#PROPERTY_KEY_SCHEMALESS_MAX_INFLIGHT} requests in flight.
+     *
+     * @return the result of each insert request, no more batches are sent after a failed one
+     */
+    public List<SchemalessBatchResult> writeBatch(String[] lines, SchemalessProtocolType protocolType, SchemalessTimestampType timestampType, Integer ttl, Long reqId) throws SQLException {
+        if (isClosed())
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_CONNECTION_CLOSED);
+        return schemalessWriter.write(lines, protocolType, timestampType, ttl, reqId);
+    }
+
     @Override
     public int writeRaw(String line, SchemalessProtocolType protocolType, SchemalessTimestampType timestampType, Integer ttl, Long reqId) throws SQLException {
         InsertReq insertReq = new InsertReq();
@@ -3,8 +3,12 @@ package com.taosdata.jdbc.ws;
 import com.taosdata.jdbc.*;
 import com.taosdata.jdbc.common.*;
 import com.taosdata.jdbc.enums.FieldBindType;
+import com.taosdata.jdbc.enums.TimestampPrecision;
 import com.taosdata.jdbc.rs.ConnectionParam;
+import com.taosdata.jdbc.utils.BlobUtil;
+import com.taosdata.jdbc.utils.DateTimeUtils;
 import com.taosdata.jdbc.utils.ReqId;
+import com.taosdata.jdbc.utils.SpscRing;
 import com.taosdata.jdbc.utils.SyncObj;
 import com.taosdata.jdbc.ws.entity.*;
 import com.taosdata.jdbc.ws.stmt2.entity.*;
@@ -12,46 +16,77 @@ import com.taosdata.jdbc.ws.stmt2.entity.RequestFactory;
 import io.netty.buffer.ByteBuf;
 import org.slf4j.LoggerFactory;
 
-import java.nio.ByteBuffer;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
 import java.sql.*;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZonedDateTime;
 import java.util.*;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
 
 // Efficient Writing Mode PreparedStatement
+//
+// the statement is bound by one thread. each bound row is copied into the primitive column chunk of the writer
+// its table is routed to, a full chunk is handed to the writer through a single producer single consumer ring
+// and comes back through another one once it is written.
 public class WSEWPreparedStatement extends AbsWSPreparedStatement {
     private static final org.slf4j.Logger log = LoggerFactory.getLogger(WSEWPreparedStatement.class);
 
-    private final boolean copyData;
     private final int writeThreadNum;
     private ThreadPoolExecutor writerThreads;
-    private ArrayList<ArrayBlockingQueue<Map<Integer, Column>>> writeQueueList;
     private final AtomicInteger remainingUnprocessedRows = new AtomicInteger(0);
     private final AtomicInteger batchInsertedRows = new AtomicInteger(0);
     private final AtomicInteger flushIn = new AtomicInteger(0);
     private List<WorkerThread> workerThreadList;
     private final SyncObj syncObj = new SyncObj();
     private int addBatchCounts = 0;
+    private final VGroupRouter vgroupRouter;
+
+    // the row being bound, kept until it is overwritten or cleared like the parameters of any statement
+    private final int[] kinds;
+    private final long[] rowLongs;
+    private final double[] rowDoubles;
+    private final Object[] rowVars;
+    private final boolean[] rowNulls;
+    private final boolean[] rowBound;
+    private int boundCount;
+    // chunk being filled for each writer
+    private final EWRowChunk[] fillingChunks;
 
     public WSEWPreparedStatement(Transport transport, ConnectionParam param, String database, AbstractConnection connection, String sql, Long instanceId, Stmt2PrepareResp prepareResp) throws SQLException {
         super(transport, param, database, connection, sql, instanceId, prepareResp);
 
-        copyData = param.isCopyData();
         writeThreadNum = param.getBackendWriteThreadNum();
 
-        writerThreads =  (ThreadPoolExecutor) Executors.newFixedThreadPool(writeThreadNum);
-        writeQueueList = new ArrayList<>(writeThreadNum);
-        for (int i = 0; i < writeThreadNum; i++){
-            writeQueueList.add(new ArrayBlockingQueue<>(param.getCacheSizeByRow()));
+        int fieldCount = fields == null ? 0 : fields.size();
+        kinds = new int[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            kinds[i] = EWRowChunk.kindOf(fields.get(i));
         }
+        rowLongs = new long[fieldCount];
+        rowDoubles = new double[fieldCount];
+        rowVars = new Object[fieldCount];
+        rowNulls = new boolean[fieldCount];
+        rowBound = new boolean[fieldCount];
+        fillingChunks = new EWRowChunk[writeThreadNum];
 
+        writerThreads =  (ThreadPoolExecutor) Executors.newFixedThreadPool(writeThreadNum);
         workerThreadList = new ArrayList<>(writeThreadNum);
+        // cacheSizeByRow is checked to be a multiple of batchSizeByRow
+        int queuedChunks = Math.max(1, param.getCacheSizeByRow() / Math.max(1, param.getBatchSizeByRow()));
 
         CommonResp res = null;
         for (int i = 0; i < writeThreadNum; i++){
             WorkerThread workerThread = new WorkerThread(
-                    writeQueueList.get(i),
+                    queuedChunks,
                     sql,
                     transport,
                     param,
@@ -78,22 +113,12 @@ public class WSEWPreparedStatement extends AbsWSPreparedStatement {
         for (WorkerThread workerThread : workerThreadList){
             writerThreads.submit(workerThread);
         }
-    }
-
-    private Map<Integer, Column> copyMap(Map<Integer, Column> originalMap) {
-        Map<Integer, Column> dstMap = new HashMap<>();
-        originalMap.forEach((key, src) -> {
-            Column dst = src;
-            if (copyData && src.getData() instanceof byte[]) {
-                byte[] srcBytes = (byte[]) src.getData();
-                byte[] copiedValue = new byte[srcBytes.length];
-                System.arraycopy(srcBytes, 0, copiedValue, 0, srcBytes.length);
-                dst = new Column(copiedValue, src.getType(), src.getIndex());
-            }
 
-            dstMap.put(key, dst);
-        });
-        return dstMap;
+        if (param.isVgroupRouting() && toBeBindTableNameIndex >= 0) {
+            vgroupRouter = new VGroupRouter(transport, sql, database, writeThreadNum);
+        } else {
+            vgroupRouter = null;
+        }
     }
 
     @Override
@@ -137,6 +162,7 @@ public class WSEWPreparedStatement extends AbsWSPreparedStatement {
     }
 
     private void waitWriteCompleted() {
+        flushChunks();
         flushIn.incrementAndGet();
         while (remainingUnprocessedRows.get() != 0) {
             try {
@@ -144,67 +170,77 @@ public class WSEWPreparedStatement extends AbsWSPreparedStatement {
             } catch (InterruptedException ignored) {
             }
         }
+        if (vgroupRouter != null) {
+            // no row is left in any writer, tables may move to the writer of their vgroup now
+            vgroupRouter.onAllWritten();
+        }
     }
 
-    private void checkDataLength(Map<Integer, Column> map) throws SQLException {
-        for (int i = 0; i < fields.size(); i++){
-            Field field = fields.get(i);
-            Column column = map.get(i + 1);
-            if (DataLengthCfg.getDataLength(column.getType()) == null && field.getBindType() != FieldBindType.TAOS_FIELD_TBNAME.getValue()){
-                if (column.getData() instanceof byte[]){
-                    byte[] data = (byte[]) column.getData();
-                    if (data.length > field.getBytes()){
-                        throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "data length is too long, column index " + i);
-                    }
-                }
-                if (column.getData() instanceof String){
-                    String data = (String) column.getData();
-                    if (data.getBytes().length > field.getBytes()){
-                        throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "data length is too long, column index " + i);
-                    }
-                }
+    private void flushChunks() {
+        for (int i = 0; i < fillingChunks.length; i++) {
+            if (fillingChunks[i] != null && !fillingChunks[i].isEmpty()) {
+                workerThreadList.get(i).put(fillingChunks[i]);
+                fillingChunks[i] = null;
             }
         }
     }
-    @Override
-    public void addBatch() throws SQLException {
-        if (colOrderedMap.size() == fields.size()){
-            // jdbc standard bind api
-            Map<Integer, Column> map = copyMap(colOrderedMap);
 
-            if (param.isStrictCheck()){
-                checkDataLength(map);
-            }
+    private int route() throws SQLException {
+        if (toBeBindTableNameIndex < 0) {
+            return 0;
+        }
+        Object o = rowVars[toBeBindTableNameIndex];
+        if (rowNulls[toBeBindTableNameIndex] || o == null) {
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "error type tbname.");
+        }
 
-            int hashCode;
-            Object o = map.get(toBeBindTableNameIndex + 1).getData();
-            if (o instanceof String){
-                hashCode = o.hashCode();
-            } else if (o instanceof byte[]){
-                hashCode = Arrays.hashCode((byte[]) o);
-            } else {
-                throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "error type tbname.");
-            }
+        int hashCode = o instanceof String ? o.hashCode() : Arrays.hashCode((byte[]) o);
+        if (hashCode < 0){
+            hashCode = -hashCode;
+        }
 
-            if (hashCode < 0){
-                hashCode = -hashCode;
+        int index = hashCode % writeThreadNum;
+        if (vgroupRouter != null) {
+            if (remainingUnprocessedRows.get() == 0) {
+                // nothing bound is left unwritten, a table may move without its rows being written concurrently
+                vgroupRouter.onAllWritten();
             }
+            String tbname = o instanceof String ? (String) o : new String((byte[]) o, StandardCharsets.UTF_8);
+            index = vgroupRouter.route(tbname, index);
+        }
+        return index;
+    }
 
-            int index = hashCode % writeThreadNum;
-            try {
-                writeQueueList.get(index).put(map);
-            } catch (InterruptedException ignored) {
+    @Override
+    public void addBatch() throws SQLException {
+        if (boundCount != kinds.length){
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "Only support standard jdbc bind api.");
+        }
+
+        int index = route();
+        EWRowChunk chunk = fillingChunks[index];
+        if (chunk == null) {
+            WorkerThread worker = workerThreadList.get(index);
+            chunk = worker.pollFreeChunk();
+            if (chunk == null) {
+                chunk = new EWRowChunk(fields, param.getBatchSizeByRow(), param.isStrictCheck());
             }
+            fillingChunks[index] = chunk;
+        }
 
-            remainingUnprocessedRows.incrementAndGet();
-            addBatchCounts++;
-        } else {
-            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "Only support standard jdbc bind api.");
+        chunk.append(rowLongs, rowDoubles, rowVars, rowNulls);
+        remainingUnprocessedRows.incrementAndGet();
+        addBatchCounts++;
+
+        if (chunk.isFull()) {
+            workerThreadList.get(index).put(chunk);
+            fillingChunks[index] = null;
         }
     }
 
     @Override
     public int[] executeBatch() throws SQLException {
+        flushChunks();
 
         int[] ints = new int[addBatchCounts];
         for (int i = 0, len = ints.length; i < len; i++){
@@ -215,6 +251,292 @@ public class WSEWPreparedStatement extends AbsWSPreparedStatement {
         return ints;
     }
 
+    @Override
+    public void clearParameters() {
+        super.clearParameters();
+        Arrays.fill(rowVars, null);
+        Arrays.fill(rowBound, false);
+        boundCount = 0;
+    }
+
+    //************ bind the row into primitive slots *****************
+
+    private int fieldIndex(int parameterIndex) throws SQLException {
+        if (parameterIndex < 1 || parameterIndex > kinds.length) {
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_PARAMETER_INDEX_OUT_RANGE);
+        }
+        return parameterIndex - 1;
+    }
+
+    private void bound(int index, boolean isNull) {
+        rowNulls[index] = isNull;
+        if (!rowBound[index]) {
+            rowBound[index] = true;
+            boundCount++;
+        }
+    }
+
+    private SQLException typeMismatch(int index, String javaType) {
+        return TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE,
+                "can not bind " + javaType + " to column index " + index + ", data type: " + fields.get(index).getFieldType());
+    }
+
+    private static SQLException outOfRange(String typeName) {
+        return TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, typeName + " value is out of range");
+    }
+
+    private void bindLong(int parameterIndex, long v) throws SQLException {
+        int index = fieldIndex(parameterIndex);
+        if (kinds[index] == EWRowChunk.KIND_DOUBLE) {
+            rowDoubles[index] = v;
+            bound(index, false);
+            return;
+        }
+        if (kinds[index] != EWRowChunk.KIND_LONG) {
+            throw typeMismatch(index, "integer");
+        }
+        switch (fields.get(index).getFieldType()) {
+            case TSDB_DATA_TYPE_BOOL:
+                v = v != 0 ? 1 : 0;
+                break;
+            case TSDB_DATA_TYPE_TINYINT:
+                if (v < Byte.MIN_VALUE || v > Byte.MAX_VALUE) {
+                    throw outOfRange("tinyint");
+                }
+                break;
+            case TSDB_DATA_TYPE_UTINYINT:
+                if (v < 0 || v > MAX_UNSIGNED_BYTE) {
+                    throw outOfRange("utinyint");
+                }
+                break;
+            case TSDB_DATA_TYPE_SMALLINT:
+                if (v < Short.MIN_VALUE || v > Short.MAX_VALUE) {
+                    throw outOfRange("smallint");
+                }
+                break;
+            case TSDB_DATA_TYPE_USMALLINT:
+                if (v < 0 || v > MAX_UNSIGNED_SHORT) {
+                    throw outOfRange("usmallint");
+                }
+                break;
+            case TSDB_DATA_TYPE_INT:
+                if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+                    throw outOfRange("int");
+                }
+                break;
+            case TSDB_DATA_TYPE_UINT:
+                if (v < 0 || v > MAX_UNSIGNED_INT) {
+                    throw outOfRange("uint");
+                }
+                break;
+            case TSDB_DATA_TYPE_UBIGINT:
+                if (v < 0) {
+                    throw outOfRange("ubigint");
+                }
+                break;
+            default:
+                break;
+        }
+        rowLongs[index] = v;
+        bound(index, false);
+    }
+
+    private void bindDouble(int parameterIndex, double v) throws SQLException {
+        int index = fieldIndex(parameterIndex);
+        if (kinds[index] != EWRowChunk.KIND_DOUBLE) {
+            throw typeMismatch(index, "floating point");
+        }
+        rowDoubles[index] = v;
+        bound(index, false);
+    }
+
+    private void bindTimestamp(int parameterIndex, long epochSecond, int nanos) throws SQLException {
+        int index = fieldIndex(parameterIndex);
+        if (kinds[index] != EWRowChunk.KIND_LONG || fields.get(index).getFieldType() != TSDB_DATA_TYPE_TIMESTAMP) {
+            throw typeMismatch(index, "timestamp");
+        }
+        long v;
+        if (precision == TimestampPrecision.MS) {
+            v = epochSecond * 1_000L + nanos / 1_000_000;
+        } else if (precision == TimestampPrecision.US) {
+            v = epochSecond * 1_000_000L + nanos / 1_000;
+        } else {
+            v = epochSecond * 1_000_000_000L + nanos;
+        }
+        rowLongs[index] = v;
+        bound(index, false);
+    }
+
+    private void bindInstant(int parameterIndex, Instant x) throws SQLException {
+        bindTimestamp(parameterIndex, x.getEpochSecond(), x.getNano());
+    }
+
+    private void bindVar(int parameterIndex, Object x) throws SQLException {
+        int index = fieldIndex(parameterIndex);
+        if (kinds[index] != EWRowChunk.KIND_VAR) {
+            throw typeMismatch(index, x instanceof String ? "string" : "bytes");
+        }
+        // only the reference is kept, the value is copied into the chunk by addBatch
+        rowVars[index] = x;
+        bound(index, false);
+    }
+
+    @Override
+    public void setNull(int parameterIndex, int sqlType) throws SQLException {
+        int index = fieldIndex(parameterIndex);
+        rowVars[index] = null;
+        bound(index, true);
+    }
+
+    @Override
+    public void setBoolean(int parameterIndex, boolean x) throws SQLException {
+        bindLong(parameterIndex, x ? 1 : 0);
+    }
+
+    @Override
+    public void setByte(int parameterIndex, byte x) throws SQLException {
+        bindLong(parameterIndex, x);
+    }
+
+    @Override
+    public void setShort(int parameterIndex, short x) throws SQLException {
+        bindLong(parameterIndex, x);
+    }
+
+    @Override
+    public void setInt(int parameterIndex, int x) throws SQLException {
+        bindLong(parameterIndex, x);
+    }
+
+    @Override
+    public void setLong(int parameterIndex, long x) throws SQLException {
+        bindLong(parameterIndex, x);
+    }
+
+    @Override
+    public void setFloat(int parameterIndex, float x) throws SQLException {
+        bindDouble(parameterIndex, x);
+    }
+
+    @Override
+    public void setDouble(int parameterIndex, double x) throws SQLException {
+        bindDouble(parameterIndex, x);
+    }
+
+    @Override
+    public void setString(int parameterIndex, String x) throws SQLException {
+        if (x == null) {
+            setNull(parameterIndex, Types.VARCHAR);
+            return;
+        }
+        bindVar(parameterIndex, x);
+    }
+
+    @Override
+    public void setNString(int parameterIndex, String value) throws SQLException {
+        setString(parameterIndex, value);
+    }
+
+    @Override
+    public void setBytes(int parameterIndex, byte[] x) throws SQLException {
+        if (x == null) {
+            setNull(parameterIndex, Types.BINARY);
+            return;
+        }
+        bindVar(parameterIndex, x);
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x) throws SQLException {
+        if (x == null) {
+            setNull(parameterIndex, Types.TIMESTAMP);
+            return;
+        }
+        if (zoneId == null) {
+            bindTimestamp(parameterIndex, Math.floorDiv(x.getTime(), 1000L), x.getNanos());
+        } else {
+            bindInstant(parameterIndex, DateTimeUtils.toInstant(x, zoneId));
+        }
+    }
+
+    @Override
+    public void setTimestamp(int parameterIndex, Timestamp x, Calendar cal) throws SQLException {
+        if (x == null) {
+            setNull(parameterIndex, Types.TIMESTAMP);
+            return;
+        }
+        bindInstant(parameterIndex, DateTimeUtils.toInstant(x, cal));
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, Blob x) throws SQLException {
+        checkBlobSupport();
+        if (x == null) {
+            setNull(parameterIndex, Types.BLOB);
+            return;
+        }
+        setBytes(parameterIndex, BlobUtil.getBytes(x));
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, InputStream inputStream, long length) throws SQLException {
+        checkBlobSupport();
+        setBytes(parameterIndex, BlobUtil.getFromInputStream(inputStream, length));
+    }
+
+    @Override
+    public void setBlob(int parameterIndex, InputStream inputStream) throws SQLException {
+        checkBlobSupport();
+        setBytes(parameterIndex, BlobUtil.getFromInputStream(inputStream));
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x, int targetSqlType) throws SQLException {
+        // the column type decides how the value is sent, the target type adds nothing
+        if (x == null) {
+            setNull(parameterIndex, targetSqlType);
+        } else {
+            setObject(parameterIndex, x);
+        }
+    }
+
+    @Override
+    public void setObject(int parameterIndex, Object x) throws SQLException {
+        if (isClosed())
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_STATEMENT_CLOSED);
+        if (x == null) {
+            setNull(parameterIndex, Types.NULL);
+        } else if (x instanceof LocalDateTime) {
+            if (zoneId == null) {
+                setTimestamp(parameterIndex, Timestamp.valueOf((LocalDateTime) x));
+            } else {
+                bindInstant(parameterIndex, ((LocalDateTime) x).atZone(zoneId).toInstant());
+            }
+        } else if (x instanceof Instant) {
+            bindInstant(parameterIndex, (Instant) x);
+        } else if (x instanceof ZonedDateTime) {
+            bindInstant(parameterIndex, ((ZonedDateTime) x).toInstant());
+        } else if (x instanceof OffsetDateTime) {
+            bindInstant(parameterIndex, ((OffsetDateTime) x).toInstant());
+        } else if (x instanceof BigInteger) {
+            BigInteger v = (BigInteger) x;
+            if (v.signum() < 0 || v.bitLength() > Long.SIZE) {
+                throw outOfRange("ubigint");
+            }
+            // an unsigned value above Long.MAX_VALUE keeps its bits
+            int index = fieldIndex(parameterIndex);
+            if (kinds[index] != EWRowChunk.KIND_LONG) {
+                throw typeMismatch(index, "BigInteger");
+            }
+            rowLongs[index] = v.longValue();
+            bound(index, false);
+        } else if (x instanceof Blob) {
+            setBytes(parameterIndex, BlobUtil.getBytes((Blob) x));
+        } else {
+            super.setObject(parameterIndex, x);
+        }
+    }
+
     @Override
     public void close() throws SQLException {
         waitWriteCompleted();
@@ -266,8 +588,10 @@ public class WSEWPreparedStatement extends AbsWSPreparedStatement {
 
     static class WorkerThread implements Runnable {
         private static final org.slf4j.Logger log = LoggerFactory.getLogger(WorkerThread.class);
-        private final ArrayBlockingQueue<Map<Integer, Column>> dataQueue;
-        private final int batchSize;
+        private static final long IDLE_WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+        private static final long FULL_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+        private final SpscRing<EWRowChunk> chunks;
+        private final SpscRing<EWRowChunk> freeChunks;
         private final String sql;
         private long reqId;
         private long stmtId = 0;
@@ -275,10 +599,7 @@ public class WSEWPreparedStatement extends AbsWSPreparedStatement {
         private int toBeBindTableNameIndex;
         private int toBeBindTagCount;
         private int toBeBindColCount;
-        private int precision;
         private int reconnectCount = 0;
-        private final HashMap<ByteBuffer, TableInfo> tableInfoMap = new HashMap<>();
-        private TableInfo tableInfo = TableInfo.getEmptyTableInfo();
         private final Transport transport;
         private final ConnectionParam connectionParam;
         private final AtomicBoolean isClosed;
@@ -286,9 +607,10 @@ public class WSEWPreparedStatement extends AbsWSPreparedStatement {
         private final AtomicInteger batchInsertedRows;
         private final AtomicInteger flushIn;
         private final SyncObj syncObj;
+        private volatile Thread runner;
         private Exception lastError;
 
-        public WorkerThread(ArrayBlockingQueue<Map<Integer, Column>> taskQueue,
+        public WorkerThread(int queuedChunks,
                             String sql,
                             Transport transport,
                             ConnectionParam param,
@@ -297,8 +619,9 @@ public class WSEWPreparedStatement extends AbsWSPreparedStatement {
                             AtomicInteger batchInsertedRows,
                             AtomicInteger flushIn,
                             SyncObj syncObj) {
-            this.dataQueue = taskQueue;
-            this.batchSize = param.getBatchSizeByRow();
+            this.chunks = new SpscRing<>(queuedChunks);
+            // besides the queued ones, one chunk is being filled and one is being written
+            this.freeChunks = new SpscRing<>(queuedChunks + 2);
             this.sql = sql;
             this.transport = transport;
             this.connectionParam = param;
@@ -324,10 +647,8 @@ public class WSEWPreparedStatement extends AbsWSPreparedStatement {
             Stmt2PrepareResp prepareResp = (Stmt2PrepareResp) transport.send(prepare);
 
             fields = prepareResp.getFields();
-            if (!fields.isEmpty()){
-                precision = fields.get(0).getPrecision();
-            }
 
+            toBeBindTableNameIndex = -1;
             toBeBindTagCount = 0;
             toBeBindColCount = 0;
             for (int i = 0; i < fields.size(); i++){
@@ -353,79 +674,82 @@ public class WSEWPreparedStatement extends AbsWSPreparedStatement {
             }
         }
 
+        /**
+         * hand a filled chunk to the writer, waits while the writer is cacheSizeByRow rows behind.
+         */
+        void put(EWRowChunk chunk) {
+            while (!chunks.offer(chunk)) {
+                LockSupport.parkNanos(FULL_WAIT_NANOS);
+            }
+            transport.getMetrics().efficientWriteQueued(1);
+            Thread t = runner;
+            if (t != null) {
+                LockSupport.unpark(t);
+            }
+        }
+
+        /**
+         * @return a written chunk to fill again, or null if there is none
+         */
+        EWRowChunk pollFreeChunk() {
+            return freeChunks.poll();
+        }
+
         @Override
         public void run() {
+            runner = Thread.currentThread();
             int flushInLocal = 0;
-            while (!(isClosed.get() && dataQueue.isEmpty())) {
-                int polledRow = 0;
-                int size = 0;
-                try {
-                    if (dataQueue.isEmpty()) {
-                        if (flushIn.get() != flushInLocal) {
-                            flushInLocal = flushIn.get();
-                            syncObj.signal();
-                        }
-
-                        Map<Integer, Column> map = dataQueue.poll(10, TimeUnit.MILLISECONDS);
-                        if (map == null) {
-                            continue;
-                        }
-                        processOneRow(map);
-                        polledRow++;
-                    }
-
-                    size = Math.min(dataQueue.size(), this.batchSize - polledRow);
-                    for (int i = 0; i < size; i++) {
-                        Map<Integer, Column> map = dataQueue.take();
-                        processOneRow(map);
-                    }
-
-                    if (!isTableInfoEmpty()) {
-                        tableInfoMap.put(tableInfo.getTableName(), tableInfo);
+            while (!(isClosed.get() && chunks.isEmpty())) {
+                EWRowChunk chunk = chunks.poll();
+                if (chunk == null) {
+                    if (flushIn.get() != flushInLocal) {
+                        flushInLocal = flushIn.get();
+                        syncObj.signal();
                     }
+                    LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+                    continue;
+                }
 
-                    writeBlockWithRetry();
-                    tableInfo = TableInfo.getEmptyTableInfo();
-                    tableInfoMap.clear();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
+                transport.getMetrics().efficientWriteQueued(-1);
+                int rows = chunk.size();
+                long start = System.nanoTime();
+                try {
+                    writeBlockWithRetry(chunk);
                 } catch (SQLException e) {
                     lastError = e;
                     log.error("Error in write data to server, stmt id: {}, req id: {}" +
                                     "rows: {}, code: {}, msg: {}",
                             stmtId,
                             reqId,
-                            (polledRow + size), e.getErrorCode(), e.getMessage());
+                            rows, e.getErrorCode(), e.getMessage());
                 } finally {
-                    if ((size + polledRow) > 0) {
-                        remainingUnprocessedRows.addAndGet(-size - polledRow);
-                    }
+                    transport.getMetrics().efficientWriteCompleted(System.nanoTime() - start);
+                    chunk.clear();
+                    freeChunks.offer(chunk);
+                    remainingUnprocessedRows.addAndGet(-rows);
                 }
             }
 
+            runner = null;
             syncObj.signal();
         }
 
 
-        private void writeBlockWithRetry() throws SQLException {
+        private void writeBlockWithRetry(EWRowChunk chunk) throws SQLException {
             for (int i = 0; i < connectionParam.getRetryTimes(); i++) {
                 ByteBuf rawBlock;
+                // encoded again on each try, the stmt id may change after a reconnection
+                Stmt2BindEncoder encoder = new Stmt2BindEncoder(toBeBindTableNameIndex >= 0, toBeBindTagCount, toBeBindColCount);
                 try {
-                    rawBlock = SerializeBlock.getStmt2BindBlock(
-                            reqId,
-                            stmtId,
-                            tableInfoMap,
-                            toBeBindTableNameIndex,
-                            toBeBindTagCount,
-                            toBeBindColCount,
-                            precision);
+                    chunk.encode(encoder);
+                    rawBlock = encoder.finish(reqId, stmtId);
                     log.trace("buffer allocated: {}", Integer.toHexString(System.identityHashCode(rawBlock)));
                 } catch (Exception e) {
+                    encoder.release();
                     lastError = e;
                     log.error("Error in serialize data to block, stmt id: {}, req id: {}", stmtId, reqId, e);
                     break;
                 }
-
                 try{
                     // bind
                     Stmt2Resp bindResp = (Stmt2Resp) transport.send(Action.STMT2_BIND.getAction(),
@@ -482,49 +806,6 @@ public class WSEWPreparedStatement extends AbsWSPreparedStatement {
             }
         }
 
-        private boolean isTableInfoEmpty(){
-            return tableInfo.getTableName().capacity() == 0
-                    && tableInfo.getTagInfo().isEmpty()
-                    && tableInfo.getDataList().isEmpty();
-        }
-
-        private void bindColToTableInfo(TableInfo tableInfo, Map<Integer, Column> colOrderedMap){
-            for (ColumnInfo columnInfo : tableInfo.getDataList()) {
-                columnInfo.add(colOrderedMap.get(columnInfo.getIndex()).getData());
-            }
-        }
-
-        public void processOneRow(Map<Integer, Column> colOrderedMap) throws SQLException {
-            if (isTableInfoEmpty()) {
-                // first time, bind all
-                bindAllToTableInfo(fields, colOrderedMap, tableInfo);
-            } else {
-                Object tbname = colOrderedMap.get(toBeBindTableNameIndex + 1).getData();
-                ByteBuffer tempTableName;
-                if (tbname instanceof String){
-                    tempTableName = ByteBuffer.wrap(((String)tbname).getBytes());
-                } else if (tbname instanceof byte[]){
-                    tempTableName = ByteBuffer.wrap((byte[]) tbname);
-                } else {
-                    throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "table name must be string or binary");
-                }
-
-                if (tableInfo.getTableName().equals(tempTableName)){
-                    // same table, only bind col
-                    bindColToTableInfo(tableInfo, colOrderedMap);
-                } else if (tableInfoMap.containsKey(tempTableName)){
-                    // same table, only bind col
-                    TableInfo tbInfo = tableInfoMap.get(tempTableName);
-                    bindColToTableInfo(tbInfo, colOrderedMap);
-                } else {
-                    // different table, flush tableInfo and create a new one
-                    tableInfoMap.put(tableInfo.getTableName(), tableInfo);
-                    tableInfo = TableInfo.getEmptyTableInfo();
-                    bindAllToTableInfo(fields, colOrderedMap, tableInfo);
-                }
-            }
-        }
-
         public Exception getAndClearLastError() {
             Exception tmp = lastError;
             lastError = null;
@@ -0,0 +1,85 @@
+package com.taosdata.jdbc.ws;
+
+/**
+ * snapshot of the {@link TaosWSDataSource} pool state
+ */
+public class WSPoolMetrics {
+    private final int totalTransports;
+    private final int idleTransports;
+    private final int activeConnections;
+    private final int waitingThreads;
+    private final long createdTransports;
+    private final long closedTransports;
+    private final long failedValidations;
+    private final long borrowTimeouts;
+
+    public WSPoolMetrics(int totalTransports, int idleTransports, int activeConnections, int waitingThreads,
+                         long createdTransports, long closedTransports, long failedValidations, long borrowTimeouts) {
+        this.totalTransports = totalTransports;
+        this.idleTransports = idleTransports;
+        this.activeConnections = activeConnections;
+        this.waitingThreads = waitingThreads;
+        this.createdTransports = createdTransports;
+        this.closedTransports = closedTransports;
+        this.failedValidations = failedValidations;
+        this.borrowTimeouts = borrowTimeouts;
+    }
+
+    /**
+     * @return open websocket connections to the server
+     */
+    public int getTotalTransports() {
+        return totalTransports;
+    }
+
+    /**
+     * @return open websocket connections without borrowed logical connections
+     */
+    public int getIdleTransports() {
+        return idleTransports;
+    }
+
+    /**
+     * @return borrowed logical connections
+     */
+    public int getActiveConnections() {
+        return activeConnections;
+    }
+
+    /**
+     * @return threads waiting for a free connection
+     */
+    public int getWaitingThreads() {
+        return waitingThreads;
+    }
+
+    public long getCreatedTransports() {
+        return createdTransports;
+    }
+
+    public long getClosedTransports() {
+        return closedTransports;
+    }
+
+    public long getFailedValidations() {
+        return failedValidations;
+    }
+
+    public long getBorrowTimeouts() {
+        return borrowTimeouts;
+    }
+
+    @Override
+    public String toString() {
+        return "WSPoolMetrics{" +
+                "totalTransports=" + totalTransports +
+                ", idleTransports=" + idleTransports +
+                ", activeConnections=" + activeConnections +
+                ", waitingThreads=" + waitingThreads +
+                ", createdTransports=" + createdTransports +
+                ", closedTransports=" + closedTransports +
+                ", failedValidations=" + failedValidations +
+                ", borrowTimeouts=" + borrowTimeouts +
+                '}';
+    }
+}
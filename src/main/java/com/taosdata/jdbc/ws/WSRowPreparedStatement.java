@@ -3,7 +3,7 @@ package com.taosdata.jdbc.ws;
 import com.taosdata.jdbc.AbstractConnection;
 import com.taosdata.jdbc.TSDBError;
 import com.taosdata.jdbc.TSDBErrorNumbers;
-import com.taosdata.jdbc.common.AutoExpandingBuffer;
+import com.taosdata.jdbc.common.Stmt2BindEncoder;
 import com.taosdata.jdbc.common.TDBlob;
 import com.taosdata.jdbc.common.TableInfo;
 import com.taosdata.jdbc.enums.FieldBindType;
@@ -17,8 +17,6 @@ import com.taosdata.jdbc.ws.entity.Code;
 import com.taosdata.jdbc.ws.entity.Request;
 import com.taosdata.jdbc.ws.stmt2.entity.*;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.CompositeByteBuf;
-import io.netty.buffer.PooledByteBufAllocator;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -52,34 +50,8 @@ public class WSRowPreparedStatement extends WSStatement implements PreparedState
     protected ArrayList<Byte> colTypeList = new ArrayList<>();
     protected boolean isInsert = false;
     private TableInfo tableInfo;
-    private AutoExpandingBuffer tableNameLensBuf;
-    private AutoExpandingBuffer tableNamesBuf;
-    private AutoExpandingBuffer tagLensBuf;
-    private AutoExpandingBuffer tagsBuf;
-    private AutoExpandingBuffer colLensBuf;
-    private AutoExpandingBuffer colsBuf;
-    private int curTableTagTotalLen = 0;
-    private int curTableColTotalLen = 0;
-    private int totalTableCount = 0;
-
-    private final int MAX_COMPONENT_COUNT = 1000;
-    private final int SMALL_BUFFER_INIT_SIZE = 1024; // 1KB
-    private final int TABLE_NAME_BUFFER_INIT_SIZE = 1024 * 10; // 10KB
-    private final int TAGS_BUFFER_INIT_SIZE = 1024 * 100; // 100KB
-    private final int COLS_BUFFER_INIT_SIZE = 1024 * 1024; // 1MB
-
-    private void initBuffers() {
-        buffersStopWrite();
-        freeBuffers();
-        tableNameLensBuf = new AutoExpandingBuffer(SMALL_BUFFER_INIT_SIZE, MAX_COMPONENT_COUNT);
-        tableNamesBuf = new AutoExpandingBuffer(TABLE_NAME_BUFFER_INIT_SIZE, MAX_COMPONENT_COUNT);
-
-        tagLensBuf = new AutoExpandingBuffer(SMALL_BUFFER_INIT_SIZE, MAX_COMPONENT_COUNT);
-        tagsBuf = new AutoExpandingBuffer(TAGS_BUFFER_INIT_SIZE, MAX_COMPONENT_COUNT);
-
-        colLensBuf = new AutoExpandingBuffer(SMALL_BUFFER_INIT_SIZE, MAX_COMPONENT_COUNT);
-        colsBuf = new AutoExpandingBuffer(COLS_BUFFER_INIT_SIZE, MAX_COMPONENT_COUNT);
-    }
+    private Stmt2BindEncoder encoder;
+
     public WSRowPreparedStatement(Transport transport,
                                   ConnectionParam param,
                                   String database,
@@ -124,7 +96,7 @@ public class WSRowPreparedStatement extends WSStatement implements PreparedState
         }
 
         this.tableInfo = TableInfo.getEmptyTableInfo();
-        initBuffers();
+        this.encoder = new Stmt2BindEncoder(toBeBindTableNameIndex >= 0, toBeBindTagCount, toBeBindColCount);
     }
 
     @Override
@@ -300,9 +272,9 @@ public class WSRowPreparedStatement extends WSStatement implements PreparedState
     private void setBooleanInner(int parameterIndex, boolean x, boolean isNull) throws SQLException {
         byte bindType = fields.get(parameterIndex - 1).getBindType();
         if (bindType == FieldBindType.TAOS_FIELD_COL.getValue()) {
-            curTableColTotalLen += colsBuf.serializeBool(x, isNull);
+            Stmt2BindEncoder.serializeBool(encoder.cols(), x, isNull);
         } else if (bindType == FieldBindType.TAOS_FIELD_TAG.getValue()) {
-            curTableTagTotalLen += tagsBuf.serializeBool(x, isNull);
+            Stmt2BindEncoder.serializeBool(encoder.tags(), x, isNull);
         }
     }
 
@@ -314,9 +286,9 @@ public class WSRowPreparedStatement extends WSStatement implements PreparedState
     private void setByteInner(int parameterIndex, byte x, boolean isNull, byte type) throws SQLException {
         byte bindType = fields.get(parameterIndex - 1).getBindType();
         if (bindType == FieldBindType.TAOS_FIELD_COL.getValue()) {
-            curTableColTotalLen += colsBuf.serializeByte(x, isNull, type);
+            Stmt2BindEncoder.serializeByte(encoder.cols(), x, isNull, type);
         } else if (bindType == FieldBindType.TAOS_FIELD_TAG.getValue()) {
-            curTableTagTotalLen += tagsBuf.serializeByte(x, isNull, type);
+            Stmt2BindEncoder.serializeByte(encoder.tags(), x, isNull, type);
         }
     }
 
@@ -328,9 +300,9 @@ public class WSRowPreparedStatement extends WSStatement implements PreparedState
     private void setShortInner(int parameterIndex, short x, boolean isNull, byte type) throws SQLException {
         byte bindType = fields.get(parameterIndex - 1).getBindType();
         if (bindType == FieldBindType.TAOS_FIELD_COL.getValue()) {
-            curTableColTotalLen += colsBuf.serializeShort(x, isNull, type);
+            Stmt2BindEncoder.serializeShort(encoder.cols(), x, isNull, type);
         } else if (bindType == FieldBindType.TAOS_FIELD_TAG.getValue()) {
-            curTableTagTotalLen += tagsBuf.serializeShort(x, isNull, type);
+            Stmt2BindEncoder.serializeShort(encoder.tags(), x, isNull, type);
         }
     }
 
@@ -349,9 +321,9 @@ public class WSRowPreparedStatement extends WSStatement implements PreparedState
     private void setIntInner(int parameterIndex, int x, boolean isNull, byte type) throws SQLException {
         byte bindType = fields.get(parameterIndex - 1).getBindType();
         if (bindType == FieldBindType.TAOS_FIELD_COL.getValue()) {
-            curTableColTotalLen += colsBuf.serializeInt(x, isNull, type);
+            Stmt2BindEncoder.serializeInt(encoder.cols(), x, isNull, type);
         } else if (bindType == FieldBindType.TAOS_FIELD_TAG.getValue()) {
-            curTableTagTotalLen += tagsBuf.serializeInt(x, isNull, type);
+            Stmt2BindEncoder.serializeInt(encoder.tags(), x, isNull, type);
         }
     }
 
@@ -370,9 +342,9 @@ public class WSRowPreparedStatement extends WSStatement implements PreparedState
     private void setLongInner(int parameterIndex, long x, boolean isNull, byte type) throws SQLException {
         byte bindType = fields.get(parameterIndex - 1).getBindType();
         if (bindType == FieldBindType.TAOS_FIELD_COL.getValue()) {
-            curTableColTotalLen += colsBuf.serializeLong(x, isNull, type);
+            Stmt2BindEncoder.serializeLong(encoder.cols(), x, isNull, type);
         } else if (bindType == FieldBindType.TAOS_FIELD_TAG.getValue()) {
-            curTableTagTotalLen += tagsBuf.serializeLong(x, isNull, type);
+            Stmt2BindEncoder.serializeLong(encoder.tags(), x, isNull, type);
         }
     }
 
@@ -391,9 +363,9 @@ public class WSRowPreparedStatement extends WSStatement implements PreparedState
     private void setFloatInner(int parameterIndex, float x, boolean isNull) throws SQLException {
         byte bindType = fields.get(parameterIndex - 1).getBindType();
         if (bindType == FieldBindType.TAOS_FIELD_COL.getValue()) {
-            curTableColTotalLen += colsBuf.serializeFloat(x, isNull);
+            Stmt2BindEncoder.serializeFloat(encoder.cols(), x, isNull);
         } else if (bindType == FieldBindType.TAOS_FIELD_TAG.getValue()) {
-            curTableTagTotalLen += tagsBuf.serializeFloat(x, isNull);
+            Stmt2BindEncoder.serializeFloat(encoder.tags(), x, isNull);
         }
     }
 
@@ -405,9 +377,9 @@ public class WSRowPreparedStatement extends WSStatement implements PreparedState
     private void setDoubleInner(int parameterIndex, double x, boolean isNull) throws SQLException {
         byte bindType = fields.get(parameterIndex - 1).getBindType();
         if (bindType == FieldBindType.TAOS_FIELD_COL.getValue()) {
-            curTableColTotalLen += colsBuf.serializeDouble(x, isNull);
+            Stmt2BindEncoder.serializeDouble(encoder.cols(), x, isNull);
         } else if (bindType == FieldBindType.TAOS_FIELD_TAG.getValue()) {
-            curTableTagTotalLen += tagsBuf.serializeDouble(x, isNull);
+            Stmt2BindEncoder.serializeDouble(encoder.tags(), x, isNull);
         }
     }
 
@@ -423,32 +395,28 @@ public class WSRowPreparedStatement extends WSStatement implements PreparedState
     private void seStringInner(int parameterIndex, String x, boolean isNull, byte type) throws SQLException {
         byte bindType = fields.get(parameterIndex - 1).getBindType();
         if (bindType == FieldBindType.TAOS_FIELD_COL.getValue()) {
-            curTableColTotalLen += colsBuf.serializeString(x, isNull, type);
+            Stmt2BindEncoder.serializeString(encoder.cols(), x, isNull, type);
         } else if (bindType == FieldBindType.TAOS_FIELD_TAG.getValue()) {
-            curTableTagTotalLen += tagsBuf.serializeString(x, isNull, type);
+            Stmt2BindEncoder.serializeString(encoder.tags(), x, isNull, type);
         } else if (bindType == FieldBindType.TAOS_FIELD_TBNAME.getValue()) {
             if (x == null){
                 throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "table name can't be null");
             }
-            int length = tableNamesBuf.writeString(x);
-            tableNamesBuf.writeBytes(new byte[]{0});
-            tableNameLensBuf.writeShort((short) (length + 1));
+            encoder.addTableName(x);
         }
     }
 
     private void setBytesInner(int parameterIndex, byte[] x, boolean isNull, byte type) throws SQLException {
         byte bindType = fields.get(parameterIndex - 1).getBindType();
         if (bindType == FieldBindType.TAOS_FIELD_COL.getValue()) {
-            curTableColTotalLen += colsBuf.serializeBytes(x, isNull, type);
+            Stmt2BindEncoder.serializeBytes(encoder.cols(), x, isNull, type);
         } else if (bindType == FieldBindType.TAOS_FIELD_TAG.getValue()) {
-            curTableTagTotalLen += tagsBuf.serializeBytes(x, isNull, type);
+            Stmt2BindEncoder.serializeBytes(encoder.tags(), x, isNull, type);
         } else if (bindType == FieldBindType.TAOS_FIELD_TBNAME.getValue()) {
             if (x == null){
                 throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_INVALID_VARIABLE, "table name can't be null");
             }
-            tableNamesBuf.writeBytes(x);
-            tableNamesBuf.writeBytes(new byte[]{0});
-            tableNameLensBuf.writeShort((short) (x.length + 1));
+            encoder.addTableName(x);
         }
     }
 
@@ -495,11 +463,9 @@ public class WSRowPreparedStatement extends WSStatement implements PreparedState
 
     private void setTimestampInner(int parameterIndex, long x, boolean isNull) throws SQLException {
         if (fields.get(parameterIndex - 1).getBindType() == FieldBindType.TAOS_FIELD_COL.getValue()){
-            int totalLen = colsBuf.serializeTimeStamp(x, isNull);
-            curTableColTotalLen += totalLen;
+            Stmt2BindEncoder.serializeTimestamp(encoder.cols(), x, isNull);
         } else if (fields.get(parameterIndex - 1).getBindType() == FieldBindType.TAOS_FIELD_TAG.getValue()){
-            int totalLen = tagsBuf.serializeTimeStamp(x, isNull);
-            curTableTagTotalLen += totalLen;
+            Stmt2BindEncoder.serializeTimestamp(encoder.tags(), x, isNull);
         }
     }
 
@@ -724,15 +690,7 @@ public class WSRowPreparedStatement extends WSStatement implements PreparedState
     @Override
     // Only support batch insert
     public void addBatch() throws SQLException {
-        tagLensBuf.writeInt(curTableTagTotalLen);
-        colLensBuf.writeInt(curTableColTotalLen);
-        totalTableCount++;
-        clearCache();
-    }
-
-    private void clearCache(){
-        curTableTagTotalLen = 0;
-        curTableColTotalLen = 0;
+        encoder.endTable();
     }
 
     private boolean isTableInfoEmpty(){
@@ -760,7 +718,7 @@ public class WSRowPreparedStatement extends WSStatement implements PreparedState
             }
             super.close();
         }
-        freeBuffers();
+        encoder.release();
     }
 
     @Override
@@ -926,139 +884,8 @@ public class WSRowPreparedStatement extends WSStatement implements PreparedState
     public void setNClob(int parameterIndex, Reader reader) throws SQLException {
         throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNSUPPORTED_METHOD);
     }
-    private void freeBuffer(AutoExpandingBuffer buf){
-        if (buf != null){
-            buf.release();
-        }
-
-    }
-    private void freeBuffers(){
-        freeBuffer(tableNameLensBuf);
-        freeBuffer(tableNamesBuf);
-        freeBuffer(tagLensBuf);
-        freeBuffer(tagsBuf);
-        freeBuffer(colLensBuf);
-        freeBuffer(colsBuf);
-    }
-    private void buffersStopWrite(){
-        if (tableNameLensBuf != null){
-            tableNameLensBuf.stopWrite();
-        }
-        if (tableNamesBuf != null){
-            tableNamesBuf.stopWrite();
-        }
-        if (tagLensBuf != null){
-            tagLensBuf.stopWrite();
-        }
-        if (tagsBuf != null){
-            tagsBuf.stopWrite();
-        }
-        if (colLensBuf != null){
-            colLensBuf.stopWrite();
-        }
-        if (colsBuf != null){
-            colsBuf.stopWrite();
-        }
-    }
     private int executeBatchImpl() throws SQLException {
-        buffersStopWrite();
-
-        int totalTableNameSize = tableNamesBuf.getBuffer().capacity();
-        int totalTagSize = tagsBuf.getBuffer().capacity();
-        int totalColSize = colsBuf.getBuffer().capacity();
-        int totalSize = totalTableNameSize + totalTagSize + totalColSize;
-
-        int toBebindTableNameCount = toBeBindTableNameIndex >= 0 ? 1 : 0;
-
-        totalSize += totalTableCount * (
-                toBebindTableNameCount * Short.BYTES
-                        + (toBeBindTagCount > 0 ? 1 : 0) * Integer.BYTES
-                        + (toBeBindColCount > 0 ? 1 : 0) * Integer.BYTES);
-
-        ByteBuf headBuf = PooledByteBufAllocator.DEFAULT.directBuffer(58);
-
-        //************ header *****************
-        // ReqId
-        headBuf.writeLongLE(reqId);
-        // stmtId
-        headBuf.writeLongLE(stmtId);
-        // actionId
-        headBuf.writeLongLE(9L);
-        // version
-        headBuf.writeShortLE(1);
-        // col_idx
-        headBuf.writeIntLE(-1);
-
-        //************ data *****************
-        // TotalLength
-        headBuf.writeIntLE(totalSize + 28);
-        // tableCount
-        headBuf.writeIntLE(totalTableCount);
-        // TagCount
-        headBuf.writeIntLE(toBeBindTagCount);
-        // ColCount
-        headBuf.writeIntLE(toBeBindColCount);
-
-        // tableNameOffset
-        if (toBebindTableNameCount > 0){
-            headBuf.writeIntLE(0x1C);
-        } else {
-            headBuf.writeIntLE(0);
-        }
-
-        // tagOffset
-        if (toBeBindTagCount > 0){
-            if (toBebindTableNameCount > 0){
-                headBuf.writeIntLE(28 + totalTableNameSize + Short.BYTES * totalTableCount);
-            } else {
-                headBuf.writeIntLE(28);
-            }
-        } else {
-            headBuf.writeIntLE(0);
-        }
-
-        // colOffset
-        if (toBeBindColCount > 0){
-            int skipSize = 0;
-            if (toBebindTableNameCount > 0){
-                skipSize += totalTableNameSize + Short.BYTES * totalTableCount;
-            }
-
-            if (toBeBindTagCount > 0){
-                skipSize += totalTagSize + Integer.BYTES * totalTableCount;
-            }
-            headBuf.writeIntLE(28 + skipSize);
-        } else {
-            headBuf.writeIntLE(0);
-        }
-
-
-        CompositeByteBuf rawBlock = PooledByteBufAllocator.DEFAULT.compositeBuffer();
-        rawBlock.addComponent(true, headBuf);
-
-        if (toBebindTableNameCount > 0){
-            rawBlock.addComponent(true, tableNameLensBuf.getBuffer());
-            rawBlock.addComponent(true, tableNamesBuf.getBuffer());
-        }
-
-        if (toBeBindTagCount > 0){
-            rawBlock.addComponent(true, tagLensBuf.getBuffer());
-            rawBlock.addComponent(true, tagsBuf.getBuffer());
-        }
-
-        if (toBeBindColCount > 0){
-            rawBlock.addComponent(true, colLensBuf.getBuffer());
-            rawBlock.addComponent(true, colsBuf.getBuffer());
-        }
-
-//        StringBuilder sb = new StringBuilder();
-//        for (int i = 30; i < rawBlock.capacity(); i++) {
-//            int bb = rawBlock.getByte(i) & 0xff;
-//            sb.append(bb);
-//            sb.append(",");
-//        }
-//        System.out.println(sb);
-//        System.exit(0);
+        ByteBuf rawBlock = encoder.finish(reqId, stmtId);
 
         try {
             this.affectedRows = 0;
@@ -1077,8 +904,7 @@ public class WSRowPreparedStatement extends WSStatement implements PreparedState
             }
             this.affectedRows = resp.getAffected();
         } finally {
-            initBuffers();
-            totalTableCount = 0;
+            encoder.reset();
         }
 
         return this.affectedRows;
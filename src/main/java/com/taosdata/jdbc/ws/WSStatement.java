@@ -3,6 +3,7 @@ package com.taosdata.jdbc.ws;
 import com.taosdata.jdbc.*;
 import com.taosdata.jdbc.utils.ReqId;
 import com.taosdata.jdbc.utils.SqlSyntaxValidator;
+import com.taosdata.jdbc.utils.Utils;
 import com.taosdata.jdbc.ws.entity.*;
 
 import java.nio.ByteBuffer;
@@ -11,6 +12,8 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.time.ZoneId;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.taosdata.jdbc.utils.SqlSyntaxValidator.getDatabaseName;
@@ -60,7 +63,7 @@ public class WSStatement extends AbstractStatement {
     }
 
     @Override
-    public void close() throws SQLException {
+    public synchronized void close() throws SQLException {
         if (!isClosed()) {
             this.connection.unregisterStatement(this.instanceId);
             this.closed.set(true);
@@ -83,18 +86,86 @@ public class WSStatement extends AbstractStatement {
             reqId = ReqId.getReqID();
 
         byte[] sqlBytes = sql.getBytes();
+        Response response = transport.send(Action.BINARY_QUERY.getAction(),
+                reqId, 0, 6, queryHeader(sqlBytes), sqlBytes);
+
+        return handleQueryResp(sql, (QueryResp) response) != null;
+    }
+
+    public CompletableFuture<ResultSet> executeAsync(String sql) {
+        return executeAsync(sql, null);
+    }
+
+    /**
+     * execute a sql without waiting for the response. the future is completed on the driver async executor with the
+     * result set of a query, or null for other statements, whose affected rows are in {@link #getUpdateCount()}.
+     * a response arriving after the statement is closed fails the future with the result set closed.
+     */
+    public CompletableFuture<ResultSet> executeAsync(String sql, Long reqId) {
+        return sendQueryAsync(sql, reqId).thenApplyAsync(response -> {
+            try {
+                return handleQueryResp(sql, response);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+        }, Utils.getAsyncExecutor());
+    }
+
+    public CompletableFuture<Integer> executeUpdateAsync(String sql) {
+        return executeUpdateAsync(sql, null);
+    }
+
+    /**
+     * execute a sql without waiting for the response, see {@link #executeAsync(String, Long)}.
+     * the future is completed with the affected rows, or -1 for a query.
+     */
+    public CompletableFuture<Integer> executeUpdateAsync(String sql, Long reqId) {
+        return sendQueryAsync(sql, reqId).thenApplyAsync(response -> {
+            try {
+                handleQueryResp(sql, response);
+            } catch (SQLException e) {
+                throw new CompletionException(e);
+            }
+            return response.isUpdate() ? response.getAffectedRows() : -1;
+        }, Utils.getAsyncExecutor());
+    }
 
+    private CompletableFuture<QueryResp> sendQueryAsync(String sql, Long reqId) {
+        if (closed.get()) {
+            CompletableFuture<QueryResp> future = new CompletableFuture<>();
+            future.completeExceptionally(TSDBError.createSQLException(TSDBErrorNumbers.ERROR_STATEMENT_CLOSED));
+            return future;
+        }
+
+        if (null == reqId)
+            reqId = ReqId.getReqID();
+
+        byte[] sqlBytes = sql.getBytes();
+        return transport.sendAsync(Action.BINARY_QUERY.getAction(), reqId, 0, 6, queryHeader(sqlBytes), sqlBytes)
+                .thenApply(response -> (QueryResp) response);
+    }
+
+    private static byte[] queryHeader(byte[] sqlBytes) {
         // write version and sqlLen in little endian byte sequence
-        byte[] result = ByteBuffer.allocate(6).order(ByteOrder.LITTLE_ENDIAN).putShort((short)1).putInt(sqlBytes.length).array();
-        Response response = transport.send(Action.BINARY_QUERY.getAction(),
-                reqId, 0, 6, result, sqlBytes);
+        return ByteBuffer.allocate(6).order(ByteOrder.LITTLE_ENDIAN).putShort((short)1).putInt(sqlBytes.length).array();
+    }
 
-        QueryResp queryResp = (QueryResp) response;
-//        BinQueryNewResp binQueryNewResp = (BinQueryNewResp) response;
-//        QueryResp queryResp = binQueryNewResp.getQueryResp();
+    /**
+     * check the query response and update the statement state, the result set of a statement closed meanwhile
+     * is closed at once
+     *
+     * @return the result set of a query, or null for other statements
+     */
+    private synchronized ResultSet handleQueryResp(String sql, QueryResp queryResp) throws SQLException {
         if (Code.SUCCESS.getCode() != queryResp.getCode()) {
             throw TSDBError.createSQLException(queryResp.getCode(), queryResp.getMessage());
         }
+        if (isClosed()) {
+            if (!queryResp.isUpdate()) {
+                new BlockResultSet(this, this.transport, queryResp, this.database, this.zoneId).close();
+            }
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_STATEMENT_CLOSED);
+        }
         if (SqlSyntaxValidator.isUseSql(sql)) {
             this.database = getDatabaseName(sql);
             this.connection.setCatalog(this.database);
@@ -103,12 +174,11 @@ public class WSStatement extends AbstractStatement {
         if (queryResp.isUpdate()) {
             this.resultSet = null;
             this.affectedRows = queryResp.getAffectedRows();
-            return false;
+            return null;
         } else {
             this.resultSet = new BlockResultSet(this, this.transport, queryResp, this.database, this.zoneId);
-            //this.resultSet = new BlockResultSet(this, this.transport, queryResp, this.database, this.zoneId, binQueryNewResp.getFetchBlockNewResp());
             this.affectedRows = -1;
-            return true;
+            return this.resultSet;
         }
     }
 
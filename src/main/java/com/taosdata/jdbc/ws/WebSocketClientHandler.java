@@ -1,5 +1,6 @@
 package com.taosdata.jdbc.ws;
 
+import com.taosdata.jdbc.metrics.Metrics;
 import com.taosdata.jdbc.utils.StringUtils;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.*;
@@ -16,17 +17,20 @@ import java.util.function.Consumer;
 
 public class WebSocketClientHandler extends SimpleChannelInboundHandler<Object> {
     private static final Logger log = LoggerFactory.getLogger(WebSocketClientHandler.class);
-    private final Consumer<String> textMessageHandler;
+    private final Consumer<ByteBuf> textMessageHandler;
     private final Consumer<ByteBuf> binaryMessageHandler;
+    private final Metrics metrics;
 
     public static final AttributeKey<Boolean> LOCAL_INITIATED_CLOSE = AttributeKey.valueOf("localInitiatedClose");
     public static final AttributeKey<Integer> CLOSE_CODE_KEY = AttributeKey.valueOf("closeCodeKey");
     public static final AttributeKey<String> REASON_KEY = AttributeKey.valueOf("reasonKey");
 
-    public WebSocketClientHandler(Consumer<String> textMessageHandler,
-                                  Consumer<ByteBuf> binaryMessageHandler) {
+    public WebSocketClientHandler(Consumer<ByteBuf> textMessageHandler,
+                                  Consumer<ByteBuf> binaryMessageHandler,
+                                  Metrics metrics) {
         this.textMessageHandler = textMessageHandler;
         this.binaryMessageHandler = binaryMessageHandler;
+        this.metrics = metrics;
     }
     @Override
     public void channelInactive(ChannelHandlerContext ctx) {
@@ -78,9 +82,11 @@ public class WebSocketClientHandler extends SimpleChannelInboundHandler<Object>
             ctx.writeAndFlush(pongFrame);
         } else if (frame instanceof TextWebSocketFrame) {
             TextWebSocketFrame textFrame = (TextWebSocketFrame) frame;
-            textMessageHandler.accept(textFrame.text());
+            metrics.bytesReceived(false, textFrame.content().readableBytes());
+            textMessageHandler.accept(textFrame.content());
         } else if (frame instanceof BinaryWebSocketFrame) {
             BinaryWebSocketFrame binaryFrame = (BinaryWebSocketFrame) frame;
+            metrics.bytesReceived(true, binaryFrame.content().readableBytes());
             binaryMessageHandler.accept(binaryFrame.content());
         } else if (frame instanceof CloseWebSocketFrame) {
             int code = ((CloseWebSocketFrame) frame).statusCode();
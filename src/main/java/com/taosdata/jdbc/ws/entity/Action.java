@@ -36,6 +36,8 @@ public enum Action {
 
     //schemaless
     INSERT("insert", CommonResp.class),
+
+    GET_TABLE_VGID("get_table_vgid", TableVgIdResp.class),
     ;
     ;
     private final String action;
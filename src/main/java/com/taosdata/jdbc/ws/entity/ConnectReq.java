@@ -3,6 +3,7 @@ package com.taosdata.jdbc.ws.entity;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.taosdata.jdbc.rs.ConnectionParam;
 import com.taosdata.jdbc.utils.ReqId;
+import com.taosdata.jdbc.ws.BlockCompression;
 
 /**
  * connection request pojo
@@ -24,6 +25,8 @@ public class ConnectReq extends Payload {
     private String app;
     @JsonProperty("ip")
     private String ip;
+    @JsonProperty("block_compression")
+    private Byte blockCompression;
 
     public String getUser() {
         return user;
@@ -82,6 +85,14 @@ public class ConnectReq extends Payload {
         this.ip = ip;
     }
 
+    public Byte getBlockCompression() {
+        return blockCompression;
+    }
+
+    public void setBlockCompression(Byte blockCompression) {
+        this.blockCompression = blockCompression;
+    }
+
     public ConnectReq(ConnectionParam param) {
         this.setReqId(ReqId.getReqID());
         this.setUser(param.getUser());
@@ -90,6 +101,9 @@ public class ConnectReq extends Payload {
         this.setTz(param.getTz());
         this.setApp(param.getAppName());
         this.setIp(param.getAppIp());
+        if (param.isBlockCompression()) {
+            this.setBlockCompression(BlockCompression.COLUMN);
+        }
 
         // Currently, only BI mode is supported. The downstream interface value is 0, so a conversion is performed here.
         if(param.getConnectMode() == ConnectionParam.CONNECT_MODE_BI){
@@ -8,6 +8,10 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 public class ConnectResp extends CommonResp {
     @JsonProperty("version")
     String version;
+    // the block compression accepted by the server, absent if not supported
+    @JsonProperty("block_compression")
+    byte blockCompression;
+
     public String getVersion() {
         return version;
     }
@@ -15,4 +19,12 @@ public class ConnectResp extends CommonResp {
     public void setVersion(String version) {
         this.version = version;
     }
+
+    public byte getBlockCompression() {
+        return blockCompression;
+    }
+
+    public void setBlockCompression(byte blockCompression) {
+        this.blockCompression = blockCompression;
+    }
 }
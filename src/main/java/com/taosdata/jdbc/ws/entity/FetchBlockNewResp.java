@@ -17,13 +17,18 @@ public class FetchBlockNewResp extends Response {
     private int code;
     private String message;
     private short version;
+    private byte compression;
 
     public FetchBlockNewResp(ByteBuf buffer) {
         this.setAction(Action.FETCH_BLOCK_NEW.getAction());
         this.buffer = buffer;
     }
 
-    public void init() {
+    /**
+     * @param requested the compression sent in the request, the response carries the compression byte only when the
+     *                  request asked for one
+     */
+    public void init(byte requested) {
         buffer.readLongLE(); // action id
         version = buffer.readShortLE();
         time = buffer.readLongLE();
@@ -36,6 +41,9 @@ public class FetchBlockNewResp extends Response {
         message = new String(msgBytes, StandardCharsets.UTF_8);
         buffer.readLongLE(); // resultId
         isCompleted = buffer.readByte() != 0;
+        if (requested != 0 && version >= FetchReq.BLOCK_COMPRESSION_VERSION) {
+            compression = buffer.readByte();
+        }
 
         if (isCompleted){
             ReferenceCountUtil.safeRelease(buffer);
@@ -71,4 +79,11 @@ public class FetchBlockNewResp extends Response {
         return version;
     }
 
+    /**
+     * @return {@link com.taosdata.jdbc.ws.BlockCompression#NONE} or the compression of the block in the buffer
+     */
+    public byte getCompression() {
+        return compression;
+    }
+
 }
@@ -7,6 +7,10 @@ import com.taosdata.jdbc.utils.UInt64Deserializer;
 import com.taosdata.jdbc.utils.UInt64Serializer;
 
 public class FetchReq extends Payload {
+    public static final short BLOCK_VERSION = 1;
+    // the request asks for a compression, the response tells the compression of its block
+    public static final short BLOCK_COMPRESSION_VERSION = 2;
+
     @JsonSerialize(using = UInt64Serializer.class)
     @JsonDeserialize(using = UInt64Deserializer.class)
     @JsonProperty("id")
@@ -20,4 +24,16 @@ public class FetchReq extends Payload {
     public void setId(long id) {
         this.id = id;
     }
+
+    /**
+     * @param compression {@link com.taosdata.jdbc.ws.BlockCompression#NONE}, or the compression accepted by the server
+     *                    at connect time
+     * @return the payload of a binary fetch_block_new request after the result id and type
+     */
+    public static byte[] fetchBlockNewPayload(byte compression) {
+        if (compression == 0) {
+            return new byte[]{BLOCK_VERSION, 0};
+        }
+        return new byte[]{BLOCK_COMPRESSION_VERSION, 0, compression};
+    }
 }
@@ -0,0 +1,29 @@
+package com.taosdata.jdbc.ws.entity;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * get the vgroup ids of tables
+ */
+public class TableVgIdReq extends Payload {
+    @JsonProperty("db")
+    private String db;
+    @JsonProperty("tables")
+    private String[] tables;
+
+    public String getDb() {
+        return db;
+    }
+
+    public void setDb(String db) {
+        this.db = db;
+    }
+
+    public String[] getTables() {
+        return tables;
+    }
+
+    public void setTables(String[] tables) {
+        this.tables = tables;
+    }
+}
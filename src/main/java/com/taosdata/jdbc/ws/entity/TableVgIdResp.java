@@ -0,0 +1,19 @@
+package com.taosdata.jdbc.ws.entity;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * vgroup ids in the order of the requested tables
+ */
+public class TableVgIdResp extends CommonResp {
+    @JsonProperty("vg_ids")
+    private int[] vgIds;
+
+    public int[] getVgIds() {
+        return vgIds;
+    }
+
+    public void setVgIds(int[] vgIds) {
+        this.vgIds = vgIds;
+    }
+}
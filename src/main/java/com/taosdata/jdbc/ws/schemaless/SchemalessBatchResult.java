@@ -0,0 +1,49 @@
+package com.taosdata.jdbc.ws.schemaless;
+
+import com.taosdata.jdbc.ws.entity.Code;
+
+/**
+ * result of one schemaless insert request, which may carry several lines
+ */
+public class SchemalessBatchResult {
+    private final int offset;
+    private final int lineCount;
+    private final long reqId;
+    private final int code;
+    private final String message;
+
+    public SchemalessBatchResult(int offset, int lineCount, long reqId, int code, String message) {
+        this.offset = offset;
+        this.lineCount = lineCount;
+        this.reqId = reqId;
+        this.code = code;
+        this.message = message;
+    }
+
+    /**
+     * @return index of the first line of this batch in the input lines
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    public long getReqId() {
+        return reqId;
+    }
+
+    public int getCode() {
+        return code;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public boolean isSuccess() {
+        return code == Code.SUCCESS.getCode();
+    }
+}
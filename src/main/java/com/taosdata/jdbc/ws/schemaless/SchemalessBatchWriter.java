@@ -0,0 +1,191 @@
+package com.taosdata.jdbc.ws.schemaless;
+
+import com.taosdata.jdbc.TSDBErrorNumbers;
+import com.taosdata.jdbc.enums.SchemalessProtocolType;
+import com.taosdata.jdbc.enums.SchemalessTimestampType;
+import com.taosdata.jdbc.ws.Transport;
+import com.taosdata.jdbc.ws.entity.CommonResp;
+import com.taosdata.jdbc.ws.entity.Request;
+import com.taosdata.jdbc.ws.entity.Response;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * websocket schemaless writer, packs many lines into one insert request and keeps several requests in flight.
+ * <p>
+ * line and telnet lines are joined by '\n' until the batch reaches the byte limit, json payloads are sent one
+ * per request because they can not be concatenated. the server takes or rejects a batch as a whole, so one bad
+ * line fails all lines of its batch. the default limit 0 sends one line per request.
+ * <p>
+ * by default one request is in flight, so writing stops at the first failed line and lines are written in order.
+ * with more in flight the requests sent after a failed one may still be written.
+ */
+public class SchemalessBatchWriter {
+    private final Transport transport;
+    private final int batchBytes;
+    private final int maxInflight;
+    private final AtomicLong insertId;
+
+    public SchemalessBatchWriter(Transport transport, int batchBytes, int maxInflight, AtomicLong insertId) {
+        this.transport = transport;
+        this.batchBytes = batchBytes;
+        this.maxInflight = Math.max(1, maxInflight);
+        this.insertId = insertId;
+    }
+
+    /**
+     * write lines in batches, stop sending new batches after the first failed one.
+     *
+     * @param reqId used by every batch, which are then sent one at a time as requests in flight need distinct ids.
+     *              generated ids are used when null
+     * @return results of the batches sent, in the order of the input lines
+     */
+    public List<SchemalessBatchResult> write(String[] lines, SchemalessProtocolType protocolType,
+                                             SchemalessTimestampType timestampType, Integer ttl, Long reqId) {
+        List<int[]> batches = split(lines, protocolType, batchBytes);
+        List<SchemalessBatchResult> results = new ArrayList<>(batches.size());
+        int window = reqId == null ? maxInflight : 1;
+        Deque<PendingBatch> inFlight = new ArrayDeque<>(window);
+
+        for (int i = 0; i < batches.size(); i++) {
+            if (inFlight.size() >= window) {
+                SchemalessBatchResult result = await(inFlight.poll());
+                results.add(result);
+                if (!result.isSuccess()) {
+                    break;
+                }
+            }
+
+            int[] batch = batches.get(i);
+            long id = reqId != null ? reqId : insertId.getAndIncrement();
+            InsertReq insertReq = new InsertReq();
+            insertReq.setReqId(id);
+            insertReq.setProtocol(protocolType.ordinal());
+            insertReq.setPrecision(timestampType.getType());
+            insertReq.setData(join(lines, batch[0], batch[1]));
+            if (ttl != null)
+                insertReq.setTtl(ttl);
+            CompletableFuture<Response> future = transport.sendAsync(new Request(SchemalessAction.INSERT.getAction(), insertReq));
+            inFlight.add(new PendingBatch(batch[0], batch[1], id, future));
+        }
+
+        while (!inFlight.isEmpty()) {
+            results.add(await(inFlight.poll()));
+        }
+        return results;
+    }
+
+    private static SchemalessBatchResult await(PendingBatch batch) {
+        int code;
+        String message;
+        try {
+            CommonResp resp = (CommonResp) batch.future.get();
+            code = resp.getCode();
+            message = resp.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            code = TSDBErrorNumbers.ERROR_UNKNOWN;
+            message = "schemaless insert interrupted";
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof SQLException) {
+                code = ((SQLException) cause).getErrorCode();
+            } else if (cause instanceof TimeoutException) {
+                code = TSDBErrorNumbers.ERROR_QUERY_TIMEOUT;
+            } else {
+                code = TSDBErrorNumbers.ERROR_UNKNOWN;
+            }
+            message = cause.getMessage();
+        }
+        return new SchemalessBatchResult(batch.offset, batch.lineCount, batch.reqId, code, message);
+    }
+
+    /**
+     * split lines into batches of [offset, count] whose joined size does not exceed batchBytes,
+     * a line larger than batchBytes makes up a batch on its own.
+     */
+    static List<int[]> split(String[] lines, SchemalessProtocolType protocolType, int batchBytes) {
+        List<int[]> batches = new ArrayList<>();
+        if (batchBytes <= 0 || protocolType == SchemalessProtocolType.JSON) {
+            for (int i = 0; i < lines.length; i++) {
+                batches.add(new int[]{i, 1});
+            }
+            return batches;
+        }
+
+        int start = 0;
+        long size = 0;
+        for (int i = 0; i < lines.length; i++) {
+            // one byte for the separator
+            long lineSize = utf8Length(lines[i]) + 1L;
+            if (i > start && size + lineSize > batchBytes) {
+                batches.add(new int[]{start, i - start});
+                start = i;
+                size = 0;
+            }
+            size += lineSize;
+        }
+        if (start < lines.length) {
+            batches.add(new int[]{start, lines.length - start});
+        }
+        return batches;
+    }
+
+    static String join(String[] lines, int offset, int count) {
+        if (count == 1) {
+            return lines[offset];
+        }
+        int capacity = 0;
+        for (int i = offset; i < offset + count; i++) {
+            capacity += lines[i].length() + 1;
+        }
+        StringBuilder sb = new StringBuilder(capacity);
+        for (int i = offset; i < offset + count; i++) {
+            if (i > offset) {
+                sb.append('\n');
+            }
+            sb.append(lines[i]);
+        }
+        return sb.toString();
+    }
+
+    static int utf8Length(String s) {
+        int len = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                len += 1;
+            } else if (c < 0x800) {
+                len += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                len += 4;
+                i++;
+            } else {
+                len += 3;
+            }
+        }
+        return len;
+    }
+
+    private static class PendingBatch {
+        private final int offset;
+        private final int lineCount;
+        private final long reqId;
+        private final CompletableFuture<Response> future;
+
+        PendingBatch(int offset, int lineCount, long reqId, CompletableFuture<Response> future) {
+            this.offset = offset;
+            this.lineCount = lineCount;
+            this.reqId = reqId;
+            this.future = future;
+        }
+    }
+}
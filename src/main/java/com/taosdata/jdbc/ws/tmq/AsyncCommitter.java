@@ -0,0 +1,190 @@
+package com.taosdata.jdbc.ws.tmq;
+
+import com.taosdata.jdbc.TSDBError;
+import com.taosdata.jdbc.TSDBErrorNumbers;
+import com.taosdata.jdbc.tmq.TopicPartition;
+import com.taosdata.jdbc.utils.Utils;
+import com.taosdata.jdbc.ws.Transport;
+import com.taosdata.jdbc.ws.entity.Code;
+import com.taosdata.jdbc.ws.tmq.entity.CommitOffsetResp;
+import com.taosdata.jdbc.ws.tmq.entity.CommitResp;
+import com.taosdata.jdbc.ws.tmq.entity.PositionResp;
+import com.taosdata.jdbc.ws.tmq.entity.TMQRequestFactory;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * sends the commits of a consumer without waiting for them.
+ * <p>
+ * offsets committed while a round of commit_offset requests is in flight are merged per partition, the latest offset
+ * wins, and sent as the next round when it completes. a commit by message id commits the position of every
+ * partition, it is sent at once so the server handles it before the next poll of the connection.
+ * <p>
+ * the callbacks of all consumers run in order on one driver wide thread, never on the response dispatch.
+ */
+class AsyncCommitter {
+    static final Executor CALLBACK_EXECUTOR;
+
+    static {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new DefaultThreadFactory("taos-tmq-commit-callback", true));
+        executor.allowCoreThreadTimeOut(true);
+        CALLBACK_EXECUTOR = executor;
+    }
+
+    private final Transport transport;
+    private final TMQRequestFactory factory;
+
+    // offsets waiting for the round in flight and the future of the round they go into
+    private final Map<TopicPartition, Long> pending = new HashMap<>();
+    private CompletableFuture<Void> next;
+    private boolean running;
+    private CompletableFuture<Void> lastCommit = CompletableFuture.completedFuture(null);
+
+    AsyncCommitter(Transport transport, TMQRequestFactory factory) {
+        this.transport = transport;
+        this.factory = factory;
+    }
+
+    /**
+     * commit the offsets with commit_offset requests
+     */
+    synchronized CompletableFuture<Void> commitOffsets(Map<TopicPartition, Long> offsets) {
+        pending.putAll(offsets);
+        if (next == null) {
+            next = new CompletableFuture<>();
+        }
+        CompletableFuture<Void> future = next;
+        if (!running) {
+            sendPending();
+        }
+        return future;
+    }
+
+    /**
+     * commit the position of every partition, then read the positions of the partitions given
+     *
+     * @param messageId 0 if nothing was polled since the last commit, the future follows the last commit then
+     * @return the committed offsets of the partitions given
+     */
+    synchronized CompletableFuture<Map<TopicPartition, Long>> commit(long messageId, TopicPartition[] partitions) {
+        if (messageId != 0) {
+            lastCommit = transport.sendAsync(factory.generateCommit(messageId)).thenAccept(response -> {
+                CommitResp resp = (CommitResp) response;
+                if (Code.SUCCESS.getCode() != resp.getCode()) {
+                    throw new CompletionException(new SQLException("consumer commit error. code: (0x"
+                            + Integer.toHexString(resp.getCode()) + "), message: " + resp.getMessage()));
+                }
+            });
+        }
+        if (partitions.length == 0) {
+            return lastCommit.thenApply(v -> Collections.emptyMap());
+        }
+        // sent right after the commit, before the next poll moves the positions
+        return lastCommit.thenCombine(transport.sendAsync(factory.generatePosition(partitions)), (v, response) -> {
+            PositionResp resp = (PositionResp) response;
+            if (Code.SUCCESS.getCode() != resp.getCode()) {
+                throw new CompletionException(new SQLException("consumer position error, code: (0x"
+                        + Integer.toHexString(resp.getCode()) + "), message: " + resp.getMessage()));
+            }
+            Map<TopicPartition, Long> offsets = new HashMap<>();
+            for (int i = 0; i < partitions.length; i++) {
+                offsets.put(partitions[i], resp.getPosition()[i]);
+            }
+            return offsets;
+        });
+    }
+
+    /**
+     * wait for the commits sent and pending, their failures are left to their futures
+     */
+    void flush(long timeout) {
+        long deadline = System.currentTimeMillis() + timeout;
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            while (running) {
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    return;
+                }
+                try {
+                    wait(wait);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            commit = lastCommit;
+        }
+        try {
+            commit.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ignored) {
+            // reported by the future
+        }
+    }
+
+    /**
+     * send the pending offsets as one round, must hold the lock
+     */
+    private void sendPending() {
+        Map<TopicPartition, Long> offsets = new HashMap<>(pending);
+        pending.clear();
+        CompletableFuture<Void> done = next;
+        next = null;
+        running = true;
+
+        CompletableFuture<?>[] futures = offsets.entrySet().stream()
+                .map(entry -> transport.sendAsync(factory.generateCommitOffset(entry.getKey(), entry.getValue()))
+                        .thenAccept(response -> {
+                            CommitOffsetResp resp = (CommitOffsetResp) response;
+                            if (Code.SUCCESS.getCode() != resp.getCode()) {
+                                throw new CompletionException(new SQLException("consumer commit offset error, code: (0x"
+                                        + Integer.toHexString(resp.getCode()) + "), message: " + resp.getMessage()
+                                        + ", timing: " + resp.getTiming()));
+                            }
+                        }))
+                .toArray(CompletableFuture[]::new);
+        // the last response completes on the dispatch thread, the next round is never sent from there. not on the
+        // callback thread either, a callback waiting in commitSync would wait for itself
+        CompletableFuture.allOf(futures).whenCompleteAsync((v, throwable) -> {
+            if (throwable == null) {
+                done.complete(null);
+            } else {
+                done.completeExceptionally(toSQLException(throwable));
+            }
+            synchronized (this) {
+                if (next != null) {
+                    sendPending();
+                } else {
+                    running = false;
+                    notifyAll();
+                }
+            }
+        }, Utils.getAsyncExecutor());
+    }
+
+    static SQLException toSQLException(Throwable throwable) {
+        Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                ? throwable.getCause() : throwable;
+        if (cause instanceof SQLException) {
+            return (SQLException) cause;
+        }
+        if (cause instanceof TimeoutException) {
+            return TSDBError.createSQLException(TSDBErrorNumbers.ERROR_QUERY_TIMEOUT, cause.getMessage());
+        }
+        return TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNKNOWN, cause.getMessage());
+    }
+}
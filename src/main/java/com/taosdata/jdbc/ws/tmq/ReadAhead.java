@@ -0,0 +1,276 @@
+package com.taosdata.jdbc.ws.tmq;
+
+import com.taosdata.jdbc.enums.TmqMessageType;
+import com.taosdata.jdbc.tmq.TopicPartition;
+import com.taosdata.jdbc.utils.Utils;
+import com.taosdata.jdbc.ws.Transport;
+import com.taosdata.jdbc.ws.entity.Code;
+import com.taosdata.jdbc.ws.entity.Response;
+import com.taosdata.jdbc.ws.tmq.entity.FetchJsonMetaResp;
+import com.taosdata.jdbc.ws.tmq.entity.FetchRawBlockResp;
+import com.taosdata.jdbc.ws.tmq.entity.PollResp;
+import com.taosdata.jdbc.ws.tmq.entity.TMQRequestFactory;
+
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * polls and fetches messages in the background ahead of {@link WSConsumer#poll}, so the next message is on the way
+ * while the application deserializes the current one.
+ * <p>
+ * the server frees a message on the next poll, so a message is fetched before the next poll is sent and there is at
+ * most one request in flight. polling goes on until the buffer is full or a poll returns no message.
+ * <p>
+ * the offset of a message is where it starts. the server position moves past the buffered messages, so a commit
+ * never goes beyond the first message not handed to the application, and {@link #stop()} tells where each partition
+ * has to be rewound to when the buffered messages are dropped.
+ */
+class ReadAhead {
+
+    static final class Message {
+        final PollResp poll;
+        // data message
+        final FetchRawBlockResp raw;
+        // meta message
+        final FetchJsonMetaResp meta;
+
+        Message(PollResp poll, FetchRawBlockResp raw, FetchJsonMetaResp meta) {
+            this.poll = poll;
+            this.raw = raw;
+            this.meta = meta;
+        }
+
+        TopicPartition partition() {
+            return new TopicPartition(poll.getTopic(), poll.getVgroupId());
+        }
+
+        void release() {
+            if (raw != null) {
+                Utils.releaseByteBuf(raw.getBuffer());
+            }
+        }
+    }
+
+    private final Transport transport;
+    private final TMQRequestFactory factory;
+    private final int capacity;
+
+    private final ArrayDeque<Message> messages = new ArrayDeque<>();
+    private SQLException failure;
+    // offset of the last message handed to the application per partition, not committed yet
+    private final Map<TopicPartition, Long> handed = new HashMap<>();
+    private long lastMessageId;
+    private long blockingTime;
+    private boolean running;
+    private boolean paused;
+    private boolean closed;
+    private int waiting;
+
+    ReadAhead(Transport transport, TMQRequestFactory factory, int capacity) {
+        this.transport = transport;
+        this.factory = factory;
+        this.capacity = capacity;
+    }
+
+    /**
+     * forget the messages handed over, for a new subscription
+     */
+    synchronized void reset() {
+        handed.clear();
+        lastMessageId = 0;
+    }
+
+    /**
+     * @return the next message, null if none arrives in the timeout
+     */
+    synchronized Message take(long timeout) throws SQLException {
+        if (timeout > 0) {
+            // a poll for more messages of a batch does not wait, the next ones still may
+            blockingTime = timeout;
+        }
+        long deadline = System.currentTimeMillis() + timeout;
+        waiting++;
+        try {
+            while (true) {
+                Message message = messages.poll();
+                if (message != null) {
+                    fill();
+                    return message;
+                }
+                if (failure != null) {
+                    SQLException e = failure;
+                    failure = null;
+                    throw e;
+                }
+                fill();
+                long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) {
+                    return null;
+                }
+                wait(wait);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            waiting--;
+        }
+    }
+
+    /**
+     * the records of the message have been handed to the application
+     */
+    synchronized void handed(Message message) {
+        handed.put(message.partition(), message.poll.getOffset());
+    }
+
+    /**
+     * @return offsets to commit per partition, the ones failed to commit are given back by {@link #uncommitted(Map)}.
+     * the start of the next message buffered when there is one, else the start of the last message handed over,
+     * which may be delivered again after a restart.
+     */
+    synchronized Map<TopicPartition, Long> toCommit() {
+        Map<TopicPartition, Long> offsets = new HashMap<>(handed);
+        for (Message message : messages) {
+            TopicPartition tp = message.partition();
+            Long offset = handed.remove(tp);
+            if (offset != null && offset < message.poll.getOffset()) {
+                offsets.put(tp, message.poll.getOffset());
+            }
+        }
+        handed.clear();
+        return offsets;
+    }
+
+    synchronized void uncommitted(Map<TopicPartition, Long> offsets) {
+        offsets.forEach(handed::putIfAbsent);
+    }
+
+    /**
+     * stop reading ahead and drop the buffered messages, call {@link #resume()} to go on.
+     *
+     * @return offset to rewind to per partition with dropped messages
+     */
+    synchronized Map<TopicPartition, Long> stop() {
+        paused = true;
+        while (running) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        Map<TopicPartition, Long> rewind = new HashMap<>();
+        for (Message message : messages) {
+            rewind.putIfAbsent(message.partition(), message.poll.getOffset());
+            message.release();
+        }
+        messages.clear();
+        return rewind;
+    }
+
+    synchronized void resume() {
+        paused = false;
+    }
+
+    void close() {
+        stop();
+        synchronized (this) {
+            closed = true;
+        }
+    }
+
+    /**
+     * send the next poll if there is room, must hold the lock
+     */
+    private void fill() {
+        if (running || paused || closed || failure != null || messages.size() >= capacity) {
+            return;
+        }
+        running = true;
+        long messageId = lastMessageId;
+        long blocking = blockingTime;
+        Utils.getForkJoinPool().execute(() -> poll(messageId, blocking));
+    }
+
+    private void poll(long messageId, long blocking) {
+        transport.sendAsync(factory.generatePoll(messageId, blocking))
+                .whenCompleteAsync(this::onPoll, Utils.getForkJoinPool());
+    }
+
+    private void onPoll(Response response, Throwable throwable) {
+        if (throwable != null) {
+            fail(throwable);
+            return;
+        }
+        PollResp pollResp = (PollResp) response;
+        if (Code.SUCCESS.getCode() != pollResp.getCode()) {
+            fail(new SQLException("consumer poll error, code: (0x" + Integer.toHexString(pollResp.getCode())
+                    + "), message: " + pollResp.getMessage()));
+            return;
+        }
+        if (!pollResp.isHaveMessage()) {
+            synchronized (this) {
+                running = false;
+                // go on only for a poll waiting for the message
+                if (waiting > 0) {
+                    fill();
+                }
+                notifyAll();
+            }
+            return;
+        }
+        synchronized (this) {
+            lastMessageId = pollResp.getMessageId();
+        }
+
+        int type = pollResp.getMessageType();
+        if (type == TmqMessageType.TMQ_RES_DATA.getCode()) {
+            transport.sendAsync(factory.generateFetchRaw(pollResp.getMessageId()))
+                    .whenCompleteAsync((r, t) -> onFetched(pollResp, (FetchRawBlockResp) r, null, t), Utils.getForkJoinPool());
+        } else if (type == TmqMessageType.TMQ_RES_TABLE_META.getCode() || type == TmqMessageType.TMQ_RES_METADATA.getCode()) {
+            transport.sendAsync(factory.generateFetchJsonMeata(pollResp.getMessageId()))
+                    .whenCompleteAsync((r, t) -> onFetched(pollResp, null, (FetchJsonMetaResp) r, t), Utils.getForkJoinPool());
+        } else {
+            onFetched(pollResp, null, null, null);
+        }
+    }
+
+    private void onFetched(PollResp pollResp, FetchRawBlockResp raw, FetchJsonMetaResp meta, Throwable throwable) {
+        if (throwable != null) {
+            fail(throwable);
+            return;
+        }
+        if (meta != null && Code.SUCCESS.getCode() != meta.getCode()) {
+            fail(new SQLException("consumer fetch json meta error, code: (0x" + Integer.toHexString(meta.getCode())
+                    + "), message: " + meta.getMessage()));
+            return;
+        }
+        synchronized (this) {
+            if (closed) {
+                if (raw != null) {
+                    Utils.releaseByteBuf(raw.getBuffer());
+                }
+                running = false;
+                notifyAll();
+                return;
+            }
+            messages.add(new Message(pollResp, raw, meta));
+            running = false;
+            fill();
+            notifyAll();
+        }
+    }
+
+    private void fail(Throwable throwable) {
+        SQLException e = AsyncCommitter.toSQLException(throwable);
+        synchronized (this) {
+            failure = e;
+            running = false;
+            notifyAll();
+        }
+    }
+}
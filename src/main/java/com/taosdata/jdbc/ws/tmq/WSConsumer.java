@@ -1,19 +1,16 @@
 package com.taosdata.jdbc.ws.tmq;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectReader;
 import com.taosdata.jdbc.TSDBError;
 import com.taosdata.jdbc.TSDBErrorNumbers;
 import com.taosdata.jdbc.common.Consumer;
 import com.taosdata.jdbc.enums.TmqMessageType;
 import com.taosdata.jdbc.enums.WSFunction;
 import com.taosdata.jdbc.tmq.*;
-import com.taosdata.jdbc.utils.JsonUtil;
 import com.taosdata.jdbc.utils.Utils;
 import com.taosdata.jdbc.utils.VersionUtil;
 import com.taosdata.jdbc.ws.FutureResponse;
 import com.taosdata.jdbc.ws.InFlightRequest;
+import com.taosdata.jdbc.ws.ResponseDecoder;
 import com.taosdata.jdbc.ws.Transport;
 import com.taosdata.jdbc.ws.entity.Action;
 import com.taosdata.jdbc.ws.entity.Code;
@@ -23,11 +20,15 @@ import com.taosdata.jdbc.ws.tmq.entity.*;
 import com.taosdata.jdbc.ws.tmq.meta.Meta;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
 import java.nio.ByteOrder;
 import java.sql.SQLException;
 import java.time.Duration;
 import java.time.ZoneId;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 import static com.taosdata.jdbc.TSDBConstants.MIN_SUPPORT_VERSION;
@@ -40,6 +41,11 @@ public class WSConsumer<V> implements Consumer<V> {
     private long lastCommitTime = 0;
     private long messageId = 0L;
     private long lastMessageId = 0L;
+    // partitions polled since the last commit by message id
+    private final Set<TopicPartition> consumed = new HashSet<>();
+    // null when messages are polled on demand
+    private ReadAhead readAhead;
+    private AsyncCommitter committer;
 
     private Collection<String> topics;
     @Override
@@ -47,19 +53,19 @@ public class WSConsumer<V> implements Consumer<V> {
         factory = new TMQRequestFactory();
         param = new ConsumerParam(properties);
         InFlightRequest inFlightRequest = new InFlightRequest(param.getConnectionParam().getRequestTimeout()
-                , param.getConnectionParam().getMaxRequest());
+                , param.getConnectionParam().getMaxRequest(), param.getConnectionParam().getRequestWaitPolicy());
 
-        param.getConnectionParam().setTextMessageHandler(message -> {
+        param.getConnectionParam().setTextFrameHandler(message -> {
             try {
-                JsonNode jsonObject = JsonUtil.getObjectReader().readTree(message);
-                ConsumerAction action = ConsumerAction.of(jsonObject.get("action").asText());
-                ObjectReader actionReader = JsonUtil.getObjectReader(action.getResponseClazz());
-                Response response = actionReader.treeToValue(jsonObject, action.getResponseClazz());
+                Response response = ResponseDecoder.TMQ.decode(message);
+                if (null == response) {
+                    return;
+                }
                 FutureResponse remove = inFlightRequest.remove(response.getAction(), response.getReqId());
                 if (null != remove) {
                     remove.getFuture().complete(response);
                 }
-            } catch (JsonProcessingException e) {
+            } catch (IOException e) {
                 log.error("Error processing message", e);
             }
         });
@@ -79,10 +85,18 @@ public class WSConsumer<V> implements Consumer<V> {
 
         transport = new Transport(WSFunction.TMQ, param.getConnectionParam(), inFlightRequest);
         transport.checkConnection(param.getConnectionParam().getConnectTimeout());
+        committer = new AsyncCommitter(transport, factory);
+        if (param.getReadAheadMessages() > 0) {
+            readAhead = new ReadAhead(transport, factory, param.getReadAheadMessages());
+        }
     }
 
     @Override
     public void subscribe(Collection<String> topics) throws SQLException {
+        if (readAhead != null) {
+            // the buffered messages belong to the former subscription
+            readAhead.stop();
+        }
         Request request = factory.generateSubscribe(param
                 , topics.toArray(new String[0])
                 , String.valueOf(false)
@@ -103,10 +117,17 @@ public class WSConsumer<V> implements Consumer<V> {
         }
 
         this.topics = topics;
+        if (readAhead != null) {
+            readAhead.reset();
+            readAhead.resume();
+        }
     }
 
     @Override
     public void unsubscribe() throws SQLException {
+        if (readAhead != null) {
+            readAhead.stop();
+        }
         Request request = factory.generateUnsubscribe();
         UnsubscribeResp response = (UnsubscribeResp) transport.send(request);
         if (Code.SUCCESS.getCode() != response.getCode()) {
@@ -136,19 +157,91 @@ public class WSConsumer<V> implements Consumer<V> {
         }
     }
 
-    @SuppressWarnings("unchecked")
     private ConsumerRecords<V> doPoll(Duration timeout, Deserializer<V> deserializer) throws SQLException{
-        if (param.isAutoCommit() && (0 != messageId)) {
-            long now = System.currentTimeMillis();
-            if (now - lastCommitTime > param.getAutoCommitInterval()) {
-                commitSync();
-                lastCommitTime = now;
+        autoCommit();
+
+        if (!param.isBatchPoll()) {
+            if (readAhead != null) {
+                ReadAhead.Message message = readAhead.take(timeout.toMillis());
+                if (message == null) {
+                    return ConsumerRecords.emptyRecord();
+                }
+                ConsumerRecords<V> records = handleMessage(message.poll, message.meta, message.raw, deserializer);
+                readAhead.handed(message);
+                return records;
+            }
+
+            Request request = factory.generatePoll(lastMessageId, timeout.toMillis());
+            PollResp pollResp = (PollResp) transport.send(request);
+            return handlePollResp(pollResp, deserializer);
+        }
+
+        // only the first message is waited for, the batch goes on with the messages already available
+        ConsumerRecords<V> records = new ConsumerRecords<>();
+        int count = 0;
+        long bytes = 0;
+        long blockingTime = timeout.toMillis();
+        while ((param.getMaxPollRecords() == 0 || count < param.getMaxPollRecords())
+                && (param.getFetchMaxBytes() == 0 || bytes < param.getFetchMaxBytes())) {
+            ReadAhead.Message message = nextMessage(blockingTime);
+            if (message == null) {
+                break;
             }
+            blockingTime = 0;
+            if (message.raw != null) {
+                bytes += message.raw.getBuffer().readableBytes();
+            }
+            ConsumerRecords<V> messageRecords = handleMessage(message.poll, message.meta, message.raw, deserializer);
+            if (readAhead != null) {
+                readAhead.handed(message);
+            }
+            for (TopicPartition tp : messageRecords.partitions()) {
+                for (ConsumerRecord<V> r : messageRecords.get(tp)) {
+                    records.put(tp, r);
+                }
+            }
+            count += messageRecords.count();
+        }
+        return records.isEmpty() ? ConsumerRecords.emptyRecord() : records;
+    }
+
+    /**
+     * poll the next message and fetch its data or meta
+     *
+     * @return null if none arrives in the blocking time
+     */
+    private ReadAhead.Message nextMessage(long blockingTime) throws SQLException {
+        if (readAhead != null) {
+            return readAhead.take(blockingTime);
+        }
+
+        PollResp pollResp = (PollResp) transport.send(factory.generatePoll(lastMessageId, blockingTime));
+        if (Code.SUCCESS.getCode() != pollResp.getCode()) {
+            throw new SQLException("consumer poll error, code: (0x" + Integer.toHexString(pollResp.getCode()) + "), message: " + pollResp.getMessage());
         }
+        if (!pollResp.isHaveMessage()) {
+            return null;
+        }
+        messageId = pollResp.getMessageId();
+        lastMessageId = messageId;
+        consumed.add(new TopicPartition(pollResp.getTopic(), pollResp.getVgroupId()));
 
-        Request request = factory.generatePoll(lastMessageId, timeout.toMillis());
-        PollResp pollResp = (PollResp) transport.send(request);
+        int type = pollResp.getMessageType();
+        if (type == TmqMessageType.TMQ_RES_DATA.getCode()) {
+            FetchRawBlockResp raw = (FetchRawBlockResp) transport.send(factory.generateFetchRaw(messageId));
+            return new ReadAhead.Message(pollResp, raw, null);
+        }
+        if (type == TmqMessageType.TMQ_RES_TABLE_META.getCode() || type == TmqMessageType.TMQ_RES_METADATA.getCode()) {
+            FetchJsonMetaResp meta = (FetchJsonMetaResp) transport.send(factory.generateFetchJsonMeata(messageId));
+            if (Code.SUCCESS.getCode() != meta.getCode()) {
+                throw new SQLException("consumer fetch json meta error, code: (0x" + Integer.toHexString(meta.getCode()) + "), message: " + meta.getMessage());
+            }
+            return new ReadAhead.Message(pollResp, null, meta);
+        }
+        return new ReadAhead.Message(pollResp, null, null);
+    }
 
+    private ConsumerRecords<V> handlePollResp(PollResp pollResp, Deserializer<V> deserializer) throws SQLException {
         if (Code.SUCCESS.getCode() != pollResp.getCode()) {
             throw new SQLException("consumer poll error, code: (0x" + Integer.toHexString(pollResp.getCode()) + "), message: " + pollResp.getMessage());
         }
@@ -158,12 +251,24 @@ public class WSConsumer<V> implements Consumer<V> {
 
         messageId = pollResp.getMessageId();
         lastMessageId = messageId;
+        consumed.add(new TopicPartition(pollResp.getTopic(), pollResp.getVgroupId()));
+        return handleMessage(pollResp, null, null, deserializer);
+    }
 
+    /**
+     * @param fetchJsonMetaResp meta of a meta message read ahead, null to fetch it
+     * @param fetchRawResp      data of a data message read ahead, null to fetch it
+     */
+    @SuppressWarnings("unchecked")
+    private ConsumerRecords<V> handleMessage(PollResp pollResp, FetchJsonMetaResp fetchJsonMetaResp,
+                                             FetchRawBlockResp fetchRawResp, Deserializer<V> deserializer) throws SQLException {
         if (pollResp.getMessageType() == TmqMessageType.TMQ_RES_TABLE_META.getCode() || pollResp.getMessageType() == TmqMessageType.TMQ_RES_METADATA.getCode()) {
-            Request fetchJsonMetaReq = factory.generateFetchJsonMeata(pollResp.getMessageId());
-            FetchJsonMetaResp fetchJsonMetaResp = (FetchJsonMetaResp) transport.send(fetchJsonMetaReq);
-            if (Code.SUCCESS.getCode() != fetchJsonMetaResp.getCode()) {
-                throw new SQLException("consumer fetch json meta error, code: (0x" + Integer.toHexString(fetchJsonMetaResp.getCode()) + "), message: " + fetchJsonMetaResp.getMessage());
+            if (fetchJsonMetaResp == null) {
+                Request fetchJsonMetaReq = factory.generateFetchJsonMeata(pollResp.getMessageId());
+                fetchJsonMetaResp = (FetchJsonMetaResp) transport.send(fetchJsonMetaReq);
+                if (Code.SUCCESS.getCode() != fetchJsonMetaResp.getCode()) {
+                    throw new SQLException("consumer fetch json meta error, code: (0x" + Integer.toHexString(fetchJsonMetaResp.getCode()) + "), message: " + fetchJsonMetaResp.getMessage());
+                }
             }
 
             if (fetchJsonMetaResp.getData() == null || fetchJsonMetaResp.getData().getMetas() == null) {
@@ -194,7 +299,8 @@ public class WSConsumer<V> implements Consumer<V> {
         }
 
         ConsumerRecords<V> records = new ConsumerRecords<>();
-        try (WSConsumerResultSet rs = new WSConsumerResultSet(transport, factory, pollResp.getMessageId(), pollResp.getDatabase(), param.getConnectionParam().getZoneId())) {
+        try (WSConsumerResultSet rs = new WSConsumerResultSet(transport, factory, pollResp.getMessageId(), pollResp.getDatabase(),
+                param.getConnectionParam().getZoneId(), fetchRawResp)) {
             if (deserializer instanceof MapEnhanceDeserializer){
                 ConsumerRecords<TMQEnhMap> resultRecords = rs.handleSubscribeDB(pollResp);
                 return (ConsumerRecords<V>) resultRecords;
@@ -227,49 +333,227 @@ public class WSConsumer<V> implements Consumer<V> {
         try {
             return doPoll(timeout, deserializer);
         } catch (SQLException e) {
-            if ((e.getErrorCode() == TSDBErrorNumbers.ERROR_CONNECTION_CLOSED
-                    && !transport.isClosed()
-                    && this.param.getConnectionParam().isEnableAutoConnect()
-                    && handleReconnect())) {
-                // when reconnect success, skip once auto commit for the message id is invalid
-                messageId = 0;
-                return ConsumerRecords.emptyRecord();
-            }
-            // time out due to connection lost
-            if (e.getErrorCode() == TSDBErrorNumbers.ERROR_QUERY_TIMEOUT
-                    && !transport.isClosed()
-                    && transport.isConnectionLost()
-                    && handleReconnect()) {
-                messageId = 0;
+            if (recoverPoll(e)) {
                 return ConsumerRecords.emptyRecord();
             }
             throw e;
         }
     }
 
+    /**
+     * poll without parking the caller thread. the commit and poll requests are sent asynchronously, the records
+     * are built on the driver's async executor since fetching the message data needs more blocking round trips.
+     * the consumer is not thread safe, do not call other methods before the returned future is completed.
+     */
+    public CompletableFuture<ConsumerRecords<V>> pollAsync(Duration timeout, Deserializer<V> deserializer) {
+        if (readAhead != null || param.isBatchPoll()) {
+            // the messages are already on the way or several round trips are needed, wait for them on the executor
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return poll(timeout, deserializer);
+                } catch (SQLException e) {
+                    throw new CompletionException(e);
+                }
+            }, Utils.getAsyncExecutor());
+        }
+        autoCommit();
+        return transport.sendAsync(factory.generatePoll(lastMessageId, timeout.toMillis()))
+                .thenApplyAsync(response -> {
+                    try {
+                        return handlePollResp((PollResp) response, deserializer);
+                    } catch (SQLException e) {
+                        throw new CompletionException(e);
+                    }
+                }, Utils.getAsyncExecutor())
+                .handleAsync((records, throwable) -> {
+                    if (throwable == null) {
+                        return records;
+                    }
+                    Throwable cause = throwable instanceof CompletionException && throwable.getCause() != null
+                            ? throwable.getCause() : throwable;
+                    SQLException e;
+                    if (cause instanceof SQLException) {
+                        e = (SQLException) cause;
+                    } else if (cause instanceof TimeoutException) {
+                        e = TSDBError.createSQLException(TSDBErrorNumbers.ERROR_QUERY_TIMEOUT, cause.getMessage());
+                    } else {
+                        throw new CompletionException(cause);
+                    }
+                    try {
+                        if (recoverPoll(e)) {
+                            return ConsumerRecords.<V>emptyRecord();
+                        }
+                    } catch (SQLException ex) {
+                        throw new CompletionException(ex);
+                    }
+                    throw new CompletionException(e);
+                }, Utils.getAsyncExecutor());
+    }
+
+    /**
+     * commit the records handed over when the interval is up, without waiting for the commit.
+     * a failed commit is left to the next one.
+     */
+    private void autoCommit() {
+        if (!param.isAutoCommit() || (0 == messageId && readAhead == null)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (now - lastCommitTime <= param.getAutoCommitInterval()) {
+            return;
+        }
+        lastCommitTime = now;
+
+        if (readAhead != null) {
+            Map<TopicPartition, Long> offsets = readAhead.toCommit();
+            if (offsets.isEmpty()) {
+                return;
+            }
+            committer.commitOffsets(offsets).whenComplete((v, throwable) -> {
+                if (throwable != null) {
+                    readAhead.uncommitted(offsets);
+                    log.warn("consumer auto commit error", throwable);
+                }
+            });
+            return;
+        }
+        committer.commit(messageId, new TopicPartition[0]).whenComplete((v, throwable) -> {
+            if (throwable != null) {
+                log.warn("consumer auto commit error", throwable);
+            }
+        });
+        messageId = 0;
+        consumed.clear();
+    }
+
+    /**
+     * @return true if the connection is recovered from the poll error and an empty result should be returned
+     */
+    private boolean recoverPoll(SQLException e) throws SQLException {
+        if ((e.getErrorCode() == TSDBErrorNumbers.ERROR_CONNECTION_CLOSED
+                && !transport.isClosed()
+                && this.param.getConnectionParam().isEnableAutoConnect()
+                && handleReconnect())) {
+            // when reconnect success, skip once auto commit for the message id is invalid
+            messageId = 0;
+            consumed.clear();
+            return true;
+        }
+        // time out due to connection lost
+        if (e.getErrorCode() == TSDBErrorNumbers.ERROR_QUERY_TIMEOUT
+                && !transport.isClosed()
+                && transport.isConnectionLost()
+                && handleReconnect()) {
+            messageId = 0;
+            consumed.clear();
+            return true;
+        }
+        return false;
+    }
+
     @Override
     public synchronized void commitSync() throws SQLException {
+        // an async commit still in flight must not overwrite this one
+        committer.flush(param.getConnectionParam().getRequestTimeout());
+        if (readAhead != null) {
+            // a commit by message id would commit the messages read ahead too
+            Map<TopicPartition, Long> offsets = readAhead.toCommit();
+            try {
+                for (Map.Entry<TopicPartition, Long> entry : offsets.entrySet()) {
+                    commitOffset(entry.getKey(), entry.getValue());
+                }
+            } catch (SQLException e) {
+                readAhead.uncommitted(offsets);
+                throw e;
+            }
+            return;
+        }
         if (0 != messageId) {
             CommitResp commitResp = (CommitResp) transport.send(factory.generateCommit(messageId));
             if (Code.SUCCESS.getCode() != commitResp.getCode()) {
                 throw new SQLException("consumer commit error. code: (0x" + Integer.toHexString(commitResp.getCode()) + "), message: " + commitResp.getMessage());
             }
             messageId = 0;
+            consumed.clear();
         }
     }
 
     @Override
     public void close() throws SQLException {
+        committer.flush(param.getConnectionParam().getRequestTimeout());
         transport.close();
+        if (readAhead != null) {
+            readAhead.close();
+        }
     }
 
     @Override
     public void commitAsync(OffsetCommitCallback<V> callback) {
-        // nothing to do
+        if (readAhead != null) {
+            Map<TopicPartition, Long> offsets = readAhead.toCommit();
+            committer.commitOffsets(offsets).whenCompleteAsync((v, throwable) -> {
+                if (throwable != null) {
+                    readAhead.uncommitted(offsets);
+                }
+                callback.onComplete(toMetadata(offsets), throwable == null ? null : AsyncCommitter.toSQLException(throwable));
+            }, AsyncCommitter.CALLBACK_EXECUTOR);
+            return;
+        }
+
+        long id = messageId;
+        TopicPartition[] partitions = consumed.toArray(new TopicPartition[0]);
+        messageId = 0;
+        consumed.clear();
+        committer.commit(id, partitions).whenCompleteAsync((offsets, throwable) -> {
+            if (throwable != null) {
+                callback.onComplete(Collections.emptyMap(), AsyncCommitter.toSQLException(throwable));
+            } else {
+                callback.onComplete(toMetadata(offsets), null);
+            }
+        }, AsyncCommitter.CALLBACK_EXECUTOR);
+    }
+
+    private static Map<TopicPartition, OffsetAndMetadata> toMetadata(Map<TopicPartition, Long> offsets) {
+        Map<TopicPartition, OffsetAndMetadata> map = new HashMap<>();
+        offsets.forEach((tp, offset) -> map.put(tp, new OffsetAndMetadata(offset)));
+        return map;
     }
 
     @Override
     public void seek(TopicPartition partition, long offset) throws SQLException {
+        if (readAhead == null) {
+            doSeek(partition, offset);
+            return;
+        }
+        Map<TopicPartition, Long> rewind = readAhead.stop();
+        rewind.put(partition, offset);
+        try {
+            for (Map.Entry<TopicPartition, Long> entry : rewind.entrySet()) {
+                doSeek(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            readAhead.resume();
+        }
+    }
+
+    /**
+     * drop the messages read ahead and move the partitions back to where the application is
+     */
+    private void rewind() throws SQLException {
+        if (readAhead == null) {
+            return;
+        }
+        Map<TopicPartition, Long> rewind = readAhead.stop();
+        try {
+            for (Map.Entry<TopicPartition, Long> entry : rewind.entrySet()) {
+                doSeek(entry.getKey(), entry.getValue());
+            }
+        } finally {
+            readAhead.resume();
+        }
+    }
+
+    private void doSeek(TopicPartition partition, long offset) throws SQLException {
         Request request = factory.generateSeek(partition.getTopic(), partition.getVGroupId(), offset);
         SeekResp resp = (SeekResp) transport.send(request);
         if (Code.SUCCESS.getCode() != resp.getCode()) {
@@ -280,6 +564,7 @@ public class WSConsumer<V> implements Consumer<V> {
 
     @Override
     public long position(TopicPartition partition) throws SQLException {
+        rewind();
         Request request = factory.generatePosition(new TopicPartition[]{partition});
         PositionResp resp = (PositionResp) transport.send(request);
         if (Code.SUCCESS.getCode() != resp.getCode()) {
@@ -291,6 +576,7 @@ public class WSConsumer<V> implements Consumer<V> {
 
     @Override
     public Map<TopicPartition, Long> position(String topic) throws SQLException {
+        rewind();
         TopicPartition[] topicPartitions = Arrays.stream(getAssignment(topic))
                 .map(a -> new TopicPartition(topic, a.getVgId()))
                 .toArray(TopicPartition[]::new);
@@ -398,22 +684,35 @@ public class WSConsumer<V> implements Consumer<V> {
 
     @Override
     public void commitSync(Map<TopicPartition, OffsetAndMetadata> offsets) throws SQLException {
+        committer.flush(param.getConnectionParam().getRequestTimeout());
         for (Map.Entry<TopicPartition, OffsetAndMetadata> entry : offsets.entrySet()) {
             if (entry.getValue().offset() < 0) {
                 continue;
             }
-            Request request = factory.generateCommitOffset(entry.getKey(), entry.getValue().offset());
-            CommitOffsetResp resp = (CommitOffsetResp) transport.send(request);
-            if (Code.SUCCESS.getCode() != resp.getCode()) {
-                throw new SQLException("consumer commit offset error, code: (0x" + Integer.toHexString(resp.getCode())
-                        + "), message: " + resp.getMessage() + ", timing: " + resp.getTiming());
-            }
+            commitOffset(entry.getKey(), entry.getValue().offset());
+        }
+    }
+
+    private void commitOffset(TopicPartition partition, long offset) throws SQLException {
+        Request request = factory.generateCommitOffset(partition, offset);
+        CommitOffsetResp resp = (CommitOffsetResp) transport.send(request);
+        if (Code.SUCCESS.getCode() != resp.getCode()) {
+            throw new SQLException("consumer commit offset error, code: (0x" + Integer.toHexString(resp.getCode())
+                    + "), message: " + resp.getMessage() + ", timing: " + resp.getTiming());
         }
     }
 
     @Override
     public void commitAsync(Map<TopicPartition, OffsetAndMetadata> offsets, OffsetCommitCallback<V> callback) {
-        callback.onComplete(offsets, TSDBError.createSQLException(TSDBErrorNumbers.ERROR_UNSUPPORTED_METHOD));
+        Map<TopicPartition, Long> commit = new HashMap<>();
+        offsets.forEach((tp, offset) -> {
+            if (offset.offset() >= 0) {
+                commit.put(tp, offset.offset());
+            }
+        });
+        committer.commitOffsets(commit).whenCompleteAsync((v, throwable) ->
+                callback.onComplete(offsets, throwable == null ? null : AsyncCommitter.toSQLException(throwable)),
+                AsyncCommitter.CALLBACK_EXECUTOR);
     }
 
     private Assignment[] getAssignment(String topic) throws SQLException {
@@ -8,6 +8,7 @@ import com.taosdata.jdbc.rs.RestfulResultSetMetaData;
 import com.taosdata.jdbc.tmq.*;
 import com.taosdata.jdbc.utils.DataTypeConverUtil;
 import com.taosdata.jdbc.utils.DateTimeUtils;
+import com.taosdata.jdbc.utils.Utils;
 import com.taosdata.jdbc.ws.Transport;
 import com.taosdata.jdbc.ws.entity.Code;
 import com.taosdata.jdbc.ws.entity.Request;
@@ -30,6 +31,8 @@ public class WSConsumerResultSet extends AbstractResultSet {
     private final TMQRequestFactory factory;
     private final long messageId;
     private final String database;
+    // fetched ahead by the consumer, null to fetch on demand
+    private FetchRawBlockResp fetched;
 
     protected volatile boolean isClosed;
     // meta
@@ -45,6 +48,12 @@ public class WSConsumerResultSet extends AbstractResultSet {
     protected final boolean varcharAsString;
 
     public WSConsumerResultSet(Transport transport, TMQRequestFactory factory, long messageId, String database, ZoneId zoneId) {
+        this(transport, factory, messageId, database, zoneId, null);
+    }
+
+    public WSConsumerResultSet(Transport transport, TMQRequestFactory factory, long messageId, String database, ZoneId zoneId,
+                               FetchRawBlockResp fetched) {
+        this.fetched = fetched;
         this.transport = transport;
         this.factory = factory;
         this.messageId = messageId;
@@ -80,14 +89,9 @@ public class WSConsumerResultSet extends AbstractResultSet {
             return false;
         }
 
-        Request request = factory.generateFetchRaw(messageId);
-        FetchRawBlockResp fetchResp = (FetchRawBlockResp) transport.send(request);
-        fetchResp.init();
-
-        if (Code.SUCCESS.getCode() != fetchResp.getCode())
-            throw TSDBError.createSQLException(fetchResp.getCode(), fetchResp.getMessage());
-
+        FetchRawBlockResp fetchResp = fetchRaw();
         fetchResp.parseBlockInfos();
+        transport.getMetrics().blocksDecoded(fetchResp.getBlocks(), fetchResp.getRows());
 
         this.reset();
         if (fetchResp.getRows() == 0)
@@ -104,21 +108,34 @@ public class WSConsumerResultSet extends AbstractResultSet {
     }
 
     public ConsumerRecords<TMQEnhMap> handleSubscribeDB(PollResp pollResp) throws SQLException {
+        FetchRawBlockResp fetchResp = fetchRaw();
+        return fetchResp.getEhnMapList(pollResp, zoneId, varcharAsString);
+    }
 
-        Request request = factory.generateFetchRaw(messageId);
-        FetchRawBlockResp fetchResp = (FetchRawBlockResp) transport.send(request);
+    private FetchRawBlockResp fetchRaw() throws SQLException {
+        FetchRawBlockResp fetchResp = fetched;
+        fetched = null;
+        if (fetchResp == null) {
+            Request request = factory.generateFetchRaw(messageId);
+            fetchResp = (FetchRawBlockResp) transport.send(request);
+        }
         fetchResp.init();
 
-        if (Code.SUCCESS.getCode() != fetchResp.getCode())
+        if (Code.SUCCESS.getCode() != fetchResp.getCode()) {
+            Utils.releaseByteBuf(fetchResp.getBuffer());
             throw TSDBError.createSQLException(fetchResp.getCode(), fetchResp.getMessage());
-
-        return fetchResp.getEhnMapList(pollResp, zoneId, varcharAsString);
+        }
+        return fetchResp;
     }
 
     @Override
     public synchronized void close() throws SQLException {
         if (!this.isClosed) {
             this.isClosed = true;
+            if (fetched != null) {
+                Utils.releaseByteBuf(fetched.getBuffer());
+                fetched = null;
+            }
         }
     }
 
@@ -64,6 +64,9 @@ public class ConsumerParam {
         knownKeys.add(TMQConstants.VALUE_DESERIALIZER_ENCODING);
         knownKeys.add(TMQConstants.CONNECT_TYPE);
         knownKeys.add(TMQConstants.CONNECT_URL);
+        knownKeys.add(TMQConstants.READ_AHEAD_MESSAGES);
+        knownKeys.add(TMQConstants.MAX_POLL_RECORDS);
+        knownKeys.add(TMQConstants.FETCH_MAX_BYTES);
     }
 
     private ConnectionParam connectionParam;
@@ -74,6 +77,9 @@ public class ConsumerParam {
     private long autoCommitInterval;
     private String msgWithTableName;
     private String enableBatchMeta;
+    private int readAheadMessages;
+    private int maxPollRecords;
+    private long fetchMaxBytes;
 
     private HashMap<String, String> config = new HashMap<>();
 
@@ -107,6 +113,18 @@ public class ConsumerParam {
 
         msgWithTableName = properties.getProperty(TMQConstants.MSG_WITH_TABLE_NAME);
         enableBatchMeta = properties.getProperty(TMQConstants.MSG_ENABLE_BATCH_META, null);
+        readAheadMessages = Integer.parseInt(properties.getProperty(TMQConstants.READ_AHEAD_MESSAGES, "0"));
+        if (readAheadMessages < 0) {
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_TMQ_CONF_ERROR, "readAheadMessages must not be negative");
+        }
+        maxPollRecords = Integer.parseInt(properties.getProperty(TMQConstants.MAX_POLL_RECORDS, "0"));
+        if (maxPollRecords < 0) {
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_TMQ_CONF_ERROR, "maxPollRecords must not be negative");
+        }
+        fetchMaxBytes = Long.parseLong(properties.getProperty(TMQConstants.FETCH_MAX_BYTES, "0"));
+        if (fetchMaxBytes < 0) {
+            throw TSDBError.createSQLException(TSDBErrorNumbers.ERROR_TMQ_CONF_ERROR, "fetchMaxBytes must not be negative");
+        }
 
         for (String key : properties.stringPropertyNames()) {
             if (!knownKeys.contains(key)) {
@@ -175,6 +193,25 @@ public class ConsumerParam {
         this.enableBatchMeta = enableBatchMeta;
     }
 
+    public int getReadAheadMessages() {
+        return readAheadMessages;
+    }
+
+    public int getMaxPollRecords() {
+        return maxPollRecords;
+    }
+
+    public long getFetchMaxBytes() {
+        return fetchMaxBytes;
+    }
+
+    /**
+     * @return true if a poll may return more than one message
+     */
+    public boolean isBatchPoll() {
+        return maxPollRecords > 0 || fetchMaxBytes > 0;
+    }
+
     public HashMap<String, String> getConfig() {
         return config;
     }
@@ -1,5 +1,6 @@
 package com.taosdata.jdbc.ws.tmq.entity;
 
+import com.taosdata.jdbc.RawBlock;
 import com.taosdata.jdbc.TSDBError;
 import com.taosdata.jdbc.common.TDBlob;
 import com.taosdata.jdbc.enums.DataType;
@@ -9,12 +10,10 @@ import com.taosdata.jdbc.rs.RestfulResultSetMetaData;
 import com.taosdata.jdbc.tmq.*;
 import com.taosdata.jdbc.utils.DataTypeConverUtil;
 import com.taosdata.jdbc.utils.DateTimeUtils;
-import com.taosdata.jdbc.utils.DecimalUtil;
 import com.taosdata.jdbc.utils.Utils;
 import com.taosdata.jdbc.ws.tmq.ConsumerAction;
 import com.taosdata.jdbc.ws.entity.Response;
 
-import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.sql.Timestamp;
@@ -47,6 +46,7 @@ public class FetchRawBlockResp extends Response {
     private List<List<Object>> resultData;
     private byte precision;
     private int rows = 0;
+    private int blocks = 0;
     private String tableName = "";
 
     public FetchRawBlockResp(ByteBuf buffer){
@@ -121,6 +121,7 @@ public class FetchRawBlockResp extends Response {
     public void parseBlockInfos() throws SQLException {
         skipHead();
         int blockNum = buffer.readIntLE();
+        blocks = blockNum;
         int cols = 0;
 
         boolean withTableName = buffer.readByte() != 0;// skip withTableName
@@ -312,219 +313,26 @@ public class FetchRawBlockResp extends Response {
         buffer.skipBytes(nameLen);
     }
 
-    private int getScaleFromRowBlock(ByteBuf buffer, int pHeader, int colIndex) {
-        // for decimal: |___bytes___|__empty__|___prec___|__scale___|
-        int backupPos = buffer.readerIndex();
-        buffer.readerIndex(pHeader);
-        buffer.skipBytes(colIndex * 5 + 1);
-        int scale = buffer.readIntLE();
-        buffer.readerIndex(backupPos);
-        return scale & 0xFF;
-    }
-
-    private void fetchBlockData() throws SQLException {
-        buffer.skipBytes(8);
-        int numOfRows = buffer.readIntLE();
-        int bitMapOffset = bitmapLen(numOfRows);
-        int beforeColLenPos = buffer.readerIndex() + 16;
-
-        int pHeader = buffer.readerIndex() + 16 + fields.size() * 5;
-        buffer.readerIndex(pHeader);
-        List<Integer> lengths = new ArrayList<>(fields.size());
-        for (int i = 0; i < fields.size(); i++) {
-            lengths.add(buffer.readIntLE());
+    private void fetchBlockData() {
+        int[] types = new int[fields.size()];
+        for (int i = 0; i < types.length; i++) {
+            types[i] = fields.get(i).getTaosType();
         }
-        pHeader = buffer.readerIndex();
-        int length = 0;
-        for (int i = 0; i < fields.size(); i++) {
+        RawBlock block = new RawBlock(buffer, buffer.readerIndex(), types);
+        int numOfRows = block.getRows();
+        for (int i = 0; i < types.length; i++) {
             List<Object> col = resultData.get(i);
-            int type = fields.get(i).getTaosType();
-            int scale = 0;
-            if (type == TSDB_DATA_TYPE_DECIMAL128 || type == TSDB_DATA_TYPE_DECIMAL64) {
-                scale = getScaleFromRowBlock(buffer, beforeColLenPos, i);
-            }
-            switch (type) {
-                case TSDB_DATA_TYPE_BOOL:
-                case TSDB_DATA_TYPE_TINYINT:
-                case TSDB_DATA_TYPE_UTINYINT: {
-                    length = bitMapOffset;
-                    byte[] tmp = new byte[bitMapOffset];
-                    buffer.readBytes(tmp);
-                    for (int j = 0; j < numOfRows; j++) {
-                        byte b = buffer.readByte();
-                        if (isNull(tmp, j)) {
-                            col.add(null);
-                        } else {
-                            col.add(b);
-                        }
-                    }
-                    break;
-                }
-                case TSDB_DATA_TYPE_SMALLINT:
-                case TSDB_DATA_TYPE_USMALLINT: {
-                    length = bitMapOffset;
-                    byte[] tmp = new byte[bitMapOffset];
-                    buffer.readBytes(tmp);
-                    for (int j = 0; j < numOfRows; j++) {
-                        short s = buffer.readShortLE();
-                        if (isNull(tmp, j)) {
-                            col.add(null);
-                        } else {
-                            col.add(s);
-                        }
-                    }
-                    break;
-                }
-                case TSDB_DATA_TYPE_INT:
-                case TSDB_DATA_TYPE_UINT: {
-                    length = bitMapOffset;
-                    byte[] tmp = new byte[bitMapOffset];
-                    buffer.readBytes(tmp);
-                    for (int j = 0; j < numOfRows; j++) {
-                        int in = buffer.readIntLE();
-                        if (isNull(tmp, j)) {
-                            col.add(null);
-                        } else {
-                            col.add(in);
-                        }
-                    }
-                    break;
-                }
-                case TSDB_DATA_TYPE_BIGINT:
-                case TSDB_DATA_TYPE_UBIGINT:
-                case TSDB_DATA_TYPE_TIMESTAMP: {
-                    length = bitMapOffset;
-                    byte[] tmp = new byte[bitMapOffset];
-                    buffer.readBytes(tmp);
-                    for (int j = 0; j < numOfRows; j++) {
-                        long l = buffer.readLongLE();
-                        if (isNull(tmp, j)) {
-                            col.add(null);
-                        } else {
-                            col.add(l);
-                        }
-                    }
-                    break;
-                }
-                case TSDB_DATA_TYPE_FLOAT: {
-                    length = bitMapOffset;
-                    byte[] tmp = new byte[bitMapOffset];
-                    buffer.readBytes(tmp);
-                    for (int j = 0; j < numOfRows; j++) {
-                        float f = buffer.readFloatLE();
-                        if (isNull(tmp, j)) {
-                            col.add(null);
-                        } else {
-                            col.add(f);
-                        }
-                    }
-                    break;
-                }
-                case TSDB_DATA_TYPE_DOUBLE: {
-                    length = bitMapOffset;
-                    byte[] tmp = new byte[bitMapOffset];
-                    buffer.readBytes(tmp);
-                    for (int j = 0; j < numOfRows; j++) {
-                        double d = buffer.readDoubleLE();
-                        if (isNull(tmp, j)) {
-                            col.add(null);
-                        } else {
-                            col.add(d);
-                        }
-                    }
-                    break;
+            if (types[i] == TSDB_DATA_TYPE_BLOB) {
+                for (int j = 0; j < numOfRows; j++) {
+                    col.add(block.isNull(i, j) ? null : new TDBlob(block.getVarBytes(i, j), true));
                 }
-                case TSDB_DATA_TYPE_BINARY:
-                case TSDB_DATA_TYPE_JSON:
-                case TSDB_DATA_TYPE_BLOB:
-                case TSDB_DATA_TYPE_VARBINARY:
-                case TSDB_DATA_TYPE_GEOMETRY:{
-                    length = numOfRows * 4;
-                    List<Integer> offset = new ArrayList<>(numOfRows);
-                    for (int m = 0; m < numOfRows; m++) {
-                        offset.add(buffer.readIntLE());
-                    }
-                    int start = buffer.readerIndex();
-                    for (int m = 0; m < numOfRows; m++) {
-                        if (-1 == offset.get(m)) {
-                            col.add(null);
-                            continue;
-                        }
-                        buffer.readerIndex(start + offset.get(m));
-                        int len;
-                        if (type != TSDB_DATA_TYPE_BLOB){
-                            len = buffer.readShortLE() & 0xFFFF;
-                        } else {
-                            len = buffer.readIntLE();
-                        }
-                        byte[] tmp = new byte[len];
-                        buffer.readBytes(tmp);
-                        if (type != TSDB_DATA_TYPE_BLOB) {
-                            col.add(tmp);
-                        } else {
-                            col.add(new TDBlob(tmp, true));
-                        }
-                    }
-                    break;
-                }
-                case TSDB_DATA_TYPE_NCHAR: {
-                    length = numOfRows * 4;
-                    List<Integer> offset = new ArrayList<>(numOfRows);
-                    for (int m = 0; m < numOfRows; m++) {
-                        offset.add(buffer.readIntLE());
-                    }
-                    int start = buffer.readerIndex();
-                    for (int m = 0; m < numOfRows; m++) {
-                        if (-1 == offset.get(m)) {
-                            col.add(null);
-                            continue;
-                        }
-                        buffer.readerIndex(start + offset.get(m));
-                        int len = (buffer.readShortLE() & 0xFFFF) / 4;
-                        int[] tmp = new int[len];
-                        for (int n = 0; n < len; n++) {
-                            tmp[n] = buffer.readIntLE();
-                        }
-                        col.add(tmp);
-                    }
-                    break;
-                }
-                case TSDB_DATA_TYPE_DECIMAL128:
-                case TSDB_DATA_TYPE_DECIMAL64:
-                    int dataLen = type == TSDB_DATA_TYPE_DECIMAL128 ? 16 : 8;
-                    length = bitMapOffset;
-                    byte[] tmp = new byte[bitMapOffset];
-                    buffer.readBytes(tmp);
-                    for (int j = 0; j < numOfRows; j++) {
-                        byte[] tb = new byte[dataLen];
-                        buffer.readBytes(tb);
-
-                        if (isNull(tmp, j)) {
-                            col.add(null);
-                        } else {
-                            BigDecimal t = DecimalUtil.getBigDecimal(tb, scale);
-                            col.add(t);
-                        }
-                    }
-                    break;
-                default:
-                    // unknown type, do nothing
-                    col.add(null);
-                    break;
+                continue;
+            }
+            for (int j = 0; j < numOfRows; j++) {
+                col.add(block.getObject(i, j));
             }
-            pHeader += length + lengths.get(i);
-            buffer.readerIndex(pHeader);
         }
-    }
-
-    private int bitmapLen(int n) {
-        return (n + 0x7) >> 3;
-    }
-
-    private boolean isNull(byte[] c, int n) {
-        int position = n >>> 3;
-        int index = n & 0x7;
-        return (c[position] & (1 << (7 - index))) == (1 << (7 - index));
+        buffer.readerIndex(buffer.readerIndex() + block.getLength());
     }
 
 
@@ -548,6 +356,10 @@ public class FetchRawBlockResp extends Response {
         return precision;
     }
 
+    public int getBlocks() {
+        return blocks;
+    }
+
     public int getRows() {
         return rows;
     }
@@ -0,0 +1,134 @@
+package com.taosdata.jdbc;
+
+import com.taosdata.jdbc.enums.TimestampPrecision;
+import com.taosdata.jdbc.rs.RestfulResultSet;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+public class BlockDataTest {
+
+    private static List<RestfulResultSet.Field> fields(int... types) {
+        List<RestfulResultSet.Field> fields = new ArrayList<>();
+        for (int i = 0; i < types.length; i++) {
+            fields.add(new RestfulResultSet.Field("c" + i, Types.OTHER, 0, "", types[i], 0, 0));
+        }
+        return fields;
+    }
+
+    /**
+     * build a raw block with a ts column, a nullable double column and a nullable varchar column
+     */
+    private static ByteBuf buildBlock(long[] ts, Double[] doubles, String[] strings) {
+        int rows = ts.length;
+        int bitmapLen = (rows + 7) >> 3;
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.directBuffer();
+
+        buf.writeIntLE(0); // version
+        buf.writeIntLE(0); // length, patched later
+        buf.writeIntLE(rows);
+        buf.writeIntLE(3);
+        buf.writeIntLE(0);
+        buf.writeLongLE(0);
+        buf.writeIntLE(0);
+        int[] types = {TSDB_DATA_TYPE_TIMESTAMP, TSDB_DATA_TYPE_DOUBLE, TSDB_DATA_TYPE_BINARY};
+        int[] bytes = {8, 8, 64};
+        for (int i = 0; i < 3; i++) {
+            buf.writeByte(types[i]);
+            buf.writeIntLE(bytes[i]);
+        }
+
+        int lengthsIndex = buf.writerIndex();
+        buf.writeZero(12);
+
+        // ts
+        buf.writeZero(bitmapLen);
+        for (long t : ts) {
+            buf.writeLongLE(t);
+        }
+        buf.setIntLE(lengthsIndex, rows * 8);
+
+        // double
+        byte[] bitmap = new byte[bitmapLen];
+        for (int i = 0; i < rows; i++) {
+            if (doubles[i] == null) {
+                bitmap[i >> 3] |= (byte) (1 << (7 - (i & 7)));
+            }
+        }
+        buf.writeBytes(bitmap);
+        for (Double d : doubles) {
+            buf.writeDoubleLE(d == null ? 0 : d);
+        }
+        buf.setIntLE(lengthsIndex + 4, rows * 8);
+
+        // varchar
+        int varLen = 0;
+        for (String s : strings) {
+            buf.writeIntLE(s == null ? -1 : varLen);
+            if (s != null) {
+                varLen += 2 + s.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        for (String s : strings) {
+            if (s != null) {
+                byte[] b = s.getBytes(StandardCharsets.UTF_8);
+                buf.writeShortLE(b.length);
+                buf.writeBytes(b);
+            }
+        }
+        buf.setIntLE(lengthsIndex + 8, varLen);
+        buf.setIntLE(4, buf.writerIndex());
+        return buf;
+    }
+
+    @Test
+    public void testColumnarRead() {
+        long now = System.currentTimeMillis();
+        ByteBuf buf = buildBlock(new long[]{now, now + 1, now + 2},
+                new Double[]{1.5, null, -3.25},
+                new String[]{"abc", "涛思数据", null});
+
+        BlockData blockData = BlockData.getEmptyBlockData(
+                fields(TSDB_DATA_TYPE_TIMESTAMP, TSDB_DATA_TYPE_DOUBLE, TSDB_DATA_TYPE_BINARY), TimestampPrecision.MS);
+        blockData.setBuffer(buf);
+        blockData.handleData();
+
+        Assert.assertEquals(0, blockData.getReturnCode());
+        Assert.assertEquals(3, blockData.getNumOfRows());
+
+        Assert.assertEquals(now + 1, blockData.getLong(0, 1));
+        Assert.assertEquals(Instant.ofEpochMilli(now + 2), blockData.getObject(0, 2));
+
+        Assert.assertFalse(blockData.isNull(1, 0));
+        Assert.assertEquals(1.5, blockData.getDouble(1, 0), 0);
+        Assert.assertTrue(blockData.isNull(1, 1));
+        Assert.assertNull(blockData.getObject(1, 1));
+        Assert.assertEquals(-3.25, blockData.getDouble(1, 2), 0);
+
+        Assert.assertEquals("abc", blockData.getVarString(2, 0));
+        Assert.assertEquals("涛思数据", new String(blockData.getVarBytes(2, 1), StandardCharsets.UTF_8));
+        Assert.assertTrue(blockData.isNull(2, 2));
+
+        Assert.assertEquals(1, buf.refCnt());
+        blockData.release();
+        Assert.assertEquals(0, buf.refCnt());
+        Assert.assertNull(blockData.getBuffer());
+    }
+
+    @Test
+    public void testEmptyBlock() {
+        BlockData blockData = BlockData.getEmptyBlockData(fields(TSDB_DATA_TYPE_INT), TimestampPrecision.MS);
+        blockData.handleData();
+        Assert.assertEquals(0, blockData.getNumOfRows());
+        blockData.release();
+    }
+}
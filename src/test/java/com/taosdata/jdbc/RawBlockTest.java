@@ -0,0 +1,453 @@
+package com.taosdata.jdbc;
+
+import com.taosdata.jdbc.common.TDBlob;
+import com.taosdata.jdbc.enums.TimestampPrecision;
+import com.taosdata.jdbc.rs.RestfulResultSet;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+public class RawBlockTest {
+
+    /**
+     * 2 rows of ts, int and varchar: (1700000000000, 7, 'ab'), (1700000001000, null, null)
+     */
+    private static final String GOLDEN = "010000005d000000020000000300000000000000000000000000000009080000000404000000"
+            + "0810000000100000000800000004000000000068e5cf8b010000e86be5cf8b01000040070000000000000000000000ffffffff"
+            + "02006162";
+    private static final int[] GOLDEN_TYPES = {TSDB_DATA_TYPE_TIMESTAMP, TSDB_DATA_TYPE_INT, TSDB_DATA_TYPE_BINARY};
+
+    private static final int[] ALL_TYPES = {
+            TSDB_DATA_TYPE_BOOL, TSDB_DATA_TYPE_TINYINT, TSDB_DATA_TYPE_SMALLINT, TSDB_DATA_TYPE_INT,
+            TSDB_DATA_TYPE_BIGINT, TSDB_DATA_TYPE_FLOAT, TSDB_DATA_TYPE_DOUBLE, TSDB_DATA_TYPE_BINARY,
+            TSDB_DATA_TYPE_TIMESTAMP, TSDB_DATA_TYPE_NCHAR, TSDB_DATA_TYPE_UTINYINT, TSDB_DATA_TYPE_USMALLINT,
+            TSDB_DATA_TYPE_UINT, TSDB_DATA_TYPE_UBIGINT, TSDB_DATA_TYPE_JSON, TSDB_DATA_TYPE_VARBINARY,
+            TSDB_DATA_TYPE_DECIMAL128, TSDB_DATA_TYPE_BLOB, TSDB_DATA_TYPE_GEOMETRY, TSDB_DATA_TYPE_DECIMAL64};
+
+    @Test
+    public void testGolden() {
+        byte[] golden = ByteBufUtil.decodeHexDump(GOLDEN);
+        Assert.assertEquals(GOLDEN, ByteBufUtil.hexDump(encode(GOLDEN_TYPES, new int[3], new Object[][]{
+                {1700000000000L, 1700000001000L}, {7, null}, {new byte[]{'a', 'b'}, null}})));
+
+        RawBlock block = new RawBlock(Unpooled.wrappedBuffer(golden), 0, GOLDEN_TYPES);
+        Assert.assertEquals(2, block.getRows());
+        Assert.assertEquals(3, block.getColumns());
+        Assert.assertEquals(golden.length, block.getLength());
+        Assert.assertEquals(1700000001000L, block.getLong(0, 1));
+        Assert.assertEquals(7, block.getInt(1, 0));
+        Assert.assertTrue(block.isNull(1, 1));
+        Assert.assertEquals("ab", block.getVarString(2, 0));
+        Assert.assertTrue(block.isNull(2, 1));
+        Assert.assertFalse(block.hasNull(0));
+        Assert.assertTrue(block.hasNull(1));
+        Assert.assertTrue(block.hasNull(2));
+    }
+
+    @Test
+    public void testGoldenBlockData() {
+        ByteBuf buf = Unpooled.buffer();
+        byte[] golden = ByteBufUtil.decodeHexDump(GOLDEN);
+        buf.writeIntLE(golden.length);
+        buf.writeBytes(golden);
+
+        List<RestfulResultSet.Field> fields = new ArrayList<>();
+        for (int i = 0; i < GOLDEN_TYPES.length; i++) {
+            fields.add(new RestfulResultSet.Field("c" + i, Types.OTHER, 0, "", GOLDEN_TYPES[i], 0, 0));
+        }
+        BlockData blockData = BlockData.getEmptyBlockData(fields, TimestampPrecision.MS);
+        blockData.setBuffer(buf);
+        blockData.handleData();
+
+        Assert.assertEquals(2, blockData.getNumOfRows());
+        Assert.assertEquals(Instant.ofEpochMilli(1700000000000L), blockData.getObject(0, 0));
+        Assert.assertEquals(7, blockData.getObject(1, 0));
+        Assert.assertNull(blockData.getObject(1, 1));
+        Assert.assertArrayEquals(new byte[]{'a', 'b'}, (byte[]) blockData.getObject(2, 0));
+        blockData.release();
+    }
+
+    @Test
+    public void testGoldenNative() throws SQLException {
+        List<ColumnMetaData> meta = new ArrayList<>();
+        for (int type : GOLDEN_TYPES) {
+            ColumnMetaData m = new ColumnMetaData();
+            m.setColType(type);
+            meta.add(m);
+        }
+        TSDBResultSetBlockData blockData = new TSDBResultSetBlockData(meta, meta.size(), TimestampPrecision.MS);
+        blockData.setNumOfRows(2);
+        blockData.setByteArray(ByteBufUtil.decodeHexDump(GOLDEN));
+        blockData.doSetByteArray();
+        blockData.waitTillOK();
+
+        Assert.assertEquals(3, blockData.getNumOfCols());
+        Assert.assertEquals(1700000000000L, blockData.getTimestamp(0).getTime());
+        Assert.assertEquals(7, blockData.getInt(1));
+        Assert.assertEquals("ab", blockData.getString(2));
+        Assert.assertTrue(blockData.forward());
+        Assert.assertEquals(0, blockData.getInt(1));
+        Assert.assertTrue(blockData.wasNull);
+        Assert.assertNull(blockData.get(2));
+        Assert.assertFalse(blockData.forward());
+    }
+
+    @Test
+    public void testNativeTypes() throws SQLException {
+        int[] types = {TSDB_DATA_TYPE_BOOL, TSDB_DATA_TYPE_UBIGINT, TSDB_DATA_TYPE_NCHAR, TSDB_DATA_TYPE_BLOB,
+                TSDB_DATA_TYPE_DECIMAL64};
+        byte[] block = encode(types, new int[]{0, 0, 0, 0, 2}, new Object[][]{
+                {(byte) 1}, {-1L}, {"涛思".codePoints().toArray()}, {new byte[]{1, 2, 3}}, {new BigDecimal("-12.34")}});
+        List<ColumnMetaData> meta = new ArrayList<>();
+        for (int type : types) {
+            ColumnMetaData m = new ColumnMetaData();
+            m.setColType(type);
+            meta.add(m);
+        }
+        TSDBResultSetBlockData blockData = new TSDBResultSetBlockData(meta, meta.size(), TimestampPrecision.MS);
+        blockData.setNumOfRows(1);
+        blockData.setByteArray(block);
+        blockData.doSetByteArray();
+
+        Assert.assertEquals(Boolean.TRUE, blockData.get(0));
+        Assert.assertEquals(new BigInteger("18446744073709551615"), blockData.get(1));
+        Assert.assertEquals("涛思", blockData.get(2));
+        Assert.assertTrue(blockData.get(3) instanceof TDBlob);
+        Assert.assertEquals(new BigDecimal("-12.34"), blockData.get(4));
+    }
+
+    /**
+     * random blocks of every type, read in place at a random position of the buffer
+     */
+    @Test
+    public void testFuzz() {
+        Random random = new Random(20240601);
+        for (int round = 0; round < 500; round++) {
+            int cols = 1 + random.nextInt(8);
+            int rows = random.nextInt(70);
+            int[] types = new int[cols];
+            int[] scales = new int[cols];
+            Object[][] values = new Object[cols][rows];
+            for (int c = 0; c < cols; c++) {
+                types[c] = ALL_TYPES[random.nextInt(ALL_TYPES.length)];
+                scales[c] = random.nextInt(10);
+                int nullPercent = random.nextInt(3) * 30;
+                for (int r = 0; r < rows; r++) {
+                    values[c][r] = random.nextInt(100) < nullPercent ? null : randomValue(random, types[c], scales[c]);
+                }
+            }
+            byte[] block = encode(types, scales, values);
+            int prefix = random.nextInt(16);
+            ByteBuf buf = Unpooled.buffer();
+            buf.writeZero(prefix);
+            buf.writeBytes(block);
+            buf.writeZero(random.nextInt(16));
+
+            RawBlock rawBlock = new RawBlock(buf, prefix, types);
+            Assert.assertEquals(rows, rawBlock.getRows());
+            Assert.assertEquals(block.length, rawBlock.getLength());
+            for (int c = 0; c < cols; c++) {
+                boolean hasNull = false;
+                for (int r = 0; r < rows; r++) {
+                    Object expected = values[c][r];
+                    hasNull |= expected == null;
+                    Assert.assertEquals(expected == null, rawBlock.isNull(c, r));
+                    assertValue(expected, rawBlock.getObject(c, r));
+                }
+                Assert.assertEquals(hasNull, rawBlock.hasNull(c));
+                assertBulk(rawBlock, c, values[c]);
+                assertUnsigned(rawBlock, c, values[c]);
+            }
+        }
+    }
+
+    private static void assertValue(Object expected, Object actual) {
+        if (expected instanceof byte[]) {
+            Assert.assertArrayEquals((byte[]) expected, (byte[]) actual);
+        } else if (expected instanceof int[]) {
+            Assert.assertArrayEquals((int[]) expected, (int[]) actual);
+        } else {
+            Assert.assertEquals(expected, actual);
+        }
+    }
+
+    private static void assertBulk(RawBlock block, int col, Object[] values) {
+        int rows = values.length;
+        switch (block.getColumnType(col)) {
+            case TSDB_DATA_TYPE_TINYINT: {
+                byte[] dst = new byte[rows];
+                block.getBytes(col, dst);
+                for (int r = 0; r < rows; r++) {
+                    if (values[r] != null) {
+                        Assert.assertEquals(values[r], dst[r]);
+                    }
+                }
+                break;
+            }
+            case TSDB_DATA_TYPE_SMALLINT: {
+                short[] dst = new short[rows];
+                block.getShorts(col, dst);
+                for (int r = 0; r < rows; r++) {
+                    if (values[r] != null) {
+                        Assert.assertEquals(values[r], dst[r]);
+                    }
+                }
+                break;
+            }
+            case TSDB_DATA_TYPE_INT: {
+                int[] dst = new int[rows];
+                block.getInts(col, dst);
+                for (int r = 0; r < rows; r++) {
+                    if (values[r] != null) {
+                        Assert.assertEquals(values[r], dst[r]);
+                    }
+                }
+                break;
+            }
+            case TSDB_DATA_TYPE_BIGINT:
+            case TSDB_DATA_TYPE_TIMESTAMP: {
+                long[] dst = new long[rows];
+                block.getLongs(col, dst);
+                for (int r = 0; r < rows; r++) {
+                    if (values[r] != null) {
+                        Assert.assertEquals(values[r], dst[r]);
+                    }
+                }
+                break;
+            }
+            case TSDB_DATA_TYPE_FLOAT: {
+                float[] dst = new float[rows];
+                block.getFloats(col, dst);
+                for (int r = 0; r < rows; r++) {
+                    if (values[r] != null) {
+                        Assert.assertEquals(values[r], dst[r]);
+                    }
+                }
+                break;
+            }
+            case TSDB_DATA_TYPE_DOUBLE: {
+                double[] dst = new double[rows];
+                block.getDoubles(col, dst);
+                for (int r = 0; r < rows; r++) {
+                    if (values[r] != null) {
+                        Assert.assertEquals(values[r], dst[r]);
+                    }
+                }
+                break;
+            }
+            default:
+                break;
+        }
+    }
+
+    private static void assertUnsigned(RawBlock block, int col, Object[] values) {
+        for (int r = 0; r < values.length; r++) {
+            if (values[r] == null) {
+                continue;
+            }
+            switch (block.getColumnType(col)) {
+                case TSDB_DATA_TYPE_UTINYINT:
+                    Assert.assertEquals(((Byte) values[r]) & 0xFF, block.getUnsignedByte(col, r));
+                    break;
+                case TSDB_DATA_TYPE_USMALLINT:
+                    Assert.assertEquals(((Short) values[r]) & 0xFFFF, block.getUnsignedShort(col, r));
+                    break;
+                case TSDB_DATA_TYPE_UINT:
+                    Assert.assertEquals(((Integer) values[r]) & 0xFFFFFFFFL, block.getUnsignedInt(col, r));
+                    break;
+                default:
+                    return;
+            }
+        }
+    }
+
+    private static Object randomValue(Random random, int type, int scale) {
+        switch (type) {
+            case TSDB_DATA_TYPE_BOOL:
+                return (byte) random.nextInt(2);
+            case TSDB_DATA_TYPE_TINYINT:
+            case TSDB_DATA_TYPE_UTINYINT:
+                return (byte) random.nextInt();
+            case TSDB_DATA_TYPE_SMALLINT:
+            case TSDB_DATA_TYPE_USMALLINT:
+                return (short) random.nextInt();
+            case TSDB_DATA_TYPE_INT:
+            case TSDB_DATA_TYPE_UINT:
+                return random.nextInt();
+            case TSDB_DATA_TYPE_BIGINT:
+            case TSDB_DATA_TYPE_UBIGINT:
+            case TSDB_DATA_TYPE_TIMESTAMP:
+                return random.nextLong();
+            case TSDB_DATA_TYPE_FLOAT:
+                return random.nextFloat() * 1000 - 500;
+            case TSDB_DATA_TYPE_DOUBLE:
+                return random.nextDouble() * 1e6 - 5e5;
+            case TSDB_DATA_TYPE_NCHAR: {
+                int[] codePoints = new int[random.nextInt(10)];
+                for (int i = 0; i < codePoints.length; i++) {
+                    codePoints[i] = random.nextBoolean() ? 'a' + random.nextInt(26) : 0x4E00 + random.nextInt(0x10000);
+                }
+                return codePoints;
+            }
+            case TSDB_DATA_TYPE_DECIMAL64:
+                return BigDecimal.valueOf(random.nextLong() / 1000, scale);
+            case TSDB_DATA_TYPE_DECIMAL128:
+                return new BigDecimal(new BigInteger(120, random).subtract(BigInteger.ONE.shiftLeft(119)), scale);
+            default: {
+                // var-width types, a blob may exceed the 2 bytes length of the others
+                byte[] bytes = new byte[random.nextInt(type == TSDB_DATA_TYPE_BLOB && random.nextInt(8) == 0 ? 70000 : 40)];
+                random.nextBytes(bytes);
+                return bytes;
+            }
+        }
+    }
+
+    private static int width(int type) {
+        switch (type) {
+            case TSDB_DATA_TYPE_BOOL:
+            case TSDB_DATA_TYPE_TINYINT:
+            case TSDB_DATA_TYPE_UTINYINT:
+                return 1;
+            case TSDB_DATA_TYPE_SMALLINT:
+            case TSDB_DATA_TYPE_USMALLINT:
+                return 2;
+            case TSDB_DATA_TYPE_INT:
+            case TSDB_DATA_TYPE_UINT:
+            case TSDB_DATA_TYPE_FLOAT:
+                return 4;
+            case TSDB_DATA_TYPE_DECIMAL128:
+                return 16;
+            default:
+                return 8;
+        }
+    }
+
+    /**
+     * reference encoder of the raw block format
+     */
+    private static byte[] encode(int[] types, int[] scales, Object[][] values) {
+        int cols = types.length;
+        int rows = values[0].length;
+        ByteBuf body = Unpooled.buffer();
+        for (int c = 0; c < cols; c++) {
+            body.writeByte(types[c]);
+            if (types[c] == TSDB_DATA_TYPE_DECIMAL64 || types[c] == TSDB_DATA_TYPE_DECIMAL128) {
+                body.writeIntLE(width(types[c]) << 24 | 18 << 8 | scales[c]);
+            } else if (RawBlock.isVarType(types[c])) {
+                body.writeIntLE(16);
+            } else {
+                body.writeIntLE(width(types[c]));
+            }
+        }
+        int lengths = body.writerIndex();
+        body.writeZero(cols * 4);
+        for (int c = 0; c < cols; c++) {
+            if (RawBlock.isVarType(types[c])) {
+                int offset = 0;
+                for (int r = 0; r < rows; r++) {
+                    body.writeIntLE(values[c][r] == null ? -1 : offset);
+                    if (values[c][r] != null) {
+                        offset += varLength(types[c], values[c][r]);
+                    }
+                }
+                for (int r = 0; r < rows; r++) {
+                    if (values[c][r] != null) {
+                        writeVar(body, types[c], values[c][r]);
+                    }
+                }
+                body.setIntLE(lengths + c * 4, offset);
+            } else {
+                byte[] bitmap = new byte[RawBlock.bitmapLen(rows)];
+                for (int r = 0; r < rows; r++) {
+                    if (values[c][r] == null) {
+                        bitmap[r >> 3] |= (byte) (1 << (7 - (r & 7)));
+                    }
+                }
+                body.writeBytes(bitmap);
+                int dataStart = body.writerIndex();
+                for (int r = 0; r < rows; r++) {
+                    writeFixed(body, types[c], values[c][r]);
+                }
+                body.setIntLE(lengths + c * 4, body.writerIndex() - dataStart);
+            }
+        }
+
+        ByteBuf block = Unpooled.buffer();
+        block.writeIntLE(1); // version
+        block.writeIntLE(RawBlock.HEADER_LENGTH + body.readableBytes());
+        block.writeIntLE(rows);
+        block.writeIntLE(cols);
+        block.writeIntLE(0); // flag segment
+        block.writeLongLE(0); // group id
+        block.writeBytes(body);
+        return ByteBufUtil.getBytes(block);
+    }
+
+    private static int varLength(int type, Object value) {
+        if (type == TSDB_DATA_TYPE_NCHAR) {
+            return 2 + ((int[]) value).length * 4;
+        }
+        return (type == TSDB_DATA_TYPE_BLOB ? 4 : 2) + ((byte[]) value).length;
+    }
+
+    private static void writeVar(ByteBuf buf, int type, Object value) {
+        if (type == TSDB_DATA_TYPE_NCHAR) {
+            int[] codePoints = (int[]) value;
+            buf.writeShortLE(codePoints.length * 4);
+            for (int cp : codePoints) {
+                buf.writeIntLE(cp);
+            }
+        } else if (type == TSDB_DATA_TYPE_BLOB) {
+            buf.writeIntLE(((byte[]) value).length);
+            buf.writeBytes((byte[]) value);
+        } else {
+            buf.writeShortLE(((byte[]) value).length);
+            buf.writeBytes((byte[]) value);
+        }
+    }
+
+    private static void writeFixed(ByteBuf buf, int type, Object value) {
+        int width = width(type);
+        if (value == null) {
+            buf.writeZero(width);
+            return;
+        }
+        switch (type) {
+            case TSDB_DATA_TYPE_FLOAT:
+                buf.writeFloatLE((Float) value);
+                break;
+            case TSDB_DATA_TYPE_DOUBLE:
+                buf.writeDoubleLE((Double) value);
+                break;
+            case TSDB_DATA_TYPE_DECIMAL64:
+            case TSDB_DATA_TYPE_DECIMAL128: {
+                byte[] be = ((BigDecimal) value).unscaledValue().toByteArray();
+                for (int i = 0; i < width; i++) {
+                    int index = be.length - 1 - i;
+                    buf.writeByte(index >= 0 ? be[index] : (be[0] < 0 ? -1 : 0));
+                }
+                break;
+            }
+            default: {
+                long v = ((Number) value).longValue();
+                for (int i = 0; i < width; i++) {
+                    buf.writeByte((int) (v >>> (i * 8)));
+                }
+                break;
+            }
+        }
+    }
+}
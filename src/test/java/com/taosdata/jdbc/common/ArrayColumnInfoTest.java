@@ -0,0 +1,68 @@
+package com.taosdata.jdbc.common;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+public class ArrayColumnInfoTest {
+
+    private static byte[] block(List<ColumnInfo> cols) throws Exception {
+        ByteBuffer name = ByteBuffer.wrap("t1".getBytes(StandardCharsets.UTF_8));
+        HashMap<ByteBuffer, TableInfo> map = new HashMap<>();
+        map.put(name, new TableInfo(cols, name, new ArrayList<>()));
+        ByteBuf buf = SerializeBlock.getStmt2BindBlock(1L, 2L, map, 0, 0, cols.size(), 0);
+        try {
+            return ByteBufUtil.getBytes(buf);
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static ColumnInfo listColumn(int index, int type, Object... values) {
+        return new ColumnInfo(index, new ArrayList<>(Arrays.asList(values)), type);
+    }
+
+    @Test
+    public void testSameBlockAsListBinding() throws Exception {
+        BitSet nulls = new BitSet();
+        nulls.set(1);
+
+        List<ColumnInfo> arrays = new ArrayList<>();
+        arrays.add(new ArrayColumnInfo(0, new long[]{1000L, 2000L, 3000L}, null, 3, TSDB_DATA_TYPE_TIMESTAMP));
+        arrays.add(new ArrayColumnInfo(1, new int[]{1, 0, -3}, nulls, 3, TSDB_DATA_TYPE_INT));
+        arrays.add(new ArrayColumnInfo(2, new long[]{Long.MIN_VALUE, 0, Long.MAX_VALUE}, nulls, 3, TSDB_DATA_TYPE_BIGINT));
+        arrays.add(new ArrayColumnInfo(3, new float[]{1.5f, 0f, -2.5f}, nulls, 3, TSDB_DATA_TYPE_FLOAT));
+        arrays.add(new ArrayColumnInfo(4, new double[]{0.1, 0, 1e300}, nulls, 3, TSDB_DATA_TYPE_DOUBLE));
+        arrays.add(new ArrayColumnInfo(5, new boolean[]{true, true, false}, nulls, 3, TSDB_DATA_TYPE_BOOL));
+
+        List<ColumnInfo> lists = new ArrayList<>();
+        lists.add(listColumn(0, TSDB_DATA_TYPE_TIMESTAMP, 1000L, 2000L, 3000L));
+        lists.add(listColumn(1, TSDB_DATA_TYPE_INT, 1, null, -3));
+        lists.add(listColumn(2, TSDB_DATA_TYPE_BIGINT, Long.MIN_VALUE, null, Long.MAX_VALUE));
+        lists.add(listColumn(3, TSDB_DATA_TYPE_FLOAT, 1.5f, null, -2.5f));
+        lists.add(listColumn(4, TSDB_DATA_TYPE_DOUBLE, 0.1, null, 1e300));
+        lists.add(listColumn(5, TSDB_DATA_TYPE_BOOL, true, null, false));
+
+        Assert.assertArrayEquals(block(lists), block(arrays));
+    }
+
+    @Test
+    public void testAccepts() {
+        Assert.assertTrue(ArrayColumnInfo.accepts(TSDB_DATA_TYPE_INT, TSDB_DATA_TYPE_INT));
+        Assert.assertTrue(ArrayColumnInfo.accepts(TSDB_DATA_TYPE_BIGINT, TSDB_DATA_TYPE_TIMESTAMP));
+        Assert.assertTrue(ArrayColumnInfo.accepts(TSDB_DATA_TYPE_TIMESTAMP, TSDB_DATA_TYPE_BIGINT));
+        Assert.assertFalse(ArrayColumnInfo.accepts(TSDB_DATA_TYPE_INT, TSDB_DATA_TYPE_BIGINT));
+        Assert.assertFalse(ArrayColumnInfo.accepts(TSDB_DATA_TYPE_DOUBLE, TSDB_DATA_TYPE_FLOAT));
+    }
+}
@@ -0,0 +1,147 @@
+package com.taosdata.jdbc.common;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+public class Stmt2BindEncoderTest {
+
+    private static byte[] toBytes(ByteBuf buf) {
+        try {
+            return ByteBufUtil.getBytes(buf);
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static ColumnInfo column(int index, int type, Object... values) {
+        return new ColumnInfo(index, new ArrayList<>(Arrays.asList(values)), type);
+    }
+
+    private static HashMap<ByteBuffer, TableInfo> oneTable() {
+        ByteBuffer name = ByteBuffer.wrap("t1".getBytes(StandardCharsets.UTF_8));
+        List<ColumnInfo> tags = new ArrayList<>();
+        tags.add(column(1, TSDB_DATA_TYPE_INT, 7));
+        List<ColumnInfo> cols = new ArrayList<>();
+        cols.add(column(2, TSDB_DATA_TYPE_TIMESTAMP, 1000L, 2000L));
+        cols.add(column(3, TSDB_DATA_TYPE_NCHAR, "中", null));
+        HashMap<ByteBuffer, TableInfo> map = new HashMap<>();
+        map.put(name, new TableInfo(cols, name, tags));
+        return map;
+    }
+
+    @Test
+    public void testColumnBlockLayout() throws Exception {
+        byte[] actual = toBytes(SerializeBlock.getStmt2BindBlock(1L, 2L, oneTable(), 0, 1, 2, 0));
+
+        ByteBuf expected = Unpooled.buffer();
+        expected.writeLongLE(1L).writeLongLE(2L).writeLongLE(9L).writeShortLE(1).writeIntLE(-1);
+
+        int nameSize = 2 + 3;
+        // TotalLength + Type + Num + IsNull + haveLength + BufferLength + data
+        int tagSize = 4 + 4 + 4 + 1 + 1 + 4 + 4;
+        int tsSize = 4 + 4 + 4 + 2 + 1 + 4 + 16;
+        int ncharSize = 4 + 4 + 4 + 2 + 1 + 8 + 4 + 3;
+        int tagOffset = 28 + nameSize;
+        int colOffset = tagOffset + 4 + tagSize;
+        expected.writeIntLE(colOffset + 4 + tsSize + ncharSize);
+        expected.writeIntLE(1).writeIntLE(1).writeIntLE(2);
+        expected.writeIntLE(28).writeIntLE(tagOffset).writeIntLE(colOffset);
+
+        expected.writeShortLE(3).writeBytes("t1".getBytes(StandardCharsets.UTF_8)).writeByte(0);
+
+        expected.writeIntLE(tagSize);
+        expected.writeIntLE(tagSize).writeIntLE(TSDB_DATA_TYPE_INT).writeIntLE(1).writeByte(0)
+                .writeByte(0).writeIntLE(4).writeIntLE(7);
+
+        expected.writeIntLE(tsSize + ncharSize);
+        expected.writeIntLE(tsSize).writeIntLE(TSDB_DATA_TYPE_TIMESTAMP).writeIntLE(2).writeByte(0).writeByte(0)
+                .writeByte(0).writeIntLE(16).writeLongLE(1000L).writeLongLE(2000L);
+        expected.writeIntLE(ncharSize).writeIntLE(TSDB_DATA_TYPE_NCHAR).writeIntLE(2).writeByte(0).writeByte(1)
+                .writeByte(1).writeIntLE(3).writeIntLE(0).writeIntLE(3).writeBytes("中".getBytes(StandardCharsets.UTF_8));
+
+        Assert.assertArrayEquals(toBytes(expected), actual);
+    }
+
+    @Test
+    public void testRowEncodingMatchesColumnEncoding() throws Exception {
+        HashMap<ByteBuffer, TableInfo> map = new HashMap<>();
+        Stmt2BindEncoder encoder = new Stmt2BindEncoder(true, 1, 3);
+        for (int i = 0; i < 3; i++) {
+            String tableName = "d" + i;
+            ByteBuffer name = ByteBuffer.wrap(tableName.getBytes(StandardCharsets.UTF_8));
+            List<ColumnInfo> tags = new ArrayList<>();
+            tags.add(column(1, TSDB_DATA_TYPE_BINARY, ("loc" + i).getBytes(StandardCharsets.UTF_8)));
+            List<ColumnInfo> cols = new ArrayList<>();
+            cols.add(column(2, TSDB_DATA_TYPE_TIMESTAMP, 1000L + i));
+            cols.add(column(3, TSDB_DATA_TYPE_DOUBLE, i == 1 ? null : 1.5 * i));
+            cols.add(column(4, TSDB_DATA_TYPE_BOOL, i == 2));
+            map.put(name, new TableInfo(cols, name, tags));
+        }
+        // the column encoder walks the map in its own order, the row encoder follows it
+        for (TableInfo tableInfo : map.values()) {
+            encoder.addTableName(tableInfo.getTableName().array());
+            Stmt2BindEncoder.serializeBytes(encoder.tags(), (byte[]) tableInfo.getTagInfo().get(0).getDataList().get(0), false, TSDB_DATA_TYPE_BINARY);
+            List<ColumnInfo> cols = tableInfo.getDataList();
+            Stmt2BindEncoder.serializeTimestamp(encoder.cols(), (Long) cols.get(0).getDataList().get(0), false);
+            Double d = (Double) cols.get(1).getDataList().get(0);
+            Stmt2BindEncoder.serializeDouble(encoder.cols(), d == null ? 0 : d, d == null);
+            Stmt2BindEncoder.serializeBool(encoder.cols(), (Boolean) cols.get(2).getDataList().get(0), false);
+            encoder.endTable();
+        }
+        Assert.assertEquals(3, encoder.getTableCount());
+
+        byte[] row = toBytes(encoder.finish(5L, 6L));
+        byte[] column = toBytes(SerializeBlock.getStmt2BindBlock(5L, 6L, map, 0, 1, 3, 0));
+        Assert.assertArrayEquals(column, row);
+    }
+
+    @Test
+    public void testLargeBlockSpansChunks() throws Exception {
+        int rows = 100_000;
+        List<Object> ts = new ArrayList<>(rows);
+        List<Object> values = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            ts.add((long) i);
+            values.add(i % 10 == 0 ? null : ("v" + i).getBytes(StandardCharsets.UTF_8));
+        }
+        ByteBuffer name = ByteBuffer.wrap("t".getBytes(StandardCharsets.UTF_8));
+        List<ColumnInfo> cols = new ArrayList<>();
+        cols.add(new ColumnInfo(1, ts, TSDB_DATA_TYPE_TIMESTAMP));
+        cols.add(new ColumnInfo(2, values, TSDB_DATA_TYPE_VARCHAR));
+        HashMap<ByteBuffer, TableInfo> map = new HashMap<>();
+        map.put(name, new TableInfo(cols, name, new ArrayList<>()));
+
+        ByteBuf block = SerializeBlock.getStmt2BindBlock(1L, 1L, map, -1, 0, 2, 0);
+        try {
+            Assert.assertEquals(30 + block.getIntLE(30), block.readableBytes());
+            int colOffset = block.getIntLE(30 + 24);
+            int colsDataLength = block.getIntLE(30 + colOffset);
+            int tsStart = 30 + colOffset + 4;
+            int tsLength = block.getIntLE(tsStart);
+            Assert.assertEquals(17 + 9 * rows, tsLength);
+            Assert.assertEquals(rows - 1, block.getLongLE(tsStart + tsLength - 8));
+
+            int varStart = tsStart + tsLength;
+            Assert.assertEquals(colsDataLength, tsLength + block.getIntLE(varStart));
+            Assert.assertEquals(block.readableBytes(), varStart + block.getIntLE(varStart));
+            int lengths = varStart + 4 + 4 + 4 + rows + 1;
+            Assert.assertEquals(0, block.getIntLE(lengths));
+            Assert.assertEquals(2, block.getIntLE(lengths + 4));
+            Assert.assertEquals(6, block.getIntLE(lengths + (rows - 1) * 4));
+        } finally {
+            block.release();
+        }
+    }
+}
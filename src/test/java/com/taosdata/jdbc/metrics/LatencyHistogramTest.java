@@ -0,0 +1,36 @@
+package com.taosdata.jdbc.metrics;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBuckets() {
+        for (long v : new long[]{0, 1, 3, 4, 5, 7, 8, 100, 1000, 123456789, Long.MAX_VALUE}) {
+            int index = LatencyHistogram.index(v);
+            Assert.assertTrue(String.valueOf(v), v <= LatencyHistogram.upperBound(index));
+            Assert.assertTrue(String.valueOf(v), index == 0 || v > LatencyHistogram.upperBound(index - 1));
+            // a bucket is at most a quarter of its values wide
+            Assert.assertTrue(String.valueOf(v), LatencyHistogram.upperBound(index) - v <= v / 4);
+        }
+    }
+
+    @Test
+    public void testPercentile() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Assert.assertEquals(0, histogram.getPercentileMillis(0.99), 0);
+        for (int i = 1; i <= 1000; i++) {
+            histogram.record(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        Assert.assertEquals(1000, histogram.getCount());
+        Assert.assertEquals(500.5, histogram.getMeanMillis(), 0.001);
+        Assert.assertEquals(1000, histogram.getMaxNanos() / 1_000_000);
+        double p99 = histogram.getPercentileMillis(0.99);
+        Assert.assertTrue(String.valueOf(p99), p99 >= 990 && p99 <= 1000);
+        double p50 = histogram.getPercentileMillis(0.5);
+        Assert.assertTrue(String.valueOf(p50), p50 >= 500 && p50 <= 500 * 1.25);
+    }
+}
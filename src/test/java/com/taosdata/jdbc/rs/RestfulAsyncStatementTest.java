@@ -0,0 +1,178 @@
+package com.taosdata.jdbc.rs;
+
+import com.sun.net.httpserver.HttpServer;
+import com.taosdata.jdbc.TSDBErrorNumbers;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+public class RestfulAsyncStatementTest {
+
+    private static final int POOL_SIZE = 2;
+    private static HttpServer server;
+    private static ExecutorService executor;
+    private static Connection conn;
+    private static final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+
+    private static String response(String sql) throws InterruptedException {
+        if (sql.startsWith("select ")) {
+            String v = sql.substring("select ".length());
+            return "{\"code\":0,\"column_meta\":[[\"v\",\"INT\",4]],\"data\":[[" + v + "]],\"rows\":1}";
+        }
+        if (sql.startsWith("insert"))
+            return "{\"code\":0,\"column_meta\":[[\"affected_rows\",\"INT\",4]],\"data\":[[2]],\"rows\":1}";
+        if (sql.startsWith("wait ")) {
+            Thread.sleep(100);
+            return response(sql.substring("wait ".length()));
+        }
+        if (sql.startsWith("slow")) {
+            Thread.sleep(2000);
+            return "{\"code\":0,\"column_meta\":[[\"affected_rows\",\"INT\",4]],\"data\":[[0]],\"rows\":1}";
+        }
+        return "{\"code\":9730,\"desc\":\"Table does not exist\"}";
+    }
+
+    @BeforeClass
+    public static void before() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/rest/sql", exchange -> {
+            clientPorts.add(exchange.getRemoteAddress().getPort());
+            ByteArrayOutputStream sql = new ByteArrayOutputStream();
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] buf = new byte[1024];
+                int n;
+                while ((n = in.read(buf)) > 0) {
+                    sql.write(buf, 0, n);
+                }
+            }
+            byte[] body;
+            try {
+                body = response(new String(sql.toByteArray(), StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.start();
+
+        Class.forName("com.taosdata.jdbc.rs.RestfulDriver");
+        String url = "jdbc:TAOS-RS://127.0.0.1:" + server.getAddress().getPort() + "/?user=root&password=taosdata"
+                + "&httpPoolSize=" + POOL_SIZE + "&httpSocketTimeout=1000";
+        conn = DriverManager.getConnection(url);
+    }
+
+    @Test
+    public void testManyConcurrentQueries() throws Exception {
+        clientPorts.clear();
+        RestfulStatement stmt = (RestfulStatement) conn.createStatement();
+        List<CompletableFuture<ResultSet>> futures = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            futures.add(stmt.executeAsync("select " + i));
+        }
+        for (int i = 0; i < futures.size(); i++) {
+            ResultSet rs = futures.get(i).get(10, TimeUnit.SECONDS);
+            Assert.assertTrue(rs.next());
+            Assert.assertEquals(i, rs.getInt(1));
+        }
+        // all requests went over the keep-alive connections of the pool
+        Assert.assertTrue(clientPorts.toString(), clientPorts.size() <= POOL_SIZE);
+        stmt.close();
+    }
+
+    @Test
+    public void testUpdateAndError() throws Exception {
+        RestfulStatement stmt = (RestfulStatement) conn.createStatement();
+        Assert.assertEquals(Integer.valueOf(2), stmt.executeUpdateAsync("insert into t values(now, 1)").get());
+        Assert.assertNull(stmt.executeAsync("insert into t values(now, 1)").get());
+        Assert.assertEquals(2, stmt.getUpdateCount());
+        Assert.assertEquals(Integer.valueOf(-1), stmt.executeUpdateAsync("select 1").get());
+        try {
+            stmt.executeAsync("describe t").get();
+            Assert.fail("error response must fail the future");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SQLException);
+            Assert.assertEquals(9730, ((SQLException) e.getCause()).getErrorCode());
+        }
+        stmt.close();
+        try {
+            stmt.executeAsync("select 1").get();
+            Assert.fail("closed statement must fail the future");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SQLException);
+        }
+    }
+
+    @Test
+    public void testCompletedOffEventLoop() throws Exception {
+        RestfulStatement stmt = (RestfulStatement) conn.createStatement();
+        CompletableFuture<String> thread = stmt.executeAsync("wait select 1").thenApply(rs -> Thread.currentThread().getName());
+        Assert.assertTrue(thread.get(), thread.get(10, TimeUnit.SECONDS).startsWith("taos-async-statement"));
+        Assert.assertTrue(stmt.getResultSet().next());
+        stmt.close();
+    }
+
+    @Test
+    public void testClosedWhileInFlight() throws Exception {
+        RestfulStatement stmt = (RestfulStatement) conn.createStatement();
+        CompletableFuture<ResultSet> future = stmt.executeAsync("wait select 1");
+        stmt.close();
+        try {
+            future.get(10, TimeUnit.SECONDS);
+            Assert.fail("a response after close must fail the future");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SQLException);
+            Assert.assertEquals(TSDBErrorNumbers.ERROR_STATEMENT_CLOSED, ((SQLException) e.getCause()).getErrorCode());
+        }
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        RestfulStatement stmt = (RestfulStatement) conn.createStatement();
+        try {
+            stmt.executeUpdateAsync("slow").get(10, TimeUnit.SECONDS);
+            Assert.fail("slow response must time out");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause().getMessage().contains("timeout"));
+        }
+        // the timed out connection is dropped, others keep working
+        Assert.assertEquals(Integer.valueOf(2), stmt.executeUpdateAsync("insert into t values(now, 1)").get(10, TimeUnit.SECONDS));
+        stmt.close();
+    }
+
+    @AfterClass
+    public static void after() throws SQLException {
+        if (conn != null)
+            conn.close();
+        if (server != null)
+            server.stop(0);
+        if (executor != null)
+            executor.shutdownNow();
+    }
+}
@@ -1,9 +1,15 @@
 package com.taosdata.jdbc.rs;
 import com.taosdata.jdbc.TSDBDriver;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Properties;
 
 import static org.junit.Assert.*;
@@ -133,4 +139,20 @@ public class RestfulConnectionParamTest {
         connectionParam.setAsyncWrite("stmt");
         assertEquals("stmt", connectionParam.getAsyncWrite());
     }
+
+    @Test
+    public void testTextMessageHandler() {
+        List<String> texts = new ArrayList<>();
+        connectionParam.setTextMessageHandler(texts::add);
+        ByteBuf frame = Unpooled.copiedBuffer("{\"action\":\"中\"}", StandardCharsets.UTF_8);
+        connectionParam.getTextFrameHandler().accept(frame);
+        connectionParam.getTextMessageHandler().accept("{}");
+        assertEquals(Arrays.asList("{\"action\":\"中\"}", "{}"), texts);
+        frame.release();
+
+        List<ByteBuf> frames = new ArrayList<>();
+        ConnectionParam built = new ConnectionParam.Builder("localhost", "6041").setTextFrameHandler(frames::add).build();
+        built.getTextMessageHandler().accept("{}");
+        assertEquals("{}", frames.get(0).toString(StandardCharsets.UTF_8));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,208 @@
+package com.taosdata.jdbc.rs;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+public class RestfulStreamingResultSetTest {
+
+    private static final int ROWS = 5000;
+    private static HttpServer server;
+    private static Connection streaming;
+    private static Connection buffered;
+
+    private static String queryResponse() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"code\":0,\"column_meta\":[[\"ts\",\"TIMESTAMP\",8],[\"b\",\"BOOL\",1],[\"i\",\"INT\",4],")
+                .append("[\"l\",\"BIGINT\",8],[\"f\",\"FLOAT\",4],[\"d\",\"DOUBLE\",8],[\"v\",\"VARCHAR\",16],")
+                .append("[\"n\",\"NCHAR\",16],[\"j\",\"JSON\",4096]],\"data\":[");
+        for (int i = 0; i < ROWS; i++) {
+            if (i > 0)
+                sb.append(',');
+            if (i % 7 == 3) {
+                sb.append("[\"2022-08-09T02:36:44.").append(String.format("%06d", i)).append("+08:00\",null,null,null,null,null,null,null,null]");
+                continue;
+            }
+            sb.append("[\"2022-08-09T02:36:44.").append(String.format("%06d", i)).append("+08:00\",")
+                    .append(i % 2 == 0).append(',')
+                    .append(i - ROWS / 2).append(',')
+                    .append((long) i * 1_000_000_007L).append(',')
+                    .append(i / 4.0).append(',')
+                    .append(i * 1.1).append(',')
+                    .append("\"v").append(i).append("\",")
+                    .append("\"中").append(i).append("\",")
+                    .append("{\"k\":").append(i).append("}]");
+        }
+        sb.append("],\"rows\":").append(ROWS).append('}');
+        return sb.toString();
+    }
+
+    private static String response(String sql) {
+        if (sql.startsWith("select"))
+            return queryResponse();
+        if (sql.startsWith("insert"))
+            return "{\"code\":0,\"column_meta\":[[\"affected_rows\",\"INT\",4]],\"data\":[[3]],\"rows\":1}";
+        return "{\"code\":9730,\"desc\":\"Table does not exist\"}";
+    }
+
+    @BeforeClass
+    public static void before() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/rest/sql", exchange -> {
+            ByteArrayOutputStream sql = new ByteArrayOutputStream();
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] buf = new byte[1024];
+                int n;
+                while ((n = in.read(buf)) > 0) {
+                    sql.write(buf, 0, n);
+                }
+            }
+            byte[] body = response(new String(sql.toByteArray(), StandardCharsets.UTF_8)).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            // chunked
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                for (int off = 0; off < body.length; off += 4096) {
+                    out.write(body, off, Math.min(4096, body.length - off));
+                }
+            }
+        });
+        server.start();
+
+        Class.forName("com.taosdata.jdbc.rs.RestfulDriver");
+        String url = "jdbc:TAOS-RS://127.0.0.1:" + server.getAddress().getPort() + "/?user=root&password=taosdata";
+        streaming = DriverManager.getConnection(url + "&streamingResult=true");
+        buffered = DriverManager.getConnection(url);
+    }
+
+    @Test
+    public void testSameRowsAsBuffered() throws SQLException {
+        try (Statement s1 = streaming.createStatement();
+             Statement s2 = buffered.createStatement();
+             ResultSet rs1 = s1.executeQuery("select * from t");
+             ResultSet rs2 = s2.executeQuery("select * from t")) {
+            Assert.assertTrue(rs1 instanceof RestfulStreamingResultSet);
+            Assert.assertEquals(9, rs1.getMetaData().getColumnCount());
+            int rows = 0;
+            while (rs2.next()) {
+                Assert.assertTrue(rs1.next());
+                rows++;
+                Assert.assertEquals(rows, rs1.getRow());
+                for (int i = 1; i <= 9; i++) {
+                    Object expected = rs2.getObject(i);
+                    Object actual = rs1.getObject(i);
+                    if (expected instanceof byte[]) {
+                        Assert.assertArrayEquals((byte[]) expected, (byte[]) actual);
+                    } else {
+                        Assert.assertEquals(expected, actual);
+                    }
+                    Assert.assertEquals(rs2.wasNull(), rs1.wasNull());
+                }
+                Assert.assertEquals(rs2.getLong(1), rs1.getLong(1));
+                Assert.assertEquals(rs2.getString(7), rs1.getString("v"));
+            }
+            Assert.assertEquals(ROWS, rows);
+            Assert.assertFalse(rs1.next());
+            Assert.assertTrue(rs1.isAfterLast());
+        }
+    }
+
+    @Test
+    public void testCursorPosition() throws SQLException {
+        try (Statement stmt = streaming.createStatement()) {
+            ResultSet rs = stmt.executeQuery("select * from t");
+            Assert.assertTrue(rs.isBeforeFirst());
+            Assert.assertTrue(rs.next());
+            Assert.assertTrue(rs.isFirst());
+            Assert.assertFalse(rs.isLast());
+            Assert.assertEquals(1, rs.getRow());
+            int rows = 1;
+            while (!rs.isLast()) {
+                Assert.assertTrue(rs.next());
+                rows++;
+            }
+            Assert.assertEquals(ROWS, rows);
+            Assert.assertFalse(rs.next());
+            Assert.assertEquals(0, rs.getRow());
+            try {
+                rs.first();
+                Assert.fail("streaming result set is forward only");
+            } catch (SQLException ignored) {
+            }
+        }
+    }
+
+    @Test
+    public void testCloseBeforeEnd() throws Exception {
+        try (Statement stmt = streaming.createStatement()) {
+            ResultSet rs = stmt.executeQuery("select * from t");
+            Assert.assertTrue(rs.next());
+            rs.close();
+            Assert.assertTrue(rs.isClosed());
+
+            // a new query closes the result set left open
+            ResultSet rs1 = stmt.executeQuery("select * from t");
+            Assert.assertTrue(rs1.next());
+            ResultSet rs2 = stmt.executeQuery("select * from t");
+            Assert.assertTrue(rs1.isClosed());
+            Assert.assertTrue(rs2.next());
+
+            // so does an async one, which is buffered
+            Assert.assertEquals(Integer.valueOf(3), stmt.unwrap(RestfulStatement.class)
+                    .executeUpdateAsync("insert into t values(now, 1)").get(10, TimeUnit.SECONDS));
+            Assert.assertTrue(rs2.isClosed());
+        }
+    }
+
+    @Test
+    public void testUpdateAndError() throws SQLException {
+        try (Statement stmt = streaming.createStatement()) {
+            Assert.assertEquals(3, stmt.executeUpdate("insert into t values(now, 1)"));
+            Assert.assertNull(stmt.getResultSet());
+            try {
+                stmt.executeQuery("describe t");
+                Assert.fail("error response must be thrown");
+            } catch (SQLException e) {
+                Assert.assertEquals(9730, e.getErrorCode());
+                Assert.assertTrue(e.getMessage().contains("Table does not exist"));
+            }
+        }
+    }
+
+    @Test
+    public void testTimestampPrecision() throws SQLException {
+        try (Statement stmt = streaming.createStatement();
+             ResultSet rs = stmt.executeQuery("select * from t")) {
+            Assert.assertTrue(rs.next());
+            Assert.assertEquals(1659983804000000L, rs.getLong(1));
+            Assert.assertTrue(rs.next());
+            Assert.assertEquals(1659983804000001L, rs.getLong(1));
+            Assert.assertFalse(rs.getBoolean(2));
+            Assert.assertFalse(rs.wasNull());
+        }
+    }
+
+    @AfterClass
+    public static void after() throws SQLException {
+        if (streaming != null)
+            streaming.close();
+        if (buffered != null)
+            buffered.close();
+        if (server != null)
+            server.stop(0);
+    }
+}
@@ -0,0 +1,34 @@
+package com.taosdata.jdbc.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class CompletableFutureTimeoutTest {
+
+    @Test
+    public void testTimeout() throws Exception {
+        CompletableFuture<String> future = CompletableFutureTimeout.orTimeout(new CompletableFuture<>(), 50, TimeUnit.MILLISECONDS, "test");
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail("expect timeout");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+            Assert.assertTrue(e.getCause().getMessage().contains("test"));
+        }
+    }
+
+    @Test
+    public void testCompleteBeforeTimeout() throws Exception {
+        CompletableFuture<String> origin = new CompletableFuture<>();
+        CompletableFuture<String> future = CompletableFutureTimeout.orTimeout(origin, 50, TimeUnit.MILLISECONDS, "test");
+        Assert.assertSame(origin, future);
+        origin.complete("ok");
+        TimeUnit.MILLISECONDS.sleep(150);
+        Assert.assertEquals("ok", future.get());
+    }
+}
@@ -0,0 +1,69 @@
+package com.taosdata.jdbc.utils;
+
+import com.taosdata.jdbc.rs.RestfulResultSet;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+
+public class DateTimeUtilsTest {
+
+    private static Timestamp expected(String value) {
+        int index = value.lastIndexOf(":");
+        if (index > 19) {
+            value = value.substring(0, index) + value.substring(index + 1);
+        }
+        return Timestamp.from(ZonedDateTime.parse(value, RestfulResultSet.rfc3339Parser).toInstant());
+    }
+
+    @Test
+    public void testParseRfc3339() {
+        String[] values = {
+                "2022-08-09T02:36:44Z",
+                "2022-08-09T02:36:44.5Z",
+                "2022-08-09T02:36:44.123+08:00",
+                "2022-08-09T02:36:44.123456+0800",
+                "2022-08-09T02:36:44.123456789-05:30",
+                "2024-02-29T23:59:59.999999999+00:00",
+                "1969-12-31T23:59:59.001Z",
+                "1900-01-01T00:00:00.000000001+14:00",
+                "2000-03-01T00:00:00.010z",
+                "9999-12-31T23:59:59.9-18:00",
+        };
+        for (String value : values) {
+            Assert.assertEquals(value, expected(value), DateTimeUtils.parseRfc3339(value));
+        }
+    }
+
+    @Test
+    public void testParseRfc3339Invalid() {
+        String[] values = {
+                "2022-08-09 02:36:44.123",
+                "2022-08-09T02:36:44.Z",
+                "2022-08-09T02:36:44.1234567890Z",
+                "2022-02-30T02:36:44Z",
+                "2023-02-29T02:36:44Z",
+                "2022-13-09T02:36:44Z",
+                "2022-08-09T24:00:00Z",
+                "2022-08-09T02:36:44+8:00",
+                "2022-08-09T02:36:44Zz",
+                "2022-08-09T02:36:44",
+                "2022-08-09T02:36:44+0",
+                "2022-08-09T02:36:44.5-",
+                "2022-08-09T02:36:44+08:0",
+                "2022-08-09T02:36:44+08:000",
+        };
+        for (String value : values) {
+            Assert.assertNull(value, DateTimeUtils.parseRfc3339(value));
+        }
+    }
+
+    @Test
+    public void testRfc3339FractionDigits() {
+        Assert.assertEquals(0, DateTimeUtils.rfc3339FractionDigits("2022-08-09T02:36:44Z"));
+        Assert.assertEquals(1, DateTimeUtils.rfc3339FractionDigits("2022-08-09T02:36:44.5Z"));
+        Assert.assertEquals(6, DateTimeUtils.rfc3339FractionDigits("2022-08-09T02:36:44.123456+08:00"));
+        Assert.assertEquals(9, DateTimeUtils.rfc3339FractionDigits("2022-08-09T02:36:44.123456789+08:00"));
+    }
+}
@@ -0,0 +1,64 @@
+package com.taosdata.jdbc.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SpscRingTest {
+
+    @Test
+    public void testOfferPoll() {
+        SpscRing<Integer> ring = new SpscRing<>(3);
+        Assert.assertTrue(ring.isEmpty());
+        Assert.assertNull(ring.poll());
+        for (int round = 0; round < 5; round++) {
+            Assert.assertTrue(ring.offer(1));
+            Assert.assertTrue(ring.offer(2));
+            Assert.assertTrue(ring.offer(3));
+            Assert.assertFalse(ring.offer(4));
+            Assert.assertEquals(3, ring.size());
+            Assert.assertEquals(Integer.valueOf(1), ring.poll());
+            Assert.assertTrue(ring.offer(4));
+            Assert.assertEquals(Integer.valueOf(2), ring.poll());
+            Assert.assertEquals(Integer.valueOf(3), ring.poll());
+            Assert.assertEquals(Integer.valueOf(4), ring.poll());
+            Assert.assertNull(ring.poll());
+            Assert.assertTrue(ring.isEmpty());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroCapacity() {
+        new SpscRing<>(0);
+    }
+
+    @Test
+    public void testTwoThreads() throws Exception {
+        int count = 1_000_000;
+        SpscRing<Integer> ring = new SpscRing<>(16);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                Integer v = i;
+                while (!ring.offer(v)) {
+                    Thread.yield();
+                }
+            }
+        });
+        producer.start();
+
+        long sum = 0;
+        int expected = 0;
+        while (expected < count) {
+            Integer v = ring.poll();
+            if (v == null) {
+                Thread.yield();
+                continue;
+            }
+            Assert.assertEquals(expected, v.intValue());
+            sum += v;
+            expected++;
+        }
+        producer.join();
+        Assert.assertEquals((long) count * (count - 1) / 2, sum);
+        Assert.assertTrue(ring.isEmpty());
+    }
+}
@@ -0,0 +1,98 @@
+package com.taosdata.jdbc.ws;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.compression.DecompressionException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+public class BlockCompressionTest {
+
+    private static final int[] TYPES = {TSDB_DATA_TYPE_TIMESTAMP, TSDB_DATA_TYPE_INT, TSDB_DATA_TYPE_BIGINT,
+            TSDB_DATA_TYPE_FLOAT, TSDB_DATA_TYPE_DOUBLE, TSDB_DATA_TYPE_BOOL, TSDB_DATA_TYPE_BINARY, TSDB_DATA_TYPE_NCHAR};
+
+    static byte[] sensorBlock(int rows, long seed) {
+        Random random = new Random(seed);
+        FakeTaosAdapter.BlockBuilder builder = new FakeTaosAdapter.BlockBuilder(TYPES);
+        long ts = 1700000000000L;
+        double value = 20.0;
+        for (int i = 0; i < rows; i++) {
+            ts += 1000 + (random.nextInt(10) == 0 ? random.nextInt(5) : 0);
+            value += random.nextInt(3) - 1;
+            builder.addRow(ts,
+                    i % 17 == 0 ? null : random.nextInt(100),
+                    (long) i * 3,
+                    (float) (value / 2),
+                    i % 13 == 0 ? null : value,
+                    i % 2 == 0,
+                    i % 11 == 0 ? null : "device_" + (i % 8),
+                    "位置" + (i % 4));
+        }
+        return builder.build();
+    }
+
+    private static void assertRoundTrip(byte[] block) {
+        ByteBuf compressed = BlockCompression.compress(Unpooled.wrappedBuffer(block));
+        ByteBuf restored = BlockCompression.decompress(compressed);
+        try {
+            Assert.assertEquals(block.length, BlockCompression.uncompressedSize(compressed));
+            Assert.assertArrayEquals(block, ByteBufUtil.getBytes(restored));
+        } finally {
+            compressed.release();
+            restored.release();
+        }
+    }
+
+    @Test
+    public void testRoundTrip() {
+        assertRoundTrip(sensorBlock(4096, 1));
+        assertRoundTrip(sensorBlock(1, 2));
+        assertRoundTrip(sensorBlock(0, 3));
+        // snappy input over one chunk
+        assertRoundTrip(sensorBlock(100_000, 4));
+    }
+
+    @Test
+    public void testRandomValues() {
+        Random random = new Random(7);
+        FakeTaosAdapter.BlockBuilder builder = new FakeTaosAdapter.BlockBuilder(TYPES);
+        for (int i = 0; i < 2000; i++) {
+            builder.addRow(random.nextLong(), random.nextInt(), random.nextBoolean() ? Long.MIN_VALUE : Long.MAX_VALUE,
+                    Float.intBitsToFloat(random.nextInt()), Double.longBitsToDouble(random.nextLong()),
+                    random.nextBoolean(), Long.toHexString(random.nextLong()), String.valueOf(random.nextDouble()));
+        }
+        assertRoundTrip(builder.build());
+    }
+
+    @Test
+    public void testSmallerThanPlain() {
+        byte[] block = sensorBlock(4096, 5);
+        ByteBuf compressed = BlockCompression.compress(Unpooled.wrappedBuffer(block));
+        try {
+            Assert.assertTrue(compressed.readableBytes() + " of " + block.length, compressed.readableBytes() < block.length / 3);
+        } finally {
+            compressed.release();
+        }
+    }
+
+    @Test
+    public void testTruncated() {
+        ByteBuf compressed = BlockCompression.compress(Unpooled.wrappedBuffer(sensorBlock(100, 6)));
+        try {
+            for (int length : new int[]{4, 40, compressed.readableBytes() / 2, compressed.readableBytes() - 1}) {
+                try {
+                    BlockCompression.decompress(compressed.slice(0, length)).release();
+                    Assert.fail("truncated to " + length);
+                } catch (DecompressionException ignored) {
+                }
+            }
+        } finally {
+            compressed.release();
+        }
+    }
+}
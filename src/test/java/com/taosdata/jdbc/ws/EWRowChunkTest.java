@@ -0,0 +1,159 @@
+package com.taosdata.jdbc.ws;
+
+import com.taosdata.jdbc.common.ColumnInfo;
+import com.taosdata.jdbc.common.SerializeBlock;
+import com.taosdata.jdbc.common.Stmt2BindEncoder;
+import com.taosdata.jdbc.common.TableInfo;
+import com.taosdata.jdbc.enums.FieldBindType;
+import com.taosdata.jdbc.ws.stmt2.entity.Field;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+public class EWRowChunkTest {
+
+    private static Field field(int bindType, int type, int bytes) {
+        Field field = new Field();
+        field.setBindType((byte) bindType);
+        field.setFieldType((byte) type);
+        field.setBytes(bytes);
+        return field;
+    }
+
+    // tbname, tag int, ts, double, nchar, bool
+    private static List<Field> fields() {
+        return Arrays.asList(
+                field(FieldBindType.TAOS_FIELD_TBNAME.getValue(), TSDB_DATA_TYPE_BINARY, 192),
+                field(FieldBindType.TAOS_FIELD_TAG.getValue(), TSDB_DATA_TYPE_INT, 4),
+                field(FieldBindType.TAOS_FIELD_COL.getValue(), TSDB_DATA_TYPE_TIMESTAMP, 8),
+                field(FieldBindType.TAOS_FIELD_COL.getValue(), TSDB_DATA_TYPE_DOUBLE, 8),
+                field(FieldBindType.TAOS_FIELD_COL.getValue(), TSDB_DATA_TYPE_NCHAR, 8),
+                field(FieldBindType.TAOS_FIELD_COL.getValue(), TSDB_DATA_TYPE_BOOL, 1));
+    }
+
+    private static byte[] toBytes(ByteBuf buf) {
+        try {
+            return ByteBufUtil.getBytes(buf);
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static byte[] encode(EWRowChunk chunk) throws SQLException {
+        Stmt2BindEncoder encoder = new Stmt2BindEncoder(true, 1, 4);
+        chunk.encode(encoder);
+        return toBytes(encoder.finish(1L, 2L));
+    }
+
+    private final long[] longs = new long[6];
+    private final double[] doubles = new double[6];
+    private final Object[] vars = new Object[6];
+    private final boolean[] nulls = new boolean[6];
+
+    private void append(EWRowChunk chunk, Object table, int tag, long ts, Double d, String s, boolean b) throws SQLException {
+        vars[0] = table;
+        longs[1] = tag;
+        longs[2] = ts;
+        nulls[3] = d == null;
+        doubles[3] = d == null ? 0 : d;
+        nulls[4] = s == null;
+        vars[4] = s;
+        longs[5] = b ? 1 : 0;
+        chunk.append(longs, doubles, vars, nulls);
+    }
+
+    private static void addRow(LinkedHashMap<ByteBuffer, TableInfo> map, String table, int tag, long ts, Double d, String s, boolean b) {
+        ByteBuffer name = ByteBuffer.wrap(table.getBytes(StandardCharsets.UTF_8));
+        TableInfo tableInfo = map.get(name);
+        if (tableInfo == null) {
+            List<ColumnInfo> tags = new ArrayList<>();
+            tags.add(new ColumnInfo(2, new ArrayList<>(Arrays.asList((Object) tag)), TSDB_DATA_TYPE_INT));
+            List<ColumnInfo> cols = new ArrayList<>();
+            cols.add(new ColumnInfo(3, new ArrayList<>(), TSDB_DATA_TYPE_TIMESTAMP));
+            cols.add(new ColumnInfo(4, new ArrayList<>(), TSDB_DATA_TYPE_DOUBLE));
+            cols.add(new ColumnInfo(5, new ArrayList<>(), TSDB_DATA_TYPE_NCHAR));
+            cols.add(new ColumnInfo(6, new ArrayList<>(), TSDB_DATA_TYPE_BOOL));
+            tableInfo = new TableInfo(cols, name, tags);
+            map.put(name, tableInfo);
+        }
+        tableInfo.getDataList().get(0).add(ts);
+        tableInfo.getDataList().get(1).add(d);
+        tableInfo.getDataList().get(2).add(s);
+        tableInfo.getDataList().get(3).add(b);
+    }
+
+    @Test
+    public void testEncodeGroupsRowsByTable() throws Exception {
+        EWRowChunk chunk = new EWRowChunk(fields(), 8, false);
+        LinkedHashMap<ByteBuffer, TableInfo> map = new LinkedHashMap<>();
+        for (int i = 0; i < 7; i++) {
+            String table = "d" + (i % 3);
+            Double d = i == 4 ? null : 1.5 * i;
+            String s = i == 2 ? null : "中" + i;
+            // the table name may be bound as String or bytes
+            Object name = i % 2 == 0 ? table : table.getBytes(StandardCharsets.UTF_8);
+            append(chunk, name, i % 3, 1000L + i, d, s, i % 2 == 0);
+            addRow(map, table, i % 3, 1000L + i, d, s, i % 2 == 0);
+        }
+        Assert.assertEquals(7, chunk.size());
+        Assert.assertFalse(chunk.isFull());
+
+        byte[] expected = toBytes(SerializeBlock.getStmt2BindBlock(1L, 2L, map, 0, 1, 4, 0));
+        Assert.assertArrayEquals(expected, encode(chunk));
+        // encoding does not consume the rows, a retry sends the same block
+        Assert.assertArrayEquals(expected, encode(chunk));
+    }
+
+    @Test
+    public void testReuseAfterClear() throws Exception {
+        EWRowChunk chunk = new EWRowChunk(fields(), 2, false);
+        append(chunk, "t1", 1, 1L, null, null, true);
+        append(chunk, "t1", 1, 2L, 2.0, "a long value which makes the arena grow past its initial size", false);
+        Assert.assertTrue(chunk.isFull());
+        chunk.clear();
+        Assert.assertTrue(chunk.isEmpty());
+
+        append(chunk, "t2", 5, 3L, 3.0, "x", false);
+        LinkedHashMap<ByteBuffer, TableInfo> map = new LinkedHashMap<>();
+        addRow(map, "t2", 5, 3L, 3.0, "x", false);
+        Assert.assertArrayEquals(toBytes(SerializeBlock.getStmt2BindBlock(1L, 2L, map, 0, 1, 4, 0)), encode(chunk));
+    }
+
+    @Test
+    public void testStrictCheckRejectsLongValue() throws Exception {
+        EWRowChunk chunk = new EWRowChunk(fields(), 4, true);
+        append(chunk, "t1", 1, 1L, 1.0, "12345678", true);
+        try {
+            append(chunk, "t1", 1, 2L, 1.0, "中中中", true);
+            Assert.fail("nchar value longer than the column must be rejected");
+        } catch (SQLException e) {
+            Assert.assertTrue(e.getMessage().contains("data length is too long"));
+        }
+        // the rejected row is not kept
+        Assert.assertEquals(1, chunk.size());
+        LinkedHashMap<ByteBuffer, TableInfo> map = new LinkedHashMap<>();
+        addRow(map, "t1", 1, 1L, 1.0, "12345678", true);
+        Assert.assertArrayEquals(toBytes(SerializeBlock.getStmt2BindBlock(1L, 2L, map, 0, 1, 4, 0)), encode(chunk));
+    }
+
+    @Test
+    public void testUtf8MatchesStringEncoding() throws Exception {
+        String s = "aé中😀\uD800z";
+        EWRowChunk chunk = new EWRowChunk(fields(), 1, false);
+        append(chunk, "t1", 1, 1L, 1.0, s, true);
+        LinkedHashMap<ByteBuffer, TableInfo> map = new LinkedHashMap<>();
+        addRow(map, "t1", 1, 1L, 1.0, s, true);
+        Assert.assertArrayEquals(toBytes(SerializeBlock.getStmt2BindBlock(1L, 2L, map, 0, 1, 4, 0)), encode(chunk));
+    }
+}
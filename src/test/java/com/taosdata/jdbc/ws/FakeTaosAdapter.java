@@ -0,0 +1,1027 @@
+package com.taosdata.jdbc.ws;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.taosdata.jdbc.TSDBConstants;
+import com.taosdata.jdbc.enums.FieldBindType;
+import com.taosdata.jdbc.enums.TmqMessageType;
+import com.taosdata.jdbc.utils.JsonUtil;
+import com.taosdata.jdbc.ws.entity.FetchReq;
+import com.taosdata.jdbc.ws.stmt2.entity.Field;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketServerProtocolHandler;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.GlobalEventExecutor;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * an in-process stand-in for taosAdapter speaking the websocket protocol of the driver, on /ws and /rest/tmq.
+ * <p>
+ * conn, binary_query, fetch_block_new and free_result: every query returns the result set by {@link #setResult}.
+ * stmt2_init, stmt2_prepare, stmt2_bind, stmt2_exec and stmt2_close are served for the fields by
+ * {@link #setStmt2Fields}, an exec affects the rows bound since the last exec and the data are dropped.
+ * schemaless insert counts the lines and drops them. get_table_vgid answers the vgroups set by
+ * {@link #setTableVgIds}.
+ * <p>
+ * tmq subscribe, poll, fetch_raw_data and commit serve the messages set by {@link #setTmqMessages} on one vgroup,
+ * every consumer connection reads all messages from offset 0. assignment, seek, position, committed,
+ * commit_offset, list_topics and unsubscribe keep the offsets of the connection.
+ * <p>
+ * responses can be delayed by {@link #setLatencyMs}, throttled by {@link #setBandwidth} per connection and
+ * failed by {@link #setError}.
+ */
+public class FakeTaosAdapter implements AutoCloseable {
+    private static final long BINARY_QUERY = 6;
+    private static final long FETCH_BLOCK_NEW = 7;
+    private static final long STMT2_BIND = 9;
+    private static final int VGROUP_ID = 1;
+
+    private final EventLoopGroup group = new NioEventLoopGroup(1, new DefaultThreadFactory("fake-adapter", true));
+    private final ChannelGroup channels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+    private Channel serverChannel;
+
+    private volatile Result result = new Result(new String[0], new int[0], new int[0], Collections.emptyList());
+    private volatile boolean blockCompression = true;
+    private volatile short fetchVersion;
+    private final AtomicLong resultIds = new AtomicLong();
+    private final AtomicLong blockBytesSent = new AtomicLong();
+    private final AtomicLong fetchCount = new AtomicLong();
+    private final AtomicLong freedResults = new AtomicLong();
+
+    private volatile List<Field> stmt2Fields = Collections.emptyList();
+    private volatile long stmt2LatencyMs;
+    private volatile long failedExec;
+    private final AtomicLong stmtIds = new AtomicLong();
+    private final AtomicLong execCount = new AtomicLong();
+    private final AtomicLong rowsExecuted = new AtomicLong();
+    private final AtomicInteger stmt2InFlight = new AtomicInteger();
+    private final AtomicInteger maxStmt2InFlight = new AtomicInteger();
+
+    private final AtomicLong linesInserted = new AtomicLong();
+    private final List<Long> insertReqIds = new CopyOnWriteArrayList<>();
+    private final AtomicInteger insertsInFlight = new AtomicInteger();
+    private final AtomicInteger maxInsertsInFlight = new AtomicInteger();
+
+    private volatile Map<String, Integer> tableVgIds = Collections.emptyMap();
+    private final AtomicLong vgIdLookups = new AtomicLong();
+    private final AtomicLong vgIdTables = new AtomicLong();
+
+    private volatile TmqMessages tmqMessages = new TmqMessages(new byte[0], 0);
+    private final AtomicLong messagesPolled = new AtomicLong();
+    private final AtomicLong commitCount = new AtomicLong();
+
+    private volatile long latencyMs;
+    private volatile long bandwidth;
+    private final Map<String, Injection> errors = new ConcurrentHashMap<>();
+    private final AtomicLong bytesSent = new AtomicLong();
+
+    public FakeTaosAdapter start() throws InterruptedException {
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        channels.add(ch);
+                        // /ws for queries, stmt2 and schemaless, /rest/tmq for consumers
+                        ch.pipeline().addLast(new HttpServerCodec(),
+                                new HttpObjectAggregator(64 * 1024),
+                                new WebSocketServerProtocolHandler("/", null, true, 64 * 1024 * 1024, false, true),
+                                new Handler());
+                    }
+                })
+                .bind("127.0.0.1", 0).sync().channel();
+        return this;
+    }
+
+    public int getPort() {
+        return ((InetSocketAddress) serverChannel.localAddress()).getPort();
+    }
+
+    public void setResult(Result result) {
+        this.result = result;
+    }
+
+    /**
+     * whether conn accepts the block compression asked by the client, default true
+     */
+    public void setBlockCompression(boolean blockCompression) {
+        this.blockCompression = blockCompression;
+    }
+
+    /**
+     * lowest version written in fetch_block_new responses, a newer server answers a version 1 request with its own
+     * version and no compression byte
+     */
+    public void setFetchVersion(short fetchVersion) {
+        this.fetchVersion = fetchVersion;
+    }
+
+    /**
+     * @return block bytes written to fetch_block_new responses
+     */
+    public long getBlockBytesSent() {
+        return blockBytesSent.get();
+    }
+
+    public long getFetchCount() {
+        return fetchCount.get();
+    }
+
+    /**
+     * @return results released by free_result
+     */
+    public long getFreedResults() {
+        return freedResults.get();
+    }
+
+    /**
+     * fields returned by stmt2_prepare, the statement is an insert when there are any
+     */
+    public void setStmt2Fields(List<Field> fields) {
+        this.stmt2Fields = fields;
+    }
+
+    public static Field field(String name, int type, FieldBindType bindType) {
+        Field field = new Field();
+        field.setName(name);
+        field.setFieldType((byte) type);
+        field.setBindType((byte) bindType.getValue());
+        return field;
+    }
+
+    /**
+     * delay of stmt2_bind and stmt2_exec responses on top of {@link #setLatencyMs}, requests are still handled
+     * in the order they arrive
+     */
+    public void setStmt2LatencyMs(long stmt2LatencyMs) {
+        this.stmt2LatencyMs = stmt2LatencyMs;
+    }
+
+    /**
+     * the n-th stmt2_exec on the adapter fails, counted from 1, 0 for none
+     */
+    public void setFailedExec(long n) {
+        this.failedExec = n;
+    }
+
+    public long getExecCount() {
+        return execCount.get();
+    }
+
+    public long getRowsExecuted() {
+        return rowsExecuted.get();
+    }
+
+    /**
+     * @return max binds received whose exec response was not yet sent
+     */
+    public int getMaxStmt2InFlight() {
+        return maxStmt2InFlight.get();
+    }
+
+    /**
+     * @return schemaless lines received by insert
+     */
+    public long getLinesInserted() {
+        return linesInserted.get();
+    }
+
+    /**
+     * @return request ids of the schemaless inserts received, failed ones included
+     */
+    public List<Long> getInsertReqIds() {
+        return insertReqIds;
+    }
+
+    /**
+     * @return max schemaless inserts received whose response was not yet sent
+     */
+    public int getMaxInsertsInFlight() {
+        return maxInsertsInFlight.get();
+    }
+
+    /**
+     * vgroup of each table name in the database asked, "db.table", a table not set is in vgroup 1
+     */
+    public void setTableVgIds(Map<String, Integer> tableVgIds) {
+        this.tableVgIds = tableVgIds;
+    }
+
+    /**
+     * @return get_table_vgid requests answered
+     */
+    public long getVgIdLookups() {
+        return vgIdLookups.get();
+    }
+
+    /**
+     * @return tables asked by get_table_vgid
+     */
+    public long getVgIdTables() {
+        return vgIdTables.get();
+    }
+
+    /**
+     * every consumer polls the message count times, each message holds all blocks of the result
+     */
+    public void setTmqMessages(Result result, int count) {
+        this.tmqMessages = new TmqMessages(rawMessage("t", result.names, result.types, result.lengths, result.blocks), count);
+    }
+
+    /**
+     * @return polls answered with a message
+     */
+    public long getMessagesPolled() {
+        return messagesPolled.get();
+    }
+
+    public long getCommitCount() {
+        return commitCount.get();
+    }
+
+    /**
+     * delay of every response
+     */
+    public void setLatencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    /**
+     * bytes per second each connection sends its responses at, 0 for unlimited
+     */
+    public void setBandwidth(long bytesPerSecond) {
+        this.bandwidth = bytesPerSecond;
+    }
+
+    /**
+     * every n-th request of the action fails with the code and message, counted from the call, 1 fails all.
+     * actions are named as sent by the driver, e.g. binary_query, fetch_block_new, stmt2_bind, insert or poll
+     */
+    public void setError(String action, long every, int code, String message) {
+        errors.put(action, new Injection(every, code, message));
+    }
+
+    public void clearErrors() {
+        errors.clear();
+    }
+
+    /**
+     * @return bytes of all responses sent
+     */
+    public long getBytesSent() {
+        return bytesSent.get();
+    }
+
+    /**
+     * closes the connections of all clients, the adapter keeps accepting new ones
+     */
+    public void closeConnections() {
+        channels.close().syncUninterruptibly();
+    }
+
+    @Override
+    public void close() {
+        if (serverChannel != null) {
+            serverChannel.close().syncUninterruptibly();
+        }
+        channels.close().syncUninterruptibly();
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * columns and blocks of a query result
+     */
+    public static class Result {
+        final String[] names;
+        final int[] types;
+        final int[] lengths;
+        final List<byte[]> blocks;
+
+        public Result(String[] names, int[] types, int[] lengths, List<byte[]> blocks) {
+            this.names = names;
+            this.types = types;
+            this.lengths = lengths;
+            this.blocks = blocks;
+        }
+
+        /**
+         * a result of random values in the types supported by {@link BlockBuilder}, column i is named c{i}.
+         * a timestamp first column ascends by one second and is never null, other values are null one in sixteen.
+         */
+        public static Result random(int[] types, int blocks, int rows, long seed) {
+            Random random = new Random(seed);
+            String[] names = new String[types.length];
+            int[] lengths = new int[types.length];
+            for (int c = 0; c < types.length; c++) {
+                names[c] = "c" + c;
+                lengths[c] = BlockBuilder.width(types[c]) == 0 ? 32 : BlockBuilder.width(types[c]);
+            }
+            long ts = 1700000000000L;
+            List<byte[]> list = new ArrayList<>(blocks);
+            for (int b = 0; b < blocks; b++) {
+                BlockBuilder builder = new BlockBuilder(types);
+                for (int r = 0; r < rows; r++) {
+                    Object[] row = new Object[types.length];
+                    for (int c = 0; c < types.length; c++) {
+                        if (c == 0 && types[c] == TSDBConstants.TSDB_DATA_TYPE_TIMESTAMP) {
+                            row[c] = ts;
+                            ts += 1000;
+                        } else if (c == 0 || random.nextInt(16) != 0) {
+                            row[c] = randomValue(random, types[c]);
+                        }
+                    }
+                    builder.addRow(row);
+                }
+                list.add(builder.build());
+            }
+            return new Result(names, types, lengths, list);
+        }
+
+        private static Object randomValue(Random random, int type) {
+            switch (type) {
+                case TSDBConstants.TSDB_DATA_TYPE_BOOL:
+                    return random.nextBoolean();
+                case TSDBConstants.TSDB_DATA_TYPE_TINYINT:
+                    return (byte) random.nextInt();
+                case TSDBConstants.TSDB_DATA_TYPE_SMALLINT:
+                    return (short) random.nextInt();
+                case TSDBConstants.TSDB_DATA_TYPE_INT:
+                    return random.nextInt();
+                case TSDBConstants.TSDB_DATA_TYPE_FLOAT:
+                    return random.nextFloat() * 100;
+                case TSDBConstants.TSDB_DATA_TYPE_DOUBLE:
+                    return random.nextDouble() * 100;
+                case TSDBConstants.TSDB_DATA_TYPE_BINARY:
+                    return Long.toHexString(random.nextLong());
+                case TSDBConstants.TSDB_DATA_TYPE_NCHAR:
+                    return "值" + random.nextInt(1000);
+                default:
+                    return random.nextLong();
+            }
+        }
+    }
+
+    // state of one query on a connection
+    private static class Cursor {
+        final Result result;
+        int next;
+
+        Cursor(Result result) {
+            this.result = result;
+        }
+    }
+
+    private static class TmqMessages {
+        final byte[] message;
+        final int count;
+
+        TmqMessages(byte[] message, int count) {
+            this.message = message;
+            this.count = count;
+        }
+    }
+
+    private static class Injection {
+        final long every;
+        final int code;
+        final String message;
+        final AtomicLong requests = new AtomicLong();
+
+        Injection(long every, int code, String message) {
+            this.every = every;
+            this.code = code;
+            this.message = message;
+        }
+    }
+
+    private Injection injected(String action) {
+        Injection injection = errors.get(action);
+        if (injection == null || injection.requests.incrementAndGet() % injection.every != 0) {
+            return null;
+        }
+        return injection;
+    }
+
+    private class Handler extends SimpleChannelInboundHandler<WebSocketFrame> {
+        private final Map<Long, Cursor> cursors = new HashMap<>();
+        // rows bound since the last exec of each statement
+        private final Map<Long, Integer> boundRows = new HashMap<>();
+        // time the responses sent so far are through the throttled link
+        private long linkFree;
+
+        private List<String> topics = Collections.emptyList();
+        // offset of the next message to poll and the last committed one
+        private long position;
+        private long committed = -1;
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, WebSocketFrame frame) throws IOException {
+            if (frame instanceof TextWebSocketFrame) {
+                onText(ctx, ((TextWebSocketFrame) frame).text());
+            } else if (frame instanceof BinaryWebSocketFrame) {
+                onBinary(ctx, frame.content());
+            }
+        }
+
+        private void onText(ChannelHandlerContext ctx, String text) throws IOException {
+            JsonNode request = JsonUtil.getObjectMapper().readTree(text);
+            String action = request.get("action").asText();
+            JsonNode args = request.get("args");
+            long reqId = args.path("req_id").asLong();
+            ObjectNode resp = response(action, reqId);
+            switch (action) {
+                case "free_result":
+                    if (cursors.remove(args.path("id").asLong()) != null) {
+                        freedResults.incrementAndGet();
+                    }
+                    return;
+                case "stmt2_exec":
+                    onExec(ctx, args, resp);
+                    return;
+                case "fetch_raw_data":
+                    onFetchRaw(ctx, args, reqId);
+                    return;
+                case "insert":
+                    onInsert(ctx, args, resp);
+                    return;
+                default:
+                    break;
+            }
+            Injection error = injected(action);
+            if (error != null) {
+                resp.put("code", error.code);
+                resp.put("message", error.message);
+                send(ctx, new TextWebSocketFrame(resp.toString()), 0);
+                return;
+            }
+            switch (action) {
+                case "conn":
+                    resp.put("version", TSDBConstants.MIN_SUPPORT_VERSION);
+                    if (blockCompression && args.has("block_compression")) {
+                        resp.put("block_compression", BlockCompression.COLUMN);
+                    }
+                    break;
+                case "version":
+                    resp.put("version", TSDBConstants.MIN_SUPPORT_VERSION);
+                    break;
+                case "stmt2_init":
+                    long stmtId = stmtIds.incrementAndGet();
+                    boundRows.put(stmtId, 0);
+                    resp.put("stmt_id", stmtId);
+                    break;
+                case "stmt2_prepare":
+                    List<Field> fields = stmt2Fields;
+                    resp.put("stmt_id", args.path("stmt_id").asLong());
+                    resp.put("is_insert", !fields.isEmpty());
+                    resp.set("fields", JsonUtil.getObjectMapper().valueToTree(fields));
+                    resp.put("fields_count", fields.size());
+                    break;
+                case "stmt2_close":
+                    boundRows.remove(args.path("stmt_id").asLong());
+                    resp.put("stmt_id", args.path("stmt_id").asLong());
+                    break;
+                case "get_table_vgid":
+                    vgIdLookups.incrementAndGet();
+                    String db = args.path("db").asText();
+                    ArrayNode vgIds = resp.putArray("vg_ids");
+                    args.path("tables").forEach(table -> {
+                        vgIdTables.incrementAndGet();
+                        vgIds.add(tableVgIds.getOrDefault(db + "." + table.asText(), VGROUP_ID));
+                    });
+                    break;
+                case "subscribe":
+                    topics = new ArrayList<>();
+                    args.path("topics").forEach(topic -> topics.add(topic.asText()));
+                    position = 0;
+                    committed = -1;
+                    resp.put("version", TSDBConstants.MIN_SUPPORT_VERSION);
+                    break;
+                case "unsubscribe":
+                    topics = Collections.emptyList();
+                    break;
+                case "list_topics":
+                    ArrayNode names = resp.putArray("topics");
+                    topics.forEach(names::add);
+                    break;
+                case "poll":
+                    onPoll(ctx, args, resp);
+                    return;
+                case "commit":
+                    commitCount.incrementAndGet();
+                    committed = args.path("message_id").asLong();
+                    break;
+                case "commit_offset":
+                    commitCount.incrementAndGet();
+                    committed = args.path("offset").asLong();
+                    break;
+                case "seek":
+                    position = args.path("offset").asLong();
+                    break;
+                case "assignment":
+                    ObjectNode assignment = resp.putArray("assignment").addObject();
+                    assignment.put("vgroup_id", VGROUP_ID);
+                    assignment.put("offset", position);
+                    assignment.put("begin", 0);
+                    assignment.put("end", tmqMessages.count);
+                    break;
+                case "position":
+                case "committed":
+                    ArrayNode offsets = resp.putArray(action);
+                    args.path("topic_vgroup_ids").forEach(tp -> offsets.add("position".equals(action) ? position : committed));
+                    break;
+                default:
+                    break;
+            }
+            send(ctx, new TextWebSocketFrame(resp.toString()), 0);
+        }
+
+        private void onInsert(ChannelHandlerContext ctx, JsonNode args, ObjectNode resp) {
+            insertReqIds.add(args.path("req_id").asLong());
+            maxInsertsInFlight.accumulateAndGet(insertsInFlight.incrementAndGet(), Math::max);
+            Injection error = injected("insert");
+            if (error != null) {
+                resp.put("code", error.code);
+                resp.put("message", error.message);
+            } else {
+                linesInserted.addAndGet(countLines(args.path("data").asText()));
+            }
+            send(ctx, new TextWebSocketFrame(resp.toString()), 0, insertsInFlight::decrementAndGet);
+        }
+
+        private void onExec(ChannelHandlerContext ctx, JsonNode args, ObjectNode resp) {
+            Integer rows = boundRows.put(args.path("stmt_id").asLong(), 0);
+            resp.put("stmt_id", args.path("stmt_id").asLong());
+            Injection error = injected("stmt2_exec");
+            if (rows == null) {
+                resp.put("code", 0x2603);
+                resp.put("message", "stmt not found");
+            } else if (execCount.incrementAndGet() == failedExec) {
+                resp.put("code", 0x2603);
+                resp.put("message", "exec failed");
+            } else if (error != null) {
+                resp.put("code", error.code);
+                resp.put("message", error.message);
+            } else {
+                resp.put("affected", rows);
+                rowsExecuted.addAndGet(rows);
+            }
+            send(ctx, new TextWebSocketFrame(resp.toString()), stmt2LatencyMs, stmt2InFlight::decrementAndGet);
+        }
+
+        // every message is the same, the message id is the offset plus one
+        private void onPoll(ChannelHandlerContext ctx, JsonNode args, ObjectNode resp) {
+            TmqMessages messages = tmqMessages;
+            if (topics.isEmpty() || position >= messages.count) {
+                resp.put("have_message", false);
+                send(ctx, new TextWebSocketFrame(resp.toString()), args.path("blocking_time").asLong());
+                return;
+            }
+            messagesPolled.incrementAndGet();
+            resp.put("have_message", true);
+            resp.put("topic", topics.get(0));
+            resp.put("database", "test");
+            resp.put("vgroup_id", VGROUP_ID);
+            resp.put("message_type", TmqMessageType.TMQ_RES_DATA.getCode());
+            resp.put("message_id", position + 1);
+            resp.put("offset", position);
+            position++;
+            send(ctx, new TextWebSocketFrame(resp.toString()), 0);
+        }
+
+        private void onFetchRaw(ChannelHandlerContext ctx, JsonNode args, long reqId) {
+            long messageId = args.path("message_id").asLong();
+            Injection error = injected("fetch_raw_data");
+            byte[] frame;
+            if (error != null) {
+                frame = fetchRawFrame(reqId, messageId, error.code, error.message, new byte[0]);
+            } else if (messageId < 1 || messageId > position) {
+                frame = fetchRawFrame(reqId, messageId, 0x4000, "message not found", new byte[0]);
+            } else {
+                frame = fetchRawFrame(reqId, messageId, tmqMessages.message);
+            }
+            send(ctx, new BinaryWebSocketFrame(Unpooled.wrappedBuffer(frame)), 0);
+        }
+
+        private void onBinary(ChannelHandlerContext ctx, ByteBuf in) {
+            long reqId = in.readLongLE();
+            long resultId = in.readLongLE();
+            long type = in.readLongLE();
+            if (type == BINARY_QUERY) {
+                in.readShortLE();
+                int sqlLength = in.readIntLE();
+                in.skipBytes(sqlLength);
+                ObjectNode resp = response("binary_query", reqId);
+                Injection error = injected("binary_query");
+                if (error != null) {
+                    resp.put("code", error.code);
+                    resp.put("message", error.message);
+                    send(ctx, new TextWebSocketFrame(resp.toString()), 0);
+                    return;
+                }
+                long id = resultIds.incrementAndGet();
+                Result current = result;
+                cursors.put(id, new Cursor(current));
+
+                resp.put("id", id);
+                resp.put("is_update", false);
+                resp.put("affected_rows", 0);
+                resp.put("fields_count", current.names.length);
+                ArrayNode names = resp.putArray("fields_names");
+                ArrayNode types = resp.putArray("fields_types");
+                ArrayNode lengths = resp.putArray("fields_lengths");
+                for (int i = 0; i < current.names.length; i++) {
+                    names.add(current.names[i]);
+                    types.add(current.types[i]);
+                    lengths.add(current.lengths[i]);
+                }
+                resp.put("precision", 0);
+                send(ctx, new TextWebSocketFrame(resp.toString()), 0);
+            } else if (type == FETCH_BLOCK_NEW) {
+                short version = in.readShortLE();
+                boolean asked = version >= FetchReq.BLOCK_COMPRESSION_VERSION;
+                byte compression = asked ? in.readByte() : BlockCompression.NONE;
+                fetchCount.incrementAndGet();
+                Injection error = injected("fetch_block_new");
+                send(ctx, new BinaryWebSocketFrame(fetchResponse(reqId, resultId, (short) Math.max(version, fetchVersion),
+                        asked, compression, error)), 0);
+            } else if (type == STMT2_BIND) {
+                // the stmt id is sent in place of the result id
+                ObjectNode resp = response("stmt2_bind", reqId);
+                resp.put("stmt_id", resultId);
+                Integer rows = boundRows.get(resultId);
+                Injection error = injected("stmt2_bind");
+                if (rows == null) {
+                    resp.put("code", 0x2603);
+                    resp.put("message", "stmt not found");
+                } else if (error != null) {
+                    resp.put("code", error.code);
+                    resp.put("message", error.message);
+                } else {
+                    maxStmt2InFlight.accumulateAndGet(stmt2InFlight.incrementAndGet(), Math::max);
+                    boundRows.put(resultId, rows + bindRows(in));
+                }
+                send(ctx, new TextWebSocketFrame(resp.toString()), stmt2LatencyMs);
+            }
+        }
+
+        // version, col_idx, then the data header of the bind request, the first column of each table holds its rows
+        private int bindRows(ByteBuf in) {
+            int data = in.readerIndex() + 6;
+            int tableCount = in.getIntLE(data + 4);
+            int colOffset = in.getIntLE(data + 24);
+            if (colOffset == 0) {
+                return 0;
+            }
+            int rows = 0;
+            int column = data + colOffset + tableCount * 4;
+            for (int i = 0; i < tableCount; i++) {
+                rows += in.getIntLE(column + 8);
+                column += in.getIntLE(data + colOffset + i * 4);
+            }
+            return rows;
+        }
+
+        private void send(ChannelHandlerContext ctx, WebSocketFrame frame, long extraDelayMs) {
+            send(ctx, frame, extraDelayMs, () -> {
+            });
+        }
+
+        // the frame leaves after the frames before it are through the link, then arrives after the latency
+        private void send(ChannelHandlerContext ctx, WebSocketFrame frame, long extraDelayMs, Runnable onSent) {
+            long now = System.nanoTime();
+            long at = now;
+            int bytes = frame.content().readableBytes();
+            long limit = bandwidth;
+            if (limit > 0) {
+                linkFree = Math.max(linkFree, now) + bytes * TimeUnit.SECONDS.toNanos(1) / limit;
+                at = linkFree;
+            }
+            at += TimeUnit.MILLISECONDS.toNanos(latencyMs + extraDelayMs);
+            bytesSent.addAndGet(bytes);
+            if (at <= now) {
+                ctx.writeAndFlush(frame);
+                onSent.run();
+                return;
+            }
+            ctx.executor().schedule(() -> {
+                ctx.writeAndFlush(frame);
+                onSent.run();
+            }, at - now, TimeUnit.NANOSECONDS);
+        }
+
+        private ByteBuf fetchResponse(long reqId, long resultId, short version, boolean asked, byte compression,
+                                      Injection error) {
+            Cursor cursor = cursors.get(resultId);
+            int code = 0;
+            String message = "";
+            if (cursor == null) {
+                code = 0x2603;
+                message = "result not found";
+            } else if (error != null) {
+                code = error.code;
+                message = error.message;
+            }
+            byte[] messageBytes = message.getBytes(StandardCharsets.UTF_8);
+            boolean completed = code == 0 && cursor.next >= cursor.result.blocks.size();
+
+            ByteBuf out = Unpooled.buffer();
+            out.writeLongLE(0); // timing
+            out.writeLongLE(FETCH_BLOCK_NEW);
+            out.writeShortLE(version);
+            out.writeLongLE(System.nanoTime());
+            out.writeLongLE(reqId);
+            out.writeIntLE(code);
+            out.writeIntLE(messageBytes.length);
+            out.writeBytes(messageBytes);
+            out.writeLongLE(resultId);
+            out.writeByte(completed ? 1 : 0);
+            if (asked) {
+                out.writeByte(compression);
+            }
+            if (code != 0 || completed) {
+                return out;
+            }
+
+            ByteBuf block = Unpooled.wrappedBuffer(cursor.result.blocks.get(cursor.next++));
+            if (compression == BlockCompression.COLUMN) {
+                ByteBuf compressed = BlockCompression.compress(block);
+                blockBytesSent.addAndGet(compressed.readableBytes());
+                out.writeBytes(compressed);
+                compressed.release();
+            } else {
+                blockBytesSent.addAndGet(block.readableBytes());
+                out.writeBytes(block);
+            }
+            return out;
+        }
+
+        private ObjectNode response(String action, long reqId) {
+            ObjectNode resp = JsonUtil.getObjectMapper().createObjectNode();
+            resp.put("code", 0);
+            resp.put("message", "");
+            resp.put("action", action);
+            resp.put("req_id", reqId);
+            resp.put("timing", 0);
+            return resp;
+        }
+    }
+
+    private static int countLines(String data) {
+        int lines = 0;
+        for (String line : data.split("\n")) {
+            if (!line.trim().isEmpty()) {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * the message a tmq fetch_raw returns after its header, one raw block per block with the schema and table name
+     *
+     * @param blocks blocks by {@link BlockBuilder}
+     */
+    public static byte[] rawMessage(String tableName, String[] names, int[] types, int[] lengths, List<byte[]> blocks) {
+        ByteBuf out = Unpooled.buffer();
+        out.writeByte(100); // head version, then the length of the head
+        out.writeIntLE(0);
+        out.writeIntLE(blocks.size());
+        out.writeByte(1); // with table name
+        out.writeByte(1); // with schema
+        for (byte[] block : blocks) {
+            // the raw block has no length prefix and ends with one byte before the schema
+            writeVarInt(out, 18 + block.length - 4 + 1);
+            out.writeZero(17);
+            out.writeByte(0); // precision
+            out.writeBytes(block, 4, block.length - 4);
+            out.writeByte(0);
+
+            writeVarInt(out, zigZag(names.length));
+            writeVarInt(out, zigZag(1));
+            for (int i = 0; i < names.length; i++) {
+                out.writeByte(types[i]);
+                out.writeByte(0);
+                writeVarInt(out, zigZag(lengths[i]));
+                writeVarInt(out, zigZag(i + 1));
+                writeName(out, names[i]);
+            }
+            writeName(out, tableName);
+        }
+        byte[] bytes = new byte[out.readableBytes()];
+        out.readBytes(bytes);
+        return bytes;
+    }
+
+    /**
+     * a fetch_raw response frame carrying a message by {@link #rawMessage}
+     */
+    public static byte[] fetchRawFrame(long reqId, long messageId, byte[] message) {
+        return fetchRawFrame(reqId, messageId, 0, "", message);
+    }
+
+    private static byte[] fetchRawFrame(long reqId, long messageId, int code, String error, byte[] message) {
+        byte[] errorBytes = error.getBytes(StandardCharsets.UTF_8);
+        ByteBuf out = Unpooled.buffer(56 + errorBytes.length + message.length);
+        out.writeLongLE(0); // timing
+        out.writeLongLE(0); // action id
+        out.writeShortLE(1);
+        out.writeLongLE(System.nanoTime());
+        out.writeLongLE(reqId);
+        out.writeIntLE(code);
+        out.writeIntLE(errorBytes.length);
+        out.writeBytes(errorBytes);
+        out.writeLongLE(messageId);
+        out.writeShortLE(1); // meta type
+        out.writeIntLE(message.length);
+        out.writeBytes(message);
+        return out.array();
+    }
+
+    private static void writeName(ByteBuf out, String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length + 1);
+        out.writeBytes(bytes);
+        out.writeByte(0);
+    }
+
+    private static int zigZag(int n) {
+        return (n << 1) ^ (n >> 31);
+    }
+
+    private static void writeVarInt(ByteBuf out, int v) {
+        while ((v & ~0x7F) != 0) {
+            out.writeByte((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte(v);
+    }
+
+    /**
+     * builds raw blocks as the server sends them, a row is one value per column, null for a null value.
+     * supported types: bool, tinyint, smallint, int, bigint, float, double, timestamp, binary and nchar.
+     */
+    public static class BlockBuilder {
+        private final int[] types;
+        private final List<Object[]> rows = new ArrayList<>();
+
+        public BlockBuilder(int... types) {
+            this.types = types;
+        }
+
+        public BlockBuilder addRow(Object... values) {
+            rows.add(values);
+            return this;
+        }
+
+        public byte[] build() {
+            int cols = types.length;
+            int n = rows.size();
+            ByteBuf[] columns = new ByteBuf[cols];
+            int[] lengths = new int[cols];
+            for (int c = 0; c < cols; c++) {
+                ByteBuf head = Unpooled.buffer();
+                ByteBuf data = Unpooled.buffer();
+                boolean var = types[c] == TSDBConstants.TSDB_DATA_TYPE_BINARY || types[c] == TSDBConstants.TSDB_DATA_TYPE_NCHAR;
+                byte[] bitmap = new byte[(n + 7) >> 3];
+                for (int r = 0; r < n; r++) {
+                    Object value = rows.get(r)[c];
+                    if (var) {
+                        if (value == null) {
+                            head.writeIntLE(-1);
+                            continue;
+                        }
+                        head.writeIntLE(data.writerIndex());
+                        writeVar(data, types[c], value.toString());
+                    } else {
+                        if (value == null) {
+                            bitmap[r >> 3] |= (byte) (1 << (7 - (r & 7)));
+                        }
+                        writeFixed(data, types[c], value);
+                    }
+                }
+                if (!var) {
+                    head.writeBytes(bitmap);
+                }
+                lengths[c] = data.readableBytes();
+                columns[c] = Unpooled.wrappedBuffer(head, data);
+            }
+
+            ByteBuf body = Unpooled.buffer();
+            for (int c = 0; c < cols; c++) {
+                body.writeByte(types[c]);
+                body.writeIntLE(width(types[c]));
+            }
+            for (int c = 0; c < cols; c++) {
+                body.writeIntLE(lengths[c]);
+            }
+            for (int c = 0; c < cols; c++) {
+                body.writeBytes(columns[c]);
+            }
+            int length = 28 + body.readableBytes();
+            ByteBuf block = Unpooled.buffer();
+            block.writeIntLE(length);
+            block.writeIntLE(1); // version
+            block.writeIntLE(length);
+            block.writeIntLE(n);
+            block.writeIntLE(cols);
+            block.writeIntLE(0); // flag segment
+            block.writeLongLE(0); // group id
+            block.writeBytes(body);
+            byte[] bytes = new byte[block.readableBytes()];
+            block.readBytes(bytes);
+            return bytes;
+        }
+
+        static int width(int type) {
+            switch (type) {
+                case TSDBConstants.TSDB_DATA_TYPE_BOOL:
+                case TSDBConstants.TSDB_DATA_TYPE_TINYINT:
+                    return 1;
+                case TSDBConstants.TSDB_DATA_TYPE_SMALLINT:
+                    return 2;
+                case TSDBConstants.TSDB_DATA_TYPE_INT:
+                case TSDBConstants.TSDB_DATA_TYPE_FLOAT:
+                    return 4;
+                case TSDBConstants.TSDB_DATA_TYPE_BIGINT:
+                case TSDBConstants.TSDB_DATA_TYPE_DOUBLE:
+                case TSDBConstants.TSDB_DATA_TYPE_TIMESTAMP:
+                    return 8;
+                default:
+                    return 0;
+            }
+        }
+
+        private static void writeFixed(ByteBuf data, int type, Object value) {
+            switch (type) {
+                case TSDBConstants.TSDB_DATA_TYPE_BOOL:
+                    data.writeByte(value != null && (Boolean) value ? 1 : 0);
+                    break;
+                case TSDBConstants.TSDB_DATA_TYPE_TINYINT:
+                    data.writeByte(value == null ? 0 : ((Number) value).byteValue());
+                    break;
+                case TSDBConstants.TSDB_DATA_TYPE_SMALLINT:
+                    data.writeShortLE(value == null ? 0 : ((Number) value).shortValue());
+                    break;
+                case TSDBConstants.TSDB_DATA_TYPE_INT:
+                    data.writeIntLE(value == null ? 0 : ((Number) value).intValue());
+                    break;
+                case TSDBConstants.TSDB_DATA_TYPE_FLOAT:
+                    data.writeFloatLE(value == null ? 0 : ((Number) value).floatValue());
+                    break;
+                case TSDBConstants.TSDB_DATA_TYPE_DOUBLE:
+                    data.writeDoubleLE(value == null ? 0 : ((Number) value).doubleValue());
+                    break;
+                default:
+                    data.writeLongLE(value == null ? 0 : ((Number) value).longValue());
+                    break;
+            }
+        }
+
+        private static void writeVar(ByteBuf data, int type, String value) {
+            if (type == TSDBConstants.TSDB_DATA_TYPE_NCHAR) {
+                int[] codePoints = value.codePoints().toArray();
+                data.writeShortLE(codePoints.length * 4);
+                for (int cp : codePoints) {
+                    data.writeIntLE(cp);
+                }
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                data.writeShortLE(bytes.length);
+                data.writeBytes(bytes);
+            }
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.taosdata.jdbc.ws;
+
+import com.taosdata.jdbc.SchemalessWriter;
+import com.taosdata.jdbc.enums.FieldBindType;
+import com.taosdata.jdbc.enums.SchemalessProtocolType;
+import com.taosdata.jdbc.enums.SchemalessTimestampType;
+import com.taosdata.jdbc.tmq.ConsumerRecord;
+import com.taosdata.jdbc.tmq.ConsumerRecords;
+import com.taosdata.jdbc.tmq.TMQConstants;
+import com.taosdata.jdbc.tmq.TaosConsumer;
+import com.taosdata.jdbc.tmq.TopicPartition;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+public class FakeTaosAdapterTest {
+
+    private static final int[] TYPES = {TSDB_DATA_TYPE_TIMESTAMP, TSDB_DATA_TYPE_INT, TSDB_DATA_TYPE_BIGINT,
+            TSDB_DATA_TYPE_DOUBLE, TSDB_DATA_TYPE_BOOL, TSDB_DATA_TYPE_BINARY, TSDB_DATA_TYPE_NCHAR};
+    private static FakeTaosAdapter adapter;
+
+    @BeforeClass
+    public static void before() throws Exception {
+        adapter = new FakeTaosAdapter().start();
+        adapter.setResult(FakeTaosAdapter.Result.random(TYPES, 4, 500, 1));
+        Class.forName("com.taosdata.jdbc.ws.WebSocketDriver");
+    }
+
+    private static String url() {
+        return "jdbc:TAOS-WS://127.0.0.1:" + adapter.getPort() + "/?user=root&password=taosdata";
+    }
+
+    private static int countRows() throws SQLException {
+        int rows = 0;
+        try (Connection conn = DriverManager.getConnection(url());
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("select * from t")) {
+            while (rs.next()) {
+                Assert.assertNotNull(rs.getTimestamp(1));
+                rows++;
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    public void testRandomResult() throws SQLException {
+        Assert.assertEquals(2000, countRows());
+    }
+
+    @Test
+    public void testErrorInjection() throws SQLException {
+        adapter.setError("binary_query", 2, 0x2603, "injected");
+        Assert.assertEquals(2000, countRows());
+        try {
+            countRows();
+            Assert.fail("second query should fail");
+        } catch (SQLException e) {
+            Assert.assertEquals(0x2603, e.getErrorCode());
+        }
+
+        adapter.setError("fetch_block_new", 3, 0x2604, "injected");
+        try {
+            countRows();
+            Assert.fail("third fetch should fail");
+        } catch (SQLException e) {
+            Assert.assertEquals(0x2604, e.getErrorCode());
+        }
+    }
+
+    @Test
+    public void testLatencyAndBandwidth() throws SQLException {
+        long bytes = adapter.getBytesSent();
+        long start = System.nanoTime();
+        countRows();
+        long plainMs = (System.nanoTime() - start) / 1_000_000;
+        bytes = adapter.getBytesSent() - bytes;
+
+        // query and five fetches each wait for the latency
+        adapter.setLatencyMs(30);
+        start = System.nanoTime();
+        countRows();
+        Assert.assertTrue(((System.nanoTime() - start) / 1_000_000) >= 6 * 30);
+
+        adapter.setLatencyMs(0);
+        adapter.setBandwidth(bytes * 4);
+        start = System.nanoTime();
+        countRows();
+        long throttledMs = (System.nanoTime() - start) / 1_000_000;
+        Assert.assertTrue(throttledMs + " vs " + plainMs, throttledMs >= 200);
+    }
+
+    @Test
+    public void testSchemaless() throws SQLException {
+        long lines = adapter.getLinesInserted();
+        SchemalessWriter writer = new SchemalessWriter("127.0.0.1", String.valueOf(adapter.getPort()),
+                "root", "taosdata", "test", "ws");
+        writer.write(new String[]{
+                "meters,location=a current=10.1 1700000000000",
+                "meters,location=b current=11.3 1700000000000"
+        }, SchemalessProtocolType.LINE, SchemalessTimestampType.MILLI_SECONDS);
+        Assert.assertEquals(2, adapter.getLinesInserted() - lines);
+
+        adapter.setError("insert", 1, 0x3d02, "invalid line");
+        try {
+            writer.write(new String[]{"meters"}, SchemalessProtocolType.LINE, SchemalessTimestampType.MILLI_SECONDS);
+            Assert.fail("insert should fail");
+        } catch (SQLException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("invalid line"));
+        }
+    }
+
+    @Test
+    public void testEfficientWriting() throws SQLException {
+        adapter.setStmt2Fields(Arrays.asList(
+                FakeTaosAdapter.field("tbname", TSDB_DATA_TYPE_BINARY, FieldBindType.TAOS_FIELD_TBNAME),
+                FakeTaosAdapter.field("ts", TSDB_DATA_TYPE_TIMESTAMP, FieldBindType.TAOS_FIELD_COL),
+                FakeTaosAdapter.field("v", TSDB_DATA_TYPE_INT, FieldBindType.TAOS_FIELD_COL)));
+        long rows = adapter.getRowsExecuted();
+        try (Connection conn = DriverManager.getConnection(url() + "&asyncWrite=STMT&batchSizeByRow=100&cacheSizeByRow=1000");
+             PreparedStatement pstmt = conn.prepareStatement("insert into st(tbname, ts, v) values(?, ?, ?)")) {
+            Assert.assertTrue(pstmt instanceof WSEWPreparedStatement);
+            for (int i = 0; i < 1000; i++) {
+                pstmt.setString(1, "d" + (i % 10));
+                pstmt.setTimestamp(2, new Timestamp(1700000000000L + i));
+                pstmt.setInt(3, i);
+                pstmt.addBatch();
+            }
+            pstmt.executeBatch();
+        }
+        Assert.assertEquals(1000, adapter.getRowsExecuted() - rows);
+    }
+
+    private static Properties consumerProperties() {
+        Properties properties = new Properties();
+        properties.setProperty(TMQConstants.BOOTSTRAP_SERVERS, "127.0.0.1:" + adapter.getPort());
+        properties.setProperty(TMQConstants.CONNECT_TYPE, "ws");
+        properties.setProperty(TMQConstants.CONNECT_USER, "root");
+        properties.setProperty(TMQConstants.CONNECT_PASS, "taosdata");
+        properties.setProperty(TMQConstants.GROUP_ID, "gId");
+        properties.setProperty(TMQConstants.ENABLE_AUTO_COMMIT, "false");
+        properties.setProperty(TMQConstants.VALUE_DESERIALIZER, "com.taosdata.jdbc.tmq.MapDeserializer");
+        return properties;
+    }
+
+    @Test
+    public void testConsumer() throws SQLException {
+        adapter.setTmqMessages(FakeTaosAdapter.Result.random(TYPES, 2, 100, 2), 5);
+        long commits = adapter.getCommitCount();
+        int rows = 0;
+        try (TaosConsumer<Map<String, Object>> consumer = new TaosConsumer<>(consumerProperties())) {
+            consumer.subscribe(Collections.singletonList("topic_fake"));
+            Assert.assertEquals(Collections.singleton("topic_fake"), consumer.subscription());
+            for (int i = 0; i < 10; i++) {
+                ConsumerRecords<Map<String, Object>> records = consumer.poll(Duration.ofMillis(10));
+                for (ConsumerRecord<Map<String, Object>> record : records) {
+                    Assert.assertEquals("topic_fake", record.getTopic());
+                    Assert.assertNotNull(record.value().get("c0"));
+                    rows++;
+                }
+                consumer.commitSync();
+            }
+            TopicPartition partition = new TopicPartition("topic_fake", 1);
+            Assert.assertEquals(5, consumer.position(partition));
+            Assert.assertEquals(5, (long) consumer.endOffsets("topic_fake").get(partition));
+
+            consumer.seek(partition, 3);
+            int again = consumer.poll(Duration.ofMillis(10)).count() + consumer.poll(Duration.ofMillis(10)).count();
+            Assert.assertEquals(2 * 200, again);
+        }
+        Assert.assertEquals(5 * 200, rows);
+        Assert.assertEquals(5, adapter.getCommitCount() - commits);
+    }
+
+    @After
+    public void reset() {
+        adapter.clearErrors();
+        adapter.setLatencyMs(0);
+        adapter.setBandwidth(0);
+    }
+
+    @AfterClass
+    public static void after() {
+        if (adapter != null) {
+            adapter.close();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.taosdata.jdbc.ws;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+public class FetchSchedulerTest {
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            Assert.assertTrue("condition not met in time", System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+    }
+
+    private static int schedulerThreads() {
+        int count = 0;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().startsWith("taos-fetch-scheduler")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Test
+    public void testManyFetchesShareThreads() throws Exception {
+        int n = 500;
+        List<CompletableFuture<Integer>> futures = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            futures.add(new CompletableFuture<>());
+        }
+        long completedBefore = FetchScheduler.getCompletedFetchCount();
+        AtomicInteger sum = new AtomicInteger();
+        CountDownLatch done = new CountDownLatch(n);
+        for (CompletableFuture<Integer> future : futures) {
+            FetchScheduler.submit(() -> future, (v, e) -> {
+                sum.addAndGet(v);
+                done.countDown();
+            });
+        }
+
+        waitFor(() -> FetchScheduler.getActiveFetchCount() == n);
+        Assert.assertEquals(0, FetchScheduler.getQueueDepth());
+        Assert.assertTrue(schedulerThreads() <= Math.max(2, Runtime.getRuntime().availableProcessors()));
+
+        for (int i = 0; i < n; i++) {
+            futures.get(i).complete(i);
+        }
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(n * (n - 1) / 2, sum.get());
+        Assert.assertEquals(0, FetchScheduler.getActiveFetchCount());
+        Assert.assertEquals(completedBefore + n, FetchScheduler.getCompletedFetchCount());
+    }
+
+    @Test
+    public void testFailedSend() throws Exception {
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(1);
+        FetchScheduler.submit(() -> {
+            throw new IllegalStateException("send failed");
+        }, (v, e) -> {
+            error.set(e);
+            done.countDown();
+        });
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue(error.get() instanceof IllegalStateException);
+    }
+}
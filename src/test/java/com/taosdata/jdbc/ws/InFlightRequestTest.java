@@ -0,0 +1,217 @@
+package com.taosdata.jdbc.ws;
+
+import com.taosdata.jdbc.enums.RequestWaitPolicy;
+import com.taosdata.jdbc.utils.TimeoutMetrics;
+import com.taosdata.jdbc.ws.entity.Action;
+import com.taosdata.jdbc.ws.entity.Response;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class InFlightRequestTest {
+
+    private static FutureResponse future(Action action, long id) {
+        return new FutureResponse(action.getAction(), id, new CompletableFuture<>());
+    }
+
+    @Test
+    public void testPutRemove() throws Exception {
+        InFlightRequest inFlightRequest = new InFlightRequest(1000, 10);
+        FutureResponse query = future(Action.BINARY_QUERY, 1);
+        FutureResponse fetch = future(Action.FETCH_BLOCK_NEW, 1);
+        inFlightRequest.put(query);
+        inFlightRequest.put(fetch);
+        Assert.assertTrue(inFlightRequest.hasInFlightRequest());
+
+        Assert.assertNull(inFlightRequest.remove(Action.BINARY_QUERY.getAction(), 2L));
+        Assert.assertSame(fetch, inFlightRequest.remove(Action.FETCH_BLOCK_NEW.getAction(), 1L));
+        Assert.assertSame(query, inFlightRequest.remove(Action.BINARY_QUERY.getAction(), 1L));
+        Assert.assertNull(inFlightRequest.remove(Action.BINARY_QUERY.getAction(), 1L));
+        Assert.assertFalse(inFlightRequest.hasInFlightRequest());
+    }
+
+    @Test
+    public void testVersionWithoutId() throws Exception {
+        InFlightRequest inFlightRequest = new InFlightRequest(1000, 10);
+        FutureResponse version = future(Action.VERSION, 12345);
+        inFlightRequest.put(version);
+        Assert.assertSame(version, inFlightRequest.remove(Action.VERSION.getAction(), 0L));
+    }
+
+    @Test
+    public void testFailPolicy() throws Exception {
+        InFlightRequest inFlightRequest = new InFlightRequest(1000, 2, RequestWaitPolicy.FAIL);
+        inFlightRequest.put(future(Action.BINARY_QUERY, 1));
+        inFlightRequest.put(future(Action.BINARY_QUERY, 2));
+        long start = System.nanoTime();
+        Assert.assertThrows(TimeoutException.class, () -> inFlightRequest.put(future(Action.BINARY_QUERY, 3)));
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(500));
+
+        inFlightRequest.remove(Action.BINARY_QUERY.getAction(), 1L);
+        inFlightRequest.put(future(Action.BINARY_QUERY, 3));
+    }
+
+    @Test
+    public void testTimeout() throws Exception {
+        InFlightRequest inFlightRequest = new InFlightRequest(1000, 1);
+        FutureResponse query = future(Action.BINARY_QUERY, 1);
+        long timeouts = TimeoutMetrics.getTimeoutCount(Action.BINARY_QUERY.getAction());
+        inFlightRequest.put(query, 50, "query");
+        try {
+            query.getFuture().get(5, TimeUnit.SECONDS);
+            Assert.fail("expect timeout");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        Assert.assertFalse(inFlightRequest.hasInFlightRequest());
+        Assert.assertEquals(timeouts + 1, TimeoutMetrics.getTimeoutCount(Action.BINARY_QUERY.getAction()));
+        // the permit is given back
+        inFlightRequest.put(future(Action.BINARY_QUERY, 2));
+    }
+
+    @Test
+    public void testRemovedBeforeTimeout() throws Exception {
+        InFlightRequest inFlightRequest = new InFlightRequest(1000, 2);
+        FutureResponse first = future(Action.FETCH_BLOCK_NEW, 1);
+        inFlightRequest.put(first, 50, "fetch");
+        Assert.assertSame(first, inFlightRequest.remove(Action.FETCH_BLOCK_NEW.getAction(), 1L));
+
+        // the same id is reused by the next fetch, the stale timeout must not remove it
+        FutureResponse second = future(Action.FETCH_BLOCK_NEW, 1);
+        inFlightRequest.put(second);
+        TimeUnit.MILLISECONDS.sleep(200);
+        Assert.assertFalse(second.getFuture().isDone());
+        Assert.assertSame(second, inFlightRequest.remove(Action.FETCH_BLOCK_NEW.getAction(), 1L));
+    }
+
+    @Test
+    public void testDuplicateId() throws Exception {
+        InFlightRequest inFlightRequest = new InFlightRequest(1000, 2);
+        FutureResponse first = future(Action.BINARY_QUERY, 1);
+        FutureResponse second = future(Action.BINARY_QUERY, 1);
+        inFlightRequest.put(first, 60_000, "query");
+        inFlightRequest.put(second);
+
+        // the first request can not be answered anymore, a waiter must not hang on it
+        try {
+            first.getFuture().get(1, TimeUnit.SECONDS);
+            Assert.fail("expect the replaced request to fail");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SQLException);
+            Assert.assertTrue(e.getCause().getMessage().contains("reqId: 1"));
+        }
+        Assert.assertSame(second, inFlightRequest.remove(Action.BINARY_QUERY.getAction(), 1L));
+        Assert.assertFalse(inFlightRequest.hasInFlightRequest());
+        // both permits are given back
+        inFlightRequest.put(future(Action.BINARY_QUERY, 2));
+        inFlightRequest.put(future(Action.BINARY_QUERY, 3));
+    }
+
+    @Test
+    public void testPutAsyncQueued() throws Exception {
+        InFlightRequest inFlightRequest = new InFlightRequest(1000, 1);
+        List<Long> sent = new CopyOnWriteArrayList<>();
+        FutureResponse first = future(Action.BINARY_QUERY, 1);
+        FutureResponse second = future(Action.BINARY_QUERY, 2);
+        FutureResponse third = future(Action.BINARY_QUERY, 3);
+        inFlightRequest.putAsync(first, 60_000, "query", () -> sent.add(1L));
+        inFlightRequest.putAsync(second, 60_000, "query", () -> sent.add(2L));
+        inFlightRequest.putAsync(third, 60_000, "query", () -> sent.add(3L));
+        Assert.assertEquals(Collections.singletonList(1L), sent);
+
+        // the caller gives up on the second one while it waits, it is skipped
+        second.getFuture().cancel(false);
+        Assert.assertSame(first, inFlightRequest.remove(Action.BINARY_QUERY.getAction(), 1L));
+        Assert.assertEquals(Arrays.asList(1L, 3L), sent);
+        Assert.assertSame(third, inFlightRequest.remove(Action.BINARY_QUERY.getAction(), 3L));
+        Assert.assertFalse(inFlightRequest.hasInFlightRequest());
+    }
+
+    @Test
+    public void testPutAsyncWaitTimeout() throws Exception {
+        InFlightRequest inFlightRequest = new InFlightRequest(50, 1);
+        inFlightRequest.putAsync(future(Action.BINARY_QUERY, 1), 60_000, "query", () -> {
+        });
+        FutureResponse waiting = future(Action.BINARY_QUERY, 2);
+        long start = System.nanoTime();
+        inFlightRequest.putAsync(waiting, 60_000, "query", () -> Assert.fail("must not be admitted"));
+        Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(40));
+        try {
+            waiting.getFuture().get(5, TimeUnit.SECONDS);
+            Assert.fail("expect timeout");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof TimeoutException);
+        }
+        // a timed out waiter does not take the slot freed later
+        inFlightRequest.remove(Action.BINARY_QUERY.getAction(), 1L);
+        Assert.assertFalse(inFlightRequest.hasInFlightRequest());
+
+        InFlightRequest fail = new InFlightRequest(1000, 1, RequestWaitPolicy.FAIL);
+        fail.putAsync(future(Action.BINARY_QUERY, 1), 60_000, "query", () -> {
+        });
+        Assert.assertThrows(TimeoutException.class, () -> fail.putAsync(future(Action.BINARY_QUERY, 2), 60_000, "query", () -> {
+        }));
+    }
+
+    @Test
+    public void testCloseWaiting() throws Exception {
+        InFlightRequest inFlightRequest = new InFlightRequest(60_000, 1);
+        FutureResponse first = future(Action.BINARY_QUERY, 1);
+        FutureResponse waiting = future(Action.BINARY_QUERY, 2);
+        inFlightRequest.putAsync(first, 60_000, "query", () -> {
+        });
+        inFlightRequest.putAsync(waiting, 60_000, "query", () -> Assert.fail("must not be admitted"));
+        inFlightRequest.close();
+        Assert.assertTrue(first.getFuture().isCompletedExceptionally());
+        Assert.assertTrue(waiting.getFuture().isCompletedExceptionally());
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        InFlightRequest inFlightRequest = new InFlightRequest(1000, 100);
+        CompletableFuture<Response>[] futures = new CompletableFuture[50];
+        for (int i = 0; i < futures.length; i++) {
+            FutureResponse f = future(Action.BINARY_QUERY, i);
+            futures[i] = f.getFuture();
+            inFlightRequest.put(f);
+        }
+        inFlightRequest.close();
+        for (CompletableFuture<Response> f : futures) {
+            Assert.assertTrue(f.isCompletedExceptionally());
+        }
+        Assert.assertFalse(inFlightRequest.hasInFlightRequest());
+    }
+
+    @Test
+    public void testMapAgainstHashMap() {
+        FutureResponseMap map = new FutureResponseMap();
+        Map<Long, FutureResponse> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            long id = random.nextInt(2000);
+            if (random.nextBoolean()) {
+                FutureResponse f = future(Action.BINARY_QUERY, id);
+                Assert.assertSame(expected.put(id, f), map.put(id, f));
+            } else {
+                Assert.assertSame(expected.remove(id), map.remove(id));
+            }
+            Assert.assertEquals(expected.size(), map.size());
+        }
+        for (Map.Entry<Long, FutureResponse> entry : expected.entrySet()) {
+            Assert.assertSame(entry.getValue(), map.remove(entry.getKey()));
+        }
+        Assert.assertEquals(0, map.size());
+    }
+}
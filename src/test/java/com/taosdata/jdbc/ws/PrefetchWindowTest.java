@@ -0,0 +1,74 @@
+package com.taosdata.jdbc.ws;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class PrefetchWindowTest {
+
+    private static final long MS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // the consumer reads count blocks, consumeMs each, every block takes fetchMs to fetch
+    private static void run(PrefetchWindow window, int count, long fetchMs, long consumeMs, int bytes) {
+        long now = 1;
+        for (int i = 0; i < count; i++) {
+            window.onFetched(fetchMs * MS, bytes);
+            window.onBlockDone(now);
+            window.onTaken(now);
+            now += consumeMs * MS;
+        }
+        window.onBlockDone(now);
+    }
+
+    @Test
+    public void testStartsWithOneBlock() {
+        PrefetchWindow window = new PrefetchWindow(16, new PrefetchWindow.Budget(0));
+        Assert.assertEquals(1, window.depth());
+        Assert.assertTrue(window.canFetch());
+        window.onFetched(10 * MS, 1024);
+        // nothing known about the consumer yet
+        Assert.assertFalse(window.canFetch());
+    }
+
+    @Test
+    public void testDepthFollowsConsumerRate() {
+        PrefetchWindow slow = new PrefetchWindow(16, new PrefetchWindow.Budget(0));
+        run(slow, 10, 2, 20, 1024);
+        Assert.assertEquals(2, slow.depth());
+
+        PrefetchWindow fast = new PrefetchWindow(16, new PrefetchWindow.Budget(0));
+        run(fast, 10, 20, 5, 1024);
+        Assert.assertEquals(5, fast.depth());
+
+        PrefetchWindow capped = new PrefetchWindow(3, new PrefetchWindow.Budget(0));
+        run(capped, 10, 100, 1, 1024);
+        Assert.assertEquals(3, capped.depth());
+    }
+
+    @Test
+    public void testMemoryBudget() {
+        PrefetchWindow.Budget budget = new PrefetchWindow.Budget(3 * 1024);
+        PrefetchWindow window = new PrefetchWindow(16, budget);
+        run(window, 10, 100, 1, 1024);
+        Assert.assertEquals(0, budget.used());
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertTrue(window.canFetch());
+            window.onFetched(100 * MS, 1024);
+        }
+        Assert.assertFalse(window.canFetch());
+        Assert.assertEquals(3 * 1024, budget.used());
+
+        // another result set of the connection may still hold one block
+        PrefetchWindow other = new PrefetchWindow(16, budget);
+        Assert.assertTrue(other.canFetch());
+
+        window.onBlockDone(1);
+        window.onTaken(1);
+        Assert.assertTrue(window.canFetch());
+
+        window.release();
+        Assert.assertEquals(0, budget.used());
+    }
+}
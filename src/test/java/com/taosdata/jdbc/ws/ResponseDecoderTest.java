@@ -0,0 +1,87 @@
+package com.taosdata.jdbc.ws;
+
+import com.taosdata.jdbc.ws.entity.CommonResp;
+import com.taosdata.jdbc.ws.entity.QueryResp;
+import com.taosdata.jdbc.ws.entity.Response;
+import com.taosdata.jdbc.ws.tmq.entity.PollResp;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+public class ResponseDecoderTest {
+
+    private static final String QUERY_RESP = "{\"code\":0,\"message\":\"\",\"timing\":12,"
+            + "\"fields_names\":[\"ts\",\"c1\"],\"action\":\"binary_query\",\"req_id\":7,"
+            + "\"id\":18446744073709551615,\"is_update\":false,\"affected_rows\":0,\"fields_count\":2,"
+            + "\"fields_types\":[9,4],\"fields_lengths\":[8,4],\"precision\":0}";
+
+    private static void assertQueryResp(Response response) {
+        Assert.assertTrue(response instanceof QueryResp);
+        QueryResp resp = (QueryResp) response;
+        Assert.assertEquals("binary_query", resp.getAction());
+        Assert.assertEquals(7L, resp.getReqId());
+        Assert.assertEquals(0, resp.getCode());
+        Assert.assertEquals(-1L, resp.getId());
+        Assert.assertArrayEquals(new String[]{"ts", "c1"}, resp.getFieldsNames());
+        Assert.assertArrayEquals(new int[]{9, 4}, resp.getFieldsTypes());
+        Assert.assertEquals(2, resp.getFieldsCount());
+    }
+
+    @Test
+    public void testHeapBuffer() throws Exception {
+        ByteBuf buf = Unpooled.wrappedBuffer(("xx" + QUERY_RESP).getBytes(StandardCharsets.UTF_8));
+        buf.readerIndex(2);
+        assertQueryResp(ResponseDecoder.WS.decode(buf));
+        Assert.assertEquals(2, buf.readerIndex());
+    }
+
+    @Test
+    public void testDirectBuffer() throws Exception {
+        byte[] bytes = QUERY_RESP.getBytes(StandardCharsets.UTF_8);
+        ByteBuf buf = Unpooled.directBuffer(bytes.length);
+        try {
+            buf.writeBytes(bytes);
+            assertQueryResp(ResponseDecoder.WS.decode(buf));
+            Assert.assertEquals(0, buf.readerIndex());
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Test
+    public void testString() throws Exception {
+        assertQueryResp(ResponseDecoder.WS.decode(QUERY_RESP));
+    }
+
+    @Test
+    public void testActionFirst() throws Exception {
+        Response response = ResponseDecoder.TMQ.decode("{\"action\":\"poll\",\"req_id\":3,\"code\":0,"
+                + "\"message\":\"\",\"have_message\":true,\"topic\":\"t1\",\"vgroup_id\":2,\"message_id\":5}");
+        Assert.assertTrue(response instanceof PollResp);
+        PollResp resp = (PollResp) response;
+        Assert.assertEquals(3L, resp.getReqId());
+        Assert.assertTrue(resp.isHaveMessage());
+        Assert.assertEquals("t1", resp.getTopic());
+        Assert.assertEquals(2, resp.getVgroupId());
+        Assert.assertEquals(5L, resp.getMessageId());
+    }
+
+    @Test
+    public void testSchemaless() throws Exception {
+        Response response = ResponseDecoder.SCHEMALESS.decode("{\"code\":1,\"message\":\"bad line\","
+                + "\"action\":\"insert\",\"req_id\":9}");
+        Assert.assertTrue(response instanceof CommonResp);
+        Assert.assertEquals(1, ((CommonResp) response).getCode());
+        Assert.assertEquals("bad line", ((CommonResp) response).getMessage());
+        Assert.assertEquals(9L, response.getReqId());
+    }
+
+    @Test
+    public void testUnknownAction() throws Exception {
+        Assert.assertNull(ResponseDecoder.WS.decode("{\"code\":0,\"action\":\"not_exist\",\"req_id\":1}"));
+        Assert.assertNull(ResponseDecoder.WS.decode("{\"code\":0,\"req_id\":1}"));
+    }
+}
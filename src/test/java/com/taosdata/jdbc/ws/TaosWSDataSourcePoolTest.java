@@ -0,0 +1,91 @@
+package com.taosdata.jdbc.ws;
+
+import com.taosdata.jdbc.TSDBDriver;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+public class TaosWSDataSourcePoolTest {
+    private static FakeTaosAdapter adapter;
+    private TaosWSDataSource dataSource;
+
+    @BeforeClass
+    public static void start() throws Exception {
+        adapter = new FakeTaosAdapter().start();
+    }
+
+    @Before
+    public void before() throws SQLException {
+        Properties properties = new Properties();
+        properties.setProperty(TSDBDriver.PROPERTY_KEY_USER, "root");
+        properties.setProperty(TSDBDriver.PROPERTY_KEY_PASSWORD, "taosdata");
+        dataSource = new TaosWSDataSource("jdbc:TAOS-WS://127.0.0.1:" + adapter.getPort() + "/pool_db", properties);
+        dataSource.setMaxPoolSize(1);
+    }
+
+    @Test
+    public void idsNotReusedAcrossBorrows() throws SQLException {
+        long first;
+        try (Connection connection = dataSource.getConnection();
+             WSStatement statement = (WSStatement) connection.createStatement()) {
+            first = statement.getInstanceId();
+        }
+        try (Connection connection = dataSource.getConnection();
+             WSStatement statement = (WSStatement) connection.createStatement()) {
+            Assert.assertEquals(1, dataSource.getPoolMetrics().getCreatedTransports());
+            Assert.assertTrue(statement.getInstanceId() > first);
+        }
+    }
+
+    @Test
+    public void discardWhenRestoreDatabaseFails() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("use other_db");
+            // "use pool_db" on close fails, the session can not be handed to the next borrower
+            adapter.setError("binary_query", 1, 0x2603, "database not exist");
+        }
+        adapter.clearErrors();
+
+        WSPoolMetrics metrics = dataSource.getPoolMetrics();
+        Assert.assertEquals(0, metrics.getTotalTransports());
+        Assert.assertEquals(1, metrics.getClosedTransports());
+
+        try (Connection connection = dataSource.getConnection()) {
+            Assert.assertFalse(connection.isClosed());
+        }
+        Assert.assertEquals(2, dataSource.getPoolMetrics().getCreatedTransports());
+    }
+
+    @Test
+    public void keepWhenDatabaseRestored() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("use other_db");
+        }
+        WSPoolMetrics metrics = dataSource.getPoolMetrics();
+        Assert.assertEquals(1, metrics.getIdleTransports());
+        Assert.assertEquals(0, metrics.getClosedTransports());
+    }
+
+    @After
+    public void after() {
+        adapter.clearErrors();
+        dataSource.close();
+    }
+
+    @AfterClass
+    public static void stop() {
+        if (adapter != null) {
+            adapter.close();
+        }
+    }
+}
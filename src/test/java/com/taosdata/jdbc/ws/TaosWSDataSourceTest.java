@@ -0,0 +1,109 @@
+package com.taosdata.jdbc.ws;
+
+import com.taosdata.jdbc.TSDBDriver;
+import com.taosdata.jdbc.utils.SpecifyAddress;
+import com.taosdata.jdbc.utils.TestUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+
+public class TaosWSDataSourceTest {
+    private static final String host = "127.0.0.1";
+    private final String dbName = TestUtils.camelToSnake(TaosWSDataSourceTest.class);
+    private TaosWSDataSource dataSource;
+
+    @Test
+    public void reuseTransport() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select server_version()")) {
+            Assert.assertTrue(resultSet.next());
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select server_version()")) {
+            Assert.assertTrue(resultSet.next());
+        }
+
+        WSPoolMetrics metrics = dataSource.getPoolMetrics();
+        Assert.assertEquals(1, metrics.getCreatedTransports());
+        Assert.assertEquals(1, metrics.getIdleTransports());
+        Assert.assertEquals(0, metrics.getActiveConnections());
+    }
+
+    @Test
+    public void multiplexConnections() throws SQLException {
+        dataSource.setMaxPoolSize(1);
+        dataSource.setMaxConnectionsPerTransport(2);
+        try (Connection c1 = dataSource.getConnection(); Connection c2 = dataSource.getConnection()) {
+            Assert.assertEquals(1, dataSource.getPoolMetrics().getTotalTransports());
+            Assert.assertEquals(2, dataSource.getPoolMetrics().getActiveConnections());
+            try (Statement s1 = c1.createStatement(); Statement s2 = c2.createStatement()) {
+                s1.executeUpdate("create table if not exists " + dbName + ".t1 (ts timestamp, v int)");
+                s2.executeUpdate("insert into " + dbName + ".t1 values(now, 1)");
+            }
+        }
+        Assert.assertEquals(0, dataSource.getPoolMetrics().getActiveConnections());
+    }
+
+    @Test(expected = SQLException.class)
+    public void borrowTimeout() throws SQLException {
+        dataSource.setMaxPoolSize(1);
+        dataSource.setConnectionTimeoutMs(100);
+        try (Connection ignored = dataSource.getConnection()) {
+            dataSource.getConnection();
+        }
+    }
+
+    @Test
+    public void resetDatabaseOnClose() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("use information_schema");
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select database()")) {
+            Assert.assertTrue(resultSet.next());
+            Assert.assertEquals(dbName, resultSet.getString(1));
+        }
+    }
+
+    @Before
+    public void before() throws SQLException {
+        String url = SpecifyAddress.getInstance().getWebSocketWithoutUrl();
+        if (url == null) {
+            url = "jdbc:TAOS-WS://" + host + ":6041/";
+        }
+        Properties properties = new Properties();
+        properties.setProperty(TSDBDriver.PROPERTY_KEY_USER, "root");
+        properties.setProperty(TSDBDriver.PROPERTY_KEY_PASSWORD, "taosdata");
+        try (TaosWSDataSource init = new TaosWSDataSource(url, properties);
+             Connection connection = init.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("drop database if exists " + dbName);
+            statement.execute("create database " + dbName);
+        }
+        dataSource = new TaosWSDataSource(url + dbName, properties);
+    }
+
+    @After
+    public void after() throws SQLException {
+        if (dataSource != null) {
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.execute("drop database if exists " + dbName);
+            } catch (SQLException e) {
+                // do nothing
+            }
+            dataSource.close();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.taosdata.jdbc.ws;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+public class VGroupRouterTest {
+    private static final int WRITERS = 4;
+    private static FakeTaosAdapter adapter;
+    private Connection connection;
+    private Transport transport;
+
+    @BeforeClass
+    public static void before() throws Exception {
+        adapter = new FakeTaosAdapter().start();
+        Class.forName("com.taosdata.jdbc.ws.WebSocketDriver");
+        Map<String, Integer> vgIds = new HashMap<>();
+        for (int i = 0; i < 20; i++) {
+            vgIds.put("db1.t" + i, 2 + i % 3);
+        }
+        vgIds.put("db2.t0", 7);
+        adapter.setTableVgIds(vgIds);
+    }
+
+    @Before
+    public void connect() throws SQLException {
+        // no database on the connection, it is taken from the sql
+        connection = DriverManager.getConnection("jdbc:TAOS-WS://127.0.0.1:" + adapter.getPort() + "/?user=root&password=taosdata");
+        transport = connection.unwrap(WSConnection.class).getTransport();
+    }
+
+    // route the tables until every lookup is done, the writer given as hash is deliberately off
+    private static void lookUp(VGroupRouter router, String... tables) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        do {
+            for (String table : tables) {
+                router.route(table, WRITERS - 1);
+            }
+            Thread.sleep(1);
+        } while (router.unresolvedTables() > 0 && System.currentTimeMillis() < deadline);
+        Assert.assertEquals(0, router.unresolvedTables());
+    }
+
+    // look the tables up, then let them move as when all rows are written
+    private static void resolve(VGroupRouter router, String... tables) throws InterruptedException {
+        lookUp(router, tables);
+        router.onAllWritten();
+    }
+
+    private static String[] tables(String prefix, int count) {
+        String[] tables = new String[count];
+        for (int i = 0; i < count; i++) {
+            tables[i] = prefix + i;
+        }
+        return tables;
+    }
+
+    @Test
+    public void testSameVgroupSameWriter() throws Exception {
+        VGroupRouter router = new VGroupRouter(transport,
+                "INSERT INTO db1.stb(tbname, ts, v) VALUES(?, ?, ?)", null, WRITERS);
+        long asked = adapter.getVgIdTables();
+        String[] tables = tables("t", 20);
+        resolve(router, tables);
+
+        for (int i = 0; i < tables.length; i++) {
+            Assert.assertEquals(tables[i], (2 + i % 3) % WRITERS, router.route(tables[i], 0));
+            for (int j = 0; j < i; j++) {
+                if (i % 3 == j % 3) {
+                    Assert.assertEquals(router.route(tables[j], 0), router.route(tables[i], 0));
+                }
+            }
+        }
+        // every table is asked once, however the tables are split into requests
+        Assert.assertEquals(asked + tables.length, adapter.getVgIdTables());
+        Assert.assertFalse(router.isDisabled());
+    }
+
+    @Test
+    public void testTableKeepsWriterUntilAllWritten() throws Exception {
+        VGroupRouter router = new VGroupRouter(transport, "insert into db1.? values(?, ?)", null, WRITERS);
+        // rows bound before and after the lookup completes stay with the writer of the first row
+        Assert.assertEquals(1, router.route("t5", 1));
+        lookUp(router, "t5");
+        Assert.assertEquals(WRITERS - 1, router.route("t4", WRITERS - 1));
+        for (int i = 0; i < 10; i++) {
+            Assert.assertEquals(1, router.route("t5", 0));
+        }
+
+        // no row left in any writer, the table moves to the writer of its vgroup
+        router.onAllWritten();
+        Assert.assertEquals((2 + 5 % 3) % WRITERS, router.route("t5", 1));
+        // t4 was seen after the lookup of t5, its own lookup is still to be collected
+        lookUp(router, "t4");
+        Assert.assertEquals(WRITERS - 1, router.route("t4", 0));
+        router.onAllWritten();
+        Assert.assertEquals((2 + 4 % 3) % WRITERS, router.route("t4", 0));
+    }
+
+    @Test
+    public void testEvictedWhenAllWritten() throws Exception {
+        VGroupRouter router = new VGroupRouter(transport, "insert into db1.? values(?, ?)", null, WRITERS, 2);
+        lookUp(router, "t1", "t2", "t3");
+        // not trimmed while rows may be in the writers
+        Assert.assertEquals(3, router.cachedTables());
+        router.onAllWritten();
+        Assert.assertEquals(2, router.cachedTables());
+        // the eldest table is routed as a new one
+        Assert.assertEquals(1, router.route("t1", 1));
+        Assert.assertEquals((2 + 3 % 3) % WRITERS, router.route("t3", 1));
+    }
+
+    @Test
+    public void testDatabaseOfSql() throws Exception {
+        String[] sqls = {
+                "insert into db1.? using db1.stb tags(?) values(?, ?)",
+                "INSERT INTO `db1`.`stb`(tbname, ts, v) VALUES(?, ?, ?)",
+                "insert into ? using db1.stb tags(?) values(?, ?)",
+        };
+        for (String sql : sqls) {
+            VGroupRouter router = new VGroupRouter(transport, sql, "other", WRITERS);
+            resolve(router, "t1");
+            Assert.assertEquals(sql, 3, router.route("t1", 0));
+        }
+
+        // a qualified table name wins over the database of the sql
+        VGroupRouter router = new VGroupRouter(transport, "insert into db1.? values(?, ?)", null, WRITERS);
+        resolve(router, "db2.t0", "`db2`.`t0`");
+        Assert.assertEquals(7 % WRITERS, router.route("db2.t0", 0));
+        Assert.assertEquals(7 % WRITERS, router.route("`db2`.`t0`", 0));
+    }
+
+    @Test
+    public void testRoutesKeptWhenDisabled() throws Exception {
+        VGroupRouter router = new VGroupRouter(transport, "insert into db1.? values(?, ?)", null, WRITERS);
+        resolve(router, "t1", "t2");
+        Assert.assertEquals(3, router.route("t1", 0));
+        Assert.assertEquals(0, router.route("t2", 0));
+
+        adapter.setError("get_table_vgid", 1, 0x2603, "lookup failed");
+        resolve(router, "t3");
+        Assert.assertTrue(router.isDisabled());
+        long tables = adapter.getVgIdTables();
+
+        // new tables are routed by hash, the tables routed by vgroup stay where they are
+        for (String table : tables("n", 10)) {
+            Assert.assertEquals(1, router.route(table, 1));
+        }
+        Assert.assertEquals(3, router.route("t1", 0));
+        Assert.assertEquals(0, router.route("t2", 1));
+        router.onAllWritten();
+        Assert.assertEquals(tables, adapter.getVgIdTables());
+    }
+
+    @After
+    public void close() throws SQLException {
+        adapter.clearErrors();
+        connection.close();
+    }
+
+    @AfterClass
+    public static void after() {
+        if (adapter != null) {
+            adapter.close();
+        }
+    }
+}
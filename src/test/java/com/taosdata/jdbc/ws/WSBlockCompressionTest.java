@@ -0,0 +1,108 @@
+package com.taosdata.jdbc.ws;
+
+import com.taosdata.jdbc.ws.entity.FetchReq;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+public class WSBlockCompressionTest {
+
+    private static final int BLOCKS = 10;
+    private static final int ROWS = 1024;
+    private static FakeTaosAdapter adapter;
+
+    @BeforeClass
+    public static void before() throws Exception {
+        adapter = new FakeTaosAdapter().start();
+        List<byte[]> blocks = new ArrayList<>();
+        for (int i = 0; i < BLOCKS; i++) {
+            blocks.add(BlockCompressionTest.sensorBlock(ROWS, i));
+        }
+        adapter.setResult(new FakeTaosAdapter.Result(
+                new String[]{"ts", "i", "l", "f", "d", "b", "v", "n"},
+                new int[]{TSDB_DATA_TYPE_TIMESTAMP, TSDB_DATA_TYPE_INT, TSDB_DATA_TYPE_BIGINT, TSDB_DATA_TYPE_FLOAT,
+                        TSDB_DATA_TYPE_DOUBLE, TSDB_DATA_TYPE_BOOL, TSDB_DATA_TYPE_BINARY, TSDB_DATA_TYPE_NCHAR},
+                new int[]{8, 4, 8, 4, 8, 1, 32, 32},
+                blocks));
+        Class.forName("com.taosdata.jdbc.ws.WebSocketDriver");
+    }
+
+    private static String url(boolean compression) {
+        return "jdbc:TAOS-WS://127.0.0.1:" + adapter.getPort() + "/?user=root&password=taosdata&blockCompression=" + compression;
+    }
+
+    private static List<String> readAll(String url) throws SQLException {
+        List<String> rows = new ArrayList<>();
+        try (Connection conn = DriverManager.getConnection(url);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("select * from t")) {
+            while (rs.next()) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 1; i <= 8; i++) {
+                    sb.append(rs.getString(i)).append(',');
+                }
+                rows.add(sb.toString());
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    public void testSameRows() throws SQLException {
+        long bytes = adapter.getBlockBytesSent();
+        List<String> plain = readAll(url(false));
+        long plainBytes = adapter.getBlockBytesSent() - bytes;
+
+        bytes = adapter.getBlockBytesSent();
+        List<String> compressed = readAll(url(true));
+        long compressedBytes = adapter.getBlockBytesSent() - bytes;
+
+        Assert.assertEquals(BLOCKS * ROWS, plain.size());
+        Assert.assertEquals(plain, compressed);
+        Assert.assertTrue(compressedBytes + " of " + plainBytes, compressedBytes < plainBytes / 3);
+    }
+
+    @Test
+    public void testServerWithoutCompression() throws SQLException {
+        List<String> expected = readAll(url(false));
+        adapter.setBlockCompression(false);
+        try {
+            long bytes = adapter.getBlockBytesSent();
+            Assert.assertEquals(expected, readAll(url(true)));
+            Assert.assertTrue(adapter.getBlockBytesSent() - bytes > (long) BLOCKS * ROWS * 8);
+        } finally {
+            adapter.setBlockCompression(true);
+        }
+    }
+
+    @Test
+    public void testNewerVersionWithoutCompression() throws SQLException {
+        List<String> expected = readAll(url(false));
+        adapter.setFetchVersion(FetchReq.BLOCK_COMPRESSION_VERSION);
+        try {
+            // only a request that asked for a compression gets the compression byte back
+            Assert.assertEquals(expected, readAll(url(false)));
+            Assert.assertEquals(expected, readAll(url(true)));
+        } finally {
+            adapter.setFetchVersion((short) 0);
+        }
+    }
+
+    @AfterClass
+    public static void after() {
+        if (adapter != null) {
+            adapter.close();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.taosdata.jdbc.ws;
+
+import com.taosdata.jdbc.tmq.MapDeserializer;
+import com.taosdata.jdbc.tmq.OffsetAndMetadata;
+import com.taosdata.jdbc.tmq.TMQConstants;
+import com.taosdata.jdbc.tmq.TaosConsumer;
+import com.taosdata.jdbc.tmq.TopicPartition;
+import com.taosdata.jdbc.ws.tmq.WSConsumer;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+public class WSConsumerAsyncCommitTest {
+
+    private static final int[] TYPES = {TSDB_DATA_TYPE_TIMESTAMP, TSDB_DATA_TYPE_INT};
+    private static final int MESSAGES = 10;
+    private static final int ROWS = 10;
+    private static final TopicPartition PARTITION = new TopicPartition("topic_fake", 1);
+    private static FakeTaosAdapter adapter;
+
+    @BeforeClass
+    public static void before() throws Exception {
+        adapter = new FakeTaosAdapter().start();
+        adapter.setTmqMessages(FakeTaosAdapter.Result.random(TYPES, 1, ROWS, 3), MESSAGES);
+    }
+
+    private static Properties consumerProperties() {
+        Properties properties = new Properties();
+        properties.setProperty(TMQConstants.BOOTSTRAP_SERVERS, "127.0.0.1:" + adapter.getPort());
+        properties.setProperty(TMQConstants.CONNECT_TYPE, "ws");
+        properties.setProperty(TMQConstants.CONNECT_USER, "root");
+        properties.setProperty(TMQConstants.CONNECT_PASS, "taosdata");
+        properties.setProperty(TMQConstants.GROUP_ID, "gId");
+        properties.setProperty(TMQConstants.ENABLE_AUTO_COMMIT, "false");
+        properties.setProperty(TMQConstants.VALUE_DESERIALIZER, "com.taosdata.jdbc.tmq.MapDeserializer");
+        return properties;
+    }
+
+    @Test
+    public void testCoalesce() throws Exception {
+        try (TaosConsumer<Map<String, Object>> consumer = new TaosConsumer<>(consumerProperties())) {
+            consumer.subscribe(Collections.singletonList("topic_fake"));
+            adapter.setLatencyMs(50);
+            long commits = adapter.getCommitCount();
+
+            int count = 6;
+            CountDownLatch latch = new CountDownLatch(count);
+            List<String> threads = new CopyOnWriteArrayList<>();
+            for (int i = 1; i <= count; i++) {
+                consumer.commitAsync(Collections.singletonMap(PARTITION, new OffsetAndMetadata(i)), (offsets, e) -> {
+                    Assert.assertNull(e);
+                    threads.add(Thread.currentThread().getName());
+                    latch.countDown();
+                });
+            }
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+
+            // the first commit is sent at once, the others wait for it and go as one request
+            Assert.assertEquals(commits + 2, adapter.getCommitCount());
+            Assert.assertEquals(count, consumer.committed(PARTITION).offset());
+            threads.forEach(name -> Assert.assertTrue(name, name.startsWith("taos-tmq-commit-callback")));
+        }
+    }
+
+    @Test
+    public void testCommitMessage() throws Exception {
+        try (TaosConsumer<Map<String, Object>> consumer = new TaosConsumer<>(consumerProperties())) {
+            consumer.subscribe(Collections.singletonList("topic_fake"));
+            Assert.assertEquals(ROWS, consumer.poll(Duration.ofSeconds(1)).count());
+            Assert.assertEquals(ROWS, consumer.poll(Duration.ofSeconds(1)).count());
+
+            CountDownLatch latch = new CountDownLatch(1);
+            AtomicReference<Map<TopicPartition, OffsetAndMetadata>> committed = new AtomicReference<>();
+            consumer.commitAsync((offsets, e) -> {
+                Assert.assertNull(e);
+                committed.set(offsets);
+                latch.countDown();
+            });
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+            Assert.assertEquals(2, committed.get().get(PARTITION).offset());
+            Assert.assertEquals(2, consumer.committed(PARTITION).offset());
+        }
+    }
+
+    @Test
+    public void testAutoCommit() throws Exception {
+        Properties properties = consumerProperties();
+        properties.setProperty(TMQConstants.ENABLE_AUTO_COMMIT, "true");
+        properties.setProperty(TMQConstants.AUTO_COMMIT_INTERVAL, "0");
+        try (TaosConsumer<Map<String, Object>> consumer = new TaosConsumer<>(properties)) {
+            consumer.subscribe(Collections.singletonList("topic_fake"));
+            for (int i = 0; i < 3; i++) {
+                Assert.assertEquals(ROWS, consumer.poll(Duration.ofSeconds(1)).count());
+            }
+            // the commit of the records handed over is sent ahead of the poll, which does not wait for it
+            Thread.sleep(2);
+            Assert.assertEquals(ROWS, consumer.poll(Duration.ofSeconds(1)).count());
+            Assert.assertEquals(3, consumer.committed(PARTITION).offset());
+        }
+    }
+
+    @Test
+    public void testPollAsyncOffSharedPool() throws Exception {
+        Properties properties = consumerProperties();
+        properties.setProperty(TMQConstants.CONNECT_IP, "127.0.0.1");
+        properties.setProperty(TMQConstants.CONNECT_PORT, String.valueOf(adapter.getPort()));
+        WSConsumer<Map<String, Object>> consumer = new WSConsumer<>();
+        consumer.create(properties);
+        try {
+            consumer.subscribe(Collections.singletonList("topic_fake"));
+            // the records are fetched with blocking round trips, not on the common fork join pool
+            String thread = consumer.pollAsync(Duration.ofSeconds(1), new MapDeserializer())
+                    .thenApply(records -> {
+                        Assert.assertEquals(ROWS, records.count());
+                        return Thread.currentThread().getName();
+                    })
+                    .get(5, TimeUnit.SECONDS);
+            Assert.assertTrue(thread, thread.startsWith("taos-async-statement"));
+        } finally {
+            consumer.close();
+        }
+    }
+
+    @After
+    public void reset() {
+        adapter.setLatencyMs(0);
+    }
+
+    @AfterClass
+    public static void after() {
+        if (adapter != null) {
+            adapter.close();
+        }
+    }
+}
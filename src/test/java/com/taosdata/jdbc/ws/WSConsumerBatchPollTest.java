@@ -0,0 +1,118 @@
+package com.taosdata.jdbc.ws;
+
+import com.taosdata.jdbc.tmq.ConsumerRecords;
+import com.taosdata.jdbc.tmq.TMQConstants;
+import com.taosdata.jdbc.tmq.TaosConsumer;
+import com.taosdata.jdbc.tmq.TopicPartition;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+public class WSConsumerBatchPollTest {
+
+    private static final int[] TYPES = {TSDB_DATA_TYPE_TIMESTAMP, TSDB_DATA_TYPE_INT, TSDB_DATA_TYPE_BINARY};
+    private static final int MESSAGES = 10;
+    private static final int ROWS = 100;
+    private static final TopicPartition PARTITION = new TopicPartition("topic_fake", 1);
+    private static FakeTaosAdapter adapter;
+
+    @BeforeClass
+    public static void before() throws Exception {
+        adapter = new FakeTaosAdapter().start();
+        adapter.setTmqMessages(FakeTaosAdapter.Result.random(TYPES, 1, ROWS, 3), MESSAGES);
+    }
+
+    private static Properties consumerProperties() {
+        Properties properties = new Properties();
+        properties.setProperty(TMQConstants.BOOTSTRAP_SERVERS, "127.0.0.1:" + adapter.getPort());
+        properties.setProperty(TMQConstants.CONNECT_TYPE, "ws");
+        properties.setProperty(TMQConstants.CONNECT_USER, "root");
+        properties.setProperty(TMQConstants.CONNECT_PASS, "taosdata");
+        properties.setProperty(TMQConstants.GROUP_ID, "gId");
+        properties.setProperty(TMQConstants.ENABLE_AUTO_COMMIT, "false");
+        properties.setProperty(TMQConstants.VALUE_DESERIALIZER, "com.taosdata.jdbc.tmq.MapDeserializer");
+        return properties;
+    }
+
+    private static int poll(TaosConsumer<Map<String, Object>> consumer) throws SQLException {
+        ConsumerRecords<Map<String, Object>> records = consumer.poll(Duration.ofSeconds(1));
+        return records.count();
+    }
+
+    @Test
+    public void testMaxPollRecords() throws Exception {
+        Properties properties = consumerProperties();
+        properties.setProperty(TMQConstants.MAX_POLL_RECORDS, "250");
+        try (TaosConsumer<Map<String, Object>> consumer = new TaosConsumer<>(properties)) {
+            consumer.subscribe(Collections.singletonList("topic_fake"));
+            // a message is not split, the one crossing the limit is taken whole
+            Assert.assertEquals(300, poll(consumer));
+            Assert.assertEquals(300, poll(consumer));
+            Assert.assertEquals(300, poll(consumer));
+            Assert.assertEquals(100, poll(consumer));
+            Assert.assertEquals(0, consumer.poll(Duration.ofMillis(50)).count());
+
+            consumer.commitSync();
+            Assert.assertEquals(MESSAGES, consumer.committed(PARTITION).offset());
+        }
+    }
+
+    @Test
+    public void testFetchMaxBytes() throws Exception {
+        Properties properties = consumerProperties();
+        properties.setProperty(TMQConstants.FETCH_MAX_BYTES, "1");
+        try (TaosConsumer<Map<String, Object>> consumer = new TaosConsumer<>(properties)) {
+            consumer.subscribe(Collections.singletonList("topic_fake"));
+            Assert.assertEquals(ROWS, poll(consumer));
+        }
+
+        properties.setProperty(TMQConstants.FETCH_MAX_BYTES, String.valueOf(Integer.MAX_VALUE));
+        try (TaosConsumer<Map<String, Object>> consumer = new TaosConsumer<>(properties)) {
+            consumer.subscribe(Collections.singletonList("topic_fake"));
+            Assert.assertEquals(MESSAGES * ROWS, poll(consumer));
+            Assert.assertEquals(0, consumer.poll(Duration.ofMillis(50)).count());
+        }
+    }
+
+    @Test
+    public void testReadAhead() throws Exception {
+        Properties properties = consumerProperties();
+        properties.setProperty(TMQConstants.MAX_POLL_RECORDS, "500");
+        properties.setProperty(TMQConstants.READ_AHEAD_MESSAGES, "3");
+        try (TaosConsumer<Map<String, Object>> consumer = new TaosConsumer<>(properties)) {
+            consumer.subscribe(Collections.singletonList("topic_fake"));
+            int rows = 0;
+            for (int count = poll(consumer); count > 0; count = poll(consumer)) {
+                Assert.assertTrue(count <= 500);
+                rows += count;
+            }
+            Assert.assertEquals(MESSAGES * ROWS, rows);
+
+            consumer.commitSync();
+            Assert.assertEquals(MESSAGES - 1, consumer.committed(PARTITION).offset());
+        }
+    }
+
+    @Test(expected = SQLException.class)
+    public void testInvalidMaxPollRecords() throws SQLException {
+        Properties properties = consumerProperties();
+        properties.setProperty(TMQConstants.MAX_POLL_RECORDS, "-1");
+        new TaosConsumer<Map<String, Object>>(properties).close();
+    }
+
+    @AfterClass
+    public static void after() {
+        if (adapter != null) {
+            adapter.close();
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.taosdata.jdbc.ws;
+
+import com.taosdata.jdbc.tmq.ConsumerRecord;
+import com.taosdata.jdbc.tmq.ConsumerRecords;
+import com.taosdata.jdbc.tmq.ReferenceDeserializer;
+import com.taosdata.jdbc.tmq.TMQConstants;
+import com.taosdata.jdbc.tmq.TaosConsumer;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+public class WSConsumerBeanTest {
+
+    private static final int[] TYPES = {TSDB_DATA_TYPE_TIMESTAMP, TSDB_DATA_TYPE_INT, TSDB_DATA_TYPE_SMALLINT,
+            TSDB_DATA_TYPE_TINYINT, TSDB_DATA_TYPE_FLOAT, TSDB_DATA_TYPE_DOUBLE, TSDB_DATA_TYPE_BINARY,
+            TSDB_DATA_TYPE_NCHAR, TSDB_DATA_TYPE_BOOL};
+    private static final int MESSAGES = 3;
+    private static final int ROWS = 200;
+    private static FakeTaosAdapter adapter;
+
+    @BeforeClass
+    public static void before() throws Exception {
+        adapter = new FakeTaosAdapter().start();
+        adapter.setTmqMessages(FakeTaosAdapter.Result.random(TYPES, 2, ROWS / 2, 7), MESSAGES);
+    }
+
+    private static Properties consumerProperties(Class<?> deserializer) {
+        Properties properties = new Properties();
+        properties.setProperty(TMQConstants.BOOTSTRAP_SERVERS, "127.0.0.1:" + adapter.getPort());
+        properties.setProperty(TMQConstants.CONNECT_TYPE, "ws");
+        properties.setProperty(TMQConstants.CONNECT_USER, "root");
+        properties.setProperty(TMQConstants.CONNECT_PASS, "taosdata");
+        properties.setProperty(TMQConstants.GROUP_ID, "gId");
+        properties.setProperty(TMQConstants.VALUE_DESERIALIZER, deserializer.getName());
+        return properties;
+    }
+
+    private static <V> List<V> pollAll(Class<?> deserializer) throws SQLException {
+        List<V> values = new ArrayList<>();
+        try (TaosConsumer<V> consumer = new TaosConsumer<>(consumerProperties(deserializer))) {
+            consumer.subscribe(Collections.singletonList("topic_fake"));
+            for (int i = 0; i < MESSAGES; i++) {
+                ConsumerRecords<V> records = consumer.poll(Duration.ofSeconds(1));
+                for (ConsumerRecord<V> r : records) {
+                    values.add(r.value());
+                }
+            }
+        }
+        return values;
+    }
+
+    private static String string(Object value) {
+        return value instanceof byte[] ? new String((byte[]) value, StandardCharsets.UTF_8) : (String) value;
+    }
+
+    @Test
+    public void testPublicBean() throws Exception {
+        List<Map<String, Object>> maps = pollAll(com.taosdata.jdbc.tmq.MapDeserializer.class);
+        List<PublicBean> beans = pollAll(PublicBeanDeserializer.class);
+        Assert.assertEquals(MESSAGES * ROWS, beans.size());
+        Assert.assertEquals(maps.size(), beans.size());
+        for (int i = 0; i < beans.size(); i++) {
+            Map<String, Object> map = maps.get(i);
+            PublicBean bean = beans.get(i);
+            Assert.assertEquals(map.get("c0"), bean.getC0());
+            Assert.assertEquals(map.get("c1") == null ? 0 : ((Number) map.get("c1")).intValue(), bean.getC1());
+            Assert.assertEquals(map.get("c2") == null ? null : ((Number) map.get("c2")).shortValue(), bean.getC2());
+            Assert.assertEquals(map.get("c3") == null ? 0 : ((Number) map.get("c3")).byteValue(), bean.getC3());
+            Assert.assertEquals(map.get("c4") == null ? 0 : ((Number) map.get("c4")).floatValue(), bean.getC4(), 0);
+            Assert.assertEquals(map.get("c5") == null ? null : ((Number) map.get("c5")).doubleValue(), bean.getC5());
+            Assert.assertEquals(string(map.get("c6")), bean.getC6());
+            Assert.assertEquals(string(map.get("c7")), bean.getC7());
+            Assert.assertEquals(map.get("c8"), bean.getC8());
+        }
+    }
+
+    @Test
+    public void testPackagePrivateBean() throws Exception {
+        List<Map<String, Object>> maps = pollAll(com.taosdata.jdbc.tmq.MapDeserializer.class);
+        List<PackageBean> beans = pollAll(PackageBeanDeserializer.class);
+        Assert.assertEquals(maps.size(), beans.size());
+        for (int i = 0; i < beans.size(); i++) {
+            Map<String, Object> map = maps.get(i);
+            PackageBean bean = beans.get(i);
+            Assert.assertEquals(map.get("c0"), bean.c0);
+            Assert.assertEquals(map.get("c1"), bean.c1);
+            Assert.assertEquals(map.get("c5") == null ? 0 : ((Number) map.get("c5")).doubleValue(), bean.c5, 0);
+            Assert.assertEquals(string(map.get("c6")), bean.c6);
+        }
+    }
+
+    @AfterClass
+    public static void after() {
+        if (adapter != null) {
+            adapter.close();
+        }
+    }
+
+    public static class PublicBeanDeserializer extends ReferenceDeserializer<PublicBean> {
+    }
+
+    public static class PackageBeanDeserializer extends ReferenceDeserializer<PackageBean> {
+    }
+
+    public static class PublicBean {
+        private Timestamp c0;
+        private int c1;
+        private Short c2;
+        private byte c3;
+        private float c4;
+        private Double c5;
+        private String c6;
+        private String c7;
+        private Boolean c8;
+
+        public Timestamp getC0() {
+            return c0;
+        }
+
+        public void setC0(Timestamp c0) {
+            this.c0 = c0;
+        }
+
+        public int getC1() {
+            return c1;
+        }
+
+        public void setC1(int c1) {
+            this.c1 = c1;
+        }
+
+        public Short getC2() {
+            return c2;
+        }
+
+        public void setC2(Short c2) {
+            this.c2 = c2;
+        }
+
+        public byte getC3() {
+            return c3;
+        }
+
+        public void setC3(byte c3) {
+            this.c3 = c3;
+        }
+
+        public float getC4() {
+            return c4;
+        }
+
+        public void setC4(float c4) {
+            this.c4 = c4;
+        }
+
+        public Double getC5() {
+            return c5;
+        }
+
+        public void setC5(Double c5) {
+            this.c5 = c5;
+        }
+
+        public String getC6() {
+            return c6;
+        }
+
+        public void setC6(String c6) {
+            this.c6 = c6;
+        }
+
+        public String getC7() {
+            return c7;
+        }
+
+        public void setC7(String c7) {
+            this.c7 = c7;
+        }
+
+        public Boolean getC8() {
+            return c8;
+        }
+
+        public void setC8(Boolean c8) {
+            this.c8 = c8;
+        }
+    }
+
+    // not public, set through method handles
+    static class PackageBean {
+        Timestamp c0;
+        Integer c1;
+        double c5;
+        String c6;
+
+        public void setC0(Timestamp c0) {
+            this.c0 = c0;
+        }
+
+        public void setC1(Integer c1) {
+            this.c1 = c1;
+        }
+
+        public void setC5(double c5) {
+            this.c5 = c5;
+        }
+
+        public void setC6(String c6) {
+            this.c6 = c6;
+        }
+    }
+}
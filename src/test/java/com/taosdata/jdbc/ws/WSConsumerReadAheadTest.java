@@ -0,0 +1,118 @@
+package com.taosdata.jdbc.ws;
+
+import com.taosdata.jdbc.tmq.ConsumerRecords;
+import com.taosdata.jdbc.tmq.TMQConstants;
+import com.taosdata.jdbc.tmq.TaosConsumer;
+import com.taosdata.jdbc.tmq.TopicPartition;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Properties;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+public class WSConsumerReadAheadTest {
+
+    private static final int[] TYPES = {TSDB_DATA_TYPE_TIMESTAMP, TSDB_DATA_TYPE_INT, TSDB_DATA_TYPE_BINARY};
+    private static final int MESSAGES = 10;
+    private static final int ROWS = 100;
+    private static final TopicPartition PARTITION = new TopicPartition("topic_fake", 1);
+    private static FakeTaosAdapter adapter;
+
+    @BeforeClass
+    public static void before() throws Exception {
+        adapter = new FakeTaosAdapter().start();
+        adapter.setTmqMessages(FakeTaosAdapter.Result.random(TYPES, 1, ROWS, 3), MESSAGES);
+    }
+
+    private static Properties consumerProperties() {
+        Properties properties = new Properties();
+        properties.setProperty(TMQConstants.BOOTSTRAP_SERVERS, "127.0.0.1:" + adapter.getPort());
+        properties.setProperty(TMQConstants.CONNECT_TYPE, "ws");
+        properties.setProperty(TMQConstants.CONNECT_USER, "root");
+        properties.setProperty(TMQConstants.CONNECT_PASS, "taosdata");
+        properties.setProperty(TMQConstants.GROUP_ID, "gId");
+        properties.setProperty(TMQConstants.ENABLE_AUTO_COMMIT, "false");
+        properties.setProperty(TMQConstants.VALUE_DESERIALIZER, "com.taosdata.jdbc.tmq.MapDeserializer");
+        properties.setProperty(TMQConstants.READ_AHEAD_MESSAGES, "3");
+        return properties;
+    }
+
+    private static void awaitPolled(long expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (adapter.getMessagesPolled() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static int pollRows(TaosConsumer<Map<String, Object>> consumer, int messages) throws SQLException {
+        int rows = 0;
+        for (int i = 0; i < messages; i++) {
+            ConsumerRecords<Map<String, Object>> records = consumer.poll(Duration.ofSeconds(1));
+            Assert.assertEquals(ROWS, records.count());
+            rows += records.count();
+        }
+        return rows;
+    }
+
+    @Test
+    public void testReadAhead() throws Exception {
+        long polled = adapter.getMessagesPolled();
+        try (TaosConsumer<Map<String, Object>> consumer = new TaosConsumer<>(consumerProperties())) {
+            consumer.subscribe(Collections.singletonList("topic_fake"));
+            int rows = pollRows(consumer, 1);
+
+            // one message handed over and three buffered, no more
+            awaitPolled(polled + 4);
+            Thread.sleep(100);
+            Assert.assertEquals(polled + 4, adapter.getMessagesPolled());
+
+            // the commit stops at the first message not handed over
+            consumer.commitSync();
+            Assert.assertEquals(1, consumer.committed(PARTITION).offset());
+
+            // the buffered messages are dropped and read again
+            Assert.assertEquals(1, consumer.position(PARTITION));
+            rows += pollRows(consumer, MESSAGES - 1);
+            Assert.assertEquals(MESSAGES * ROWS, rows);
+            Assert.assertEquals(0, consumer.poll(Duration.ofMillis(50)).count());
+
+            consumer.commitSync();
+            Assert.assertEquals(MESSAGES - 1, consumer.committed(PARTITION).offset());
+        }
+    }
+
+    @Test
+    public void testSeek() throws Exception {
+        long polled = adapter.getMessagesPolled();
+        try (TaosConsumer<Map<String, Object>> consumer = new TaosConsumer<>(consumerProperties())) {
+            consumer.subscribe(Collections.singletonList("topic_fake"));
+            pollRows(consumer, 2);
+            awaitPolled(polled + 5);
+
+            consumer.seek(PARTITION, 0);
+            Assert.assertEquals(MESSAGES * ROWS, pollRows(consumer, MESSAGES));
+            Assert.assertEquals(0, consumer.poll(Duration.ofMillis(50)).count());
+        }
+    }
+
+    @Test(expected = SQLException.class)
+    public void testInvalidReadAhead() throws SQLException {
+        Properties properties = consumerProperties();
+        properties.setProperty(TMQConstants.READ_AHEAD_MESSAGES, "-1");
+        new TaosConsumer<Map<String, Object>>(properties).close();
+    }
+
+    @AfterClass
+    public static void after() {
+        if (adapter != null) {
+            adapter.close();
+        }
+    }
+}
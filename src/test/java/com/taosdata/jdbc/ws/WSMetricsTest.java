@@ -0,0 +1,121 @@
+package com.taosdata.jdbc.ws;
+
+import com.taosdata.jdbc.metrics.Metrics;
+import com.taosdata.jdbc.metrics.MetricsRegistry;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+public class WSMetricsTest {
+
+    private static FakeTaosAdapter adapter;
+
+    @BeforeClass
+    public static void before() throws Exception {
+        adapter = new FakeTaosAdapter().start();
+        adapter.setResult(FakeTaosAdapter.Result.random(new int[]{TSDB_DATA_TYPE_TIMESTAMP, TSDB_DATA_TYPE_INT}, 3, 100, 1));
+        Class.forName("com.taosdata.jdbc.ws.WebSocketDriver");
+        // the global metrics are published with the first connection
+        Metrics.registry(Metrics.JMX);
+    }
+
+    private static Connection connect(String registry) throws SQLException {
+        return DriverManager.getConnection("jdbc:TAOS-WS://127.0.0.1:" + adapter.getPort()
+                + "/?user=root&password=taosdata&metricsRegistry=" + registry);
+    }
+
+    private static void query(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("select * from t")) {
+            while (rs.next()) {
+                rs.getInt(2);
+            }
+        }
+    }
+
+    @Test
+    public void testConnectionMetrics() throws Exception {
+        long globalRows = Metrics.global().getRowsDecoded();
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Set<ObjectName> before = server.queryNames(new ObjectName("com.taosdata.jdbc:type=Metrics,*"), null);
+        Assert.assertTrue(before.contains(new ObjectName("com.taosdata.jdbc:type=Metrics,name=global")));
+
+        try (Connection conn = connect("jmx")) {
+            query(conn);
+            Metrics metrics = conn.unwrap(WSConnection.class).getTransport().getMetrics();
+            Assert.assertEquals(Long.valueOf(1), metrics.getRequestCount().get("binary_query"));
+            // three blocks and the completed one
+            Assert.assertEquals(Long.valueOf(4), metrics.getRequestCount().get("fetch_block_new"));
+            Assert.assertEquals(3, metrics.getBlocksDecoded());
+            Assert.assertEquals(300, metrics.getRowsDecoded());
+            Assert.assertEquals(0, metrics.getInFlightRequests());
+            Assert.assertTrue(metrics.getBinaryBytesReceived() > 300 * 12);
+            Assert.assertTrue(metrics.getBinaryBytesSent() > 0);
+            Assert.assertTrue(metrics.getTextBytesReceived() > 0);
+            Assert.assertTrue(metrics.getRequestLatency("binary_query").getMaxNanos() > 0);
+
+            Set<ObjectName> open = server.queryNames(new ObjectName("com.taosdata.jdbc:type=Metrics,*"), null);
+            Assert.assertEquals(before.size() + 1, open.size());
+            open.removeAll(before);
+            Assert.assertEquals(300L, server.getAttribute(open.iterator().next(), "RowsDecoded"));
+        }
+        Assert.assertEquals(before, server.queryNames(new ObjectName("com.taosdata.jdbc:type=Metrics,*"), null));
+        Assert.assertTrue(Metrics.global().getRowsDecoded() - globalRows >= 300);
+        Assert.assertNotNull(server.getAttribute(new ObjectName("com.taosdata.jdbc:type=Metrics,name=global"), "TimeoutCount"));
+    }
+
+    public static class MapRegistry implements MetricsRegistry {
+        static final Map<String, Metrics> REGISTERED = new ConcurrentHashMap<>();
+
+        @Override
+        public void register(String name, Metrics metrics) {
+            REGISTERED.put(name, metrics);
+        }
+
+        @Override
+        public void unregister(String name) {
+            REGISTERED.remove(name);
+        }
+    }
+
+    @Test
+    public void testCustomRegistry() throws SQLException {
+        try (Connection conn = connect(MapRegistry.class.getName())) {
+            query(conn);
+            Assert.assertSame(Metrics.global(), MapRegistry.REGISTERED.get(Metrics.GLOBAL));
+            Assert.assertEquals(2, MapRegistry.REGISTERED.size());
+        }
+        Assert.assertEquals(1, MapRegistry.REGISTERED.size());
+    }
+
+    @Test
+    public void testInvalidRegistry() {
+        try (Connection ignored = connect("com.example.NoSuchRegistry")) {
+            Assert.fail("unknown registry class");
+        } catch (SQLException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("PROPERTY_KEY_METRICS_REGISTRY"));
+        }
+    }
+
+    @AfterClass
+    public static void after() {
+        if (adapter != null) {
+            adapter.close();
+        }
+    }
+}
@@ -11,7 +11,10 @@ import org.junit.*;
 import org.junit.runner.RunWith;
 
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
 import java.util.stream.IntStream;
 
@@ -46,6 +49,27 @@ public class WSQueryTest {
         latch.await();
     }
 
+    @Description("async query")
+    @Test
+    public void queryAsync() throws Exception {
+        int num = 10;
+        try (Statement statement = connection.createStatement()) {
+            WSStatement wsStatement = statement.unwrap(WSStatement.class);
+            List<CompletableFuture<Integer>> inserts = new ArrayList<>();
+            for (int i = 0; i < num; i++) {
+                inserts.add(wsStatement.executeUpdateAsync("insert into " + db_name + "." + tableName + " values(now+" + i + "s, " + i + ")"));
+            }
+            for (CompletableFuture<Integer> insert : inserts) {
+                Assert.assertEquals(1, insert.get().intValue());
+            }
+
+            try (ResultSet resultSet = wsStatement.executeAsync("select count(*) from " + db_name + "." + tableName).get()) {
+                Assert.assertTrue(resultSet.next());
+                Assert.assertEquals(num, resultSet.getLong(1));
+            }
+        }
+    }
+
     @Before
     public void before() throws SQLException {
         System.setProperty("java.util.concurrent.ForkJoinPool.common.parallelism", "80");
@@ -0,0 +1,91 @@
+package com.taosdata.jdbc.ws;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+public class WSResultSetCloseTest {
+    private static final int ROWS = 100;
+    private static FakeTaosAdapter adapter;
+    private Connection connection;
+    private Transport transport;
+
+    @BeforeClass
+    public static void before() throws Exception {
+        adapter = new FakeTaosAdapter().start();
+        adapter.setResult(FakeTaosAdapter.Result.random(new int[]{TSDB_DATA_TYPE_TIMESTAMP, TSDB_DATA_TYPE_INT}, 10, ROWS, 1));
+        Class.forName("com.taosdata.jdbc.ws.WebSocketDriver");
+    }
+
+    @Before
+    public void connect() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:TAOS-WS://127.0.0.1:" + adapter.getPort() + "/?user=root&password=taosdata");
+        transport = connection.unwrap(WSConnection.class).getTransport();
+    }
+
+    // read the blocks fetched by the consumer and the first read-ahead one, leaving a slow fetch in flight
+    private static void readIntoReadAhead(ResultSet resultSet) throws SQLException {
+        for (int i = 0; i < 3 * ROWS; i++) {
+            Assert.assertTrue(resultSet.next());
+        }
+        adapter.setLatencyMs(300);
+        Assert.assertTrue(resultSet.next());
+    }
+
+    @Test
+    public void testCloseWaitsForFetch() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            ResultSet resultSet = statement.executeQuery("select * from t");
+            readIntoReadAhead(resultSet);
+            resultSet.close();
+            Assert.assertEquals(0, transport.getPrefetchBudget().used());
+        }
+    }
+
+    @Test
+    public void testInterruptedClose() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            ResultSet resultSet = statement.executeQuery("select * from t");
+            readIntoReadAhead(resultSet);
+
+            Thread.currentThread().interrupt();
+            long start = System.currentTimeMillis();
+            resultSet.close();
+            long elapsed = System.currentTimeMillis() - start;
+            Assert.assertTrue(Thread.interrupted());
+            Assert.assertTrue(String.valueOf(elapsed), elapsed < 200);
+            Assert.assertTrue(resultSet.isClosed());
+
+            // the block arriving later is released by the fetch
+            long deadline = System.currentTimeMillis() + 5000;
+            while (transport.getPrefetchBudget().used() != 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(0, transport.getPrefetchBudget().used());
+        }
+    }
+
+    @After
+    public void close() throws SQLException {
+        adapter.setLatencyMs(0);
+        connection.close();
+    }
+
+    @AfterClass
+    public static void after() {
+        if (adapter != null) {
+            adapter.close();
+        }
+    }
+}
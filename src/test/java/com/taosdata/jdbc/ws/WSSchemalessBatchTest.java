@@ -0,0 +1,145 @@
+package com.taosdata.jdbc.ws;
+
+import com.taosdata.jdbc.SchemalessWriter;
+import com.taosdata.jdbc.TSDBDriver;
+import com.taosdata.jdbc.enums.SchemalessProtocolType;
+import com.taosdata.jdbc.enums.SchemalessTimestampType;
+import com.taosdata.jdbc.ws.schemaless.SchemalessBatchResult;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.List;
+
+public class WSSchemalessBatchTest {
+    private static final String[] LINES = new String[10];
+    private static final int BATCH_BYTES;
+
+    static {
+        for (int i = 0; i < LINES.length; i++) {
+            LINES[i] = "measurement,host=host1 field1=2i,field2=2.0 15778373" + (10000 + i);
+        }
+        // three lines and their separators in one batch
+        BATCH_BYTES = 3 * (LINES[0].length() + 1);
+    }
+
+    private FakeTaosAdapter adapter;
+
+    @BeforeClass
+    public static void beforeClass() throws ClassNotFoundException {
+        Class.forName("com.taosdata.jdbc.ws.WebSocketDriver");
+    }
+
+    @Before
+    public void before() throws InterruptedException {
+        adapter = new FakeTaosAdapter().start();
+    }
+
+    private Connection connect(int batchBytes, int maxInflight) throws SQLException {
+        return DriverManager.getConnection("jdbc:TAOS-WS://127.0.0.1:" + adapter.getPort() + "/?user=root&password=taosdata"
+                + "&" + TSDBDriver.PROPERTY_KEY_SCHEMALESS_BATCH_BYTES + "=" + batchBytes
+                + "&" + TSDBDriver.PROPERTY_KEY_SCHEMALESS_MAX_INFLIGHT + "=" + maxInflight);
+    }
+
+    private static List<SchemalessBatchResult> write(Connection connection, Long reqId) throws SQLException {
+        return connection.unwrap(WSConnection.class).writeBatch(LINES, SchemalessProtocolType.LINE,
+                SchemalessTimestampType.MILLI_SECONDS, null, reqId);
+    }
+
+    @Test
+    public void testOneLinePerRequestByDefault() throws SQLException {
+        adapter.setLatencyMs(5);
+        try (Connection connection = DriverManager.getConnection("jdbc:TAOS-WS://127.0.0.1:" + adapter.getPort()
+                + "/?user=root&password=taosdata")) {
+            Assert.assertEquals(LINES.length, write(connection, null).size());
+        }
+        Assert.assertEquals(LINES.length, adapter.getInsertReqIds().size());
+        Assert.assertEquals(LINES.length, adapter.getLinesInserted());
+        // sent one after another, a failed line stops the write
+        Assert.assertEquals(1, adapter.getMaxInsertsInFlight());
+    }
+
+    @Test
+    public void testBatching() throws SQLException {
+        try (Connection connection = connect(BATCH_BYTES, 4)) {
+            List<SchemalessBatchResult> results = write(connection, null);
+            Assert.assertEquals(4, results.size());
+            Assert.assertEquals(9, results.get(3).getOffset());
+            Assert.assertEquals(1, results.get(3).getLineCount());
+        }
+        Assert.assertEquals(4, adapter.getInsertReqIds().size());
+        Assert.assertEquals(4, adapter.getInsertReqIds().stream().distinct().count());
+        Assert.assertEquals(LINES.length, adapter.getLinesInserted());
+    }
+
+    @Test
+    public void testMaxInflight() throws SQLException {
+        adapter.setLatencyMs(20);
+        try (Connection connection = connect(0, 3)) {
+            Assert.assertEquals(LINES.length, write(connection, null).size());
+        }
+        Assert.assertEquals(3, adapter.getMaxInsertsInFlight());
+        Assert.assertEquals(LINES.length, adapter.getLinesInserted());
+    }
+
+    @Test
+    public void testReqIdOnEveryBatch() throws SQLException {
+        adapter.setLatencyMs(5);
+        try (Connection connection = connect(BATCH_BYTES, 4)) {
+            for (SchemalessBatchResult result : write(connection, 42L)) {
+                Assert.assertTrue(result.isSuccess());
+                Assert.assertEquals(42L, result.getReqId());
+            }
+        }
+        Assert.assertEquals(4, adapter.getInsertReqIds().size());
+        adapter.getInsertReqIds().forEach(id -> Assert.assertEquals(42L, id.longValue()));
+        // requests in flight need distinct ids
+        Assert.assertEquals(1, adapter.getMaxInsertsInFlight());
+    }
+
+    @Test
+    public void testErrorStopsSending() throws SQLException {
+        adapter.setError("insert", 2, 0x2603, "invalid line");
+        try (Connection connection = connect(BATCH_BYTES, 1)) {
+            List<SchemalessBatchResult> results = write(connection, null);
+            Assert.assertEquals(2, results.size());
+            Assert.assertTrue(results.get(0).isSuccess());
+            Assert.assertEquals(0x2603, results.get(1).getCode());
+            Assert.assertEquals("invalid line", results.get(1).getMessage());
+        }
+        // the whole second batch is rejected, nothing is sent after it
+        Assert.assertEquals(2, adapter.getInsertReqIds().size());
+        Assert.assertEquals(3, adapter.getLinesInserted());
+
+        try (Connection connection = connect(0, 1)) {
+            connection.unwrap(WSConnection.class).write(LINES, SchemalessProtocolType.LINE,
+                    SchemalessTimestampType.MILLI_SECONDS, null, null);
+            Assert.fail("expected the failed insert to be thrown");
+        } catch (SQLException e) {
+            Assert.assertTrue(e.getMessage(), e.getMessage().contains("invalid line"));
+        }
+    }
+
+    @Test
+    public void testSchemalessWriterParams() throws SQLException {
+        adapter.setLatencyMs(20);
+        try (SchemalessWriter writer = new SchemalessWriter("jdbc:TAOS-RS://127.0.0.1:" + adapter.getPort()
+                + "/?user=root&password=taosdata&" + TSDBDriver.PROPERTY_KEY_SCHEMALESS_BATCH_BYTES + "=" + BATCH_BYTES
+                + "&" + TSDBDriver.PROPERTY_KEY_SCHEMALESS_MAX_INFLIGHT + "=2")) {
+            writer.write(LINES, SchemalessProtocolType.LINE, SchemalessTimestampType.MILLI_SECONDS);
+        }
+        Assert.assertEquals(4, adapter.getInsertReqIds().size());
+        Assert.assertEquals(2, adapter.getMaxInsertsInFlight());
+        Assert.assertEquals(LINES.length, adapter.getLinesInserted());
+    }
+
+    @After
+    public void after() {
+        adapter.close();
+    }
+}
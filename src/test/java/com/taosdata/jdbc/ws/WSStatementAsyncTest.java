@@ -0,0 +1,123 @@
+package com.taosdata.jdbc.ws;
+
+import com.taosdata.jdbc.TSDBErrorNumbers;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+public class WSStatementAsyncTest {
+    private static FakeTaosAdapter adapter;
+    private Connection connection;
+
+    @BeforeClass
+    public static void before() throws Exception {
+        adapter = new FakeTaosAdapter().start();
+        adapter.setResult(FakeTaosAdapter.Result.random(new int[]{TSDB_DATA_TYPE_TIMESTAMP, TSDB_DATA_TYPE_INT}, 2, 10, 1));
+        Class.forName("com.taosdata.jdbc.ws.WebSocketDriver");
+    }
+
+    @Before
+    public void connect() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:TAOS-WS://127.0.0.1:" + adapter.getPort() + "/?user=root&password=taosdata");
+    }
+
+    @Test
+    public void testCompletedOffEventLoop() throws Exception {
+        adapter.setLatencyMs(50);
+        try (Statement statement = connection.createStatement()) {
+            CompletableFuture<String> thread = statement.unwrap(WSStatement.class).executeAsync("select * from t")
+                    .thenApply(rs -> Thread.currentThread().getName());
+            Assert.assertTrue(thread.get(5, TimeUnit.SECONDS), thread.get().startsWith("taos-async-statement"));
+            try (ResultSet resultSet = statement.getResultSet()) {
+                int rows = 0;
+                while (resultSet.next()) {
+                    rows++;
+                }
+                Assert.assertEquals(20, rows);
+            }
+        }
+    }
+
+    @Test
+    public void testClosedWhileInFlight() throws Exception {
+        adapter.setLatencyMs(100);
+        long freed = adapter.getFreedResults();
+        Statement statement = connection.createStatement();
+        CompletableFuture<ResultSet> future = statement.unwrap(WSStatement.class).executeAsync("select * from t");
+        statement.close();
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            Assert.fail("expect the statement closed");
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof SQLException);
+            Assert.assertEquals(TSDBErrorNumbers.ERROR_STATEMENT_CLOSED, ((SQLException) e.getCause()).getErrorCode());
+        }
+        // the result set made for the late response is released on the server
+        long deadline = System.currentTimeMillis() + 5000;
+        while (adapter.getFreedResults() == freed && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        Assert.assertEquals(freed + 1, adapter.getFreedResults());
+    }
+
+    @Test
+    public void testInterruptedWhileWaiting() throws Exception {
+        adapter.setLatencyMs(100);
+        Transport transport = connection.unwrap(WSConnection.class).getTransport();
+        try (Statement statement = connection.createStatement()) {
+            Thread.currentThread().interrupt();
+            try {
+                statement.executeQuery("select * from t");
+                Assert.fail("expect the wait interrupted");
+            } catch (SQLException e) {
+                Assert.assertTrue(e.getMessage(), e.getMessage().contains("interrupted"));
+            }
+            Assert.assertTrue(Thread.interrupted());
+            Assert.assertEquals(0, transport.getMetrics().getInFlightRequests());
+        }
+    }
+
+    @Test
+    public void testNotBlockedByFullWindow() throws Exception {
+        adapter.setLatencyMs(100);
+        try (Connection one = DriverManager.getConnection("jdbc:TAOS-WS://127.0.0.1:" + adapter.getPort()
+                + "/?user=root&password=taosdata&maxConcurrentRequest=1");
+             Statement first = one.createStatement();
+             Statement second = one.createStatement()) {
+            long start = System.nanoTime();
+            CompletableFuture<ResultSet> a = first.unwrap(WSStatement.class).executeAsync("select * from t");
+            // no free slot, the request waits in the queue instead of parking the caller
+            CompletableFuture<ResultSet> b = second.unwrap(WSStatement.class).executeAsync("select * from t");
+            Assert.assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(80));
+            Assert.assertNotNull(a.get(5, TimeUnit.SECONDS));
+            Assert.assertNotNull(b.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @After
+    public void close() throws SQLException {
+        adapter.setLatencyMs(0);
+        connection.close();
+    }
+
+    @AfterClass
+    public static void after() {
+        if (adapter != null) {
+            adapter.close();
+        }
+    }
+}
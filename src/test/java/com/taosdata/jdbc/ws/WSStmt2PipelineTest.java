@@ -0,0 +1,114 @@
+package com.taosdata.jdbc.ws;
+
+import com.taosdata.jdbc.enums.FieldBindType;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.Arrays;
+
+import static com.taosdata.jdbc.TSDBConstants.TSDB_DATA_TYPE_INT;
+import static com.taosdata.jdbc.TSDBConstants.TSDB_DATA_TYPE_TIMESTAMP;
+
+public class WSStmt2PipelineTest {
+
+    private static final int BATCHES = 12;
+    private static final int ROWS = 100;
+    private static FakeTaosAdapter adapter;
+
+    @BeforeClass
+    public static void before() throws Exception {
+        adapter = new FakeTaosAdapter().start();
+        adapter.setStmt2Fields(Arrays.asList(
+                FakeTaosAdapter.field("ts", TSDB_DATA_TYPE_TIMESTAMP, FieldBindType.TAOS_FIELD_COL),
+                FakeTaosAdapter.field("v", TSDB_DATA_TYPE_INT, FieldBindType.TAOS_FIELD_COL)));
+        adapter.setStmt2LatencyMs(20);
+        Class.forName("com.taosdata.jdbc.ws.WebSocketDriver");
+    }
+
+    private static Connection connect(int depth) throws SQLException {
+        return DriverManager.getConnection("jdbc:TAOS-WS://127.0.0.1:" + adapter.getPort()
+                + "/?user=root&password=taosdata&stmt2PipelineDepth=" + depth);
+    }
+
+    private static int[] addRows(PreparedStatement pstmt, int batch) throws SQLException {
+        for (int i = 0; i < ROWS; i++) {
+            pstmt.setTimestamp(1, new Timestamp(1700000000000L + batch * ROWS + i));
+            pstmt.setInt(2, i);
+            pstmt.addBatch();
+        }
+        return pstmt.executeBatch();
+    }
+
+    @Test
+    public void testPipelined() throws SQLException {
+        long rows = adapter.getRowsExecuted();
+        try (Connection conn = connect(4);
+             PreparedStatement pstmt = conn.prepareStatement("insert into t values(?, ?)")) {
+            for (int b = 0; b < BATCHES; b++) {
+                Assert.assertEquals(ROWS, addRows(pstmt, b).length);
+            }
+            int[] counts = pstmt.unwrap(TSWSPreparedStatement.class).flushBatches();
+
+            int[] expected = new int[BATCHES];
+            Arrays.fill(expected, ROWS);
+            Assert.assertArrayEquals(expected, counts);
+            Assert.assertEquals(0, pstmt.unwrap(TSWSPreparedStatement.class).flushBatches().length);
+        }
+        Assert.assertEquals(BATCHES * ROWS, adapter.getRowsExecuted() - rows);
+        Assert.assertTrue(adapter.getMaxStmt2InFlight() > 1);
+        Assert.assertTrue(adapter.getMaxStmt2InFlight() <= 4);
+    }
+
+    @Test
+    public void testFailedBatch() throws SQLException {
+        try (Connection conn = connect(3);
+             PreparedStatement pstmt = conn.prepareStatement("insert into t values(?, ?)")) {
+            // the exec counter is shared by all statements on the adapter
+            adapter.setFailedExec(adapter.getExecCount() + 3);
+            addRows(pstmt, 0);
+            addRows(pstmt, 1);
+            addRows(pstmt, 2);
+            addRows(pstmt, 3);
+            try {
+                pstmt.unwrap(TSWSPreparedStatement.class).flushBatches();
+                Assert.fail("batch 2 should fail");
+            } catch (BatchUpdateException e) {
+                Assert.assertArrayEquals(new int[]{ROWS, ROWS, Statement.EXECUTE_FAILED, ROWS}, e.getUpdateCounts());
+                Assert.assertEquals(0x2603, e.getErrorCode());
+                Assert.assertTrue(e.getMessage(), e.getMessage().startsWith("batch 2 failed"));
+            }
+            Assert.assertEquals(0, pstmt.unwrap(TSWSPreparedStatement.class).flushBatches().length);
+        }
+    }
+
+    @Test
+    public void testNotPipelined() throws SQLException {
+        try (Connection conn = connect(1);
+             PreparedStatement pstmt = conn.prepareStatement("insert into t values(?, ?)")) {
+            Assert.assertEquals(ROWS, addRows(pstmt, 0).length);
+            Assert.assertEquals(0, pstmt.unwrap(TSWSPreparedStatement.class).flushBatches().length);
+        }
+    }
+
+    @After
+    public void reset() {
+        adapter.setFailedExec(0);
+    }
+
+    @AfterClass
+    public static void after() {
+        if (adapter != null) {
+            adapter.close();
+        }
+    }
+}
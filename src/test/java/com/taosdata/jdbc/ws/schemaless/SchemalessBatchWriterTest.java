@@ -0,0 +1,60 @@
+package com.taosdata.jdbc.ws.schemaless;
+
+import com.taosdata.jdbc.enums.SchemalessProtocolType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class SchemalessBatchWriterTest {
+
+    private static final String[] LINES = new String[]{
+            "measurement,host=host1 field1=2i,field2=2.0 1577837300000",
+            "measurement,host=host1 field1=2i,field2=2.0 1577837400000",
+            "measurement,host=host1 field1=2i,field2=2.0 1577837500000",
+            "measurement,host=host1 field1=2i,field2=2.0 1577837600000",
+    };
+
+    @Test
+    public void testSplitBySize() {
+        int lineSize = LINES[0].length() + 1;
+        List<int[]> batches = SchemalessBatchWriter.split(LINES, SchemalessProtocolType.LINE, lineSize * 2);
+        Assert.assertEquals(2, batches.size());
+        Assert.assertArrayEquals(new int[]{0, 2}, batches.get(0));
+        Assert.assertArrayEquals(new int[]{2, 2}, batches.get(1));
+    }
+
+    @Test
+    public void testSplitAllInOne() {
+        List<int[]> batches = SchemalessBatchWriter.split(LINES, SchemalessProtocolType.TELNET, 1024 * 1024);
+        Assert.assertEquals(1, batches.size());
+        Assert.assertArrayEquals(new int[]{0, 4}, batches.get(0));
+    }
+
+    @Test
+    public void testSplitLineLargerThanLimit() {
+        List<int[]> batches = SchemalessBatchWriter.split(LINES, SchemalessProtocolType.LINE, 10);
+        Assert.assertEquals(4, batches.size());
+        Assert.assertArrayEquals(new int[]{3, 1}, batches.get(3));
+    }
+
+    @Test
+    public void testSplitJsonAndDisabled() {
+        Assert.assertEquals(4, SchemalessBatchWriter.split(LINES, SchemalessProtocolType.JSON, 1024 * 1024).size());
+        Assert.assertEquals(4, SchemalessBatchWriter.split(LINES, SchemalessProtocolType.LINE, 0).size());
+        Assert.assertEquals(0, SchemalessBatchWriter.split(new String[0], SchemalessProtocolType.LINE, 1024).size());
+    }
+
+    @Test
+    public void testJoin() {
+        Assert.assertEquals(LINES[1], SchemalessBatchWriter.join(LINES, 1, 1));
+        Assert.assertEquals(LINES[1] + "\n" + LINES[2], SchemalessBatchWriter.join(LINES, 1, 2));
+    }
+
+    @Test
+    public void testUtf8Length() {
+        String s = "a涛思😀";
+        Assert.assertEquals(s.getBytes(StandardCharsets.UTF_8).length, SchemalessBatchWriter.utf8Length(s));
+    }
+}
@@ -2,6 +2,7 @@ package com.taosdata.jdbc.ws.stmt;
 
 import com.taosdata.jdbc.GeometryTest;
 import com.taosdata.jdbc.TSDBDriver;
+import com.taosdata.jdbc.TableVGroupID;
 import com.taosdata.jdbc.utils.TestUtils;
 import com.taosdata.jdbc.utils.Utils;
 import com.taosdata.jdbc.ws.TaosAdapterMock;
@@ -77,6 +78,36 @@ public class WsEfficientWritingTest {
         Assert.assertEquals(numOfSubTable * numOfRow, Utils.getSqlRows(connection, db_name + "." + tableName));
     }
 
+    @Test
+    public void testVGroupRouting() throws SQLException {
+        String sql = "INSERT INTO " + db_name + "." + tableName + "(tbname, ts, current, voltage, phase) VALUES (?,?,?,?,?)";
+
+        long current = System.currentTimeMillis();
+        Properties properties = new Properties();
+        properties.setProperty(TSDBDriver.PROPERTY_KEY_VGROUP_ROUTING, "true");
+        try (Connection con = getConnection(properties);
+             PreparedStatement pstmt = con.prepareStatement(sql)) {
+            int vgId = new TableVGroupID(con).getTableVgID(db_name, "d_bind_1");
+            Assert.assertTrue(vgId > 0);
+
+            for (int j = 0; j < numOfRow; j++) {
+                current = current + 1000;
+                for (int i = 1; i <= numOfSubTable; i++) {
+                    pstmt.setString(1, "d_bind_" + i);
+                    pstmt.setTimestamp(2, new Timestamp(current));
+                    pstmt.setFloat(3, random.nextFloat() * 30);
+                    pstmt.setInt(4, random.nextInt(300));
+                    pstmt.setFloat(5, random.nextFloat());
+                    pstmt.addBatch();
+                }
+                pstmt.executeBatch();
+            }
+            pstmt.executeUpdate();
+        }
+
+        Assert.assertEquals(numOfSubTable * numOfRow, Utils.getSqlRows(connection, db_name + "." + tableName));
+    }
+
     @Test
     public void testCopyData() throws SQLException {
         String sql = "INSERT INTO " + db_name + "." + tableNameCopyData + "(tbname, ts, b, groupId) VALUES (?,?,?,?)";
@@ -393,15 +424,7 @@ public class WsEfficientWritingTest {
     }
 
     private Connection getConnection(boolean copyData, boolean strictCheck, int port) throws SQLException {
-        String url = "jdbc:TAOS-WS://" + host + ":" + port + "/?user=root&password=taosdata";
         Properties properties = new Properties();
-        properties.setProperty(TSDBDriver.PROPERTY_KEY_ASYNC_WRITE, "stmt");
-        properties.setProperty(TSDBDriver.PROPERTY_KEY_BATCH_SIZE_BY_ROW, "100");
-        properties.setProperty(TSDBDriver.PROPERTY_KEY_BACKEND_WRITE_THREAD_NUM, "5");
-
-        properties.setProperty(TSDBDriver.PROPERTY_KEY_ENABLE_AUTO_RECONNECT, "true");
-        properties.setProperty(TSDBDriver.PROPERTY_KEY_MESSAGE_WAIT_TIMEOUT, "50000");
-
         if (copyData) {
             properties.setProperty(TSDBDriver.PROPERTY_KEY_COPY_DATA, "true");
         }
@@ -409,6 +432,21 @@ public class WsEfficientWritingTest {
         if (strictCheck){
             properties.setProperty(TSDBDriver.PROPERTY_KEY_STRICT_CHECK, "true");
         }
+        return getConnection(properties, port);
+    }
+
+    private Connection getConnection(Properties properties) throws SQLException {
+        return getConnection(properties, 6041);
+    }
+
+    private Connection getConnection(Properties properties, int port) throws SQLException {
+        String url = "jdbc:TAOS-WS://" + host + ":" + port + "/?user=root&password=taosdata";
+        properties.setProperty(TSDBDriver.PROPERTY_KEY_ASYNC_WRITE, "stmt");
+        properties.setProperty(TSDBDriver.PROPERTY_KEY_BATCH_SIZE_BY_ROW, "100");
+        properties.setProperty(TSDBDriver.PROPERTY_KEY_BACKEND_WRITE_THREAD_NUM, "5");
+
+        properties.setProperty(TSDBDriver.PROPERTY_KEY_ENABLE_AUTO_RECONNECT, "true");
+        properties.setProperty(TSDBDriver.PROPERTY_KEY_MESSAGE_WAIT_TIMEOUT, "50000");
         return DriverManager.getConnection(url, properties);
     }
 
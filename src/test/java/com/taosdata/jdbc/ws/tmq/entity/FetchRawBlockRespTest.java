@@ -0,0 +1,44 @@
+package com.taosdata.jdbc.ws.tmq.entity;
+
+import com.taosdata.jdbc.ws.FakeTaosAdapter;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.taosdata.jdbc.TSDBConstants.*;
+
+public class FetchRawBlockRespTest {
+
+    @Test
+    public void testParseBlockInfos() throws SQLException {
+        int[] types = {TSDB_DATA_TYPE_TIMESTAMP, TSDB_DATA_TYPE_INT, TSDB_DATA_TYPE_BINARY};
+        List<byte[]> blocks = Arrays.asList(
+                new FakeTaosAdapter.BlockBuilder(types).addRow(1L, 1, "a").addRow(2L, null, null).build(),
+                new FakeTaosAdapter.BlockBuilder(types).addRow(3L, 3, "c").build());
+        byte[] message = FakeTaosAdapter.rawMessage("d0", new String[]{"ts", "v", "s"}, types, new int[]{8, 4, 16}, blocks);
+
+        ByteBuf buffer = Unpooled.wrappedBuffer(FakeTaosAdapter.fetchRawFrame(7, 1, message));
+        buffer.readerIndex(8);
+        FetchRawBlockResp resp = new FetchRawBlockResp(buffer);
+        resp.init();
+        Assert.assertEquals(7, resp.getReqId());
+        Assert.assertEquals(0, resp.getCode());
+        resp.parseBlockInfos();
+
+        Assert.assertEquals(Arrays.asList("ts", "v", "s"), resp.getColumnNames());
+        Assert.assertEquals("d0", resp.getTableName());
+        Assert.assertEquals(3, resp.getRows());
+        Assert.assertEquals(Arrays.asList(1L, 2L, 3L), resp.getResultData().get(0));
+        Assert.assertEquals(Arrays.asList(1, null, 3), resp.getResultData().get(1));
+        List<Object> strings = resp.getResultData().get(2);
+        Assert.assertArrayEquals("a".getBytes(StandardCharsets.UTF_8), (byte[]) strings.get(0));
+        Assert.assertNull(strings.get(1));
+        Assert.assertArrayEquals("c".getBytes(StandardCharsets.UTF_8), (byte[]) strings.get(2));
+    }
+}